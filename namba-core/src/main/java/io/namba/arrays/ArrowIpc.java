@@ -0,0 +1,1136 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.namba.arrays;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import org.apache.arrow.flatbuf.Block;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.DictionaryBatch;
+import org.apache.arrow.flatbuf.DictionaryEncoding;
+import org.apache.arrow.flatbuf.DictionaryKind;
+import org.apache.arrow.flatbuf.Endianness;
+import org.apache.arrow.flatbuf.Field;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.FloatingPoint;
+import org.apache.arrow.flatbuf.Footer;
+import org.apache.arrow.flatbuf.Int;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.flatbuf.MetadataVersion;
+import org.apache.arrow.flatbuf.Precision;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.flatbuf.Schema;
+import org.apache.arrow.flatbuf.TimeUnit;
+import org.apache.arrow.flatbuf.Timestamp;
+import org.apache.arrow.flatbuf.Type;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+
+/**
+ * Reads and writes lists and tables in the Apache Arrow IPC stream and file
+ * formats.
+ * 
+ * <p>
+ * Columns map to Arrow types as follows:
+ * </p>
+ * <ul>
+ * <li>{@link IntList}, {@link LongList} and {@link DoubleList} (and their
+ * direct variants) to 32-bit and 64-bit signed integers and 64-bit floating
+ * point numbers, keeping their null elements.</li>
+ * <li>{@link Mask} to booleans.</li>
+ * <li>{@link StringList} to UTF-8 strings.</li>
+ * <li>{@link CategoryList} to dictionary-encoded UTF-8 strings, with 32-bit
+ * indices.</li>
+ * <li>{@link DateTimeArray} to nanosecond timestamps without a time zone.
+ * Timestamps of other units are converted to nanoseconds when read, and
+ * timestamps with a time zone are read as UTC date-times.</li>
+ * </ul>
+ * <p>
+ * Smaller integer types and 32-bit floating point numbers are widened when
+ * read. Tables are written as a single record batch. When a file holds a
+ * single record batch, its int, long and double columns without nulls are read
+ * as {@link DirectIntList}, {@link DirectLongList} and {@link DirectDoubleList}
+ * views of the mapped file, without copying. All other columns are copied to
+ * heap lists.
+ * </p>
+ * 
+ * <p>
+ * This class needs the optional <code>org.apache.arrow:arrow-format</code>
+ * dependency.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public final class ArrowIpc {
+
+	private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+	private static final int CONTINUATION = 0xFFFFFFFF;
+	private static final int ALIGNMENT = 8;
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private ArrowIpc() {
+	}
+
+	/**
+	 * Writes the table to the output stream in the Arrow IPC stream format. The
+	 * stream is not closed.
+	 */
+	public static void writeStream(Table table, OutputStream out) throws IOException {
+		Objects.requireNonNull(out, "output stream may not be null");
+
+		List<ArrowColumn> columns = encode(table);
+		MessageWriter writer = new MessageWriter(Channels.newChannel(out));
+		writeMessages(columns, table.size(), writer, new ArrayList<>(), new ArrayList<>());
+		writer.writeEndOfStream();
+	}
+
+	/**
+	 * Writes a single list to the output stream, as a one-column table.
+	 */
+	public static void writeStream(NambaList list, OutputStream out) throws IOException {
+		writeStream(Table.of(null, list), out);
+	}
+
+	/**
+	 * Writes the table to the given path in the Arrow IPC file format, replacing
+	 * any existing file.
+	 */
+	public static void writeFile(Table table, Path path) throws IOException {
+		Objects.requireNonNull(path, "path may not be null");
+
+		List<ArrowColumn> columns = encode(table);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			MessageWriter writer = new MessageWriter(channel);
+			writer.write(ByteBuffer.wrap(MAGIC));
+			writer.pad();
+
+			List<long[]> dictionaries = new ArrayList<>();
+			List<long[]> batches = new ArrayList<>();
+			writeMessages(columns, table.size(), writer, dictionaries, batches);
+			writer.writeEndOfStream();
+
+			FlatBufferBuilder b = new FlatBufferBuilder();
+			int schema = schema(b, columns);
+			int dictionaryBlocks = blocks(b, dictionaries, true);
+			int batchBlocks = blocks(b, batches, false);
+			b.finish(Footer.createFooter(b, MetadataVersion.V5, schema, dictionaryBlocks, batchBlocks, 0));
+			byte[] footer = b.sizedByteArray();
+
+			writer.write(ByteBuffer.wrap(footer));
+			writer.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, footer.length));
+			writer.write(ByteBuffer.wrap(MAGIC));
+		}
+	}
+
+	/**
+	 * Writes a single list to the given path, as a one-column table.
+	 */
+	public static void writeFile(NambaList list, Path path) throws IOException {
+		writeFile(Table.of(null, list), path);
+	}
+
+	/**
+	 * Reads a table from an Arrow IPC stream. Reading stops at the end-of-stream
+	 * marker or at the end of the input, which is not closed.
+	 */
+	public static Table readStream(InputStream in) throws IOException {
+		ReadableByteChannel channel = Channels.newChannel(Objects.requireNonNull(in, "input stream may not be null"));
+
+		MessageReader reader = new MessageReader(channel);
+		Message message = reader.next();
+		if (null == message || MessageHeader.Schema != message.headerType()) {
+			throw new IOException("Arrow stream does not start with a schema");
+		}
+		Schema schema = (Schema) message.header(new Schema());
+
+		Map<Long, String[]> dictionaries = new HashMap<>();
+		List<Batch> batches = new ArrayList<>();
+		for (message = reader.next(); null != message; message = reader.next()) {
+			Body body = new HeapBody(reader.body(message.bodyLength()));
+
+			if (MessageHeader.DictionaryBatch == message.headerType()) {
+				readDictionary(schema, (DictionaryBatch) message.header(new DictionaryBatch()), body, dictionaries);
+			} else if (MessageHeader.RecordBatch == message.headerType()) {
+				batches.add(new Batch((RecordBatch) message.header(new RecordBatch()), body));
+			} else {
+				throw new IOException("unexpected Arrow message: " + MessageHeader.name(message.headerType()));
+			}
+		}
+
+		return toTable(schema, batches, dictionaries, false);
+	}
+
+	/**
+	 * Reads a table from an Arrow IPC file. The file is mapped rather than read,
+	 * see the class documentation for the columns that remain views of the file.
+	 */
+	public static Table readFile(Path path) throws IOException {
+		Objects.requireNonNull(path, "path may not be null");
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int trailer = Integer.BYTES + MAGIC.length;
+			if (size < 2 * ALIGNMENT + trailer || !Arrays.equals(MAGIC, read(channel, 0, MAGIC.length).array())
+					|| !Arrays.equals(MAGIC, read(channel, size - MAGIC.length, MAGIC.length).array())) {
+				throw new IOException("not an Arrow file: " + path);
+			}
+
+			int footerLength = read(channel, size - trailer, Integer.BYTES).getInt();
+			Footer footer = Footer.getRootAsFooter(read(channel, size - trailer - footerLength, footerLength));
+			Schema schema = footer.schema();
+
+			Map<Long, String[]> dictionaries = new HashMap<>();
+			for (int i = 0; i < footer.dictionariesLength(); i++) {
+				Block block = footer.dictionaries(i);
+				Message message = readMessage(channel, block);
+				readDictionary(schema, (DictionaryBatch) message.header(new DictionaryBatch()),
+						new MappedBody(channel, block.offset() + block.metaDataLength()), dictionaries);
+			}
+
+			List<Batch> batches = new ArrayList<>();
+			for (int i = 0; i < footer.recordBatchesLength(); i++) {
+				Block block = footer.recordBatches(i);
+				Message message = readMessage(channel, block);
+				batches.add(new Batch((RecordBatch) message.header(new RecordBatch()),
+						new MappedBody(channel, block.offset() + block.metaDataLength())));
+			}
+
+			return toTable(schema, batches, dictionaries, 1 == batches.size());
+		}
+	}
+
+	// writing
+
+	private static List<ArrowColumn> encode(Table table) {
+		Objects.requireNonNull(table, "table may not be null");
+
+		List<String> names = table.columnNames();
+		List<ArrowColumn> columns = new ArrayList<>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			columns.add(encode(names.get(i), table.columns.get(i), i));
+		}
+		return columns;
+	}
+
+	private static ArrowColumn encode(String name, NambaList column, long dictionaryId) {
+		int size = column.size();
+
+		if (column instanceof IntList) {
+			IntList l = (IntList) column;
+			ByteBuffer data = allocate((long) size * Integer.BYTES);
+			data.asIntBuffer().put(l.value, l.offset, l.length);
+			return new ArrowColumn(name, Type.Int, b -> Int.createInt(b, 32, true), size, l.nullCount(),
+					validity(l.validity), data);
+		} else if (column instanceof LongList) {
+			LongList l = (LongList) column;
+			ByteBuffer data = allocate((long) size * Long.BYTES);
+			data.asLongBuffer().put(l.value, l.offset, l.length);
+			return new ArrowColumn(name, Type.Int, b -> Int.createInt(b, 64, true), size, l.nullCount(),
+					validity(l.validity), data);
+		} else if (column instanceof DoubleList) {
+			DoubleList l = (DoubleList) column;
+			ByteBuffer data = allocate((long) size * Double.BYTES);
+			data.asDoubleBuffer().put(l.value, l.offset, l.length);
+			return new ArrowColumn(name, Type.FloatingPoint, b -> FloatingPoint.createFloatingPoint(b, Precision.DOUBLE),
+					size, l.nullCount(), validity(l.validity), data);
+		} else if (column instanceof DirectIntList) {
+			DirectIntList l = (DirectIntList) column;
+			return new ArrowColumn(name, Type.Int, b -> Int.createInt(b, 32, true), size, l.nullCount(),
+					validity(l.validity), direct(l, () -> {
+						ByteBuffer data = allocate((long) size * Integer.BYTES);
+						data.asIntBuffer().put(l.toArray());
+						return data;
+					}));
+		} else if (column instanceof DirectLongList) {
+			DirectLongList l = (DirectLongList) column;
+			return new ArrowColumn(name, Type.Int, b -> Int.createInt(b, 64, true), size, l.nullCount(),
+					validity(l.validity), direct(l, () -> {
+						ByteBuffer data = allocate((long) size * Long.BYTES);
+						data.asLongBuffer().put(l.toArray());
+						return data;
+					}));
+		} else if (column instanceof DirectDoubleList) {
+			DirectDoubleList l = (DirectDoubleList) column;
+			return new ArrowColumn(name, Type.FloatingPoint, b -> FloatingPoint.createFloatingPoint(b, Precision.DOUBLE),
+					size, l.nullCount(), validity(l.validity), direct(l, () -> {
+						ByteBuffer data = allocate((long) size * Double.BYTES);
+						data.asDoubleBuffer().put(l.toArray());
+						return data;
+					}));
+		} else if (column instanceof Mask) {
+			return new ArrowColumn(name, Type.Bool, Bool::create, size, 0, EMPTY, validity((Mask) column));
+		} else if (column instanceof DateTimeArray) {
+			DateTimeArray l = (DateTimeArray) column;
+			Mask validity = l.validity();
+			ByteBuffer data = allocate((long) size * Long.BYTES);
+			data.asLongBuffer().put(l.toEpochNanos().value);
+			return new ArrowColumn(name, Type.Timestamp, b -> Timestamp.createTimestamp(b, TimeUnit.NANOSECOND, 0),
+					size, null == validity ? 0 : size - validity.trueCount(), validity(validity), data);
+		} else if (column instanceof CategoryList) {
+			CategoryList l = (CategoryList) column;
+			List<String> levels = l.levels();
+			int[] codes = l.codes();
+
+			ByteBuffer indices = allocate((long) size * Integer.BYTES);
+			indices.asIntBuffer().put(codes);
+			Mask validity = Mask.validity(Mask.of(size, i -> null != levels.get(codes[i])), size);
+
+			ArrowColumn dictionary = utf8(name, levels);
+			return new ArrowColumn(name, size, null == validity ? 0 : size - validity.trueCount(), validity(validity),
+					indices, dictionary, dictionaryId);
+		} else if (column instanceof DataList && DataType.STRING == column.dataType()) {
+			return utf8(name, ((DataList<?>) column).value);
+		}
+
+		throw new IllegalArgumentException("unsupported column type: " + column.dataType());
+	}
+
+	private static ArrowColumn utf8(String name, List<?> values) {
+		int size = values.size();
+		byte[][] bytes = new byte[size][];
+		long total = 0;
+		int nulls = 0;
+		for (int i = 0; i < size; i++) {
+			Object v = values.get(i);
+			if (null == v) {
+				nulls++;
+			} else {
+				bytes[i] = v.toString().getBytes(StandardCharsets.UTF_8);
+				total += bytes[i].length;
+			}
+		}
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("string column too large: " + total + " bytes");
+		}
+
+		ByteBuffer offsets = allocate((size + 1L) * Integer.BYTES);
+		ByteBuffer data = allocate(total);
+		offsets.putInt(0);
+		for (byte[] b : bytes) {
+			if (null != b)
+				data.put(b);
+			offsets.putInt(data.position());
+		}
+
+		Mask validity = 0 == nulls ? null : Mask.of(size, i -> null != bytes[i]);
+		return new ArrowColumn(name, Type.Utf8, Utf8::create, size, nulls, validity(validity), offsets.flip(),
+				data.flip());
+	}
+
+	/**
+	 * The chunks of a direct list, written as they are if they are already
+	 * little-endian, or a little-endian copy otherwise.
+	 */
+	private static ByteBuffer[] direct(DirectList list, Supplier<ByteBuffer> copy) {
+		ByteBuffer[] chunks = list.buffers();
+		for (ByteBuffer chunk : chunks) {
+			if (ByteOrder.LITTLE_ENDIAN != chunk.order()) {
+				return new ByteBuffer[] { copy.get() };
+			}
+		}
+
+		ByteBuffer[] views = new ByteBuffer[chunks.length];
+		for (int c = 0; c < chunks.length; c++) {
+			views[c] = chunks[c].duplicate().clear();
+		}
+		return views;
+	}
+
+	private static ByteBuffer validity(Mask mask) {
+		if (null == mask) {
+			return EMPTY;
+		}
+
+		long[] words = mask.words();
+		ByteBuffer b = allocate((long) words.length * Long.BYTES);
+		b.asLongBuffer().put(words);
+		return b;
+	}
+
+	private static ByteBuffer allocate(long bytes) {
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("column too large: " + bytes + " bytes");
+		}
+		return ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static void writeMessages(List<ArrowColumn> columns, int rows, MessageWriter writer,
+			List<long[]> dictionaryBlocks, List<long[]> batchBlocks) throws IOException {
+
+		FlatBufferBuilder b = new FlatBufferBuilder();
+		b.finish(Message.createMessage(b, MetadataVersion.V5, MessageHeader.Schema, schema(b, columns), 0, 0));
+		writer.writeMessage(b.sizedByteArray(), Collections.emptyList());
+
+		for (ArrowColumn column : columns) {
+			if (null != column.dictionary) {
+				List<ByteBuffer[]> body = column.dictionary.buffers;
+				b = new FlatBufferBuilder();
+				int batch = recordBatch(b, column.dictionary.length, Collections.singletonList(column.dictionary));
+				int header = DictionaryBatch.createDictionaryBatch(b, column.dictionaryId, batch, false);
+				b.finish(Message.createMessage(b, MetadataVersion.V5, MessageHeader.DictionaryBatch, header,
+						bodyLength(body), 0));
+				dictionaryBlocks.add(writer.writeMessage(b.sizedByteArray(), body));
+			}
+		}
+
+		List<ByteBuffer[]> body = new ArrayList<>();
+		for (ArrowColumn column : columns) {
+			body.addAll(column.buffers);
+		}
+		b = new FlatBufferBuilder();
+		int batch = recordBatch(b, rows, columns);
+		b.finish(Message.createMessage(b, MetadataVersion.V5, MessageHeader.RecordBatch, batch, bodyLength(body), 0));
+		batchBlocks.add(writer.writeMessage(b.sizedByteArray(), body));
+	}
+
+	private static int schema(FlatBufferBuilder b, List<ArrowColumn> columns) {
+		int[] fields = new int[columns.size()];
+		for (int i = 0; i < fields.length; i++) {
+			ArrowColumn column = columns.get(i);
+			ArrowColumn values = null == column.dictionary ? column : column.dictionary;
+
+			int name = b.createString(column.name);
+			int type = values.typeWriter.applyAsInt(b);
+			int dictionary = 0;
+			if (null != column.dictionary) {
+				dictionary = DictionaryEncoding.createDictionaryEncoding(b, column.dictionaryId,
+						Int.createInt(b, 32, true), false, DictionaryKind.DenseArray);
+			}
+			int children = Field.createChildrenVector(b, new int[0]);
+			fields[i] = Field.createField(b, name, true, values.type, type, dictionary, children, 0);
+		}
+
+		return Schema.createSchema(b, Endianness.Little, Schema.createFieldsVector(b, fields), 0, 0);
+	}
+
+	private static int recordBatch(FlatBufferBuilder b, long rows, List<ArrowColumn> columns) {
+		List<ByteBuffer[]> buffers = new ArrayList<>();
+		for (ArrowColumn column : columns) {
+			buffers.addAll(column.buffers);
+		}
+
+		RecordBatch.startNodesVector(b, columns.size());
+		for (int i = columns.size() - 1; i >= 0; i--) {
+			FieldNode.createFieldNode(b, columns.get(i).length, columns.get(i).nullCount);
+		}
+		int nodes = b.endVector();
+
+		long[] offsets = new long[buffers.size() + 1];
+		for (int i = 0; i < buffers.size(); i++) {
+			offsets[i + 1] = align(offsets[i] + length(buffers.get(i)));
+		}
+		RecordBatch.startBuffersVector(b, buffers.size());
+		for (int i = buffers.size() - 1; i >= 0; i--) {
+			Buffer.createBuffer(b, offsets[i], length(buffers.get(i)));
+		}
+		int bufferVector = b.endVector();
+
+		return RecordBatch.createRecordBatch(b, rows, nodes, bufferVector, 0, 0);
+	}
+
+	private static int blocks(FlatBufferBuilder b, List<long[]> blocks, boolean dictionaries) {
+		if (dictionaries) {
+			Footer.startDictionariesVector(b, blocks.size());
+		} else {
+			Footer.startRecordBatchesVector(b, blocks.size());
+		}
+		for (int i = blocks.size() - 1; i >= 0; i--) {
+			long[] block = blocks.get(i);
+			Block.createBlock(b, block[0], (int) block[1], block[2]);
+		}
+		return b.endVector();
+	}
+
+	private static long bodyLength(List<ByteBuffer[]> buffers) {
+		long length = 0;
+		for (ByteBuffer[] buffer : buffers) {
+			length = align(length + length(buffer));
+		}
+		return length;
+	}
+
+	private static long length(ByteBuffer[] buffer) {
+		long length = 0;
+		for (ByteBuffer part : buffer) {
+			length += part.remaining();
+		}
+		return length;
+	}
+
+	private static long align(long position) {
+		return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	// reading
+
+	private static Table toTable(Schema schema, List<Batch> batches, Map<Long, String[]> dictionaries,
+			boolean zeroCopy) throws IOException {
+
+		int fieldCount = schema.fieldsLength();
+		if (0 == fieldCount) {
+			throw new IOException("Arrow schema has no fields");
+		}
+
+		long total = 0;
+		for (Batch batch : batches) {
+			total += batch.header.length();
+		}
+		if (total > Integer.MAX_VALUE) {
+			throw new IOException("too many rows: " + total);
+		}
+		int rows = (int) total;
+
+		List<NambaList> columns = new ArrayList<>(fieldCount);
+		Map<String, Integer> names = new HashMap<>();
+		int firstBuffer = 0;
+		for (int i = 0; i < fieldCount; i++) {
+			Field field = schema.fields(i);
+			columns.add(decode(field, i, firstBuffer, batches, rows, dictionaries, zeroCopy));
+			firstBuffer += bufferCount(field);
+
+			String name = field.name();
+			names.put(null == name || name.trim().isEmpty() ? String.valueOf(i) : name, i);
+		}
+
+		return new Table(rows, Collections.unmodifiableList(columns), Collections.unmodifiableMap(names), null);
+	}
+
+	private static int bufferCount(Field field) {
+		if (null != field.dictionary()) {
+			return 2;
+		}
+
+		switch (field.typeType()) {
+		case Type.Int:
+		case Type.FloatingPoint:
+		case Type.Bool:
+		case Type.Timestamp:
+			return 2;
+		case Type.Utf8:
+			return 3;
+		default:
+			throw new IllegalArgumentException("unsupported Arrow type: " + Type.name(field.typeType()));
+		}
+	}
+
+	private static void readDictionary(Schema schema, DictionaryBatch header, Body body,
+			Map<Long, String[]> dictionaries) throws IOException {
+
+		if (header.isDelta()) {
+			throw new IOException("delta dictionaries are not supported");
+		}
+
+		Batch batch = new Batch(header.data(), body);
+		RecordBatch data = batch.header;
+		if (data.length() > Integer.MAX_VALUE) {
+			throw new IOException("dictionary too large: " + data.length());
+		}
+
+		StringList values = (StringList) readUtf8(batch, 0, 0, (int) data.length());
+		dictionaries.put(header.id(), values.value.toArray(new String[0]));
+	}
+
+	private static NambaList decode(Field field, int node, int firstBuffer, List<Batch> batches, int rows,
+			Map<Long, String[]> dictionaries, boolean zeroCopy) throws IOException {
+
+		DictionaryEncoding dictionary = field.dictionary();
+		if (null != dictionary) {
+			String[] levels = dictionaries.get(dictionary.id());
+			if (null == levels) {
+				throw new IOException("missing dictionary " + dictionary.id() + " for " + field.name());
+			}
+			Int indexType = dictionary.indexType();
+			return readCategories(batches, node, firstBuffer, rows, levels, null == indexType ? 32 : indexType.bitWidth());
+		}
+
+		switch (field.typeType()) {
+		case Type.Int: {
+			Int type = (Int) field.type(new Int());
+			int width = type.bitWidth();
+			if (64 == width && type.isSigned()) {
+				return zeroCopy(batches, node, firstBuffer, Long.BYTES, zeroCopy) ? DirectLongList.wrap(
+						batches.get(0).body.chunks(batches.get(0).header.buffers(firstBuffer + 1), Long.BYTES), rows)
+						: readLongs(batches, node, firstBuffer, rows, 64, true, 1);
+			} else if (32 == width && !type.isSigned()) {
+				return readLongs(batches, node, firstBuffer, rows, 32, false, 1);
+			} else if (width <= 32) {
+				return zeroCopy(batches, node, firstBuffer, Integer.BYTES, zeroCopy && 32 == width)
+						? DirectIntList.wrap(
+								batches.get(0).body.chunks(batches.get(0).header.buffers(firstBuffer + 1), Integer.BYTES),
+								rows)
+						: readInts(batches, node, firstBuffer, rows, width, type.isSigned());
+			}
+			throw new IllegalArgumentException("unsupported Arrow type: uint64");
+		}
+		case Type.FloatingPoint: {
+			short precision = ((FloatingPoint) field.type(new FloatingPoint())).precision();
+			if (Precision.HALF == precision) {
+				throw new IllegalArgumentException("unsupported Arrow type: float16");
+			}
+			return zeroCopy(batches, node, firstBuffer, Double.BYTES, zeroCopy && Precision.DOUBLE == precision)
+					? DirectDoubleList.wrap(
+							batches.get(0).body.chunks(batches.get(0).header.buffers(firstBuffer + 1), Double.BYTES),
+							rows)
+					: readDoubles(batches, node, firstBuffer, rows, Precision.DOUBLE == precision);
+		}
+		case Type.Bool:
+			return readBooleans(batches, firstBuffer, rows);
+		case Type.Utf8: {
+			List<String> values = new ArrayList<>(rows);
+			for (Batch batch : batches) {
+				values.addAll(((StringList) readUtf8(batch, node, firstBuffer, (int) batch.header.length())).value);
+			}
+			return StringList.of(values);
+		}
+		case Type.Timestamp: {
+			long factor = nanosPer(((Timestamp) field.type(new Timestamp())).unit());
+			LongList nanos = readLongs(batches, node, firstBuffer, rows, 64, true, factor);
+			return DateTimeArray.ofEpochNanos(nanos.value, nanos.validity);
+		}
+		default:
+			throw new IllegalArgumentException("unsupported Arrow type: " + Type.name(field.typeType()));
+		}
+	}
+
+	private static long nanosPer(short unit) {
+		switch (unit) {
+		case TimeUnit.SECOND:
+			return 1_000_000_000L;
+		case TimeUnit.MILLISECOND:
+			return 1_000_000L;
+		case TimeUnit.MICROSECOND:
+			return 1_000L;
+		default:
+			return 1L;
+		}
+	}
+
+	/**
+	 * Whether a column can be a view of the mapped file: a single batch, no nulls
+	 * and values in a byte order that the direct lists can read.
+	 */
+	private static boolean zeroCopy(List<Batch> batches, int node, int firstBuffer, int elementBytes,
+			boolean allowed) {
+		if (!allowed || 1 != batches.size()) {
+			return false;
+		}
+
+		Batch batch = batches.get(0);
+		return 0 == batch.header.nodes(node).nullCount()
+				&& batch.header.buffers(firstBuffer + 1).length() >= batch.header.length() * elementBytes;
+	}
+
+	private static IntList readInts(List<Batch> batches, int node, int firstBuffer, int rows, int width,
+			boolean signed) throws IOException {
+
+		int[] values = new int[rows];
+		ValidityBuilder validity = new ValidityBuilder(rows);
+		int position = 0;
+		for (Batch batch : batches) {
+			int n = (int) batch.header.length();
+			validity.add(batch, node, firstBuffer, position, n);
+
+			ByteBuffer data = batch.buffer(firstBuffer + 1);
+			if (32 == width) {
+				data.asIntBuffer().get(values, position, n);
+			} else {
+				for (int i = 0; i < n; i++) {
+					values[position + i] = (int) integer(data, i, width, signed);
+				}
+			}
+			position += n;
+		}
+
+		return IntList.of(values, validity.build());
+	}
+
+	private static LongList readLongs(List<Batch> batches, int node, int firstBuffer, int rows, int width,
+			boolean signed, long factor) throws IOException {
+
+		long[] values = new long[rows];
+		ValidityBuilder validity = new ValidityBuilder(rows);
+		int position = 0;
+		for (Batch batch : batches) {
+			int n = (int) batch.header.length();
+			validity.add(batch, node, firstBuffer, position, n);
+
+			ByteBuffer data = batch.buffer(firstBuffer + 1);
+			if (64 == width) {
+				data.asLongBuffer().get(values, position, n);
+			} else {
+				for (int i = 0; i < n; i++) {
+					values[position + i] = integer(data, i, width, signed);
+				}
+			}
+			position += n;
+		}
+
+		if (1 != factor) {
+			for (int i = 0; i < rows; i++) {
+				values[i] = Math.multiplyExact(values[i], factor);
+			}
+		}
+
+		return LongList.of(values, validity.build());
+	}
+
+	private static long integer(ByteBuffer data, int i, int width, boolean signed) {
+		switch (width) {
+		case 8:
+			return signed ? data.get(i) : data.get(i) & 0xFFL;
+		case 16:
+			return signed ? data.getShort(i * 2) : data.getShort(i * 2) & 0xFFFFL;
+		case 32:
+			return signed ? data.getInt(i * 4) : data.getInt(i * 4) & 0xFFFFFFFFL;
+		default:
+			throw new IllegalArgumentException("unsupported integer width: " + width);
+		}
+	}
+
+	private static DoubleList readDoubles(List<Batch> batches, int node, int firstBuffer, int rows,
+			boolean doublePrecision) throws IOException {
+
+		double[] values = new double[rows];
+		ValidityBuilder validity = new ValidityBuilder(rows);
+		int position = 0;
+		for (Batch batch : batches) {
+			int n = (int) batch.header.length();
+			validity.add(batch, node, firstBuffer, position, n);
+
+			ByteBuffer data = batch.buffer(firstBuffer + 1);
+			if (doublePrecision) {
+				data.asDoubleBuffer().get(values, position, n);
+			} else {
+				for (int i = 0; i < n; i++) {
+					values[position + i] = data.getFloat(i * Float.BYTES);
+				}
+			}
+			position += n;
+		}
+
+		return DoubleList.of(values, validity.build());
+	}
+
+	/**
+	 * Reads booleans into a mask. Null elements are read as false.
+	 */
+	private static Mask readBooleans(List<Batch> batches, int firstBuffer, int rows) throws IOException {
+		ValidityBuilder values = new ValidityBuilder(rows);
+		int position = 0;
+		for (Batch batch : batches) {
+			int n = (int) batch.header.length();
+			ByteBuffer bits = batch.buffer(firstBuffer + 1);
+			ByteBuffer valid = batch.buffer(firstBuffer);
+			for (int i = 0; i < n; i++) {
+				if (bit(bits, i) && (0 == valid.remaining() || bit(valid, i)))
+					values.set(position + i);
+			}
+			position += n;
+		}
+
+		return Mask.ofWords(values.words, rows);
+	}
+
+	private static NambaList readUtf8(Batch batch, int node, int firstBuffer, int rows) throws IOException {
+		long nullCount = batch.header.nodes(node).nullCount();
+		ByteBuffer valid = batch.buffer(firstBuffer);
+		ByteBuffer offsets = batch.buffer(firstBuffer + 1);
+		ByteBuffer data = batch.buffer(firstBuffer + 2);
+
+		byte[] bytes = new byte[data.remaining()];
+		data.duplicate().get(bytes);
+
+		List<String> values = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			if (0 != nullCount && valid.hasRemaining() && !bit(valid, i)) {
+				values.add(null);
+			} else {
+				int from = offsets.getInt(i * Integer.BYTES);
+				int to = offsets.getInt((i + 1) * Integer.BYTES);
+				values.add(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+			}
+		}
+
+		return StringList.of(values);
+	}
+
+	private static CategoryList readCategories(List<Batch> batches, int node, int firstBuffer, int rows,
+			String[] dictionary, int width) throws IOException {
+
+		IntList indices = readInts(batches, node, firstBuffer, rows, width, true);
+
+		// null elements refer to an extra null level, as CategoryList has no
+		// validity of its own
+		int nullLevel = -1;
+		String[] levels = dictionary;
+		int[] codes = indices.array();
+		if (indices.hasNulls()) {
+			nullLevel = dictionary.length;
+			levels = Arrays.copyOf(dictionary, dictionary.length + 1);
+		}
+
+		Map<Integer, String> mapping = new HashMap<>();
+		for (int i = 0; i < levels.length; i++) {
+			mapping.put(i, levels[i]);
+		}
+		for (int i = 0; i < rows; i++) {
+			if (-1 != nullLevel && !indices.validity.isSet(i)) {
+				codes[i] = nullLevel;
+			} else if (codes[i] < 0 || codes[i] >= dictionary.length) {
+				throw new IOException("dictionary index out of range: " + codes[i]);
+			}
+		}
+
+		return new CategoryList(levels, codes, mapping);
+	}
+
+	private static boolean bit(ByteBuffer bits, int i) {
+		return 0 != (bits.get(i >>> 3) & (1 << (i & 7)));
+	}
+
+	private static Message readMessage(FileChannel channel, Block block) throws IOException {
+		ByteBuffer metadata = read(channel, block.offset(), block.metaDataLength());
+		if (CONTINUATION == metadata.getInt(0)) {
+			metadata.position(2 * Integer.BYTES);
+		} else {
+			metadata.position(Integer.BYTES);
+		}
+		return Message.getRootAsMessage(metadata.slice().order(ByteOrder.LITTLE_ENDIAN));
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("unexpected end of Arrow file");
+			}
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * A column laid out as Arrow buffers. Category columns also hold their
+	 * dictionary values.
+	 */
+	private static class ArrowColumn {
+		final String name;
+		final byte type;
+		final ToIntFunction<FlatBufferBuilder> typeWriter;
+		final long length;
+		final long nullCount;
+		final List<ByteBuffer[]> buffers = new ArrayList<>();
+		final ArrowColumn dictionary;
+		final long dictionaryId;
+
+		ArrowColumn(String name, byte type, ToIntFunction<FlatBufferBuilder> typeWriter, long length, long nullCount,
+				ByteBuffer validity, ByteBuffer data) {
+			this(name, type, typeWriter, length, nullCount, validity, new ByteBuffer[] { data });
+		}
+
+		ArrowColumn(String name, byte type, ToIntFunction<FlatBufferBuilder> typeWriter, long length, long nullCount,
+				ByteBuffer validity, ByteBuffer offsets, ByteBuffer data) {
+			this(name, type, typeWriter, length, nullCount, validity, new ByteBuffer[] { offsets });
+			this.buffers.add(new ByteBuffer[] { data });
+		}
+
+		ArrowColumn(String name, byte type, ToIntFunction<FlatBufferBuilder> typeWriter, long length, long nullCount,
+				ByteBuffer validity, ByteBuffer[] chunks) {
+			this(name, type, typeWriter, length, nullCount, null, -1);
+			this.buffers.add(new ByteBuffer[] { validity });
+			this.buffers.add(chunks);
+		}
+
+		ArrowColumn(String name, long length, long nullCount, ByteBuffer validity, ByteBuffer indices,
+				ArrowColumn dictionary, long dictionaryId) {
+			this(name, Type.Int, null, length, nullCount, dictionary, dictionaryId);
+			this.buffers.add(new ByteBuffer[] { validity });
+			this.buffers.add(new ByteBuffer[] { indices });
+		}
+
+		private ArrowColumn(String name, byte type, ToIntFunction<FlatBufferBuilder> typeWriter, long length,
+				long nullCount, ArrowColumn dictionary, long dictionaryId) {
+			this.name = name;
+			this.type = type;
+			this.typeWriter = typeWriter;
+			this.length = length;
+			this.nullCount = nullCount;
+			this.dictionary = dictionary;
+			this.dictionaryId = dictionaryId;
+		}
+	}
+
+	private static class Bool {
+		static int create(FlatBufferBuilder b) {
+			org.apache.arrow.flatbuf.Bool.startBool(b);
+			return org.apache.arrow.flatbuf.Bool.endBool(b);
+		}
+	}
+
+	private static class Utf8 {
+		static int create(FlatBufferBuilder b) {
+			org.apache.arrow.flatbuf.Utf8.startUtf8(b);
+			return org.apache.arrow.flatbuf.Utf8.endUtf8(b);
+		}
+	}
+
+	/**
+	 * Writes encapsulated messages, keeping track of the position for file
+	 * blocks.
+	 */
+	private static class MessageWriter {
+		private final WritableByteChannel channel;
+		private long position;
+
+		MessageWriter(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Writes a message and returns its block: offset, metadata length and body
+		 * length.
+		 */
+		long[] writeMessage(byte[] metadata, List<ByteBuffer[]> body) throws IOException {
+			long offset = this.position;
+			int prefixed = (int) align(2 * Integer.BYTES + metadata.length);
+
+			ByteBuffer prefix = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			prefix.putInt(CONTINUATION).putInt(prefixed - 2 * Integer.BYTES).flip();
+			this.write(prefix);
+			this.write(ByteBuffer.wrap(metadata));
+			this.pad();
+
+			long bodyStart = this.position;
+			for (ByteBuffer[] buffer : body) {
+				for (ByteBuffer part : buffer) {
+					this.write(part.duplicate());
+				}
+				this.pad();
+			}
+
+			return new long[] { offset, prefixed, this.position - bodyStart };
+		}
+
+		void writeEndOfStream() throws IOException {
+			this.write(ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(CONTINUATION)
+					.putInt(0).flip());
+		}
+
+		void pad() throws IOException {
+			int padding = (int) (align(this.position) - this.position);
+			if (0 < padding) {
+				this.write(ByteBuffer.allocate(padding));
+			}
+		}
+
+		void write(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				this.position += this.channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads encapsulated messages from a stream.
+	 */
+	private static class MessageReader {
+		private final ReadableByteChannel channel;
+
+		MessageReader(ReadableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Reads the next message's metadata, or returns null at the end of the
+		 * stream.
+		 */
+		Message next() throws IOException {
+			ByteBuffer prefix = this.read(Integer.BYTES, true);
+			if (null == prefix) {
+				return null;
+			}
+
+			int length = prefix.getInt();
+			if (CONTINUATION == length) {
+				length = this.read(Integer.BYTES, false).getInt();
+			}
+			if (0 == length) {
+				return null;
+			}
+
+			return Message.getRootAsMessage(this.read(length, false));
+		}
+
+		ByteBuffer body(long length) throws IOException {
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Arrow message body too large: " + length);
+			}
+			return this.read((int) length, false);
+		}
+
+		private ByteBuffer read(int length, boolean allowEnd) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining()) {
+				if (this.channel.read(buffer) < 0) {
+					if (allowEnd && 0 == buffer.position()) {
+						return null;
+					}
+					throw new IOException("unexpected end of Arrow stream");
+				}
+			}
+			return buffer.flip();
+		}
+	}
+
+	/**
+	 * A record batch's metadata and body.
+	 */
+	private static class Batch {
+		final RecordBatch header;
+		final Body body;
+
+		Batch(RecordBatch header, Body body) {
+			this.header = header;
+			this.body = body;
+		}
+
+		ByteBuffer buffer(int i) throws IOException {
+			Buffer b = this.header.buffers(i);
+			return this.body.buffer(b.offset(), b.length());
+		}
+	}
+
+	/**
+	 * Access to the buffers of a message body, by offset from the start of the
+	 * body.
+	 */
+	private interface Body {
+		ByteBuffer buffer(long offset, long length) throws IOException;
+
+		/**
+		 * Returns the buffer split into direct list chunks.
+		 */
+		ByteBuffer[] chunks(Buffer buffer, int elementBytes) throws IOException;
+	}
+
+	private static class HeapBody implements Body {
+		private final ByteBuffer body;
+
+		HeapBody(ByteBuffer body) {
+			this.body = body;
+		}
+
+		@Override
+		public ByteBuffer buffer(long offset, long length) throws IOException {
+			if (offset < 0 || offset + length > this.body.limit()) {
+				throw new IOException("Arrow buffer out of bounds");
+			}
+			ByteBuffer view = this.body.duplicate();
+			view.position((int) offset).limit((int) (offset + length));
+			return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		public ByteBuffer[] chunks(Buffer buffer, int elementBytes) throws IOException {
+			return DirectList.split(this.buffer(buffer.offset(), buffer.length()), elementBytes);
+		}
+	}
+
+	private static class MappedBody implements Body {
+		private final FileChannel channel;
+		private final long start;
+
+		MappedBody(FileChannel channel, long start) {
+			this.channel = channel;
+			this.start = start;
+		}
+
+		@Override
+		public ByteBuffer buffer(long offset, long length) throws IOException {
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Arrow buffer too large to map: " + length);
+			}
+			return this.channel.map(FileChannel.MapMode.READ_ONLY, this.start + offset, length)
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		public ByteBuffer[] chunks(Buffer buffer, int elementBytes) throws IOException {
+			long elements = buffer.length() / elementBytes;
+			long chunkBytes = (long) DirectList.CHUNK_SIZE * elementBytes;
+
+			ByteBuffer[] chunks = new ByteBuffer[DirectList.chunkCount(elements)];
+			for (int c = 0; c < chunks.length; c++) {
+				long from = c * chunkBytes;
+				long size = Math.min(chunkBytes, elements * elementBytes - from);
+				chunks[c] = this.channel.map(FileChannel.MapMode.READ_ONLY, this.start + buffer.offset() + from, size)
+						.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return chunks;
+		}
+	}
+
+	/**
+	 * Collects validity bits over all batches of a column.
+	 */
+	private static class ValidityBuilder {
+		private final long[] words;
+		private final int size;
+
+		ValidityBuilder(int size) {
+			this.size = size;
+			this.words = new long[Mask.wordCount(size)];
+		}
+
+		void set(int i) {
+			this.words[i >>> 6] |= 1L << i;
+		}
+
+		void add(Batch batch, int node, int firstBuffer, int position, int rows) throws IOException {
+			ByteBuffer bits = batch.buffer(firstBuffer);
+			boolean all = 0 == batch.header.nodes(node).nullCount() || !bits.hasRemaining();
+			for (int i = 0; i < rows; i++) {
+				if (all || bit(bits, i))
+					this.set(position + i);
+			}
+		}
+
+		Mask build() {
+			return Mask.validity(Mask.ofWords(this.words, this.size), this.size);
+		}
+	}
+}
@@ -24,7 +24,6 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import io.namba.arrays.data.tuple.Three;
-import io.namba.arrays.data.tuple.Two;
 
 /**
  * 
@@ -36,6 +35,7 @@ public class CategoryList implements NambaList {
 	private final String[] levels;
 	private final int[] value;
 	private final Map<Integer, String> mapping;
+	private String name;
 
 	protected CategoryList(List<String> is) {
 		Three<String[], int[], Map<Integer, String>> map = toCategory(is);
@@ -55,6 +55,23 @@ public class CategoryList implements NambaList {
 		return new CategoryList(sl.value);
 	}
 
+	public CategoryList name(String n) {
+		this.name = n;
+		return this;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * The code of each element. Callers must not modify the returned array.
+	 */
+	int[] codes() {
+		return this.value;
+	}
+
 	private static Three<String[], int[], Map<Integer, String>> toCategory(List<String> list) {
 		Map<String, Integer> cats = new HashMap<>();
 		int[] res = new int[list.size()];
@@ -68,8 +85,9 @@ public class CategoryList implements NambaList {
 
 		String[] levels = cats.entrySet().stream().sorted(Map.Entry.comparingByValue()).map(Map.Entry::getKey)
 				.toArray(i -> new String[i]);
-		Map<Integer, String> levelMapping = cats.entrySet().stream().map(vv -> Two.of(vv.getValue(), vv.getKey()))
-				.collect(Collectors.toMap(Two::a, Two::b));
+		// a null element is a level of its own, which Collectors.toMap rejects
+		Map<Integer, String> levelMapping = new HashMap<>();
+		cats.forEach((level, code) -> levelMapping.put(code, level));
 
 		return Three.of(levels, res, levelMapping);
 	}
@@ -140,6 +158,13 @@ public class CategoryList implements NambaList {
 		return null;
 	}
 
+	/**
+	 * Run-length encodes this list's codes.
+	 */
+	public RleCategoryList toRle() {
+		return RleCategoryList.of(this);
+	}
+
 	public List<String> levels() {
 		return Arrays.asList(this.levels);
 	}
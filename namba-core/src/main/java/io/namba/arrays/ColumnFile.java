@@ -0,0 +1,499 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Reads and writes tables in a binary columnar file format.
+ * 
+ * <p>
+ * A file starts with a header holding the format version, the row count and,
+ * for each column, its data type key, its name and the positions of its value
+ * and validity segments. Each segment is aligned on {@link #ALIGNMENT} bytes.
+ * All values are little-endian.
+ * </p>
+ * 
+ * <ul>
+ * <li><code>int</code>, <code>long</code> and <code>double</code> columns are
+ * stored as raw values, and are always opened as {@link DirectIntList},
+ * {@link DirectLongList} and {@link DirectDoubleList} views of the mapped
+ * file, without copying. Columns with nulls also store their validity mask's
+ * 64-bit words in a validity segment, which the view carries.</li>
+ * <li>Date time columns are stored as <code>long</code> nanoseconds since
+ * 1970-01-01T00:00, with a validity segment if they have nulls.</li>
+ * <li><code>boolean</code> columns are stored as the mask's 64-bit words.</li>
+ * <li>Other supported columns (string, category, decimal, big integer, date
+ * and instant) are stored as length-prefixed UTF-8 text, with a length of -1
+ * for nulls. They are decoded when first accessed.</li>
+ * </ul>
+ * 
+ * <p>
+ * Version 1 files have no validity segments, and files before version 3 hold
+ * date times as ISO-8601 text; both are still read.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public final class ColumnFile {
+
+	static final int MAGIC = 0x41424D4E; // "NMBA"
+	static final int VERSION = 3;
+	static final int ALIGNMENT = 64;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ColumnFile() {
+	}
+
+	/**
+	 * Writes the table to the given path, replacing any existing file.
+	 */
+	public static void write(Table table, Path path) throws IOException {
+		Objects.requireNonNull(table, "table may not be null");
+		Objects.requireNonNull(path, "path may not be null");
+
+		int count = table.columns.size();
+		List<String> names = table.columnNames();
+
+		byte[][] nameBytes = new byte[count][];
+		byte[][] typeBytes = new byte[count][];
+		long headerSize = 4 * Integer.BYTES;
+		for (int i = 0; i < count; i++) {
+			DataType type = table.columns.get(i).dataType();
+			if (null == type || !isSupported(type)) {
+				throw new IllegalArgumentException("unsupported column type: " + type);
+			}
+
+			typeBytes[i] = type.getKey().getBytes(StandardCharsets.UTF_8);
+			nameBytes[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+			headerSize += 2 * Integer.BYTES + typeBytes[i].length + nameBytes[i].length + 4 * Long.BYTES;
+		}
+
+		long[] offsets = new long[count];
+		long[] lengths = new long[count];
+		long[] validityOffsets = new long[count];
+		long[] validityLengths = new long[count];
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			SegmentWriter writer = new SegmentWriter(channel, align(headerSize));
+
+			for (int i = 0; i < count; i++) {
+				writer.align();
+				offsets[i] = writer.position();
+				Mask validity = writeColumn(table.columns.get(i), writer);
+				writer.flush();
+				lengths[i] = writer.position() - offsets[i];
+
+				if (null != validity) {
+					writer.align();
+					validityOffsets[i] = writer.position();
+					for (long word : validity.words())
+						writer.buffer(Long.BYTES).putLong(word);
+					writer.flush();
+					validityLengths[i] = writer.position() - validityOffsets[i];
+				}
+			}
+
+			ByteBuffer header = ByteBuffer.allocate((int) headerSize).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(table.size()).putInt(count);
+			for (int i = 0; i < count; i++) {
+				header.putInt(typeBytes[i].length).put(typeBytes[i]);
+				header.putInt(nameBytes[i].length).put(nameBytes[i]);
+				header.putLong(offsets[i]).putLong(lengths[i]);
+				header.putLong(validityOffsets[i]).putLong(validityLengths[i]);
+			}
+			header.flip();
+
+			long position = 0;
+			while (header.hasRemaining()) {
+				position += channel.write(header, position);
+			}
+		}
+	}
+
+	/**
+	 * Writes a single list to the given path, as a one-column table.
+	 */
+	public static void write(NambaList list, Path path) throws IOException {
+		write(Table.of(null, list), path);
+	}
+
+	/**
+	 * Opens a table file. Numeric columns are views of the mapped file, so the
+	 * returned table should be closed when no longer needed.
+	 */
+	public static MappedTable open(Path path) throws IOException {
+		Objects.requireNonNull(path, "path may not be null");
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer fixed = read(channel, 0, 4 * Integer.BYTES);
+			if (MAGIC != fixed.getInt()) {
+				throw new IOException("not a column file: " + path);
+			}
+
+			// version 1 files have no validity segments
+			int version = fixed.getInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException("unsupported column file version: " + version);
+			}
+
+			int rows = fixed.getInt();
+			int count = fixed.getInt();
+
+			long position = fixed.limit();
+			List<Segment> segments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				String typeKey = readString(channel, position);
+				position += Integer.BYTES + typeKey.getBytes(StandardCharsets.UTF_8).length;
+				String name = readString(channel, position);
+				position += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+
+				int locationBytes = (1 == version ? 2 : 4) * Long.BYTES;
+				ByteBuffer location = read(channel, position, locationBytes);
+				position += locationBytes;
+
+				DataType type = DataType.of(typeKey);
+				if (null == type || !isSupported(type)) {
+					throw new IOException("unsupported column type: " + typeKey);
+				}
+
+				ByteBuffer[] buffers = map(channel, elementBytes(type, version), location.getLong(),
+						location.getLong());
+				ByteBuffer validity = null;
+				if (location.hasRemaining()) {
+					long validityOffset = location.getLong();
+					long validityLength = location.getLong();
+					if (0 != validityLength) {
+						validity = channel.map(FileChannel.MapMode.READ_ONLY, validityOffset, validityLength)
+								.order(ByteOrder.LITTLE_ENDIAN);
+					}
+				}
+
+				segments.add(new Segment(name, type, version, buffers, validity));
+			}
+
+			return MappedTable.of(rows, segments);
+		}
+	}
+
+	private static boolean isSupported(DataType type) {
+		switch (type) {
+		case INT:
+		case LONG:
+		case DOUBLE:
+		case BOOLEAN:
+		case STRING:
+		case CATEGORY:
+		case BIGDECIMAL:
+		case BIGINT:
+		case DATE:
+		case DATETIME:
+		case INSTANT:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Size of the column's values if they are stored at a fixed width, or 0 if
+	 * they are stored as text or mask words.
+	 */
+	private static int elementBytes(DataType type, int version) {
+		switch (type) {
+		case INT:
+			return Integer.BYTES;
+		case LONG:
+		case DOUBLE:
+			return Long.BYTES;
+		case DATETIME:
+			return version < 3 ? 0 : Long.BYTES;
+		default:
+			return 0;
+		}
+	}
+
+	private static long align(long position) {
+		return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	/**
+	 * Writes the column's values, returning the validity mask to store in a
+	 * validity segment, or null if the column has no nulls.
+	 */
+	private static Mask writeColumn(NambaList column, SegmentWriter writer) throws IOException {
+		int size = column.size();
+
+		switch (column.dataType()) {
+		case INT:
+			if (column instanceof DirectIntList) {
+				DirectIntList l = (DirectIntList) column;
+				for (long i = 0; i < size; i++)
+					writer.buffer(Integer.BYTES).putInt(l.getAt(i));
+				return l.validity;
+			} else {
+				// encoded lists (run-length, packed) are decoded first
+				IntList l = column.asInt();
+				for (int i = 0; i < size; i++)
+					writer.buffer(Integer.BYTES).putInt(l.getInt(i));
+				return l.validity;
+			}
+		case LONG:
+			if (column instanceof DirectLongList) {
+				DirectLongList l = (DirectLongList) column;
+				for (long i = 0; i < size; i++)
+					writer.buffer(Long.BYTES).putLong(l.getAt(i));
+				return l.validity;
+			} else {
+				LongList l = column.asLong();
+				for (int i = 0; i < size; i++)
+					writer.buffer(Long.BYTES).putLong(l.getLong(i));
+				return l.validity;
+			}
+		case DOUBLE:
+			if (column instanceof DirectDoubleList) {
+				DirectDoubleList l = (DirectDoubleList) column;
+				for (long i = 0; i < size; i++)
+					writer.buffer(Double.BYTES).putDouble(l.getAt(i));
+				return l.validity;
+			} else {
+				DoubleList l = column.asDouble();
+				for (int i = 0; i < size; i++)
+					writer.buffer(Double.BYTES).putDouble(l.getAt(i));
+				return l.validity;
+			}
+		case DATETIME: {
+			LongList l = ((DateTimeArray) column).toEpochNanos();
+			for (int i = 0; i < size; i++)
+				writer.buffer(Long.BYTES).putLong(l.getLong(i));
+			return l.validity;
+		}
+		case BOOLEAN:
+			for (long word : ((Mask) column).words())
+				writer.buffer(Long.BYTES).putLong(word);
+			break;
+		case CATEGORY:
+			writeText(column.string().value, writer);
+			break;
+		default:
+			writeText(((DataList<?>) column).value, writer);
+		}
+
+		return null;
+	}
+
+	private static void writeText(List<?> values, SegmentWriter writer) throws IOException {
+		for (Object v : values) {
+			if (null == v) {
+				writer.buffer(Integer.BYTES).putInt(-1);
+			} else {
+				byte[] bytes = v.toString().getBytes(StandardCharsets.UTF_8);
+				writer.buffer(Integer.BYTES).putInt(bytes.length);
+				writer.write(bytes);
+			}
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("unexpected end of column file");
+			}
+		}
+		return buffer.flip();
+	}
+
+	private static String readString(FileChannel channel, long position) throws IOException {
+		int length = read(channel, position, Integer.BYTES).getInt();
+		return new String(read(channel, position + Integer.BYTES, length).array(), StandardCharsets.UTF_8);
+	}
+
+	private static ByteBuffer[] map(FileChannel channel, int elementBytes, long offset, long length)
+			throws IOException {
+
+		long chunkBytes = (long) DirectList.CHUNK_SIZE * elementBytes;
+		boolean chunked = 0 != elementBytes;
+
+		if (!chunked && length > Integer.MAX_VALUE) {
+			throw new IOException("column segment too large to map: " + length);
+		}
+
+		int count = chunked ? DirectList.chunkCount(length / elementBytes) : 1;
+		ByteBuffer[] buffers = new ByteBuffer[count];
+		for (int c = 0; c < count; c++) {
+			long from = chunked ? c * chunkBytes : 0;
+			long size = chunked ? Math.min(chunkBytes, length - from) : length;
+			// an empty segment may start past the end of the file
+			ByteBuffer buffer = 0 == size ? ByteBuffer.allocate(0)
+					: channel.map(FileChannel.MapMode.READ_ONLY, offset + from, size);
+			buffers[c] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		return buffers;
+	}
+
+	/**
+	 * Decodes a column from its mapped segment.
+	 */
+	static NambaList decode(Segment segment, int rows) {
+		ByteBuffer[] buffers = segment.buffers;
+		Mask validity = null == segment.validity ? null : Mask.ofWords(readWords(segment.validity, rows), rows);
+
+		switch (segment.type) {
+		case INT:
+			return DirectIntList.wrap(buffers, rows, validity);
+		case LONG:
+			return DirectLongList.wrap(buffers, rows, validity);
+		case DOUBLE:
+			return DirectDoubleList.wrap(buffers, rows, validity);
+		case BOOLEAN:
+			return Mask.ofWords(readWords(buffers[0], rows), rows);
+		case STRING:
+			return StringList.of(readText(buffers[0], rows, Function.identity())).name(segment.name);
+		case CATEGORY:
+			return CategoryList.of(StringList.of(readText(buffers[0], rows, Function.identity()))).name(segment.name);
+		case BIGDECIMAL:
+			return DecimalList.of(readText(buffers[0], rows, BigDecimal::new).toArray(new BigDecimal[0]))
+					.name(segment.name);
+		case BIGINT:
+			return new DataList<>(DataType.BIGINT, readText(buffers[0], rows, BigInteger::new)).name(segment.name);
+		case DATE:
+			return new DataList<>(DataType.DATE, readText(buffers[0], rows, LocalDate::parse)).name(segment.name);
+		case INSTANT:
+			return new DataList<>(DataType.INSTANT, readText(buffers[0], rows, Instant::parse)).name(segment.name);
+		case DATETIME:
+			if (segment.version < 3) {
+				return DateTimeArray.of(readText(buffers[0], rows, LocalDateTime::parse)).name(segment.name);
+			}
+			return DateTimeArray.ofEpochNanos(DirectLongList.wrap(buffers, rows).toArray(), validity)
+					.name(segment.name);
+		default:
+			throw new IllegalStateException("unsupported column type: " + segment.type);
+		}
+	}
+
+	private static long[] readWords(ByteBuffer segment, int rows) {
+		long[] words = new long[Mask.wordCount(rows)];
+		segment.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+		return words;
+	}
+
+	private static <T> List<T> readText(ByteBuffer segment, int rows, Function<String, T> parser) {
+		ByteBuffer buffer = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		List<T> values = new ArrayList<>(rows);
+
+		for (int i = 0; i < rows; i++) {
+			int length = buffer.getInt();
+			if (length < 0) {
+				values.add(null);
+			} else {
+				byte[] bytes = new byte[length];
+				buffer.get(bytes);
+				values.add(parser.apply(new String(bytes, StandardCharsets.UTF_8)));
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Location and type of a column within a mapped file, and the version of the
+	 * file it was written in. The validity buffer is null if the column has no
+	 * nulls.
+	 */
+	static class Segment {
+		final String name;
+		final DataType type;
+		final int version;
+		final ByteBuffer[] buffers;
+		final ByteBuffer validity;
+
+		Segment(String name, DataType type, int version, ByteBuffer[] buffers, ByteBuffer validity) {
+			this.name = name;
+			this.type = type;
+			this.version = version;
+			this.buffers = buffers;
+			this.validity = validity;
+		}
+	}
+
+	/**
+	 * Buffers little-endian writes to a channel.
+	 */
+	private static class SegmentWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		private long position;
+
+		SegmentWriter(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		long position() {
+			return this.position + this.buffer.position();
+		}
+
+		ByteBuffer buffer(int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				this.flush();
+			}
+			return this.buffer;
+		}
+
+		void write(byte[] bytes) throws IOException {
+			int from = 0;
+			while (from < bytes.length) {
+				int n = Math.min(bytes.length - from, this.buffer(1).remaining());
+				this.buffer.put(bytes, from, n);
+				from += n;
+			}
+		}
+
+		void align() throws IOException {
+			long padding = ColumnFile.align(this.position()) - this.position();
+			for (long i = 0; i < padding; i++) {
+				this.buffer(1).put((byte) 0);
+			}
+		}
+
+		void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.position += this.channel.write(this.buffer, this.position);
+			}
+			this.buffer.clear();
+		}
+	}
+}
@@ -32,6 +32,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import io.namba.arrays.agg.GroupIndex;
 import io.namba.arrays.agg.ObjectGrouping;
 import io.namba.arrays.data.tuple.Two;
 import io.namba.arrays.range.IntRange;
@@ -100,10 +101,40 @@ public class DataList<T> implements Iterable<T>, NambaList {
 		return new DataList<>(this.dataType, l);
 	}
 
+	/**
+	 * Returns a lazily filtered view of the elements for which the mask is set.
+	 * Further filters and reductions on the view read through its selection
+	 * without copying elements.
+	 */
+	public FilteredDataList<T> filter(Mask mask) {
+		if (Objects.requireNonNull(mask, "mask is null").size() != this.value.size()) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return new FilteredDataList<>(this, Selection.of(mask));
+	}
+
+	/**
+	 * Returns a lazily filtered view of the elements that pass the test.
+	 */
+	public FilteredDataList<T> filter(Predicate<T> test) {
+		return new FilteredDataList<>(this, Selection.all(this.value.size())).filter(test);
+	}
+
 	public T getAt(int is) {
 		return this.value.get(is);
 	}
 
+	/**
+	 * Returns a view of the elements in the contiguous range
+	 * <code>[from, to)</code>, clipped to this list's bounds. The returned list
+	 * shares this list's values instead of copying them.
+	 */
+	@Override
+	public DataList<T> getAt(int from, int to) {
+		int start = Math.max(0, from);
+		return new DataList<>(this.dataType, this.value.subList(start, Math.max(start, Math.min(this.size(), to))));
+	}
+
 	public DataList<T> getAt(IntRange range) {
 		return new DataList<>(this.dataType, range.stream().mapToObj(this.value::get).collect(Collectors.toList()));
 	}
@@ -176,6 +207,32 @@ public class DataList<T> implements Iterable<T>, NambaList {
 		return (int) this.stream().filter(Objects::nonNull).count();
 	}
 
+	/**
+	 * Estimates the number of unique non-null elements in this list with a
+	 * {@link HyperLogLog} sketch, within about 1%.
+	 */
+	public long approxNUnique() {
+		return this.hyperLogLog().estimate();
+	}
+
+	/**
+	 * Builds a {@link HyperLogLog} sketch of this list's non-null elements, which can
+	 * be merged with sketches of other lists.
+	 */
+	public HyperLogLog hyperLogLog() {
+		List<HyperLogLog> parts = Parallelism.map(this.value.size(), (from, to) -> {
+			HyperLogLog sketch = HyperLogLog.of();
+			for (int i = from; i < to; i++)
+				sketch.add(this.value.get(i));
+			return sketch;
+		});
+
+		HyperLogLog sketch = parts.get(0);
+		for (int c = 1; c < parts.size(); c++)
+			sketch.merge(parts.get(c));
+		return sketch;
+	}
+
 	public DataList<T> apply(UnaryOperator<T> op) {
 		return this.map(op::apply);
 	}
@@ -196,7 +253,7 @@ public class DataList<T> implements Iterable<T>, NambaList {
 	}
 
 	public Mask test(Predicate<T> p) {
-		return Mask.of(this.value.stream().map(v -> p.test(v)).toArray(i -> new Boolean[0]));
+		return Mask.of(this.value.stream().map(v -> p.test(v)).toArray(Boolean[]::new));
 	}
 
 	public int count(Predicate<T> p) {
@@ -277,9 +334,7 @@ public class DataList<T> implements Iterable<T>, NambaList {
 	}
 
 	public <K> ObjectGrouping<K, T> groupBy(Function<T, K> classifier) {
-		return ObjectGrouping.ofClasses(this,
-				IntStream.range(0, size()).mapToObj(i -> Two.of(i, classifier.apply(this.value.get(i))))
-						.collect(Collectors.groupingBy(Two::b, Collectors.mapping(Two::a, Collectors.toList()))));
+		return ObjectGrouping.ofClasses(this, GroupIndex.of(this.size(), i -> classifier.apply(this.value.get(i))));
 	}
 
 	public Map<T, Integer> histogram() {
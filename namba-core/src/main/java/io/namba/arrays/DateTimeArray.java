@@ -23,15 +23,21 @@ import java.time.LocalTime;
 import java.time.Month;
 import java.time.Period;
 import java.time.Year;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.UnsupportedTemporalTypeException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -40,6 +46,15 @@ import org.apache.commons.lang3.StringUtils;
 import io.namba.arrays.data.tuple.Two;
 
 /**
+ * A list of date-times, stored as nanoseconds since 1970-01-01T00:00 (with no
+ * time zone) and a null bitmap. Calendar fields, truncation and slicing are
+ * computed on those numbers directly; <code>LocalDateTime</code> objects are
+ * only created when elements are read as such.
+ * 
+ * <p>
+ * As with any nanosecond-based epoch representation, supported values range
+ * from the year 1677 to the year 2262.
+ * </p>
  * 
  * @author Ernest Kiwele
  *
@@ -53,12 +68,34 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 			DateTimeFormatter.ofPattern("yyyyMMddHH"), 12, DateTimeFormatter.ofPattern("yyyyMMddHHmm"), 14,
 			DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
 
+	static final long NANOS_PER_SECOND = 1_000_000_000L;
+	static final long NANOS_PER_DAY = 86_400L * NANOS_PER_SECOND;
+
+	// days from 0000-03-01 to 1970-01-01
+	private static final long EPOCH_SHIFT = 719_468L;
+
+	private final long[] nanos;
+	private final long[] nulls;
+
+	private DateTimeArray(long[] nanos, long[] nulls) {
+		super(DataType.DATETIME, new EpochValues(nanos, nulls));
+		this.nanos = nanos;
+		this.nulls = nulls;
+	}
+
 	private DateTimeArray(List<LocalDateTime> is) {
-		super(DataType.DATETIME, is);
+		this(new long[is.size()], nullsOf(is));
+
+		for (int i = 0; i < this.nanos.length; i++) {
+			LocalDateTime ldt = is.get(i);
+			if (null != ldt) {
+				this.nanos[i] = toEpochNanos(ldt);
+			}
+		}
 	}
 
 	private DateTimeArray(DataList<LocalDateTime> is) {
-		super(DataType.DATETIME, is.value);
+		this(is.value);
 	}
 
 	public static DateTimeArray of(List<LocalDateTime> dt) {
@@ -69,6 +106,151 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 		return new DateTimeArray(Arrays.asList(dt));
 	}
 
+	/**
+	 * Creates an array from nanoseconds since 1970-01-01T00:00.
+	 */
+	public static DateTimeArray ofEpochNanos(long[] nanos) {
+		return new DateTimeArray(nanos, null);
+	}
+
+	/**
+	 * Creates an array from nanoseconds since 1970-01-01T00:00. Elements whose bit
+	 * is not set in <code>validity</code> are null; a null mask makes all elements
+	 * valid.
+	 */
+	public static DateTimeArray ofEpochNanos(long[] nanos, Mask validity) {
+		Mask valid = Mask.validity(validity, nanos.length);
+		return new DateTimeArray(nanos, null == valid ? null : valid.negate().words());
+	}
+
+	private static long[] nullsOf(List<LocalDateTime> is) {
+		long[] bits = null;
+		for (int i = 0; i < is.size(); i++) {
+			if (null == is.get(i)) {
+				if (null == bits) {
+					bits = new long[Mask.wordCount(is.size())];
+				}
+				bits[i >>> 6] |= 1L << i;
+			}
+		}
+		return bits;
+	}
+
+	static long toEpochNanos(LocalDateTime ldt) {
+		return Math.addExact(Math.multiplyExact(ldt.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), ldt.getNano());
+	}
+
+	static LocalDateTime fromEpochNanos(long n) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(n, NANOS_PER_SECOND), (int) Math.floorMod(n, NANOS_PER_SECOND),
+				ZoneOffset.UTC);
+	}
+
+	/**
+	 * Days since 1970-01-01 of the given civil date (proleptic Gregorian).
+	 */
+	static long daysFromCivil(long year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yoe = y - era * 400;
+		long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146_097 + doe - EPOCH_SHIFT;
+	}
+
+	/**
+	 * Splits days since 1970-01-01 into year, month and day of month, packed as
+	 * <code>year << 9 | month << 5 | day</code>.
+	 */
+	static long civilFromDays(long days) {
+		long z = days + EPOCH_SHIFT;
+		long era = Math.floorDiv(z, 146_097);
+		long doe = z - era * 146_097;
+		long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		long d = doy - (153 * mp + 2) / 5 + 1;
+		long m = mp < 10 ? mp + 3 : mp - 9;
+		long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+		return y << 9 | m << 5 | d;
+	}
+
+	private static int yearOf(long civil) {
+		return (int) (civil >> 9);
+	}
+
+	private static int monthOf(long civil) {
+		return (int) (civil >> 5 & 0xF);
+	}
+
+	private static int dayOf(long civil) {
+		return (int) (civil & 0x1F);
+	}
+
+	private static long daysOf(long n) {
+		return Math.floorDiv(n, NANOS_PER_DAY);
+	}
+
+	// ISO day of week, 1 (Monday) to 7; 1970-01-01 was a Thursday
+	private static int dayOfWeekOf(long n) {
+		return Math.floorMod(daysOf(n) + 3, 7) + 1;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		return 2 == month ? (Year.isLeap(year) ? 29 : 28) : 30 + ((month + (month >> 3)) & 1);
+	}
+
+	/**
+	 * The validity of elements, or null if no element is null.
+	 */
+	Mask validity() {
+		return null == this.nulls ? null : Mask.ofWords(this.nulls, this.nanos.length).negate();
+	}
+
+	private boolean isNull(int i) {
+		return null != this.nulls && 0 != (this.nulls[i >>> 6] & (1L << i));
+	}
+
+	/**
+	 * Returns this array's values as nanoseconds since 1970-01-01T00:00. Null
+	 * elements are null in the result.
+	 */
+	public LongList toEpochNanos() {
+		return LongList.of(this.nanos.clone(), this.validity());
+	}
+
+	private IntList field(LongToIntFunction f) {
+		int[] v = new int[this.nanos.length];
+
+		for (int i = 0; i < v.length; i++) {
+			if (!this.isNull(i))
+				v[i] = f.applyAsInt(this.nanos[i]);
+		}
+
+		return IntList.of(v, this.validity());
+	}
+
+	private Mask testNanos(LongPredicate p) {
+		long[] words = new long[Mask.wordCount(this.nanos.length)];
+
+		for (int i = 0; i < this.nanos.length; i++) {
+			if (!this.isNull(i) && p.test(this.nanos[i])) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+
+		return Mask.ofWords(words, this.nanos.length);
+	}
+
+	private DateTimeArray mapNanos(LongUnaryOperator op) {
+		long[] v = new long[this.nanos.length];
+
+		for (int i = 0; i < v.length; i++) {
+			v[i] = this.isNull(i) ? 0 : op.applyAsLong(this.nanos[i]);
+		}
+
+		return new DateTimeArray(v, this.nulls);
+	}
+
 	public static DateTimeArray daysBetween(LocalDateTime from, LocalDateTime to) {
 		return between(from, to, ChronoUnit.DAYS);
 	}
@@ -222,16 +404,19 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 		return new DataList<>(DataType.TIME, dates);
 	}
 
+	/*
+	 * Calendar fields are null for null elements.
+	 */
 	public IntList year() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getYear).toArray());
+		return this.field(n -> yearOf(civilFromDays(daysOf(n))));
 	}
 
 	public IntList month() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getMonthValue).toArray());
+		return this.field(n -> monthOf(civilFromDays(daysOf(n))));
 	}
 
 	public IntList day() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getDayOfMonth).toArray());
+		return this.field(n -> dayOf(civilFromDays(daysOf(n))));
 	}
 
 	public StringList dayName() {
@@ -258,28 +443,33 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	}
 
 	public IntList hour() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getHour).toArray());
+		return this.field(n -> (int) (Math.floorMod(n, NANOS_PER_DAY) / (3600 * NANOS_PER_SECOND)));
 	}
 
 	public IntList minute() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getMinute).toArray());
+		return this.field(n -> (int) (Math.floorMod(n, 3600 * NANOS_PER_SECOND) / (60 * NANOS_PER_SECOND)));
 	}
 
 	public IntList second() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getSecond).toArray());
+		return this.field(n -> (int) (Math.floorMod(n, 60 * NANOS_PER_SECOND) / NANOS_PER_SECOND));
 	}
 
 	public IntList nanosecond() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getNano).toArray());
+		return this.field(n -> (int) Math.floorMod(n, NANOS_PER_SECOND));
 	}
 
 	public IntList dayOfWeek() {
-		return IntList.of(this.value.stream().mapToInt(d -> d.getDayOfWeek().getValue()).toArray());
+		return this.field(DateTimeArray::dayOfWeekOf);
 	}
 
 	public DataList<DayOfWeek> dayOfWeekName() {
-		return new DataList<>(DataType.OBJECT,
-				this.value.stream().map(LocalDateTime::getDayOfWeek).collect(Collectors.toList()));
+		List<DayOfWeek> days = new ArrayList<>(this.nanos.length);
+
+		for (int i = 0; i < this.nanos.length; i++) {
+			days.add(this.isNull(i) ? null : DayOfWeek.of(dayOfWeekOf(this.nanos[i])));
+		}
+
+		return new DataList<>(DataType.OBJECT, days);
 	}
 
 	public IntList weekDay() {
@@ -287,24 +477,18 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	}
 
 	public IntList dayOfYear() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getDayOfYear).toArray());
+		return this.field(n -> {
+			long days = daysOf(n);
+			return (int) (days - daysFromCivil(yearOf(civilFromDays(days)), 1, 1)) + 1;
+		});
 	}
 
 	public IntList quarter() {
-		return IntList.of(this.value.stream().mapToInt(LocalDateTime::getMonthValue).map(i -> 1 + i / 4).toArray());
+		return this.field(n -> (monthOf(civilFromDays(daysOf(n))) - 1) / 3 + 1);
 	}
 
 	public Mask isLeapYear() {
-		boolean[] a = new boolean[this.value.size()];
-
-		for (int i = 0; i < this.value.size(); i++) {
-			if (null == this.value.get(i))
-				continue;
-
-			a[i] = Year.isLeap(this.value.get(i).getYear());
-		}
-
-		return Mask.of(a);
+		return this.testNanos(n -> Year.isLeap(yearOf(civilFromDays(daysOf(n)))));
 	}
 
 	// TODO: Implement
@@ -321,50 +505,100 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 				ChronoUnit.valueOf(Objects.requireNonNull(precision, "precision cannot be null").toUpperCase()));
 	}
 
-	public DateTimeArray truncateTo(ChronoUnit precision) {
-		List<LocalDateTime> res = new ArrayList<>();
+	/**
+	 * Returns the length of the given unit in nanoseconds, failing for units that
+	 * <code>LocalDateTime.truncatedTo</code> does not support.
+	 */
+	private static long truncationNanos(ChronoUnit precision) {
+		if (ChronoUnit.NANOS == precision) {
+			return 1;
+		}
 
-		for (LocalDateTime ldt : this.value) {
-			res.add(null == ldt ? null : ldt.truncatedTo(precision));
+		Duration d = precision.getDuration();
+		if (d.getSeconds() > 86_400L) {
+			throw new UnsupportedTemporalTypeException("Unit is too large to be used for truncation");
 		}
 
-		return new DateTimeArray(res);
+		long n = d.toNanos();
+		if (0 != NANOS_PER_DAY % n) {
+			throw new UnsupportedTemporalTypeException("Unit must divide into a standard day without remainder");
+		}
+		return n;
+	}
+
+	public DateTimeArray truncateTo(ChronoUnit precision) {
+		long unit = truncationNanos(Objects.requireNonNull(precision, "precision cannot be null"));
+
+		return this.mapNanos(n -> n - Math.floorMod(n, unit));
 	}
 
 	public Mask slice(LocalDateTime dateTime, ChronoUnit precision) {
-		LocalDateTime comp = Objects.requireNonNull(dateTime, "date may not be blank").truncatedTo(precision);
+		long unit = truncationNanos(precision);
+		long from = toEpochNanos(Objects.requireNonNull(dateTime, "date may not be blank"));
+		from -= Math.floorMod(from, unit);
 
-		return Mask
-				.of(this.value.stream().map(dt -> dt == null ? Boolean.FALSE : comp.equals(dt.truncatedTo(precision)))
-						.toArray(i -> new Boolean[i]));
+		return this.between(from, from + unit);
 	}
 
+	/**
+	 * Matches elements with the given prefix of <code>yyyyMMddHHmmss</code>,
+	 * ignoring non-digit characters. For example, <code>"2018-10"</code> matches
+	 * all elements in October 2018.
+	 */
 	public Mask slice(String dt) {
 		String date = dt.replaceAll("[^0-9]", "");
-		DateTimeFormatter formatter = FORMATTERS.get(date.length());
-		if (null == formatter) {
+		if (!FORMATTERS.containsKey(date.length())) {
 			throw new IllegalArgumentException("Unsupported slicing pattern: '" + dt + "'");
 		}
 
-		return Mask.of(this.value.stream().map(ldt -> ldt == null ? Boolean.FALSE : date.equals(ldt.format(formatter)))
-				.toArray(i -> new Boolean[i]));
+		int year = Integer.parseInt(date.substring(0, 4));
+		int month = date.length() >= 6 ? Integer.parseInt(date.substring(4, 6)) : 1;
+		int day = date.length() >= 8 ? Integer.parseInt(date.substring(6, 8)) : 1;
+		// validates the fields
+		LocalDateTime start = LocalDateTime.of(year, month, day, 0, 0);
+
+		long from = toEpochNanos(start);
+		long to;
+		switch (date.length()) {
+		case 4:
+			to = toEpochNanos(start.plusYears(1));
+			break;
+		case 6:
+			to = toEpochNanos(start.plusMonths(1));
+			break;
+		case 8:
+			to = from + NANOS_PER_DAY;
+			break;
+		default:
+			int hour = Integer.parseInt(date.substring(8, 10));
+			int minute = date.length() >= 12 ? Integer.parseInt(date.substring(10, 12)) : 0;
+			int second = date.length() >= 14 ? Integer.parseInt(date.substring(12, 14)) : 0;
+			from = toEpochNanos(LocalDateTime.of(year, month, day, hour, minute, second));
+			to = from + (10 == date.length() ? 3600 : 12 == date.length() ? 60 : 1) * NANOS_PER_SECOND;
+		}
+
+		return this.between(from, to);
+	}
+
+	/**
+	 * Elements between <code>from</code> (inclusive) and <code>to</code>
+	 * (exclusive), in epoch nanoseconds.
+	 */
+	private Mask between(long from, long to) {
+		return this.testNanos(n -> n >= from && n < to);
 	}
 
 	public Mask slice(LocalDateTime from, LocalDateTime to) {
-		Objects.requireNonNull(from);
-		Objects.requireNonNull(to);
+		long start = toEpochNanos(Objects.requireNonNull(from));
+		long end = toEpochNanos(Objects.requireNonNull(to));
 
-		return Mask.of(this.value.stream()
-				.map(ldt -> ldt == null ? Boolean.FALSE
-						: (from.isBefore(ldt) || from.equals(ldt)) && (to.isAfter(ldt) || to.equals(ldt)))
-				.toArray(i -> new Boolean[i]));
+		return this.testNanos(n -> n >= start && n <= end);
 	}
 
 	public Mask slice(LocalDate dt) {
-		Objects.requireNonNull(dt);
+		long start = Objects.requireNonNull(dt).toEpochDay() * NANOS_PER_DAY;
 
-		return Mask.of(this.value.stream().map(ldt -> ldt == null ? Boolean.FALSE : (dt.equals(ldt.toLocalDate())))
-				.toArray(i -> new Boolean[i]));
+		return this.between(start, start + NANOS_PER_DAY);
 	}
 
 	public Mask slice(LocalDate dt, ChronoUnit precision) {
@@ -372,37 +606,46 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	}
 
 	public DateTimeArray plus(int days) {
-		List<LocalDateTime> res = new ArrayList<>();
-
-		for (LocalDateTime ldt : this.value) {
-			res.add(null == ldt ? null : ldt.plusDays(days));
-		}
-
-		return new DateTimeArray(res);
+		long d = Math.multiplyExact(days, NANOS_PER_DAY);
+		return this.mapNanos(n -> Math.addExact(n, d));
 	}
 
+	/**
+	 * Adds the given number of days to each element. Elements are null where
+	 * either this array or <code>days</code> is null.
+	 */
 	public DateTimeArray plus(IntList days) {
+		return this.plusDays(days, 1);
+	}
+
+	private DateTimeArray plusDays(IntList days, int sign) {
 		if (this.size() != days.size()) {
 			throw new IllegalArgumentException("arrays are of different sizes");
 		}
 
-		List<LocalDateTime> res = new ArrayList<>();
+		long[] nulls = this.nulls;
+		if (null != days.validity) {
+			nulls = days.validity.negate().words();
+			if (null != this.nulls) {
+				for (int w = 0; w < nulls.length; w++)
+					nulls[w] |= this.nulls[w];
+			}
+		}
 
-		for (int i = 0; i < this.size(); i++) {
-			res.add(null == this.value.get(i) ? null : this.value.get(i).plusDays(days.getAt(i)));
+		long[] v = new long[this.nanos.length];
+
+		for (int i = 0; i < v.length; i++) {
+			if (null == nulls || 0 == (nulls[i >>> 6] & (1L << i))) {
+				v[i] = Math.addExact(this.nanos[i], Math.multiplyExact(sign * (long) days.getInt(i), NANOS_PER_DAY));
+			}
 		}
 
-		return new DateTimeArray(res);
+		return new DateTimeArray(v, nulls);
 	}
 
 	public DateTimeArray plus(Duration d) {
-		List<LocalDateTime> res = new ArrayList<>();
-
-		for (LocalDateTime ldt : this.value) {
-			res.add(null == ldt ? null : ldt.plus(d));
-		}
-
-		return new DateTimeArray(res);
+		long dn = d.toNanos();
+		return this.mapNanos(n -> Math.addExact(n, dn));
 	}
 
 	public DateTimeArray plus(DataList<Duration> d) {
@@ -430,31 +673,21 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	}
 
 	public DateTimeArray minus(int days) {
-		return this.plus(-days);
+		long d = Math.multiplyExact(days, NANOS_PER_DAY);
+		return this.mapNanos(n -> Math.subtractExact(n, d));
 	}
 
+	/**
+	 * Subtracts the given number of days from each element. Elements are null
+	 * where either this array or <code>days</code> is null.
+	 */
 	public DateTimeArray minus(IntList days) {
-		if (this.size() != days.size()) {
-			throw new IllegalArgumentException("arrays are of different sizes");
-		}
-
-		List<LocalDateTime> res = new ArrayList<>();
-
-		for (int i = 0; i < this.size(); i++) {
-			res.add(null == this.value.get(i) ? null : this.value.get(i).minusDays(days.getAt(i)));
-		}
-
-		return new DateTimeArray(res);
+		return this.plusDays(days, -1);
 	}
 
 	public DateTimeArray minus(Duration d) {
-		List<LocalDateTime> res = new ArrayList<>();
-
-		for (LocalDateTime ldt : this.value) {
-			res.add(null == ldt ? null : ldt.minus(d));
-		}
-
-		return new DateTimeArray(res);
+		long dn = d.toNanos();
+		return this.mapNanos(n -> Math.subtractExact(n, dn));
 	}
 
 	public DateTimeArray minus(Period p) {
@@ -539,90 +772,74 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	}
 
 	public IntList daysInMonth() {
-		int[] v = new int[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null == ldt ? -1 : ldt.getMonth().length(Year.isLeap(ldt.getYear()));
-		}
-
-		return IntList.of(v);
+		return this.field(n -> {
+			long c = civilFromDays(daysOf(n));
+			return lengthOfMonth(yearOf(c), monthOf(c));
+		});
 	}
 
 	public Mask isMonthEnd() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getDayOfMonth() == ldt.getMonth().length(Year.isLeap(ldt.getYear()));
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> {
+			long c = civilFromDays(daysOf(n));
+			return dayOf(c) == lengthOfMonth(yearOf(c), monthOf(c));
+		});
 	}
 
 	public Mask isMonthStart() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getDayOfMonth() == 1;
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> 1 == dayOf(civilFromDays(daysOf(n))));
 	}
 
 	public Mask isQuarterStart() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getMonth().firstMonthOfQuarter() == ldt.getMonth() && ldt.getDayOfMonth() == 1;
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> {
+			long c = civilFromDays(daysOf(n));
+			return 1 == monthOf(c) % 3 && 1 == dayOf(c);
+		});
 	}
 
 	public Mask isQuarterEnd() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getMonth().firstMonthOfQuarter().getValue() + 2 == ldt.getMonth().getValue()
-					&& ldt.getDayOfMonth() == ldt.getMonth().length(Year.isLeap(ldt.getYear()));
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> {
+			long c = civilFromDays(daysOf(n));
+			return 0 == monthOf(c) % 3 && dayOf(c) == lengthOfMonth(yearOf(c), monthOf(c));
+		});
 	}
 
 	public Mask isYearStart() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getMonth() == Month.JANUARY && 1 == ldt.getDayOfMonth();
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> {
+			long c = civilFromDays(daysOf(n));
+			return Month.JANUARY.getValue() == monthOf(c) && 1 == dayOf(c);
+		});
 	}
 
 	public Mask isYearEnd() {
-		boolean[] v = new boolean[size()];
-
-		for (int i = 0; i < v.length; i++) {
-			LocalDateTime ldt = this.getAt(i);
-			v[i] = null != ldt && ldt.getMonth() == Month.DECEMBER && 31 == ldt.getDayOfMonth();
-		}
-
-		return Mask.of(v);
+		return this.testNanos(n -> {
+			long c = civilFromDays(daysOf(n));
+			return Month.DECEMBER.getValue() == monthOf(c) && 31 == dayOf(c);
+		});
 	}
 
 	// Agg
 	public LocalDateTime min() {
-		return this.stream().filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null);
+		boolean found = false;
+		long v = Long.MAX_VALUE;
+		for (int i = 0; i < this.nanos.length; i++) {
+			if (!this.isNull(i)) {
+				found = true;
+				v = Math.min(v, this.nanos[i]);
+			}
+		}
+		return found ? fromEpochNanos(v) : null;
 	}
 
 	public LocalDateTime max() {
-		return this.stream().filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
+		boolean found = false;
+		long v = Long.MIN_VALUE;
+		for (int i = 0; i < this.nanos.length; i++) {
+			if (!this.isNull(i)) {
+				found = true;
+				v = Math.max(v, this.nanos[i]);
+			}
+		}
+		return found ? fromEpochNanos(v) : null;
 	}
 
 	//
@@ -702,6 +919,35 @@ public class DateTimeArray extends DataList<LocalDateTime> {
 	// return this.shift(unit, 1L);
 	// }
 
+	/**
+	 * Element view over the epoch values, creating each
+	 * <code>LocalDateTime</code> on access.
+	 */
+	private static class EpochValues extends AbstractList<LocalDateTime> implements RandomAccess {
+		private final long[] nanos;
+		private final long[] nulls;
+
+		EpochValues(long[] nanos, long[] nulls) {
+			this.nanos = nanos;
+			this.nulls = nulls;
+		}
+
+		@Override
+		public LocalDateTime get(int index) {
+			Objects.checkIndex(index, this.nanos.length);
+
+			if (null != this.nulls && 0 != (this.nulls[index >>> 6] & (1L << index))) {
+				return null;
+			}
+			return fromEpochNanos(this.nanos[index]);
+		}
+
+		@Override
+		public int size() {
+			return this.nanos.length;
+		}
+	}
+
 	public static void main(String[] args) {
 		DateTimeArray dta = DateTimeArray.linearFit(LocalDateTime.of(LocalDate.of(2016, 10, 12), LocalTime.MIDNIGHT),
 				LocalDateTime.of(LocalDate.now().minusDays(1), LocalTime.MIDNIGHT), 8).plus(Duration.ofDays(5));
@@ -19,6 +19,7 @@ import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -42,6 +43,7 @@ import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 
 import io.namba.arrays.agg.DecimalGrouping;
+import io.namba.arrays.agg.GroupIndex;
 import io.namba.arrays.data.DecimalData;
 import io.namba.arrays.data.IndexedObject;
 import io.namba.arrays.data.IntData;
@@ -96,6 +98,14 @@ public class DecimalList extends DataList<BigDecimal> {
 		return new DecimalList(this.value, this.index, context);
 	}
 
+	/**
+	 * Converts this list to a {@link ScaledDecimalList} with the given scale.
+	 * Values that cannot be stored exactly at that scale are kept as they are.
+	 */
+	public ScaledDecimalList toScaled(int scale) {
+		return ScaledDecimalList.of(this, scale);
+	}
+
 	/// methods
 
 	// indexing
@@ -132,6 +142,19 @@ public class DecimalList extends DataList<BigDecimal> {
 				.mapToObj(this.value::get).toArray(i -> new BigDecimal[i]));
 	}
 
+	@Override
+	public FilteredDecimalList filter(Mask mask) {
+		if (Objects.requireNonNull(mask, "mask is null").size() != this.value.size()) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return new FilteredDecimalList(this, Selection.of(mask));
+	}
+
+	@Override
+	public FilteredDecimalList filter(Predicate<BigDecimal> test) {
+		return new FilteredDecimalList(this, Selection.all(this.value.size())).filter(test);
+	}
+
 	public DecimalList getAt(Mask mask) {
 		return getAt(mask.truthy().value);
 	}
@@ -163,13 +186,14 @@ public class DecimalList extends DataList<BigDecimal> {
 		}
 		Objects.requireNonNull(op, "operation may not be null");
 
-		List<BigDecimal> list = new ArrayList<>();
-		Iterator<BigDecimal> it1 = this.iterator(), it2 = other.iterator();
-		while (it1.hasNext()) {
-			list.add(op.apply(it1.next(), it2.next()));
-		}
+		BigDecimal[] r = new BigDecimal[this.size()];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				r[i] = op.apply(this.value.get(i), other.value.get(i));
+			}
+		});
 
-		return new DecimalList(list, null);
+		return new DecimalList(Arrays.asList(r), null);
 	}
 
 	public static DecimalList zip(DecimalList a, DecimalList b, BinaryOperator<BigDecimal> op) {
@@ -792,19 +816,24 @@ public class DecimalList extends DataList<BigDecimal> {
 	public BigDecimal sum(boolean skipNans, BigDecimal nanValue) {
 		if (this.value.isEmpty())
 			return null;
+		if (!skipNans && null == nanValue && this.value.contains(null))
+			return null; // probably bug from caller, but this is it.
 
 		BigDecimal v = BigDecimal.ZERO;
-		int n = this.value.size();
-		for (int i = 0; i < n; i++) {
+		for (BigDecimal partial : Parallelism.map(this.value.size(), (from, to) -> this.sum(from, to, skipNans, nanValue)))
+			v = v.add(partial, this.mathContext);
+
+		return v;
+	}
+
+	private BigDecimal sum(int from, int to, boolean skipNans, BigDecimal nanValue) {
+		BigDecimal v = BigDecimal.ZERO;
+		for (int i = from; i < to; i++) {
 			BigDecimal e = this.value.get(i);
 
 			if (null != e) {
 				v = v.add(e, this.mathContext);
-			} else if (skipNans) {
-				continue;
-			} else if (null == nanValue) {
-				return null; // probably bug from caller, but this is it.
-			} else {
+			} else if (!skipNans) {
 				v = v.add(nanValue, this.mathContext);
 			}
 		}
@@ -1140,30 +1169,37 @@ public class DecimalList extends DataList<BigDecimal> {
 	// TODO: look into storing a "sorted" flag with corresponding order.
 	/**
 	 * Return the given number of this list's largest values. This is equivalent to
-	 * slicing a reverse-sorted version of this list using the given number.
+	 * slicing a reverse-sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> largest values.
 	 */
 	public DecimalList nLargest(int n) {
-		List<BigDecimal> copy = new ArrayList<>(this.value);
-		copy.sort(Comparator.reverseOrder());
-		return DecimalList.of(copy.subList(0, n), null);
+		return new DecimalList(Arrays.asList(OrderStatistics.top(this.validValues(), n, Comparator.reverseOrder())), null,
+				this.mathContext);
 	}
 
 	/**
 	 * Return the given number of this list's smallest values. This is equivalent to
-	 * slicing a sorted version of this list using the given number.
+	 * slicing a sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> smallest values.
 	 */
 	public DecimalList nSmallest(int n) {
-		List<BigDecimal> copy = new ArrayList<>(this.value);
-		copy.sort(Comparator.naturalOrder());
-		return DecimalList.of(copy.subList(0, n), null);
+		return new DecimalList(Arrays.asList(OrderStatistics.top(this.validValues(), n, Comparator.naturalOrder())), null,
+				this.mathContext);
+	}
+
+	/**
+	 * A copy of the non-null values, which callers may reorder.
+	 */
+	private BigDecimal[] validValues() {
+		return this.value.stream().filter(Objects::nonNull).toArray(BigDecimal[]::new);
 	}
 
 	/**
@@ -1263,6 +1299,11 @@ public class DecimalList extends DataList<BigDecimal> {
 	 * Return the integer indices that would sort the list's values.
 	 */
 	public IntList argSort() {
+		if (Parallelism.applies(this.value.size())) {
+			return IntList.of(Parallelism.sortedIndices(this.value.size(),
+					(a, b) -> this.value.get(a).compareTo(this.value.get(b))));
+		}
+
 		return IntList.of(IntStream.range(0, this.size()).mapToObj(i -> IndexedObject.of(i, this.value.get(i)))
 				.sorted(Comparator.comparing(IndexedObject::value)).mapToInt(IndexedObject::index).toArray());
 	}
@@ -1486,19 +1527,42 @@ public class DecimalList extends DataList<BigDecimal> {
 		}
 
 		BigDecimal[] r = new BigDecimal[this.value.size()];
-		BigDecimal last = BigDecimal.ZERO;
 
-		for (int i = 0; i < this.value.size(); i++) {
+		// parallel prefix, as in IntList.cumSum()
+		int[] bounds = Parallelism.chunks(r.length);
+		BigDecimal[] offsets = new BigDecimal[bounds.length - 1];
+		Parallelism.forEachChunk(bounds, (c, from, to) -> offsets[c] = this.cumSum(r, from, to, BigDecimal.ZERO));
+
+		if (offsets.length > 1) {
+			BigDecimal carry = BigDecimal.ZERO;
+			for (int c = 0; c < offsets.length; c++) {
+				BigDecimal total = offsets[c];
+				offsets[c] = carry;
+				carry = carry.add(total, this.mathContext);
+			}
+			Parallelism.forEachChunk(bounds, (c, from, to) -> {
+				if (c > 0)
+					this.cumSum(r, from, to, offsets[c]);
+			});
+		}
+
+		return DecimalList.of(r);
+	}
+
+	/**
+	 * Scans <code>[from, to)</code> into <code>r</code>, starting from
+	 * <code>start</code>, and returns the running total at the end of the range.
+	 */
+	private BigDecimal cumSum(BigDecimal[] r, int from, int to, BigDecimal start) {
+		BigDecimal last = start;
+		for (int i = from; i < to; i++) {
 			BigDecimal v = this.value.get(i);
-			if (null == v) {
-				r[i] = null;
-			} else {
+			if (null != v) {
 				last = last.add(v, this.mathContext);
 				r[i] = last;
 			}
 		}
-
-		return DecimalList.of(r);
+		return last;
 	}
 
 	/**
@@ -1649,14 +1713,14 @@ public class DecimalList extends DataList<BigDecimal> {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public DecimalList head() {
-		return getAt(IntRange.of(SUMMARY_SIZE));
+		return this.head(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the first <code>n</code> values of this list.
 	 */
 	public DecimalList head(int n) {
-		return getAt(IntRange.of(n));
+		return this.getAt(0, n);
 	}
 
 	/**
@@ -1664,14 +1728,14 @@ public class DecimalList extends DataList<BigDecimal> {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public DecimalList tail() {
-		return getAt(IntRange.of(this.size() - SUMMARY_SIZE, this.size()));
+		return this.tail(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the last <code>n</code> values of this list.
 	 */
 	public DecimalList tail(int n) {
-		return getAt(IntRange.of(this.size() - n, this.size()));
+		return this.getAt(this.size() - n, this.size());
 	}
 
 	/**
@@ -1906,73 +1970,153 @@ public class DecimalList extends DataList<BigDecimal> {
 	 * Return the median of the values. Note that this skips null values.
 	 */
 	public BigDecimal median() {
+		BigDecimal[] v = this.validValues();
 
-		DecimalList sorted = this.sorted();
-		DecimalList withoutNa = sorted.getAt(sorted.isNa().negate());
-
-		if (withoutNa.size() == 0)
+		if (v.length == 0)
 			return null;
 
-		if (withoutNa.size() % 2 == 1) {
-			return withoutNa.getAt(withoutNa.size() / 2 + 1);
+		if (v.length % 2 == 1) {
+			return OrderStatistics.select(v, v.length / 2, Comparator.naturalOrder());
 		} else {
-			int medLocation = withoutNa.size() / 2;
-			return DecimalMath.mean(withoutNa.getAt(medLocation), withoutNa.getAt(medLocation + 1));
+			BigDecimal lower = OrderStatistics.select(v, v.length / 2 - 1, Comparator.naturalOrder());
+			return DecimalMath.mean(lower, OrderStatistics.minFrom(v, v.length / 2, Comparator.naturalOrder()));
 		}
 	}
 
-	/*
-	 * Return value at the given quantile.
-	 */
-	// TODO: implement quantile
-	// public BigDecimal quantile(BigDecimal quantile) {
-	/*
-	 * This optional parameter specifies the interpolation method to use, when the
-	 * desired quantile lies between two data points i and j:
-	 * 
-	 * linear: i + (j - i) * fraction, where fraction is the fractional part of the
-	 * index surrounded by i and j.
-	 * 
-	 * lower: i.
-	 * 
-	 * higher: j.
-	 * 
-	 * nearest: i or j whichever is nearest.
+	/**
+	 * Return the value at the given quantile, using linear interpolation. Note
+	 * that this skips null values.
 	 * 
-	 * midpoint: (i + j) / 2.
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 * @return The quantile, or <code>null</code> if there are no values.
 	 */
-	// }
+	public BigDecimal quantile(double q) {
+		return this.quantile(q, Interpolation.LINEAR);
+	}
 
-	/*
-	 * Compute numerical data ranks (1 through n) along axis.
+	/**
+	 * Return the value at the given quantile. Note that this skips null values.
 	 * 
-	 * By default, equal values are assigned a rank that is the average of the ranks
-	 * of those values.
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 * @param interpolation
+	 *            How to compute the quantile when it lies between two values.
+	 * @return The quantile, or <code>null</code> if there are no values.
 	 */
-	// TODO: Implement rank()
-	// public IntList rank() {
-	/*
-	 * How to rank the group of records that have the same value (i.e. ties):
-	 * 
-	 * average: average rank of the group
-	 * 
-	 * min: lowest rank in the group
-	 * 
-	 * max: highest rank in the group
-	 * 
-	 * first: ranks assigned in order they appear in the array
+	public BigDecimal quantile(double q, Interpolation interpolation) {
+		OrderStatistics.checkQuantile(q);
+		Objects.requireNonNull(interpolation, "interpolation may not be null");
+
+		BigDecimal[] v = this.validValues();
+		if (v.length == 0)
+			return null;
+
+		double position = q * (v.length - 1);
+		int lo = (int) position;
+		BigDecimal lower = OrderStatistics.select(v, lo, Comparator.naturalOrder());
+		BigDecimal higher = lo == position ? lower : OrderStatistics.minFrom(v, lo + 1, Comparator.naturalOrder());
+
+		return interpolation.interpolate(lower, higher, position, this.mathContext);
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Equal values are assigned the
+	 * average of their ranks. Null values are not ranked.
+	 */
+	public DoubleList rank() {
+		return this.rank(RankMethod.AVERAGE, true, false);
+	}
+
+	public DoubleList rank(RankMethod method) {
+		return this.rank(method, true, false);
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Null values are not ranked.
 	 * 
-	 * dense: like ‘min’, but rank always increases by 1 between groups.
+	 * @param method
+	 *            How to rank equal values.
+	 * @param ascending
+	 *            Whether the smallest value is ranked 1.
+	 * @param percentile
+	 *            Whether to divide ranks by the number of ranked values (of
+	 *            distinct values with {@link RankMethod#DENSE}).
 	 */
-	// }
+	public DoubleList rank(RankMethod method, boolean ascending, boolean percentile) {
+		Comparator<BigDecimal> order = Comparator.nullsLast(
+				ascending ? Comparator.<BigDecimal>naturalOrder() : Comparator.<BigDecimal>reverseOrder());
+		int[] sorted = Parallelism.sortedIndices(this.size(),
+				(a, b) -> order.compare(this.value.get(a), this.value.get(b)));
+
+		return Ranks.rank(sorted, i -> null == this.value.get(i),
+				(a, b) -> 0 == this.value.get(a).compareTo(this.value.get(b)), method, percentile);
+	}
+
+	/**
+	 * Rolling windows of <code>window</code> rows over this list's values.
+	 * <p>
+	 * Values are converted to doubles before they're aggregated, so rolling
+	 * sums, means and other statistics are rounded to about 16 significant
+	 * digits and lose the list's scale; they are not exact decimals. Use
+	 * {@link #sum()} or {@link #mean()} over {@link #getAt(int, int)} slices
+	 * where exact results matter.
+	 */
+	public Rolling rolling(int window) {
+		return Rolling.of(this.doubles(), null, window);
+	}
+
+	/**
+	 * Rolling windows spanning <code>window</code> of time up to each element's
+	 * time. <code>times</code> must be sorted and have the same size as this
+	 * list. As with {@link #rolling(int)}, values are aggregated as doubles and
+	 * results are not exact decimals.
+	 */
+	public Rolling rolling(DateTimeArray times, Duration window) {
+		return Rolling.of(this.doubles(), null, times, window);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with smoothing factor
+	 * <code>alpha</code>, <code>0 < alpha <= 1</code>. Values are aggregated as
+	 * doubles, with the precision loss described in {@link #rolling(int)}.
+	 */
+	public Ewm ewm(double alpha) {
+		return Ewm.of(this.doubles(), null, alpha);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with
+	 * <code>alpha = 2 / (span + 1)</code>.
+	 */
+	public Ewm ewmSpan(double span) {
+		return Ewm.of(this.doubles(), null, Ewm.alphaOfSpan(span));
+	}
+
+	/**
+	 * Exponentially weighted moving statistics whose weights halve every
+	 * <code>halfLife</code> rows.
+	 */
+	public Ewm ewmHalfLife(double halfLife) {
+		return Ewm.of(this.doubles(), null, Ewm.alphaOfHalfLife(halfLife));
+	}
+
+	/**
+	 * Time-aware exponentially weighted moving statistics: weights halve every
+	 * <code>halfLife</code> elapsed between the elements' times, which must be
+	 * sorted.
+	 */
+	public Ewm ewm(DateTimeArray times, Duration halfLife) {
+		return Ewm.of(this.doubles(), null, times, halfLife);
+	}
 
 	/*
-	 * Needs to be defined with window objects.
+	 * Values as doubles for the rolling and weighted statistics, nulls as NaN,
+	 * which both skip.
 	 */
-	// TODO: Implement Rolling
-	// public Map<Two<BigDecimal, BigDecimal>, DecimalList> rolling() {
-	//
-	// }
+	private double[] doubles() {
+		return this.value.stream().mapToDouble(v -> null == v ? Double.NaN : v.doubleValue()).toArray();
+	}
 
 	/**
 	 * Round values to the given number of decimals. The number can be negative,
@@ -2100,6 +2244,12 @@ public class DecimalList extends DataList<BigDecimal> {
 			comparator = Comparator.nullsLast(comparator);
 		}
 
+		if (Parallelism.applies(v.size())) {
+			BigDecimal[] a = v.toArray(new BigDecimal[0]);
+			Parallelism.sort(a, comparator);
+			return new DecimalList(Arrays.asList(a));
+		}
+
 		v.sort(comparator);
 
 		return new DecimalList(v);
@@ -2115,9 +2265,7 @@ public class DecimalList extends DataList<BigDecimal> {
 
 	@Override
 	public <K> DecimalGrouping<K> groupBy(Function<BigDecimal, K> classifier) {
-		return DecimalGrouping.of(this,
-				IntStream.range(0, size()).mapToObj(i -> Two.of(i, classifier.apply(this.value.get(i))))
-						.collect(Collectors.groupingBy(Two::b, Collectors.mapping(Two::a, Collectors.toList()))));
+		return DecimalGrouping.of(this, GroupIndex.of(this.size(), i -> classifier.apply(this.value.get(i))));
 	}
 
 	@Override
@@ -2188,8 +2336,14 @@ public class DecimalList extends DataList<BigDecimal> {
 		return this.getAt(this.test(predicate));
 	}
 
+	/**
+	 * Returns a view of the elements in the contiguous range
+	 * <code>[from, to)</code>, clipped to this list's bounds.
+	 */
+	@Override
 	public DecimalList getAt(int from, int to) {
-		return this.getAt(IntRange.of(from, to));
+		int start = Math.max(0, from);
+		return new DecimalList(this.value.subList(start, Math.max(start, Math.min(this.size(), to))));
 	}
 
 	public DecimalList putAt(Predicate<BigDecimal> test, UnaryOperator<BigDecimal> valueMapper) {
@@ -0,0 +1,588 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ * A double list stored outside of the Java heap. It supports the element-wise
+ * arithmetic, comparison and reduction operations of {@link DoubleList}, and
+ * results of element-wise operations are themselves direct lists (allocated in
+ * the same {@link OffHeapArena}, if any).
+ * 
+ * <p>
+ * Direct lists must be closed when no longer needed, see {@link DirectList}.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class DirectDoubleList extends DirectList {
+
+	private static final int BYTES = Double.BYTES;
+
+	private DoubleBuffer[] chunks;
+
+	private DirectDoubleList(ByteBuffer[] buffers, long length, Mask validity, boolean owned, OffHeapArena arena) {
+		super(buffers, length, validity, owned, arena);
+
+		this.chunks = new DoubleBuffer[buffers.length];
+		for (int c = 0; c < buffers.length; c++) {
+			this.chunks[c] = buffers[c].asDoubleBuffer();
+		}
+	}
+
+	static DirectDoubleList allocate(long size, OffHeapArena arena) {
+		return new DirectDoubleList(allocate(size, BYTES), size, null, true, arena);
+	}
+
+	static DirectDoubleList copyOf(DoubleList list, OffHeapArena arena) {
+		DirectDoubleList l = new DirectDoubleList(allocate(list.size(), BYTES), list.size(), list.validity, true,
+				arena);
+		l.load(list.value, list.offset);
+		return l;
+	}
+
+	/**
+	 * Allocates a zero-filled list that is not owned by any arena.
+	 */
+	public static DirectDoubleList allocate(long size) {
+		return allocate(size, null);
+	}
+
+	public static DirectDoubleList of(long size, double value) {
+		DirectDoubleList l = allocate(size, null);
+		if (0 != value) {
+			for (DoubleBuffer chunk : l.chunks) {
+				for (int i = 0; i < chunk.limit(); i++)
+					chunk.put(i, value);
+			}
+		}
+		return l;
+	}
+
+	public static DirectDoubleList of(double[] values) {
+		DirectDoubleList l = allocate(values.length, null);
+		l.load(values, 0);
+		return l;
+	}
+
+	public static DirectDoubleList copyOf(DoubleList list) {
+		return copyOf(list, null);
+	}
+
+	/**
+	 * Creates a list over the remaining bytes of the given buffer, using the
+	 * buffer's byte order. The memory is shared with the buffer and is not
+	 * released when the list is closed.
+	 */
+	public static DirectDoubleList wrap(ByteBuffer buffer) {
+		Objects.requireNonNull(buffer, "buffer may not be null");
+		return new DirectDoubleList(split(buffer, BYTES), buffer.remaining() / BYTES, null, false, null);
+	}
+
+	/**
+	 * Creates a list over chunks that are already split at chunk boundaries.
+	 */
+	static DirectDoubleList wrap(ByteBuffer[] chunks, long length) {
+		return wrap(chunks, length, null);
+	}
+
+	/**
+	 * Creates a list over split chunks, with nulls where <code>validity</code>
+	 * is clear.
+	 */
+	static DirectDoubleList wrap(ByteBuffer[] chunks, long length, Mask validity) {
+		return new DirectDoubleList(chunks, length, validity, false, null);
+	}
+
+	private void load(double[] values, int offset) {
+		for (int c = 0; c < this.chunks.length; c++) {
+			DoubleBuffer chunk = this.chunks[c].duplicate();
+			chunk.put(values, offset + c * CHUNK_SIZE, chunk.remaining());
+		}
+	}
+
+	private DoubleBuffer[] chunks() {
+		this.buffers();
+		return this.chunks;
+	}
+
+	private DirectDoubleList newList(Mask validity) {
+		return new DirectDoubleList(allocate(this.length, BYTES), this.length, validity, true, this.arena);
+	}
+
+	@Override
+	protected void released() {
+		this.chunks = null;
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.DOUBLE;
+	}
+
+	public double getAt(long loc) {
+		this.checkIndex(loc);
+		return this.chunks()[chunkOf(loc)].get(offsetOf(loc));
+	}
+
+	@Override
+	public DoubleList getAt(int[] loc) {
+		double[] r = new double[loc.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = this.getAt((long) loc[i]);
+		}
+		return DoubleList.of(r, null == this.validity ? null : this.validity.getAt(loc));
+	}
+
+	public DoubleStream stream() {
+		return LongStream.range(0, this.length).mapToDouble(this::getAt);
+	}
+
+	/**
+	 * Copies this list's data to the heap.
+	 */
+	public double[] toArray() {
+		double[] r = new double[this.size()];
+		DoubleBuffer[] c = this.chunks();
+		for (int i = 0; i < c.length; i++) {
+			c[i].duplicate().get(r, i * CHUNK_SIZE, c[i].limit());
+		}
+		return r;
+	}
+
+	/**
+	 * Copies this list's data to an on-heap double list.
+	 */
+	public DoubleList toHeap() {
+		return DoubleList.of(this.toArray(), this.validity);
+	}
+
+	// operations
+	public DirectDoubleList map(DoubleUnaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+
+		DoubleBuffer[] src = this.chunks();
+		DirectDoubleList res = this.newList(this.validity);
+
+		for (int c = 0; c < src.length; c++) {
+			DoubleBuffer a = src[c];
+			DoubleBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsDouble(a.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectDoubleList apply(DoubleUnaryOperator op) {
+		return this.map(op);
+	}
+
+	public DirectDoubleList zip(DirectDoubleList other, DoubleBinaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+		this.verifyLengthMatch(other);
+
+		DoubleBuffer[] left = this.chunks();
+		DoubleBuffer[] right = other.chunks();
+		DirectDoubleList res = this.newList(Mask.intersect(this.validity, other.validity));
+
+		for (int c = 0; c < left.length; c++) {
+			DoubleBuffer a = left[c];
+			DoubleBuffer b = right[c];
+			DoubleBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsDouble(a.get(i), b.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectDoubleList plus(double n) {
+		return this.map(i -> i + n);
+	}
+
+	public DirectDoubleList plus(DirectDoubleList n) {
+		return this.zip(n, (a, b) -> a + b);
+	}
+
+	public DirectDoubleList minus(double n) {
+		return this.map(i -> i - n);
+	}
+
+	public DirectDoubleList minus(DirectDoubleList n) {
+		return this.zip(n, (a, b) -> a - b);
+	}
+
+	public DirectDoubleList multiply(double n) {
+		return this.map(i -> i * n);
+	}
+
+	public DirectDoubleList multiply(DirectDoubleList n) {
+		return this.zip(n, (a, b) -> a * b);
+	}
+
+	public DirectDoubleList divide(double n) {
+		return this.map(i -> i / n);
+	}
+
+	public DirectDoubleList divide(DirectDoubleList n) {
+		return this.zip(n, (a, b) -> a / b);
+	}
+
+	public DirectDoubleList mod(double n) {
+		return this.map(i -> i % n);
+	}
+
+	public DirectDoubleList mod(DirectDoubleList n) {
+		return this.zip(n, (a, b) -> a % b);
+	}
+
+	public DirectDoubleList invert() {
+		return this.map(i -> 1 / i);
+	}
+
+	public DirectDoubleList abs() {
+		return this.map(Math::abs);
+	}
+
+	public DirectDoubleList negative() {
+		return this.map(i -> -i);
+	}
+
+	public DirectDoubleList square() {
+		return this.map(i -> i * i);
+	}
+
+	@Override
+	public DirectDoubleList repeat(int n) {
+		long total = n * this.length;
+		DirectDoubleList res = new DirectDoubleList(allocate(total, BYTES), total,
+				null == this.validity ? null : this.validity.repeat(n), true, this.arena);
+
+		for (long i = 0; i < total; i++) {
+			res.chunks[chunkOf(i)].put(offsetOf(i), this.getAt(i % this.length));
+		}
+
+		return res;
+	}
+
+	// comparison
+	public Mask test(DoublePredicate predicate) {
+		Objects.requireNonNull(predicate, "predicate cannot be null");
+
+		DoubleBuffer[] src = this.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (DoubleBuffer a : src) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (predicate.test(a.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()));
+	}
+
+	private Mask compare(DirectDoubleList other, DoubleBinaryOperator comparison) {
+		this.verifyLengthMatch(other);
+
+		DoubleBuffer[] left = this.chunks();
+		DoubleBuffer[] right = other.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (int c = 0; c < left.length; c++) {
+			DoubleBuffer a = left[c];
+			DoubleBuffer b = right[c];
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (0 != comparison.applyAsDouble(a.get(i), b.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()), other);
+	}
+
+	public Mask eq(double other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask eq(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a == b ? 1 : 0);
+	}
+
+	public Mask ne(double other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask ne(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a != b ? 1 : 0);
+	}
+
+	public Mask lt(double other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask lt(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a < b ? 1 : 0);
+	}
+
+	public Mask le(double other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask le(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a <= b ? 1 : 0);
+	}
+
+	public Mask gt(double other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask gt(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a > b ? 1 : 0);
+	}
+
+	public Mask ge(double other) {
+		return this.test(v -> v >= other);
+	}
+
+	public Mask ge(DirectDoubleList other) {
+		return this.compare(other, (a, b) -> a >= b ? 1 : 0);
+	}
+
+	public Mask between(double low, double high) {
+		return this.test(v -> low <= v && high >= v);
+	}
+
+	public Mask isnan() {
+		return this.test(Double::isNaN);
+	}
+
+	public boolean all(DoublePredicate test) {
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && !test.test(a.get(i)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean any(DoublePredicate test) {
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && test.test(a.get(i)))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Reduction
+	/*
+	 * counts non-NaN
+	 */
+	public long count() {
+		long n = 0;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && !Double.isNaN(a.get(i)))
+					n++;
+			}
+		}
+		return n;
+	}
+
+	public OptionalDouble sum() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = 0;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble product() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = 1;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v *= a.get(i);
+			}
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble max() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = Double.NEGATIVE_INFINITY;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.max(v, a.get(i));
+			}
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble min() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = Double.POSITIVE_INFINITY;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.min(v, a.get(i));
+			}
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble mean() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = 0;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalDouble.of(v / this.validCount());
+	}
+
+	public double getSum() {
+		return this.sum().getAsDouble();
+	}
+
+	public double getMax() {
+		return this.max().getAsDouble();
+	}
+
+	public double getMin() {
+		return this.min().getAsDouble();
+	}
+
+	public double getMean() {
+		return this.mean().getAsDouble();
+	}
+
+	public double populationVar() {
+		double mean = this.getMean();
+		double v = 0;
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p)) {
+					double d = a.get(i) - mean;
+					v += d * d;
+				}
+			}
+		}
+		return v / this.validCount();
+	}
+
+	public double sampleVar() {
+		long n = this.validCount();
+		return this.populationVar() * n / (n - 1.0);
+	}
+
+	public double std() {
+		return Math.sqrt(this.populationVar());
+	}
+
+	public double sampleStd() {
+		return Math.sqrt(this.sampleVar());
+	}
+
+	// casting
+	@Override
+	public StringList string() {
+		List<String> s = new ArrayList<>(this.size());
+		long p = 0;
+		for (DoubleBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				s.add(this.isValid(p) ? Double.toString(a.get(i)) : null);
+			}
+		}
+		return StringList.of(s);
+	}
+
+	@Override
+	protected String elementString(long from, long to) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (long i = from; i < to; i++) {
+			joiner.add(this.isValid(i) ? Double.toString(this.getAt(i)) : "null");
+		}
+		return joiner.toString();
+	}
+
+	@Override
+	public IntList asInt() {
+		return ListCast.toInt(this.toHeap());
+	}
+
+	@Override
+	public LongList asLong() {
+		return ListCast.toLong(this.toHeap());
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return this.toHeap();
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.ne(0);
+	}
+}
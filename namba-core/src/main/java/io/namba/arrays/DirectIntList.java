@@ -0,0 +1,580 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.StringJoiner;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * An int list stored outside of the Java heap. It supports the element-wise
+ * arithmetic, comparison and reduction operations of {@link IntList}, and
+ * results of element-wise operations are themselves direct lists (allocated in
+ * the same {@link OffHeapArena}, if any).
+ * 
+ * <p>
+ * Direct lists must be closed when no longer needed, see {@link DirectList}.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class DirectIntList extends DirectList {
+
+	private static final int BYTES = Integer.BYTES;
+
+	private IntBuffer[] chunks;
+
+	private DirectIntList(ByteBuffer[] buffers, long length, Mask validity, boolean owned, OffHeapArena arena) {
+		super(buffers, length, validity, owned, arena);
+
+		this.chunks = new IntBuffer[buffers.length];
+		for (int c = 0; c < buffers.length; c++) {
+			this.chunks[c] = buffers[c].asIntBuffer();
+		}
+	}
+
+	static DirectIntList allocate(long size, OffHeapArena arena) {
+		return new DirectIntList(allocate(size, BYTES), size, null, true, arena);
+	}
+
+	static DirectIntList copyOf(IntList list, OffHeapArena arena) {
+		DirectIntList l = new DirectIntList(allocate(list.size(), BYTES), list.size(), list.validity, true, arena);
+		l.load(list.value, list.offset);
+		return l;
+	}
+
+	/**
+	 * Allocates a zero-filled list that is not owned by any arena.
+	 */
+	public static DirectIntList allocate(long size) {
+		return allocate(size, null);
+	}
+
+	public static DirectIntList of(long size, int value) {
+		DirectIntList l = allocate(size, null);
+		if (0 != value) {
+			for (IntBuffer chunk : l.chunks) {
+				for (int i = 0; i < chunk.limit(); i++)
+					chunk.put(i, value);
+			}
+		}
+		return l;
+	}
+
+	public static DirectIntList of(int[] values) {
+		DirectIntList l = allocate(values.length, null);
+		l.load(values, 0);
+		return l;
+	}
+
+	public static DirectIntList copyOf(IntList list) {
+		return copyOf(list, null);
+	}
+
+	/**
+	 * Creates a list over the remaining bytes of the given buffer, using the
+	 * buffer's byte order. The memory is shared with the buffer and is not
+	 * released when the list is closed.
+	 */
+	public static DirectIntList wrap(ByteBuffer buffer) {
+		Objects.requireNonNull(buffer, "buffer may not be null");
+		return new DirectIntList(split(buffer, BYTES), buffer.remaining() / BYTES, null, false, null);
+	}
+
+	/**
+	 * Creates a list over chunks that are already split at chunk boundaries.
+	 */
+	static DirectIntList wrap(ByteBuffer[] chunks, long length) {
+		return wrap(chunks, length, null);
+	}
+
+	/**
+	 * Creates a list over split chunks, with nulls where <code>validity</code>
+	 * is clear.
+	 */
+	static DirectIntList wrap(ByteBuffer[] chunks, long length, Mask validity) {
+		return new DirectIntList(chunks, length, validity, false, null);
+	}
+
+	private void load(int[] values, int offset) {
+		for (int c = 0; c < this.chunks.length; c++) {
+			IntBuffer chunk = this.chunks[c].duplicate();
+			chunk.put(values, offset + c * CHUNK_SIZE, chunk.remaining());
+		}
+	}
+
+	private IntBuffer[] chunks() {
+		this.buffers();
+		return this.chunks;
+	}
+
+	private DirectIntList newList(Mask validity) {
+		return new DirectIntList(allocate(this.length, BYTES), this.length, validity, true, this.arena);
+	}
+
+	@Override
+	protected void released() {
+		this.chunks = null;
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.INT;
+	}
+
+	public int getAt(long loc) {
+		this.checkIndex(loc);
+		return this.chunks()[chunkOf(loc)].get(offsetOf(loc));
+	}
+
+	@Override
+	public IntList getAt(int[] loc) {
+		int[] r = new int[loc.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = this.getAt((long) loc[i]);
+		}
+		return IntList.of(r, null == this.validity ? null : this.validity.getAt(loc));
+	}
+
+	public IntStream stream() {
+		return LongStream.range(0, this.length).mapToInt(this::getAt);
+	}
+
+	/**
+	 * Copies this list's data to the heap.
+	 */
+	public int[] toArray() {
+		int[] r = new int[this.size()];
+		IntBuffer[] c = this.chunks();
+		for (int i = 0; i < c.length; i++) {
+			c[i].duplicate().get(r, i * CHUNK_SIZE, c[i].limit());
+		}
+		return r;
+	}
+
+	/**
+	 * Copies this list's data to an on-heap int list.
+	 */
+	public IntList toHeap() {
+		return IntList.of(this.toArray(), this.validity);
+	}
+
+	// operations
+	public DirectIntList map(IntUnaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+
+		IntBuffer[] src = this.chunks();
+		DirectIntList res = this.newList(this.validity);
+
+		for (int c = 0; c < src.length; c++) {
+			IntBuffer a = src[c];
+			IntBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsInt(a.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectIntList apply(IntUnaryOperator op) {
+		return this.map(op);
+	}
+
+	public DirectIntList zip(DirectIntList other, IntBinaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+		this.verifyLengthMatch(other);
+
+		IntBuffer[] left = this.chunks();
+		IntBuffer[] right = other.chunks();
+		DirectIntList res = this.newList(Mask.intersect(this.validity, other.validity));
+
+		for (int c = 0; c < left.length; c++) {
+			IntBuffer a = left[c];
+			IntBuffer b = right[c];
+			IntBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsInt(a.get(i), b.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectIntList plus(int n) {
+		return this.map(i -> i + n);
+	}
+
+	public DirectIntList plus(DirectIntList n) {
+		return this.zip(n, (a, b) -> a + b);
+	}
+
+	public DirectIntList minus(int n) {
+		return this.map(i -> i - n);
+	}
+
+	public DirectIntList minus(DirectIntList n) {
+		return this.zip(n, (a, b) -> a - b);
+	}
+
+	public DirectIntList multiply(int n) {
+		return this.map(i -> i * n);
+	}
+
+	public DirectIntList multiply(DirectIntList n) {
+		return this.zip(n, (a, b) -> a * b);
+	}
+
+	public DirectIntList divide(int n) {
+		return this.map(i -> i / n);
+	}
+
+	public DirectIntList divide(DirectIntList n) {
+		return this.zip(n, (a, b) -> a / b);
+	}
+
+	public DirectIntList mod(int n) {
+		return this.map(i -> i % n);
+	}
+
+	public DirectIntList mod(DirectIntList n) {
+		return this.zip(n, (a, b) -> a % b);
+	}
+
+	public DirectIntList abs() {
+		return this.map(Math::abs);
+	}
+
+	public DirectIntList negative() {
+		return this.map(i -> -i);
+	}
+
+	public DirectIntList square() {
+		return this.map(i -> i * i);
+	}
+
+	@Override
+	public DirectIntList repeat(int n) {
+		long total = n * this.length;
+		DirectIntList res = new DirectIntList(allocate(total, BYTES), total,
+				null == this.validity ? null : this.validity.repeat(n), true, this.arena);
+
+		for (long i = 0; i < total; i++) {
+			res.chunks[chunkOf(i)].put(offsetOf(i), this.getAt(i % this.length));
+		}
+
+		return res;
+	}
+
+	// comparison
+	public Mask test(IntPredicate predicate) {
+		Objects.requireNonNull(predicate, "predicate cannot be null");
+
+		IntBuffer[] src = this.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (IntBuffer a : src) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (predicate.test(a.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()));
+	}
+
+	private Mask compare(DirectIntList other, IntBinaryOperator comparison) {
+		this.verifyLengthMatch(other);
+
+		IntBuffer[] left = this.chunks();
+		IntBuffer[] right = other.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (int c = 0; c < left.length; c++) {
+			IntBuffer a = left[c];
+			IntBuffer b = right[c];
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (0 != comparison.applyAsInt(a.get(i), b.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()), other);
+	}
+
+	public Mask eq(int other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask eq(DirectIntList other) {
+		return this.compare(other, (a, b) -> a == b ? 1 : 0);
+	}
+
+	public Mask ne(int other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask ne(DirectIntList other) {
+		return this.compare(other, (a, b) -> a != b ? 1 : 0);
+	}
+
+	public Mask lt(int other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask lt(DirectIntList other) {
+		return this.compare(other, (a, b) -> a < b ? 1 : 0);
+	}
+
+	public Mask le(int other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask le(DirectIntList other) {
+		return this.compare(other, (a, b) -> a <= b ? 1 : 0);
+	}
+
+	public Mask gt(int other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask gt(DirectIntList other) {
+		return this.compare(other, (a, b) -> a > b ? 1 : 0);
+	}
+
+	public Mask ge(int other) {
+		return this.test(v -> v >= other);
+	}
+
+	public Mask ge(DirectIntList other) {
+		return this.compare(other, (a, b) -> a >= b ? 1 : 0);
+	}
+
+	public Mask between(int low, int high) {
+		return this.test(v -> low <= v && high >= v);
+	}
+
+	public boolean all(IntPredicate test) {
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && !test.test(a.get(i)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean any(IntPredicate test) {
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && test.test(a.get(i)))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Reduction
+	public OptionalInt sum() {
+		if (0 == this.validCount())
+			return OptionalInt.empty();
+
+		int v = 0;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalInt sumExact() {
+		if (0 == this.validCount())
+			return OptionalInt.empty();
+
+		int v = 0;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.addExact(v, a.get(i));
+			}
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalInt product() {
+		if (0 == this.validCount())
+			return OptionalInt.empty();
+
+		int v = 1;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v *= a.get(i);
+			}
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalInt max() {
+		if (0 == this.validCount())
+			return OptionalInt.empty();
+
+		int v = Integer.MIN_VALUE;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.max(v, a.get(i));
+			}
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalInt min() {
+		if (0 == this.validCount())
+			return OptionalInt.empty();
+
+		int v = Integer.MAX_VALUE;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.min(v, a.get(i));
+			}
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalDouble mean() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		long v = 0;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalDouble.of((double) v / this.validCount());
+	}
+
+	public int getSum() {
+		return this.sum().getAsInt();
+	}
+
+	public int getMax() {
+		return this.max().getAsInt();
+	}
+
+	public int getMin() {
+		return this.min().getAsInt();
+	}
+
+	public double getMean() {
+		return this.mean().getAsDouble();
+	}
+
+	public double populationVar() {
+		double mean = this.getMean();
+		double v = 0;
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p)) {
+					double d = a.get(i) - mean;
+					v += d * d;
+				}
+			}
+		}
+		return v / this.validCount();
+	}
+
+	public double sampleVar() {
+		long n = this.validCount();
+		return this.populationVar() * n / (n - 1.0);
+	}
+
+	public double std() {
+		return Math.sqrt(this.populationVar());
+	}
+
+	public double sampleStd() {
+		return Math.sqrt(this.sampleVar());
+	}
+
+	// casting
+	@Override
+	public StringList string() {
+		List<String> s = new ArrayList<>(this.size());
+		long p = 0;
+		for (IntBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				s.add(this.isValid(p) ? Integer.toString(a.get(i)) : null);
+			}
+		}
+		return StringList.of(s);
+	}
+
+	@Override
+	protected String elementString(long from, long to) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (long i = from; i < to; i++) {
+			joiner.add(this.isValid(i) ? Integer.toString(this.getAt(i)) : "null");
+		}
+		return joiner.toString();
+	}
+
+	@Override
+	public IntList asInt() {
+		return this.toHeap();
+	}
+
+	@Override
+	public LongList asLong() {
+		return ListCast.toLong(this.toHeap());
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return ListCast.toDouble(this.toHeap());
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.ne(0);
+	}
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Shared storage handling for lists whose elements live outside of the Java
+ * heap, in direct (or memory-mapped) byte buffers.
+ * 
+ * <p>
+ * Elements are spread over chunks of at most {@link #CHUNK_SIZE} elements, so
+ * that a list can hold more than <code>Integer.MAX_VALUE</code> elements even
+ * though a single <code>ByteBuffer</code> cannot. Element <code>i</code> lives
+ * at position <code>i & CHUNK_MASK</code> of chunk <code>i >>> CHUNK_SHIFT</code>.
+ * </p>
+ * 
+ * <p>
+ * A direct list may have a validity mask, with the same meaning as in the
+ * heap lists: elements whose bit is clear are null, and their stored values
+ * are undefined. Only lists of at most <code>Integer.MAX_VALUE</code> elements
+ * can have nulls.
+ * </p>
+ * 
+ * <p>
+ * Direct lists must be closed, either one by one or through the
+ * {@link OffHeapArena} that allocated them. Closing releases the memory
+ * immediately rather than waiting for the garbage collector, and any access to
+ * a closed list fails with an <code>IllegalStateException</code>. Direct lists
+ * are not thread-safe with respect to <code>close()</code>.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+abstract class DirectList implements NambaList, AutoCloseable {
+
+	static final int CHUNK_SHIFT = 27;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final Method INVOKE_CLEANER;
+	private static final Object UNSAFE;
+
+	static {
+		Method cleaner = null;
+		Object unsafe = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field f = unsafeClass.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			cleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// memory will be released by the garbage collector instead
+			cleaner = null;
+			unsafe = null;
+		}
+		INVOKE_CLEANER = cleaner;
+		UNSAFE = unsafe;
+	}
+
+	protected final long length;
+	protected final OffHeapArena arena;
+
+	/**
+	 * Null if all elements are valid.
+	 */
+	protected final Mask validity;
+
+	private ByteBuffer[] buffers;
+	private final boolean owned;
+
+	protected DirectList(ByteBuffer[] buffers, long length, Mask validity, boolean owned, OffHeapArena arena) {
+		this.buffers = buffers;
+		this.length = length;
+		this.validity = null == validity ? null : Mask.validity(validity, Math.toIntExact(length));
+		this.owned = owned;
+		this.arena = arena;
+
+		if (null != arena) {
+			arena.register(this);
+		}
+	}
+
+	/**
+	 * Allocates zeroed direct buffers, in native byte order, for
+	 * <code>length</code> elements of <code>elementBytes</code> bytes each.
+	 */
+	static ByteBuffer[] allocate(long length, int elementBytes) {
+		if (length < 0) {
+			throw new IllegalArgumentException("negative length: " + length);
+		}
+
+		int count = chunkCount(length);
+		ByteBuffer[] chunks = new ByteBuffer[count];
+
+		for (int c = 0; c < count; c++) {
+			long elements = Math.min(CHUNK_SIZE, length - ((long) c << CHUNK_SHIFT));
+			chunks[c] = ByteBuffer.allocateDirect((int) elements * elementBytes).order(ByteOrder.nativeOrder());
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * Splits the remaining bytes of an existing buffer into chunks. The chunks
+	 * share the given buffer's memory and keep its byte order.
+	 */
+	static ByteBuffer[] split(ByteBuffer buffer, int elementBytes) {
+		ByteBuffer source = buffer.duplicate().order(buffer.order());
+		long length = source.remaining() / elementBytes;
+		int count = chunkCount(length);
+		ByteBuffer[] chunks = new ByteBuffer[count];
+
+		for (int c = 0; c < count; c++) {
+			int from = source.position() + c * CHUNK_SIZE * elementBytes;
+			long elements = Math.min(CHUNK_SIZE, length - ((long) c << CHUNK_SHIFT));
+
+			ByteBuffer view = source.duplicate();
+			view.position(from);
+			view.limit(from + (int) elements * elementBytes);
+			chunks[c] = view.slice().order(buffer.order());
+		}
+
+		return chunks;
+	}
+
+	static int chunkCount(long length) {
+		return Math.toIntExact((length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+	}
+
+	static int chunkOf(long loc) {
+		return (int) (loc >>> CHUNK_SHIFT);
+	}
+
+	static int offsetOf(long loc) {
+		return (int) (loc & CHUNK_MASK);
+	}
+
+	/**
+	 * The number of elements in this list. Unlike {@link #size()}, this does not
+	 * fail for lists larger than <code>Integer.MAX_VALUE</code>.
+	 */
+	public long length() {
+		return this.length;
+	}
+
+	/**
+	 * The number of elements in this list.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the list has more than <code>Integer.MAX_VALUE</code>
+	 *             elements. Use {@link #length()} for such lists.
+	 */
+	@Override
+	public int size() {
+		if (this.length > Integer.MAX_VALUE) {
+			throw new IllegalStateException("list has " + this.length + " elements, use length() instead");
+		}
+		return (int) this.length;
+	}
+
+	@Override
+	public Index index() {
+		return null;
+	}
+
+	public boolean hasNulls() {
+		return null != this.validity;
+	}
+
+	public long nullCount() {
+		return null == this.validity ? 0 : this.validity.falseCount();
+	}
+
+	public boolean isNull(long loc) {
+		this.checkIndex(loc);
+		return !this.isValid(loc);
+	}
+
+	protected boolean isValid(long loc) {
+		return null == this.validity || this.validity.getAt((int) loc);
+	}
+
+	/**
+	 * Number of non-null elements.
+	 */
+	protected long validCount() {
+		return this.length - this.nullCount();
+	}
+
+	protected Mask validOnly(Mask m) {
+		return null == this.validity ? m : m.and(this.validity);
+	}
+
+	protected Mask validOnly(Mask m, DirectList other) {
+		Mask valid = Mask.intersect(this.validity, other.validity);
+		return null == valid ? m : m.and(valid);
+	}
+
+	public boolean isClosed() {
+		return null == this.buffers;
+	}
+
+	protected ByteBuffer[] buffers() {
+		if (null == this.buffers) {
+			throw new IllegalStateException("list is closed");
+		}
+		return this.buffers;
+	}
+
+	protected void checkIndex(long loc) {
+		if (loc < 0 || loc >= this.length) {
+			throw new IndexOutOfBoundsException("index " + loc + " out of bounds for length " + this.length);
+		}
+	}
+
+	protected void verifyLengthMatch(DirectList other) {
+		if (this.length != other.length) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+	}
+
+	/**
+	 * Releases this list's memory. Buffers that were wrapped rather than
+	 * allocated by this list are only dereferenced, as they belong to the caller.
+	 * Closing a closed list has no effect.
+	 */
+	@Override
+	public void close() {
+		ByteBuffer[] b = this.buffers;
+		if (null == b) {
+			return;
+		}
+
+		this.buffers = null;
+		this.released();
+
+		if (this.owned && null != INVOKE_CLEANER) {
+			for (ByteBuffer buffer : b) {
+				try {
+					INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				} catch (ReflectiveOperationException e) {
+					// left to the garbage collector
+				}
+			}
+		}
+
+		if (null != this.arena) {
+			this.arena.unregister(this);
+		}
+	}
+
+	/**
+	 * Called when the list is closed, so that subclasses can drop their typed
+	 * views of the released buffers.
+	 */
+	protected abstract void released();
+
+	@Override
+	public String toString() {
+		if (this.isClosed()) {
+			return "[closed]";
+		}
+		if (this.length > 2 * SUMMARY_SIZE) {
+			return "[" + this.elementString(0, SUMMARY_SIZE) + ", ..., "
+					+ this.elementString(this.length - SUMMARY_SIZE, this.length) + "]";
+		}
+		return "[" + this.elementString(0, this.length) + "]";
+	}
+
+	/**
+	 * Returns elements between <code>from</code> (inclusive) and <code>to</code>
+	 * (exclusive), separated by commas.
+	 */
+	protected abstract String elementString(long from, long to);
+}
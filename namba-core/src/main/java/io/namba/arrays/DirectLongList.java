@@ -0,0 +1,579 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.StringJoiner;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * A long list stored outside of the Java heap. It supports the element-wise
+ * arithmetic, comparison and reduction operations of {@link LongList}, and
+ * results of element-wise operations are themselves direct lists (allocated in
+ * the same {@link OffHeapArena}, if any).
+ * 
+ * <p>
+ * Direct lists must be closed when no longer needed, see {@link DirectList}.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class DirectLongList extends DirectList {
+
+	private static final int BYTES = Long.BYTES;
+
+	private LongBuffer[] chunks;
+
+	private DirectLongList(ByteBuffer[] buffers, long length, Mask validity, boolean owned, OffHeapArena arena) {
+		super(buffers, length, validity, owned, arena);
+
+		this.chunks = new LongBuffer[buffers.length];
+		for (int c = 0; c < buffers.length; c++) {
+			this.chunks[c] = buffers[c].asLongBuffer();
+		}
+	}
+
+	static DirectLongList allocate(long size, OffHeapArena arena) {
+		return new DirectLongList(allocate(size, BYTES), size, null, true, arena);
+	}
+
+	static DirectLongList copyOf(LongList list, OffHeapArena arena) {
+		DirectLongList l = new DirectLongList(allocate(list.size(), BYTES), list.size(), list.validity, true, arena);
+		l.load(list.value, list.offset);
+		return l;
+	}
+
+	/**
+	 * Allocates a zero-filled list that is not owned by any arena.
+	 */
+	public static DirectLongList allocate(long size) {
+		return allocate(size, null);
+	}
+
+	public static DirectLongList of(long size, long value) {
+		DirectLongList l = allocate(size, null);
+		if (0 != value) {
+			for (LongBuffer chunk : l.chunks) {
+				for (int i = 0; i < chunk.limit(); i++)
+					chunk.put(i, value);
+			}
+		}
+		return l;
+	}
+
+	public static DirectLongList of(long[] values) {
+		DirectLongList l = allocate(values.length, null);
+		l.load(values, 0);
+		return l;
+	}
+
+	public static DirectLongList copyOf(LongList list) {
+		return copyOf(list, null);
+	}
+
+	/**
+	 * Creates a list over the remaining bytes of the given buffer, using the
+	 * buffer's byte order. The memory is shared with the buffer and is not
+	 * released when the list is closed.
+	 */
+	public static DirectLongList wrap(ByteBuffer buffer) {
+		Objects.requireNonNull(buffer, "buffer may not be null");
+		return new DirectLongList(split(buffer, BYTES), buffer.remaining() / BYTES, null, false, null);
+	}
+
+	/**
+	 * Creates a list over chunks that are already split at chunk boundaries.
+	 */
+	static DirectLongList wrap(ByteBuffer[] chunks, long length) {
+		return wrap(chunks, length, null);
+	}
+
+	/**
+	 * Creates a list over split chunks, with nulls where <code>validity</code>
+	 * is clear.
+	 */
+	static DirectLongList wrap(ByteBuffer[] chunks, long length, Mask validity) {
+		return new DirectLongList(chunks, length, validity, false, null);
+	}
+
+	private void load(long[] values, int offset) {
+		for (int c = 0; c < this.chunks.length; c++) {
+			LongBuffer chunk = this.chunks[c].duplicate();
+			chunk.put(values, offset + c * CHUNK_SIZE, chunk.remaining());
+		}
+	}
+
+	private LongBuffer[] chunks() {
+		this.buffers();
+		return this.chunks;
+	}
+
+	private DirectLongList newList(Mask validity) {
+		return new DirectLongList(allocate(this.length, BYTES), this.length, validity, true, this.arena);
+	}
+
+	@Override
+	protected void released() {
+		this.chunks = null;
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.LONG;
+	}
+
+	public long getAt(long loc) {
+		this.checkIndex(loc);
+		return this.chunks()[chunkOf(loc)].get(offsetOf(loc));
+	}
+
+	@Override
+	public LongList getAt(int[] loc) {
+		long[] r = new long[loc.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = this.getAt((long) loc[i]);
+		}
+		return LongList.of(r, null == this.validity ? null : this.validity.getAt(loc));
+	}
+
+	public LongStream stream() {
+		return LongStream.range(0, this.length).map(this::getAt);
+	}
+
+	/**
+	 * Copies this list's data to the heap.
+	 */
+	public long[] toArray() {
+		long[] r = new long[this.size()];
+		LongBuffer[] c = this.chunks();
+		for (int i = 0; i < c.length; i++) {
+			c[i].duplicate().get(r, i * CHUNK_SIZE, c[i].limit());
+		}
+		return r;
+	}
+
+	/**
+	 * Copies this list's data to an on-heap long list.
+	 */
+	public LongList toHeap() {
+		return LongList.of(this.toArray(), this.validity);
+	}
+
+	// operations
+	public DirectLongList map(LongUnaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+
+		LongBuffer[] src = this.chunks();
+		DirectLongList res = this.newList(this.validity);
+
+		for (int c = 0; c < src.length; c++) {
+			LongBuffer a = src[c];
+			LongBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsLong(a.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectLongList apply(LongUnaryOperator op) {
+		return this.map(op);
+	}
+
+	public DirectLongList zip(DirectLongList other, LongBinaryOperator op) {
+		Objects.requireNonNull(op, "operation may not be null");
+		this.verifyLengthMatch(other);
+
+		LongBuffer[] left = this.chunks();
+		LongBuffer[] right = other.chunks();
+		DirectLongList res = this.newList(Mask.intersect(this.validity, other.validity));
+
+		for (int c = 0; c < left.length; c++) {
+			LongBuffer a = left[c];
+			LongBuffer b = right[c];
+			LongBuffer r = res.chunks[c];
+			for (int i = 0; i < a.limit(); i++) {
+				r.put(i, op.applyAsLong(a.get(i), b.get(i)));
+			}
+		}
+
+		return res;
+	}
+
+	public DirectLongList plus(long n) {
+		return this.map(i -> i + n);
+	}
+
+	public DirectLongList plus(DirectLongList n) {
+		return this.zip(n, (a, b) -> a + b);
+	}
+
+	public DirectLongList minus(long n) {
+		return this.map(i -> i - n);
+	}
+
+	public DirectLongList minus(DirectLongList n) {
+		return this.zip(n, (a, b) -> a - b);
+	}
+
+	public DirectLongList multiply(long n) {
+		return this.map(i -> i * n);
+	}
+
+	public DirectLongList multiply(DirectLongList n) {
+		return this.zip(n, (a, b) -> a * b);
+	}
+
+	public DirectLongList divide(long n) {
+		return this.map(i -> i / n);
+	}
+
+	public DirectLongList divide(DirectLongList n) {
+		return this.zip(n, (a, b) -> a / b);
+	}
+
+	public DirectLongList mod(long n) {
+		return this.map(i -> i % n);
+	}
+
+	public DirectLongList mod(DirectLongList n) {
+		return this.zip(n, (a, b) -> a % b);
+	}
+
+	public DirectLongList abs() {
+		return this.map(Math::abs);
+	}
+
+	public DirectLongList negative() {
+		return this.map(i -> -i);
+	}
+
+	public DirectLongList square() {
+		return this.map(i -> i * i);
+	}
+
+	@Override
+	public DirectLongList repeat(int n) {
+		long total = n * this.length;
+		DirectLongList res = new DirectLongList(allocate(total, BYTES), total,
+				null == this.validity ? null : this.validity.repeat(n), true, this.arena);
+
+		for (long i = 0; i < total; i++) {
+			res.chunks[chunkOf(i)].put(offsetOf(i), this.getAt(i % this.length));
+		}
+
+		return res;
+	}
+
+	// comparison
+	public Mask test(LongPredicate predicate) {
+		Objects.requireNonNull(predicate, "predicate cannot be null");
+
+		LongBuffer[] src = this.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (LongBuffer a : src) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (predicate.test(a.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()));
+	}
+
+	private Mask compare(DirectLongList other, LongBinaryOperator comparison) {
+		this.verifyLengthMatch(other);
+
+		LongBuffer[] left = this.chunks();
+		LongBuffer[] right = other.chunks();
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		int p = 0;
+		for (int c = 0; c < left.length; c++) {
+			LongBuffer a = left[c];
+			LongBuffer b = right[c];
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (0 != comparison.applyAsLong(a.get(i), b.get(i)))
+					words[p >>> 6] |= 1L << p;
+			}
+		}
+
+		return this.validOnly(Mask.ofWords(words, this.size()), other);
+	}
+
+	public Mask eq(long other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask eq(DirectLongList other) {
+		return this.compare(other, (a, b) -> a == b ? 1 : 0);
+	}
+
+	public Mask ne(long other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask ne(DirectLongList other) {
+		return this.compare(other, (a, b) -> a != b ? 1 : 0);
+	}
+
+	public Mask lt(long other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask lt(DirectLongList other) {
+		return this.compare(other, (a, b) -> a < b ? 1 : 0);
+	}
+
+	public Mask le(long other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask le(DirectLongList other) {
+		return this.compare(other, (a, b) -> a <= b ? 1 : 0);
+	}
+
+	public Mask gt(long other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask gt(DirectLongList other) {
+		return this.compare(other, (a, b) -> a > b ? 1 : 0);
+	}
+
+	public Mask ge(long other) {
+		return this.test(v -> v >= other);
+	}
+
+	public Mask ge(DirectLongList other) {
+		return this.compare(other, (a, b) -> a >= b ? 1 : 0);
+	}
+
+	public Mask between(long low, long high) {
+		return this.test(v -> low <= v && high >= v);
+	}
+
+	public boolean all(LongPredicate test) {
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && !test.test(a.get(i)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean any(LongPredicate test) {
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p) && test.test(a.get(i)))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Reduction
+	public OptionalLong sum() {
+		if (0 == this.validCount())
+			return OptionalLong.empty();
+
+		long v = 0;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalLong sumExact() {
+		if (0 == this.validCount())
+			return OptionalLong.empty();
+
+		long v = 0;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.addExact(v, a.get(i));
+			}
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalLong product() {
+		if (0 == this.validCount())
+			return OptionalLong.empty();
+
+		long v = 1;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v *= a.get(i);
+			}
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalLong max() {
+		if (0 == this.validCount())
+			return OptionalLong.empty();
+
+		long v = Long.MIN_VALUE;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.max(v, a.get(i));
+			}
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalLong min() {
+		if (0 == this.validCount())
+			return OptionalLong.empty();
+
+		long v = Long.MAX_VALUE;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v = Math.min(v, a.get(i));
+			}
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalDouble mean() {
+		if (0 == this.validCount())
+			return OptionalDouble.empty();
+
+		double v = 0;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p))
+					v += a.get(i);
+			}
+		}
+		return OptionalDouble.of(v / this.validCount());
+	}
+
+	public long getSum() {
+		return this.sum().getAsLong();
+	}
+
+	public long getMax() {
+		return this.max().getAsLong();
+	}
+
+	public long getMin() {
+		return this.min().getAsLong();
+	}
+
+	public double getMean() {
+		return this.mean().getAsDouble();
+	}
+
+	public double populationVar() {
+		double mean = this.getMean();
+		double v = 0;
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				if (this.isValid(p)) {
+					double d = a.get(i) - mean;
+					v += d * d;
+				}
+			}
+		}
+		return v / this.validCount();
+	}
+
+	public double sampleVar() {
+		long n = this.validCount();
+		return this.populationVar() * n / (n - 1.0);
+	}
+
+	public double std() {
+		return Math.sqrt(this.populationVar());
+	}
+
+	public double sampleStd() {
+		return Math.sqrt(this.sampleVar());
+	}
+
+	// casting
+	@Override
+	public StringList string() {
+		List<String> s = new ArrayList<>(this.size());
+		long p = 0;
+		for (LongBuffer a : this.chunks()) {
+			for (int i = 0; i < a.limit(); i++, p++) {
+				s.add(this.isValid(p) ? Long.toString(a.get(i)) : null);
+			}
+		}
+		return StringList.of(s);
+	}
+
+	@Override
+	protected String elementString(long from, long to) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (long i = from; i < to; i++) {
+			joiner.add(this.isValid(i) ? Long.toString(this.getAt(i)) : "null");
+		}
+		return joiner.toString();
+	}
+
+	@Override
+	public IntList asInt() {
+		return ListCast.toInt(this.toHeap());
+	}
+
+	@Override
+	public LongList asLong() {
+		return this.toHeap();
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return ListCast.toDouble(this.toHeap());
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.ne(0);
+	}
+}
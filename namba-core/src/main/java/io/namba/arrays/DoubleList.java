@@ -15,7 +15,11 @@
 
 package io.namba.arrays;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -28,21 +32,58 @@ import java.util.stream.LongStream;
 public class DoubleList implements NambaList {
 
 	protected final double[] value;
+
+	/**
+	 * Position of the first element in <code>value</code>, and number of
+	 * elements. Slices share their parent's array, which may hold elements
+	 * outside of this list.
+	 */
+	protected final int offset;
+	protected final int length;
+
 	protected final Index index;
 
+	/**
+	 * Validity of elements: elements whose bit is not set are null. This is null
+	 * if all elements are valid.
+	 */
+	protected final Mask validity;
+
 	private DoubleList(double[] v) {
+		this(v, (Mask) null);
+	}
+
+	private DoubleList(double[] v, Mask validity) {
 		this.value = v;
+		this.offset = 0;
+		this.length = v.length;
 		this.index = null;
+		this.validity = Mask.validity(validity, v.length);
 	}
 
 	private DoubleList(double[] v, Index index) {
 		this.value = v;
+		this.offset = 0;
+		this.length = v.length;
 		this.index = index;
+		this.validity = null;
+	}
+
+	/**
+	 * A slice of <code>[from, to)</code> of the parent list, sharing its array.
+	 */
+	private DoubleList(DoubleList parent, int from, int to) {
+		this.value = parent.value;
+		this.offset = parent.offset + from;
+		this.length = to - from;
+		this.index = null;
+		this.validity = null == parent.validity ? null
+				: Mask.validity(parent.validity.getAt(from, to), this.length);
 	}
 
 	@Override
 	public final int size() {
-		return this.value.length;
+		return this.length;
 	}
 
 	@Override
@@ -59,6 +100,27 @@ public class DoubleList implements NambaList {
 		return new DoubleList(v);
 	}
 
+	/**
+	 * Creates a nullable list. Elements whose bit is not set in
+	 * <code>validity</code> are null, and their values in <code>v</code> are
+	 * ignored. A null <code>validity</code> mask makes all elements valid.
+	 */
+	public static DoubleList of(double[] v, Mask validity) {
+		return new DoubleList(v, validity);
+	}
+
+	/**
+	 * Creates a nullable list from boxed values, null elements being null in the
+	 * list.
+	 */
+	public static DoubleList ofNullable(Double... values) {
+		double[] v = new double[values.length];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = null == values[i] ? 0 : values[i];
+		}
+		return new DoubleList(v, Mask.of(values.length, i -> null != values[i]));
+	}
+
 	public static DoubleList of(int[] v) {
 		return new DoubleList(IntStream.of(v).mapToDouble(i -> i).toArray());
 	}
@@ -69,30 +131,99 @@ public class DoubleList implements NambaList {
 
 	@Override
 	public NambaList getAt(int[] loc) {
-		return DoubleList.of(IntStream.of(loc).mapToDouble(i -> this.value[i]).toArray());
+		double[] v = new double[loc.length];
+		for (int i = 0; i < loc.length; i++) {
+			v[i] = this.getAt(loc[i]);
+		}
+
+		return new DoubleList(v, null == this.validity ? null : this.validity.getAt(loc));
 	}
 
 	public double getAt(int loc) {
-		return this.value[loc];
+		return this.value[this.offset + Objects.checkIndex(loc, this.length)];
+	}
+
+	/**
+	 * Returns the elements in the contiguous range <code>[from, to)</code>,
+	 * clipped to this list's bounds. The returned list is a view sharing this
+	 * list's array, so slicing doesn't copy elements (only the validity mask of a
+	 * list with nulls is copied).
+	 */
+	@Override
+	public DoubleList getAt(int from, int to) {
+		int start = Math.max(0, from);
+		int end = Math.max(start, Math.min(this.length, to));
+
+		return 0 == start && this.length == end ? this : new DoubleList(this, start, end);
+	}
+
+	/**
+	 * Return the first few values of this list. The default value is specified by
+	 * {@link NambaList#SUMMARY_SIZE}
+	 */
+	public DoubleList head() {
+		return this.head(SUMMARY_SIZE);
+	}
+
+	/**
+	 * Return the first <code>n</code> values of this list.
+	 */
+	public DoubleList head(int n) {
+		return this.getAt(0, n);
+	}
+
+	/**
+	 * Return the last few values of this list. The default value is specified by
+	 * {@link NambaList#SUMMARY_SIZE}
+	 */
+	public DoubleList tail() {
+		return this.tail(SUMMARY_SIZE);
+	}
+
+	/**
+	 * Return the last <code>n</code> values of this list.
+	 */
+	public DoubleList tail(int n) {
+		return this.getAt(this.size() - n, this.size());
 	}
 
 	@Override
 	public String toString() {
-		return Arrays.toString(this.value);
+		if (null == this.validity) {
+			return Arrays.toString(this.array());
+		}
+		return IntStream.range(0, this.length)
+				.mapToObj(i -> this.validity.isSet(i) ? Double.toString(this.value[this.offset + i]) : "null")
+				.collect(Collectors.joining(", ", "[", "]"));
 	}
 
 	@Override
 	public StringList string() {
-		return StringList.of(DoubleStream.of(value).mapToObj(Double::toString).collect(Collectors.toList()));
+		return StringList.of(IntStream.range(0, this.length)
+				.mapToObj(i -> this.isValid(i) ? Double.toString(this.value[this.offset + i]) : null)
+				.collect(Collectors.toList()));
 	}
 
+	/**
+	 * Streams the stored values. Null elements appear with their undefined
+	 * stored value, so callers that must skip them check validity by position.
+	 */
 	public DoubleStream stream() {
-		return Arrays.stream(value);
+		return Arrays.stream(this.value, this.offset, this.offset + this.length);
+	}
+
+	/**
+	 * This list's elements, not copied unless this list is a slice of a larger
+	 * array. Callers must not modify the returned array.
+	 */
+	double[] array() {
+		return 0 == this.offset && this.length == this.value.length ? this.value
+				: Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
 	}
 
 	public DoubleStream reverseStream() {
-		return IntStream.iterate(this.value.length - 1, i -> i - 1).limit(this.value.length)
-				.mapToDouble(i -> this.value[i]);
+		return IntStream.iterate(this.length - 1, i -> i - 1).limit(this.length)
+				.mapToDouble(i -> this.value[this.offset + i]);
 	}
 
 	// casting
@@ -118,10 +249,10 @@ public class DoubleList implements NambaList {
 
 	// masks
 	public Mask isnan() {
-		boolean[] b = new boolean[this.value.length];
+		boolean[] b = new boolean[this.length];
 
-		for (int i = 0; i < this.value.length; i++) {
-			b[i] = Double.isNaN(this.value[i]);
+		for (int i = 0; i < this.length; i++) {
+			b[i] = this.isValid(i) && Double.isNaN(this.value[this.offset + i]);
 		}
 
 		return Mask.of(b);
@@ -130,13 +261,13 @@ public class DoubleList implements NambaList {
 	// impl
 	@Override
 	public DoubleList repeat(int n) {
-		double[] v = new double[n * this.value.length];
+		double[] v = new double[n * this.length];
 
 		for (int i = 0; i < n; i++) {
-			System.arraycopy(this.value, 0, v, i * this.value.length, this.value.length);
+			System.arraycopy(this.value, this.offset, v, i * this.length, this.length);
 		}
 
-		return DoubleList.of(v);
+		return new DoubleList(v, null == this.validity ? null : this.validity.repeat(n));
 	}
 
 	/**
@@ -145,15 +276,113 @@ public class DoubleList implements NambaList {
 	 * @return
 	 */
 	public IntList nonZero() {
-		return IntList.of(IntStream.range(0, this.value.length).filter(i -> this.value[i] != 0.0).toArray());
+		return IntList.of(IntStream.range(0, this.length).filter(i -> this.isValid(i)
+				&& this.value[this.offset + i] != 0.0).toArray());
 	}
 
 	public LongList round() {
-		return LongList.of(Arrays.stream(this.value).mapToLong(Math::round).toArray());
+		return LongList.of(this.stream().mapToLong(Math::round).toArray(), this.validity);
 	}
 
 	public DoubleList invert() {
-		return DoubleList.of(Arrays.stream(this.value).map(i -> 1 / i).toArray());
+		return new DoubleList(this.stream().map(i -> 1 / i).toArray(), this.validity);
+	}
+
+	// arithmetic
+	public DoubleList plus(double n) {
+		return this.derived(Kernels.add(this.value, this.offset, this.length, n), this.validity);
+	}
+
+	public DoubleList plus(DoubleList n) {
+		this.verifySizeMatch(n);
+		return this.derived(Kernels.add(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
+	}
+
+	public DoubleList minus(double n) {
+		return this.derived(Kernels.subtract(this.value, this.offset, this.length, n), this.validity);
+	}
+
+	public DoubleList minus(DoubleList n) {
+		this.verifySizeMatch(n);
+		return this.derived(Kernels.subtract(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
+	}
+
+	public DoubleList multiply(double n) {
+		return this.derived(Kernels.multiply(this.value, this.offset, this.length, n), this.validity);
+	}
+
+	public DoubleList multiply(DoubleList n) {
+		this.verifySizeMatch(n);
+		return this.derived(Kernels.multiply(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
+	}
+
+	public DoubleList divide(double n) {
+		return this.derived(Kernels.divide(this.value, this.offset, this.length, n), this.validity);
+	}
+
+	public DoubleList divide(DoubleList n) {
+		this.verifySizeMatch(n);
+		return this.derived(Kernels.divide(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
+	}
+
+	// comparisons; NaN compares as in Java, and null elements never match
+	public Mask eq(double other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.EQ),
+				this.length));
+	}
+
+	public Mask ne(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.NE),
+				this.length));
+	}
+
+	public Mask lt(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LT),
+				this.length));
+	}
+
+	public Mask le(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LE),
+				this.length));
+	}
+
+	public Mask gt(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GT),
+				this.length));
+	}
+
+	public Mask ge(double other) {
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GE),
+				this.length));
+	}
+
+	private void verifySizeMatch(DoubleList other) {
+		if (this.length != other.length) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+	}
+
+	/*
+	 * Kernels run over null slots too: those are reset to 0.
+	 */
+	private DoubleList derived(double[] result, Mask validity) {
+		if (null != validity) {
+			for (int i = validity.nextClearBit(0); i >= 0; i = validity.nextClearBit(i + 1))
+				result[i] = 0;
+		}
+		return new DoubleList(result, validity);
+	}
+
+	private Mask validOnly(Mask m) {
+		return null == this.validity ? m : m.and(this.validity);
 	}
 
 	// reduction/aggregation
@@ -162,11 +391,345 @@ public class DoubleList implements NambaList {
 	 * counts non-NaN
 	 */
 	public int count() {
-		return (int) this.stream().filter(d -> !Double.isNaN(d)).count();
+		int n = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!Double.isNaN(this.value[this.offset + i]))
+				n++;
+		}
+		return n;
 	}
 
+	/*
+	 * Reductions skip null and NaN elements.
+	 */
+	public OptionalDouble sum() {
+		if (0 == this.count())
+			return OptionalDouble.empty();
+
+		// chunk sums are added in order, so results only depend on the chunking
+		double v = 0;
+		for (double partial : Parallelism.map(this.length, this::sum))
+			v += partial;
+		return OptionalDouble.of(v);
+	}
+
+	private double sum(int from, int to) {
+		double v = 0;
+		for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity, i + 1,
+				to)) {
+			if (!Double.isNaN(this.value[this.offset + i]))
+				v += this.value[this.offset + i];
+		}
+		return v;
+	}
+
+	public OptionalDouble max() {
+		if (0 == this.count())
+			return OptionalDouble.empty();
+
+		if (null == this.validity)
+			return OptionalDouble.of(Kernels.max(this.value, this.offset, this.length));
+
+		double v = Double.NEGATIVE_INFINITY;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!Double.isNaN(this.value[this.offset + i]))
+				v = Math.max(v, this.value[this.offset + i]);
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble min() {
+		if (0 == this.count())
+			return OptionalDouble.empty();
+
+		if (null == this.validity)
+			return OptionalDouble.of(Kernels.min(this.value, this.offset, this.length));
+
+		double v = Double.POSITIVE_INFINITY;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!Double.isNaN(this.value[this.offset + i]))
+				v = Math.min(v, this.value[this.offset + i]);
+		}
+		return OptionalDouble.of(v);
+	}
+
+	public OptionalDouble mean() {
+		int n = this.count();
+		return 0 == n ? OptionalDouble.empty() : OptionalDouble.of(this.sum().getAsDouble() / n);
+	}
+
+	public OptionalDouble median() {
+		double[] v = this.validValues();
+
+		if (0 == v.length)
+			return OptionalDouble.empty();
+		if (1 == v.length % 2)
+			return OptionalDouble.of(OrderStatistics.select(v, v.length / 2));
+
+		double lower = OrderStatistics.select(v, v.length / 2 - 1);
+		return OptionalDouble.of((lower + OrderStatistics.minFrom(v, v.length / 2)) / 2);
+	}
+
+	public OptionalDouble quantile(double q) {
+		return this.quantile(q, Interpolation.LINEAR);
+	}
+
+	public OptionalDouble quantile(double q, Interpolation interpolation) {
+		OrderStatistics.checkQuantile(q);
+		Objects.requireNonNull(interpolation, "interpolation may not be null");
+
+		double[] v = this.validValues();
+		if (0 == v.length)
+			return OptionalDouble.empty();
+
+		return OptionalDouble.of(OrderStatistics.quantile(v, q, interpolation));
+	}
+
+	/**
+	 * Builds a {@link TDigest} over the non-null, non-NaN values for approximate
+	 * quantiles in a single pass.
+	 */
+	public TDigest digest() {
+		return this.digest(TDigest.DEFAULT_COMPRESSION);
+	}
+
+	public TDigest digest(double compression) {
+		List<TDigest> parts = Parallelism.map(this.length, (from, to) -> {
+			TDigest digest = TDigest.of(compression);
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				if (!Double.isNaN(this.value[this.offset + i]))
+					digest.add(this.value[this.offset + i]);
+			}
+			return digest;
+		});
+
+		TDigest digest = parts.get(0);
+		for (int c = 1; c < parts.size(); c++)
+			digest.merge(parts.get(c));
+		return digest;
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Equal values are assigned the
+	 * average of their ranks. Null and NaN values are not ranked.
+	 */
+	public DoubleList rank() {
+		return this.rank(RankMethod.AVERAGE, true, false);
+	}
+
+	public DoubleList rank(RankMethod method) {
+		return this.rank(method, true, false);
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Null and NaN values are not ranked.
+	 * 
+	 * @param method
+	 *            How to rank equal values.
+	 * @param ascending
+	 *            Whether the smallest value is ranked 1.
+	 * @param percentile
+	 *            Whether to divide ranks by the number of ranked values (of
+	 *            distinct values with {@link RankMethod#DENSE}).
+	 */
+	public DoubleList rank(RankMethod method, boolean ascending, boolean percentile) {
+		return Ranks.rank(RadixSort.argSort(this.array(), !ascending),
+				i -> !this.isValid(i) || Double.isNaN(this.value[this.offset + i]), (a,
+				b) -> this.value[this.offset + a] == this.value[this.offset + b], method,
+				percentile);
+	}
+
+	/**
+	 * Rolling windows of <code>window</code> rows over this list's values.
+	 */
+	public Rolling rolling(int window) {
+		return Rolling.of(this.array(), this.validity, window);
+	}
+
+	/**
+	 * Rolling windows spanning <code>window</code> of time up to each element's
+	 * time. <code>times</code> must be sorted and have the same size as this
+	 * list.
+	 */
+	public Rolling rolling(DateTimeArray times, Duration window) {
+		return Rolling.of(this.array(), this.validity, times, window);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with smoothing factor
+	 * <code>alpha</code>, <code>0 < alpha <= 1</code>.
+	 */
+	public Ewm ewm(double alpha) {
+		return Ewm.of(this.array(), this.validity, alpha);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with
+	 * <code>alpha = 2 / (span + 1)</code>.
+	 */
+	public Ewm ewmSpan(double span) {
+		return Ewm.of(this.array(), this.validity, Ewm.alphaOfSpan(span));
+	}
+
+	/**
+	 * Exponentially weighted moving statistics whose weights halve every
+	 * <code>halfLife</code> rows.
+	 */
+	public Ewm ewmHalfLife(double halfLife) {
+		return Ewm.of(this.array(), this.validity, Ewm.alphaOfHalfLife(halfLife));
+	}
+
+	/**
+	 * Time-aware exponentially weighted moving statistics: weights halve every
+	 * <code>halfLife</code> elapsed between the elements' times, which must be
+	 * sorted.
+	 */
+	public Ewm ewm(DateTimeArray times, Duration halfLife) {
+		return Ewm.of(this.array(), this.validity, times, halfLife);
+	}
+
+	/**
+	 * Return the given number of this list's largest values, largest first.
+	 * Null and NaN elements are skipped.
+	 */
+	public DoubleList nLargest(int n) {
+		return new DoubleList(OrderStatistics.top(this.validValues(), n, true));
+	}
+
+	/**
+	 * Return the given number of this list's smallest values, smallest first.
+	 * Null and NaN elements are skipped.
+	 */
+	public DoubleList nSmallest(int n) {
+		return new DoubleList(OrderStatistics.top(this.validValues(), n, false));
+	}
+
+	/**
+	 * A copy of the non-null, non-NaN values, which callers may reorder.
+	 */
+	private double[] validValues() {
+		double[] v = new double[this.count()];
+		int n = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!Double.isNaN(this.value[this.offset + i]))
+				v[n++] = this.value[this.offset + i];
+		}
+		return v;
+	}
+
+	public double getSum() {
+		return this.sum().getAsDouble();
+	}
+
+	public double getMax() {
+		return this.max().getAsDouble();
+	}
+
+	public double getMin() {
+		return this.min().getAsDouble();
+	}
+
+	public double getMean() {
+		return this.mean().getAsDouble();
+	}
+
+	// nulls
+	private boolean isValid(int i) {
+		return Mask.isValid(this.validity, i);
+	}
+
+	private int nextValid(int from) {
+		return Mask.nextValid(this.validity, from, this.length);
+	}
+
+	public boolean hasNulls() {
+		return null != this.validity;
+	}
+
+	public int nullCount() {
+		return null == this.validity ? 0 : this.length - this.validity.trueCount();
+	}
+
+	public Mask isNull() {
+		return null == this.validity ? Mask.falses(this.length) : this.validity.negate();
+	}
+
+	public Mask notNull() {
+		return null == this.validity ? Mask.trues(this.length) : this.validity;
+	}
+
+	public DoubleList fillNa(double v) {
+		if (null == this.validity) {
+			return this;
+		}
+
+		double[] r = Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
+		for (int i = this.validity.nextClearBit(0); i >= 0; i = this.validity.nextClearBit(i + 1)) {
+			r[i] = v;
+		}
+		return DoubleList.of(r);
+	}
+
+	/**
+	 * Replaces null elements with the last non-null element before them. Leading
+	 * null elements remain null.
+	 */
+	public DoubleList forwardFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		double[] r = Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
+		int first = this.validity.nextSetBit(0);
+		if (first < 0) {
+			return this;
+		}
+
+		for (int i = first + 1; i < r.length; i++) {
+			if (!this.validity.isSet(i))
+				r[i] = r[i - 1];
+		}
+		return new DoubleList(r, Mask.of(r.length, i -> i >= first));
+	}
+
+	/**
+	 * Replaces null elements with the first non-null element after them. Trailing
+	 * null elements remain null.
+	 */
+	public DoubleList backFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		double[] r = Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
+		int last = -1;
+		for (int i = r.length - 1; i >= 0; i--) {
+			if (this.validity.isSet(i)) {
+				last = Math.max(last, i);
+			} else if (-1 != last) {
+				r[i] = r[i + 1];
+			}
+		}
+
+		int lastValid = last;
+		return new DoubleList(r, Mask.of(r.length, i -> i <= lastValid));
+	}
+
+	/**
+	 * Returns the non-null elements of this list.
+	 */
+	public DoubleList dropNa() {
+		return null == this.validity ? this : (DoubleList) this.getAt(this.validity.truthy().value);
+	}
+
+	/**
+	 * Returns the distinct values of this list, in order of first appearance.
+	 * Values are compared as by {@link Double#equals(Object)}, so all NaNs are
+	 * one value, and the list keeps a single null if it has any.
+	 */
 	public DoubleList distinct() {
-		return DoubleList.of(this.stream().distinct().toArray());
+		return this.dropDuplicates(false);
 	}
 
 	public DoubleList unique() {
@@ -178,16 +741,32 @@ public class DoubleList implements NambaList {
 	}
 
 	public DoubleList dropDuplicates(boolean keepLast) {
-		double[] data = (keepLast ? this.reverseStream() : this.stream()).distinct().toArray();
-		if (keepLast) {
-			double[] ordered = new double[data.length];
-
-			for (int i = data.length - 1; i >= 0; i--) {
-				ordered[data.length - 1 - i] = data[i];
+		int n = this.length;
+		double[] r = new double[n];
+		LongHashSet seen = new LongHashSet();
+		int nullAt = -1;
+
+		// walking backwards when keeping the last instance, and filling the result
+		// from its end, keeps the original order in a single pass
+		int step = keepLast ? -1 : 1;
+		int out = keepLast ? n : -1;
+		for (int k = 0, i = keepLast ? n - 1 : 0; k < n; k++, i += step) {
+			if (!this.isValid(i)) {
+				if (nullAt < 0)
+					nullAt = out += step;
+			} else if (seen.add(Double.doubleToLongBits(this.value[this.offset + i]))) {
+				r[out += step] = this.value[this.offset + i];
 			}
-			data = ordered;
 		}
-		return DoubleList.of(data);
+
+		int from = keepLast ? out : 0;
+		int to = keepLast ? n : out + 1;
+		double[] data = Arrays.copyOfRange(r, from, to);
+		if (nullAt < 0)
+			return new DoubleList(data);
+
+		int nullLoc = nullAt - from;
+		return new DoubleList(data, Mask.of(data.length, i -> i != nullLoc));
 	}
 
 	@Override
@@ -197,6 +776,14 @@ public class DoubleList implements NambaList {
 
 	@Override
 	public Mask asMask() {
-		return Mask.of(this.size(), e -> 0 != this.getAt(e));
+		return Mask.of(this.size(), e -> this.isValid(e) && 0 != this.getAt(e));
+	}
+
+	/**
+	 * Copies this list's data to off-heap memory allocated in the given arena.
+	 * The direct list keeps this list's validity mask, so nulls stay null.
+	 */
+	public DirectDoubleList toDirect(OffHeapArena arena) {
+		return arena.copyOf(this);
 	}
 }
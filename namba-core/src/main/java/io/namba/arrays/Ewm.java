@@ -0,0 +1,247 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Exponentially weighted moving statistics over a list's values, computed in a
+ * single pass into a primitive array. Each element's weight decays by a factor
+ * of <code>1 - alpha</code> per row, or, for time-aware windows, halves every
+ * half-life of time elapsed.
+ * <p>
+ * Values are aggregated as doubles. Null and NaN values are not observations;
+ * unless {@link #ignoreNa(boolean)} is set, older values keep decaying across
+ * them.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class Ewm {
+
+	private final double[] values;
+	private final Mask validity;
+	private final double alpha;
+	private final long[] times;
+	private final long halfLife;
+	private final boolean adjust;
+	private final boolean ignoreNa;
+	private final int minPeriods;
+
+	private Ewm(double[] values, Mask validity, double alpha, long[] times, long halfLife, boolean adjust,
+			boolean ignoreNa, int minPeriods) {
+		this.values = values;
+		this.validity = validity;
+		this.alpha = alpha;
+		this.times = times;
+		this.halfLife = halfLife;
+		this.adjust = adjust;
+		this.ignoreNa = ignoreNa;
+		this.minPeriods = minPeriods;
+	}
+
+	/**
+	 * @param alpha
+	 *            The smoothing factor, <code>0 < alpha <= 1</code>.
+	 */
+	static Ewm of(double[] values, Mask validity, double alpha) {
+		if (!(0 < alpha && alpha <= 1))
+			throw new IllegalArgumentException("alpha must be greater than 0 and at most 1");
+
+		return new Ewm(values, validity, alpha, null, 0, true, false, 0);
+	}
+
+	/**
+	 * Weights halve every <code>halfLife</code> elapsed between elements'
+	 * times, which must be non-null and sorted in ascending order.
+	 */
+	static Ewm of(double[] values, Mask validity, DateTimeArray times, Duration halfLife) {
+		Objects.requireNonNull(times, "times may not be null");
+		Objects.requireNonNull(halfLife, "half-life may not be null");
+
+		if (times.size() != values.length)
+			throw new IllegalArgumentException("array sizes don't match");
+		if (halfLife.isNegative() || halfLife.isZero())
+			throw new IllegalArgumentException("half-life must be positive");
+
+		Mask timeValidity = times.validity();
+		if (null != timeValidity && timeValidity.trueCount() != values.length)
+			throw new IllegalArgumentException("times may not contain nulls");
+
+		long[] nanos = times.toEpochNanos().value;
+		for (int i = 1; i < nanos.length; i++) {
+			if (nanos[i] < nanos[i - 1])
+				throw new IllegalArgumentException("times must be sorted in ascending order");
+		}
+
+		return new Ewm(values, validity, 0.5, nanos, halfLife.toNanos(), true, false, 0);
+	}
+
+	/**
+	 * Smoothing factor for a span, <code>2 / (span + 1)</code>.
+	 */
+	static double alphaOfSpan(double span) {
+		if (!(span >= 1))
+			throw new IllegalArgumentException("span must be at least 1");
+		return 2 / (span + 1);
+	}
+
+	/**
+	 * Smoothing factor for a half-life in rows, <code>1 - exp(-ln(2) /
+	 * halfLife)</code>.
+	 */
+	static double alphaOfHalfLife(double halfLife) {
+		if (!(halfLife > 0))
+			throw new IllegalArgumentException("half-life must be positive");
+		return 1 - Math.exp(-Math.log(2) / halfLife);
+	}
+
+	/**
+	 * Whether to divide by the decaying sum of weights (the default), or use the
+	 * recursive form <code>y[i] = (1 - alpha) * y[i - 1] + alpha * x[i]</code>.
+	 */
+	public Ewm adjust(boolean adjust) {
+		return new Ewm(this.values, this.validity, this.alpha, this.times, this.halfLife, adjust, this.ignoreNa,
+				this.minPeriods);
+	}
+
+	/**
+	 * Whether to leave weights unchanged across null values rather than decaying
+	 * them by position.
+	 */
+	public Ewm ignoreNa(boolean ignoreNa) {
+		return new Ewm(this.values, this.validity, this.alpha, this.times, this.halfLife, this.adjust, ignoreNa,
+				this.minPeriods);
+	}
+
+	/**
+	 * Returns moving statistics that are null until <code>minPeriods</code>
+	 * values have been observed.
+	 */
+	public Ewm minPeriods(int minPeriods) {
+		if (minPeriods < 0)
+			throw new IllegalArgumentException("minPeriods may not be negative");
+
+		return new Ewm(this.values, this.validity, this.alpha, this.times, this.halfLife, this.adjust, this.ignoreNa,
+				minPeriods);
+	}
+
+	public DoubleList mean() {
+		return this.compute(false, false, false);
+	}
+
+	/**
+	 * Unbiased exponentially weighted variance.
+	 */
+	public DoubleList var() {
+		return this.var(false);
+	}
+
+	public DoubleList var(boolean bias) {
+		return this.compute(true, bias, false);
+	}
+
+	public DoubleList std() {
+		return this.std(false);
+	}
+
+	public DoubleList std(boolean bias) {
+		return this.compute(true, bias, true);
+	}
+
+	private boolean present(int i) {
+		return Mask.isValid(this.validity, i) && !Double.isNaN(this.values[i]);
+	}
+
+	/**
+	 * Weighted mean and, if requested, variance, updated per element: the old
+	 * weight decays, the new value is blended in with weight 1 (or alpha when not
+	 * adjusting), and the variance is corrected for the shift in the mean.
+	 */
+	private DoubleList compute(boolean variance, boolean bias, boolean root) {
+		int n = this.values.length;
+		double[] r = new double[n];
+		long[] valid = new long[Mask.wordCount(n)];
+
+		int minimum = Math.max(this.minPeriods, 1);
+		double factor = 1 - this.alpha;
+		double newWeight = this.adjust ? 1 : this.alpha;
+
+		double mean = Double.NaN;
+		double cov = 0;
+		double oldWeight = 1;
+		double sumWeight = 1;
+		double sumWeight2 = 1;
+		int observations = 0;
+
+		for (int i = 0, last = 0; i < n; i++) {
+			boolean observed = this.present(i);
+			double x = this.values[i];
+			if (observed)
+				observations++;
+
+			if (!Double.isNaN(mean)) {
+				if (observed || !this.ignoreNa) {
+					double decay = null == this.times ? factor
+							: Math.pow(factor, (this.times[i] - this.times[last]) / (double) this.halfLife);
+					oldWeight *= decay;
+					sumWeight *= decay;
+					sumWeight2 *= decay * decay;
+					last = i;
+
+					if (observed) {
+						double previous = mean;
+						if (mean != x)
+							mean = (oldWeight * mean + newWeight * x) / (oldWeight + newWeight);
+						if (variance)
+							cov = (oldWeight * (cov + (previous - mean) * (previous - mean))
+									+ newWeight * (x - mean) * (x - mean)) / (oldWeight + newWeight);
+
+						sumWeight += newWeight;
+						sumWeight2 += newWeight * newWeight;
+						oldWeight += newWeight;
+						if (!this.adjust) {
+							sumWeight /= oldWeight;
+							sumWeight2 /= oldWeight * oldWeight;
+							oldWeight = 1;
+						}
+					}
+				}
+			} else if (observed) {
+				mean = x;
+				last = i;
+			}
+
+			if (observations >= minimum) {
+				double v = mean;
+				if (variance) {
+					double numerator = sumWeight * sumWeight;
+					double denominator = numerator - sumWeight2;
+					v = bias ? cov : (denominator > 0 ? numerator / denominator * cov : Double.NaN);
+				}
+				if (root)
+					v = Math.sqrt(v);
+
+				if (!Double.isNaN(v)) {
+					r[i] = v;
+					valid[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+
+		return DoubleList.of(r, Mask.ofWords(valid, n));
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.namba.arrays;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A lazily filtered view of a {@link DataList}. Filtering only narrows the
+ * view's {@link Selection}; elements are read from the source list when
+ * reduced or streamed, and no list is built until {@link #toList()} is called.
+ * 
+ * @author Ernest Kiwele
+ */
+public class FilteredDataList<T> {
+
+	protected final DataList<T> source;
+	protected final Selection selection;
+
+	FilteredDataList(DataList<T> source, Selection selection) {
+		this.source = source;
+		this.selection = selection;
+	}
+
+	/**
+	 * Creates a view of the same source with a different selection.
+	 */
+	protected FilteredDataList<T> select(Selection rows) {
+		return new FilteredDataList<>(this.source, rows);
+	}
+
+	/**
+	 * Further filters this view. The mask is aligned with the source list.
+	 */
+	public FilteredDataList<T> filter(Mask mask) {
+		return this.select(this.selection.and(mask));
+	}
+
+	/**
+	 * Further filters this view to the elements that pass the test.
+	 */
+	public FilteredDataList<T> filter(Predicate<T> test) {
+		Objects.requireNonNull(test, "test is null");
+		List<T> values = this.source.value;
+		return this.select(this.selection.retain(r -> test.test(values.get(r))));
+	}
+
+	public Selection selection() {
+		return this.selection;
+	}
+
+	public DataList<T> source() {
+		return this.source;
+	}
+
+	/**
+	 * The number of selected elements, including null elements.
+	 */
+	public int size() {
+		return this.selection.size();
+	}
+
+	/**
+	 * The number of selected non-null elements.
+	 */
+	public int count() {
+		List<T> values = this.source.value;
+		return (int) this.selection.stream().filter(r -> null != values.get(r)).count();
+	}
+
+	/**
+	 * The selected elements, in order.
+	 */
+	public Stream<T> stream() {
+		List<T> values = this.source.value;
+		return this.selection.stream().mapToObj(values::get);
+	}
+
+	/**
+	 * Reduces the selected non-null elements.
+	 */
+	public Optional<T> reduce(BinaryOperator<T> reducer) {
+		return this.stream().filter(Objects::nonNull).reduce(reducer);
+	}
+
+	/**
+	 * Copies the selected elements to a new list.
+	 */
+	public DataList<T> toList() {
+		return this.source.getAt(this.selection.array());
+	}
+
+	@Override
+	public String toString() {
+		return this.toList().toString();
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.namba.arrays;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A lazily filtered view of a {@link DecimalList}, with reductions that read
+ * through the selection. Reductions treat nulls as {@link DecimalList} does.
+ * 
+ * @author Ernest Kiwele
+ */
+public class FilteredDecimalList extends FilteredDataList<BigDecimal> {
+
+	private final DecimalList decimals;
+
+	FilteredDecimalList(DecimalList source, Selection selection) {
+		super(source, selection);
+		this.decimals = source;
+	}
+
+	@Override
+	protected FilteredDecimalList select(Selection rows) {
+		return new FilteredDecimalList(this.decimals, rows);
+	}
+
+	@Override
+	public FilteredDecimalList filter(Mask mask) {
+		return this.select(this.selection.and(mask));
+	}
+
+	@Override
+	public FilteredDecimalList filter(Predicate<BigDecimal> test) {
+		return (FilteredDecimalList) super.filter(test);
+	}
+
+	/**
+	 * Sums selected elements, null elements being skipped. Returns null if no
+	 * row is selected.
+	 */
+	public BigDecimal sum() {
+		if (this.selection.isEmpty()) {
+			return null;
+		}
+
+		List<BigDecimal> values = this.decimals.value;
+		BigDecimal v = BigDecimal.ZERO;
+		for (int r : this.selection.array()) {
+			BigDecimal e = values.get(r);
+			if (null != e) {
+				v = v.add(e, this.decimals.mathContext);
+			}
+		}
+		return v;
+	}
+
+	public BigDecimal max() {
+		return this.stream().filter(Objects::nonNull).max(BigDecimal::compareTo).orElse(null);
+	}
+
+	public BigDecimal min() {
+		return this.stream().filter(Objects::nonNull).min(BigDecimal::compareTo).orElse(null);
+	}
+
+	public BigDecimal mean() {
+		BigDecimal sum = this.sum();
+		if (null == sum) {
+			return null;
+		}
+		return sum.divide(BigDecimal.valueOf(this.size()), this.decimals.mathContext);
+	}
+
+	@Override
+	public DecimalList toList() {
+		return this.decimals.getAt(this.selection.array());
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.namba.arrays;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A lazily filtered view of an {@link IntList}. Filtering only narrows the
+ * view's {@link Selection}; reductions read the selected rows from the source
+ * list, and no list is built until {@link #toList()} is called.
+ * 
+ * <p>
+ * Null elements of the source list are skipped by predicates and reductions.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class FilteredIntList {
+
+	private final IntList source;
+	private final Selection selection;
+
+	FilteredIntList(IntList source, Selection selection) {
+		this.source = source;
+		this.selection = selection;
+	}
+
+	/**
+	 * Further filters this view. The mask is aligned with the source list.
+	 */
+	public FilteredIntList filter(Mask mask) {
+		return new FilteredIntList(this.source, this.selection.and(mask));
+	}
+
+	/**
+	 * Further filters this view to the non-null elements that pass the test.
+	 */
+	public FilteredIntList filter(IntPredicate test) {
+		Objects.requireNonNull(test, "test is null");
+		return new FilteredIntList(this.source, this.selection
+				.retain(r -> Mask.isValid(this.source.validity, r)
+				&& test.test(this.source.value[this.source.offset + r])));
+	}
+
+	public Selection selection() {
+		return this.selection;
+	}
+
+	public IntList source() {
+		return this.source;
+	}
+
+	/**
+	 * The number of selected elements, including null elements.
+	 */
+	public int size() {
+		return this.selection.size();
+	}
+
+	/**
+	 * The number of selected non-null elements.
+	 */
+	public int count() {
+		return null == this.source.validity ? this.selection.size()
+				: (int) this.selection.stream().filter(this.source.validity::isSet).count();
+	}
+
+	/**
+	 * The selected non-null values.
+	 */
+	public IntStream stream() {
+		IntStream rows = this.selection.stream();
+		if (null != this.source.validity) {
+			rows = rows.filter(this.source.validity::isSet);
+		}
+		return rows.map(r -> this.source.value[this.source.offset + r]);
+	}
+
+	public OptionalInt sum() {
+		int[] rows = this.selection.array();
+		int[] v = this.source.value;
+		int offset = this.source.offset;
+		Mask validity = this.source.validity;
+
+		boolean found = false;
+		int s = 0;
+		for (int r : rows) {
+			if (Mask.isValid(validity, r)) {
+				s += v[offset + r];
+				found = true;
+			}
+		}
+		return found ? OptionalInt.of(s) : OptionalInt.empty();
+	}
+
+	public OptionalInt max() {
+		return this.stream().max();
+	}
+
+	public OptionalInt min() {
+		return this.stream().min();
+	}
+
+	public OptionalDouble mean() {
+		int n = this.count();
+		if (0 == n) {
+			return OptionalDouble.empty();
+		}
+
+		long s = 0;
+		for (int r : this.selection.array()) {
+			if (Mask.isValid(this.source.validity, r))
+				s += this.source.value[this.source.offset + r];
+		}
+		return OptionalDouble.of((double) s / n);
+	}
+
+	/**
+	 * Copies the selected elements to a new list.
+	 */
+	public IntList toList() {
+		return this.source.getAt(this.selection.array());
+	}
+
+	@Override
+	public String toString() {
+		return this.toList().toString();
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of primitive ints, with linear probing. Keys are
+ * stored densely in insertion order and the table holds their positions, so
+ * every key has a stable index in <code>[0, size)</code> that callers can use
+ * as a group or category id.
+ * 
+ * @author Ernest Kiwele
+ */
+final class IntHashSet {
+
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * 1 + the index of the key in each slot, 0 for empty slots.
+	 */
+	private int[] slots;
+	private int[] keys;
+	private int size = 0;
+
+	IntHashSet() {
+		this(MIN_CAPACITY);
+	}
+
+	IntHashSet(int expected) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expected + expected / 2 && capacity < (1 << 30))
+			capacity <<= 1;
+
+		this.slots = new int[capacity];
+		this.keys = new int[Math.max(expected, MIN_CAPACITY)];
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Index of the key, or -1 if it's not in the set.
+	 */
+	int indexOf(int key) {
+		int mask = this.slots.length - 1;
+		for (int s = hash(key) & mask;; s = (s + 1) & mask) {
+			int slot = this.slots[s];
+			if (0 == slot)
+				return -1;
+			if (this.keys[slot - 1] == key)
+				return slot - 1;
+		}
+	}
+
+	/**
+	 * Index of the key, adding it with the next index if it's not in the set.
+	 */
+	int insert(int key) {
+		int mask = this.slots.length - 1;
+		int s = hash(key) & mask;
+		for (int slot = this.slots[s]; 0 != slot; slot = this.slots[s]) {
+			if (this.keys[slot - 1] == key)
+				return slot - 1;
+			s = (s + 1) & mask;
+		}
+
+		if (this.size == this.keys.length)
+			this.keys = Arrays.copyOf(this.keys, this.size + (this.size >> 1) + 1);
+
+		int index = this.size++;
+		this.keys[index] = key;
+		this.slots[s] = index + 1;
+
+		// keep the load factor at or below 2/3
+		if (3 * this.size > 2 * this.slots.length)
+			this.rehash(this.slots.length << 1);
+
+		return index;
+	}
+
+	/**
+	 * Adds the key, returning <code>true</code> if it wasn't in the set.
+	 */
+	boolean add(int key) {
+		int before = this.size;
+		this.insert(key);
+		return this.size != before;
+	}
+
+	boolean contains(int key) {
+		return -1 != this.indexOf(key);
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	int keyAt(int index) {
+		return this.keys[index];
+	}
+
+	/**
+	 * The keys in insertion order.
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(this.keys, this.size);
+	}
+
+	private void rehash(int capacity) {
+		int[] table = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < this.size; i++) {
+			int s = hash(this.keys[i]) & mask;
+			while (0 != table[s])
+				s = (s + 1) & mask;
+			table[s] = i + 1;
+		}
+		this.slots = table;
+	}
+}
@@ -16,22 +16,21 @@
 package io.namba.arrays;
 
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.IntSummaryStatistics;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.OptionalDouble;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
-import java.util.function.Function;
 import java.util.function.IntBinaryOperator;
 import java.util.function.IntFunction;
 import java.util.function.IntPredicate;
@@ -40,6 +39,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import io.namba.arrays.agg.GroupIndex;
 import io.namba.arrays.agg.IntGrouping;
 import io.namba.arrays.data.IndexedObject;
 import io.namba.arrays.data.IntData;
@@ -57,29 +57,69 @@ import io.namba.functions.IntRef.IntListPredicate;
 public class IntList implements NambaList {
 
 	protected final int[] value;
+
+	/**
+	 * Position of the first element in <code>value</code>, and number of
+	 * elements. Slices share their parent's array, which may hold elements
+	 * outside of this list.
+	 */
+	protected final int offset;
+	protected final int length;
+
 	protected final Index index;
 
+	/**
+	 * Validity of elements: elements whose bit is not set are null. This is null
+	 * if all elements are valid.
+	 */
+	protected final Mask validity;
+
 	public final IntList.IndexAccessor idx = new IndexAccessor();
 	public final IntList.RadixAccessor radix = new RadixAccessor();
 
 	private IntList(int size) {
 		this.value = new int[size];
+		this.offset = 0;
+		this.length = size;
 		this.index = null;
+		this.validity = null;
 	}
 
 	protected IntList(int[] val) {
+		this(val, (Mask) null);
+	}
+
+	protected IntList(int[] val, Mask validity) {
 		this.value = Objects.requireNonNull(val);
+		this.offset = 0;
+		this.length = val.length;
+		this.index = null;
+		this.validity = Mask.validity(validity, val.length);
+	}
+
+	/**
+	 * A slice of <code>[from, to)</code> of the parent list, sharing its array.
+	 */
+	private IntList(IntList parent, int from, int to) {
+		this.value = parent.value;
+		this.offset = parent.offset + from;
+		this.length = to - from;
 		this.index = null;
+		this.validity = null == parent.validity ? null
+				: Mask.validity(parent.validity.getAt(from, to), this.length);
 	}
 
-	private IntList(int[] val, IntFunction<Object> indexer) {
+	private IntList(int[] val, Mask validity, IntFunction<Object> indexer) {
 		this.value = Objects.requireNonNull(val);
+		this.offset = 0;
+		this.length = val.length;
 		this.index = Index.intIndex(this.value, indexer);
+		this.validity = validity;
 	}
 
 	@Override
 	public int size() {
-		return this.value.length;
+		return this.length;
 	}
 
 	@Override
@@ -102,9 +142,30 @@ public class IntList implements NambaList {
 		return new IntList(value);
 	}
 
+	/**
+	 * Creates a nullable list. Elements whose bit is not set in
+	 * <code>validity</code> are null, and their values in <code>value</code> are
+	 * ignored. A null <code>validity</code> mask makes all elements valid.
+	 */
+	public static IntList of(int[] value, Mask validity) {
+		return new IntList(value, validity);
+	}
+
+	/**
+	 * Creates a nullable list from boxed values, null elements being null in the
+	 * list.
+	 */
+	public static IntList ofNullable(Integer... values) {
+		int[] v = new int[values.length];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = null == values[i] ? 0 : values[i];
+		}
+		return new IntList(v, Mask.of(values.length, i -> null != values[i]));
+	}
+
 	// indexing
 	public IntList indexBy(IntFunction<Object> indexer) {
-		return new IntList(this.value, Objects.requireNonNull(indexer, "indexer is null"));
+		return new IntList(this.array(), this.validity, Objects.requireNonNull(indexer, "indexer is null"));
 	}
 
 	public IntList getByIndex(Object key) {
@@ -122,18 +183,29 @@ public class IntList implements NambaList {
 
 	// utilities
 	public IntMatrix toMatrix(int width) {
-		return new IntMatrix(this.value, width);
+		return new IntMatrix(this.array(), width);
 	}
 
 	@Override
 	public String toString() {
-		return Arrays.toString(this.value);
+		if (null == this.validity) {
+			return Arrays.toString(this.array());
+		}
+		return IntStream.range(0, this.length)
+				.mapToObj(i -> this.validity.isSet(i) ? Integer.toString(this.value[this.offset + i]) : "null")
+				.collect(Collectors.joining(", ", "[", "]"));
 	}
 
 	// accessors
 	private IntList getAt(IntStream stream) {
-		return IntList.of(Objects.requireNonNull(stream).filter(i -> i >= 0 && i < this.value.length)
-				.map(i -> this.value[i]).toArray());
+		int[] loc = Objects.requireNonNull(stream).filter(i -> i >= 0 && i < this.length).toArray();
+
+		int[] v = new int[loc.length];
+		for (int i = 0; i < loc.length; i++) {
+			v[i] = this.value[this.offset + loc[i]];
+		}
+
+		return new IntList(v, null == this.validity ? null : this.validity.getAt(loc));
 	}
 
 	public IntList getAt(Mask mask) {
@@ -145,17 +217,49 @@ public class IntList implements NambaList {
 		return getAt(Arrays.stream(is));
 	}
 
+	/**
+	 * Returns a lazily filtered view of the elements for which the mask is set.
+	 * Further filters and reductions on the view read through its selection
+	 * without copying elements.
+	 */
+	public FilteredIntList filter(Mask mask) {
+		if (Objects.requireNonNull(mask, "mask is null").size() != this.length) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return new FilteredIntList(this, Selection.of(mask));
+	}
+
+	/**
+	 * Returns a lazily filtered view of the non-null elements that pass the test.
+	 */
+	public FilteredIntList filter(IntPredicate test) {
+		return new FilteredIntList(this, Selection.all(this.length)).filter(test);
+	}
+
 	public IntRef where(IntListPredicate p) {
 		return IntRef.where(p, this);
 	}
 
 	public IntList take(int size) {
-		return getAt(IntRange.of(size));
+		return this.getAt(0, size);
+	}
+
+	/**
+	 * Reads an element without boxing it. The value of a null element is
+	 * undefined.
+	 */
+	public int getInt(int loc) {
+		return this.value[this.offset + Objects.checkIndex(loc, this.length)];
+	}
+
+	public boolean isNull(int loc) {
+		return !this.isValid(loc);
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T> T getAt(int loc) {
-		return (T) Integer.valueOf(this.value[loc]);
+		Objects.checkIndex(loc, this.length);
+		return this.isValid(loc) ? (T) Integer.valueOf(this.value[this.offset + loc]) : null;
 	}
 
 	public IntList getAt(IntRange range) {
@@ -166,8 +270,12 @@ public class IntList implements NambaList {
 		return getAt(range.stream().mapToInt(Integer::intValue));
 	}
 
+	/**
+	 * Streams the stored values. Null elements appear with their undefined
+	 * stored value, so callers that must skip them check validity by position.
+	 */
 	public IntStream stream() {
-		return Arrays.stream(value);
+		return Arrays.stream(this.value, this.offset, this.offset + this.length);
 	}
 
 	public Stream<Two<Integer, Integer>> indexedStream() {
@@ -176,25 +284,40 @@ public class IntList implements NambaList {
 
 	// operations
 	public IntList zip(IntList other, IntBinaryOperator op) {
-		if (this.value.length != other.value.length) {
+		if (this.length != other.length) {
 			throw new IllegalArgumentException("arrays are not of the same length");
 		}
 
-		int[] res = new int[this.value.length];
-		for (int i = 0; i < res.length; i++) {
-			res[i] = op.applyAsInt(this.value[i], other.value[i]);
-		}
+		Mask valid = Mask.intersect(this.validity, other.validity);
+		int[] res = new int[this.length];
+		Parallelism.forEach(res.length, (from, to) -> {
+			for (int i = Mask.nextValid(valid, from, to); i >= 0 && i < to; i = Mask.nextValid(valid, i + 1, to)) {
+				res[i] = op.applyAsInt(this.value[this.offset + i], other.value[other.offset + i]);
+			}
+		});
+
+		return new IntList(res, valid);
+	}
 
-		return of(res);
+	/**
+	 * Starts a lazy pipeline over this list: element-wise operations chained on
+	 * it are fused and run in a single pass when the pipeline is collected or
+	 * reduced.
+	 */
+	public IntPipeline lazy() {
+		return new IntPipeline(this);
 	}
 
 	public IntList map(IntUnaryOperator op) {
 		IntUnaryOperator operation = Objects.requireNonNull(op);
-		int[] n = new int[this.value.length];
-		for (int i = 0; i < this.value.length; i++) {
-			n[i] = operation.applyAsInt(this.value[i]);
-		}
-		return IntList.of(n);
+		int[] n = new int[this.length];
+		Parallelism.forEach(n.length, (from, to) -> {
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				n[i] = operation.applyAsInt(this.value[this.offset + i]);
+			}
+		});
+		return this.derive(n);
 	}
 
 	public IntList apply(IntUnaryOperator op) {
@@ -202,27 +325,33 @@ public class IntList implements NambaList {
 	}
 
 	public IntList multiply(int n) {
-		return this.map(i -> i * n);
+		return this.derived(Kernels.multiply(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public IntList multiply(IntList n) {
-		return this.zip(n, (a, b) -> a * b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.multiply(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public IntList minus(int n) {
-		return this.map(i -> i - n);
+		return this.derived(Kernels.subtract(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public IntList minus(IntList n) {
-		return this.zip(n, (a, b) -> a - b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.subtract(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public IntList plus(int n) {
-		return this.map(i -> i + n);
+		return this.derived(Kernels.add(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public IntList plus(IntList n) {
-		return this.zip(n, (a, b) -> a + b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.add(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public IntList divide(int n) {
@@ -242,12 +371,12 @@ public class IntList implements NambaList {
 	}
 
 	public IntList abs() {
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = Math.abs(this.value[i]);
+			r[i] = Math.abs(this.value[this.offset + i]);
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public IntList absolute() {
@@ -255,12 +384,12 @@ public class IntList implements NambaList {
 	}
 
 	public IntList negative() {
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = -this.value[i];
+			r[i] = -this.value[this.offset + i];
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public IntList positive() {
@@ -268,12 +397,12 @@ public class IntList implements NambaList {
 	}
 
 	public IntList mod(int other) {
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = this.value[i] % other;
+			r[i] = this.value[this.offset + i] % other;
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public IntList mod(IntList n) {
@@ -281,12 +410,12 @@ public class IntList implements NambaList {
 	}
 
 	public IntList signum() {
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = Integer.signum(this.value[i]);
+			r[i] = Integer.signum(this.value[this.offset + i]);
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public IntList sign() {
@@ -294,21 +423,24 @@ public class IntList implements NambaList {
 	}
 
 	public int mode() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> this.value[i])
-				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting())).entrySet().stream()
-				.max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		int mode = counts.mode();
+		if (mode < 0)
+			throw new NoSuchElementException("No value present");
+
+		return (int) counts.keys[mode];
 	}
 
 	public DoubleList sin() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::sin).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::sin).toArray(), this.validity);
 	}
 
 	public DoubleList cos() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::cos).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::cos).toArray(), this.validity);
 	}
 
 	public DoubleList tan() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::tan).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::tan).toArray(), this.validity);
 	}
 
 	public DoubleList arcsin() {
@@ -316,7 +448,7 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList asin() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::asin).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::asin).toArray(), this.validity);
 	}
 
 	public DoubleList arccos() {
@@ -324,7 +456,7 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList acos() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::acos).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::acos).toArray(), this.validity);
 	}
 
 	public DoubleList arctan() {
@@ -332,11 +464,11 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList atan() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::atan).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::atan).toArray(), this.validity);
 	}
 
 	public DoubleList hsin() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::sinh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::sinh).toArray(), this.validity);
 	}
 
 	public DoubleList sinh() {
@@ -344,7 +476,7 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList hcos() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::cosh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::cosh).toArray(), this.validity);
 	}
 
 	public DoubleList cosh() {
@@ -352,7 +484,7 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList htan() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::tanh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::tanh).toArray(), this.validity);
 	}
 
 	public DoubleList tanh() {
@@ -360,7 +492,7 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList rad() {
-		return DoubleList.of(IntStream.of(this.value).mapToDouble(Math::toRadians).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::toRadians).toArray(), this.validity);
 	}
 
 	public DoubleList toRadians() {
@@ -368,21 +500,21 @@ public class IntList implements NambaList {
 	}
 
 	public IntList square() {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = this.value[i] * this.value[i];
+			a[i] = this.value[this.offset + i] * this.value[this.offset + i];
 
-		return of(a);
+		return this.derive(a);
 	}
 
 	public DoubleList squareRoot() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.sqrt(this.value[i]);
+			a[i] = Math.sqrt(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public DoubleList sqrt() {
@@ -390,49 +522,49 @@ public class IntList implements NambaList {
 	}
 
 	public DoubleList log10() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.log10(this.value[i]);
+			a[i] = Math.log10(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public DoubleList log() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.log(this.value[i]);
+			a[i] = Math.log(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public IntList exp2() {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = (int) Math.pow(2, this.value[i]);
+			a[i] = (int) Math.pow(2, this.value[this.offset + i]);
 
-		return of(a);
+		return this.derive(a);
 	}
 
 	// increment/decrement
 	public IntList next() {
-		int[] v = new int[this.value.length];
+		int[] v = new int[this.length];
 
 		for (int i = 0; i < v.length; i++)
-			v[i] = this.value[i] + 1;
+			v[i] = this.value[this.offset + i] + 1;
 
-		return of(v);
+		return this.derive(v);
 	}
 
 	public IntList previous() {
-		int[] v = new int[this.value.length];
+		int[] v = new int[this.length];
 
 		for (int i = 0; i < v.length; i++)
-			v[i] = this.value[i] - 1;
+			v[i] = this.value[this.offset + i] - 1;
 
-		return of(v);
+		return this.derive(v);
 	}
 
 	// bitwise operators
@@ -445,25 +577,25 @@ public class IntList implements NambaList {
 	}
 
 	public IntList bitwiseAnd(int other) {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] & other;
+			a[i] = this.value[this.offset + i] & other;
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	public IntList bitwiseAnd(IntList other) {
 		this.verifySizeMatch(this, other);
 
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] & other.value[i];
+			a[i] = this.value[this.offset + i] & other.value[other.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a, other);
 	}
 
 	public IntList or(int other) {
@@ -475,25 +607,25 @@ public class IntList implements NambaList {
 	}
 
 	public IntList bitwiseOr(int other) {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] | other;
+			a[i] = this.value[this.offset + i] | other;
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	public IntList bitwiseOr(IntList other) {
 		this.verifySizeMatch(this, other);
 
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] | other.value[i];
+			a[i] = this.value[this.offset + i] | other.value[other.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a, other);
 	}
 
 	public IntList xor(int other) {
@@ -505,25 +637,25 @@ public class IntList implements NambaList {
 	}
 
 	public IntList bitwiseXor(int other) {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] ^ other;
+			a[i] = this.value[this.offset + i] ^ other;
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	public IntList bitwiseXor(IntList other) {
 		this.verifySizeMatch(this, other);
 
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] ^ other.value[i];
+			a[i] = this.value[this.offset + i] ^ other.value[other.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a, other);
 	}
 
 	public IntList leftShift(int other) {
@@ -535,25 +667,25 @@ public class IntList implements NambaList {
 	}
 
 	public IntList bitwiseLeftShift(int other) {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] << other;
+			a[i] = this.value[this.offset + i] << other;
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	public IntList bitwiseLeftShift(IntList other) {
 		this.verifySizeMatch(this, other);
 
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] << other.value[i];
+			a[i] = this.value[this.offset + i] << other.value[other.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a, other);
 	}
 
 	public IntList rightShift(int other) {
@@ -565,35 +697,35 @@ public class IntList implements NambaList {
 	}
 
 	public IntList bitwiseRightShift(int other) {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >> other;
+			a[i] = this.value[this.offset + i] >> other;
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	public IntList bitwiseRightShift(IntList other) {
 		this.verifySizeMatch(this, other);
 
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >> other.value[i];
+			a[i] = this.value[this.offset + i] >> other.value[other.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a, other);
 	}
 
 	public IntList bitwiseNegate() {
-		int[] a = new int[this.value.length];
+		int[] a = new int[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = ~this.value[i];
+			a[i] = ~this.value[this.offset + i];
 		}
 
-		return IntList.of(a);
+		return this.derive(a);
 	}
 
 	// Comparison
@@ -602,13 +734,8 @@ public class IntList implements NambaList {
 	}
 
 	public Mask equals(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] == other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.EQ),
+				this.length));
 	}
 
 	public Mask eq(IntList other) {
@@ -617,80 +744,45 @@ public class IntList implements NambaList {
 
 	public Mask equals(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] == other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.EQ), this.length), other);
 	}
 
 	public Mask lt(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] < other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.LT), this.length), other);
 	}
 
 	public Mask lt(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] < other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LT),
+				this.length));
 	}
 
 	public Mask le(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] <= other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.LE), this.length), other);
 	}
 
 	public Mask le(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] <= other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LE),
+				this.length));
 	}
 
 	public Mask gt(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] > other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.GT), this.length), other);
 	}
 
 	public Mask gt(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] > other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GT),
+				this.length));
 	}
 
 	public Mask even() {
@@ -703,76 +795,59 @@ public class IntList implements NambaList {
 
 	public Mask ge(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >= other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.GE), this.length), other);
 	}
 
 	public Mask ge(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >= other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GE),
+				this.length));
 	}
 
 	public Mask ne(IntList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] != other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.NE), this.length), other);
 	}
 
 	public Mask ne(int other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] != other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.NE),
+				this.length));
 	}
 
 	// Reduction
 	public OptionalInt sum() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalInt.empty();
 
+		if (null == this.validity)
+			return OptionalInt.of(Kernels.sum(this.value, this.offset, this.length));
+
 		int v = 0;
-		for (int i = 0; i < this.value.length; i++)
-			v += this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v += this.value[this.offset + i];
 		return OptionalInt.of(v);
 	}
 
 	public OptionalInt sumExact() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalInt.empty();
 
 		int v = 0;
-		for (int i = 0; i < this.value.length; i++)
-			v = Math.addExact(v, this.value[i]);
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.addExact(v, this.value[this.offset + i]);
 		return OptionalInt.of(v);
 	}
 
 	public OptionalInt product() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalInt.empty();
 
 		int v = 1;
-		for (int i = 0; i < this.value.length; i++)
-			v *= this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v *= this.value[this.offset + i];
 		return OptionalInt.of(v);
 	}
 
@@ -781,15 +856,40 @@ public class IntList implements NambaList {
 	}
 
 	public OptionalInt max() {
-		return IntStream.range(0, this.value.length).map(i -> this.value[i]).max();
+		if (0 == this.count())
+			return OptionalInt.empty();
+
+		if (null == this.validity)
+			return OptionalInt.of(Kernels.max(this.value, this.offset, this.length));
+
+		int v = Integer.MIN_VALUE;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.max(v, this.value[this.offset + i]);
+		return OptionalInt.of(v);
 	}
 
 	public OptionalInt min() {
-		return IntStream.range(0, this.value.length).map(i -> this.value[i]).min();
+		if (0 == this.count())
+			return OptionalInt.empty();
+
+		if (null == this.validity)
+			return OptionalInt.of(Kernels.min(this.value, this.offset, this.length));
+
+		int v = Integer.MAX_VALUE;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.min(v, this.value[this.offset + i]);
+		return OptionalInt.of(v);
 	}
 
 	public OptionalDouble mean() {
-		return IntStream.range(0, this.value.length).map(i -> this.value[i]).average();
+		int n = this.count();
+		if (0 == n)
+			return OptionalDouble.empty();
+
+		long v = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v += this.value[this.offset + i];
+		return OptionalDouble.of((double) v / n);
 	}
 
 	public int getSum() {
@@ -817,18 +917,25 @@ public class IntList implements NambaList {
 	}
 
 	public int argmax() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> IntPair.of(i, this.value[i]))
-				.max(IntPair.comparingByB()).map(IntPair::a).orElse(-1);
+		int loc = -1;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (-1 == loc || this.value[this.offset + i] > this.value[this.offset + loc])
+				loc = i;
+		}
+		return loc;
 	}
 
 	public int argmin() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> IntPair.of(i, this.value[i]))
-				.min(IntPair.comparingByB()).map(IntPair::a).orElse(-1);
+		int loc = -1;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (-1 == loc || this.value[this.offset + i] < this.value[this.offset + loc])
+				loc = i;
+		}
+		return loc;
 	}
 
 	public int ptp() {
-		IntSummaryStatistics stats = Arrays.stream(this.value).summaryStatistics();
-		return stats.getMax() - stats.getMin();
+		return this.getMax() - this.getMin();
 	}
 
 	public int peakToPeak() {
@@ -836,51 +943,85 @@ public class IntList implements NambaList {
 	}
 
 	public IntList clip(int low, int high) {
-		return IntList.of(Arrays.stream(this.value).filter(i -> low <= i && high >= i).toArray());
+		return IntList.of(this.stream().filter(i -> low <= i && high >= i).toArray());
 	}
 
 	public IntList cumSum() {
-		if (0 == this.value.length) {
+		if (0 == this.length) {
 			return IntList.of(new int[0]);
 		}
 
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
-		int last = 0;
+		// parallel prefix: chunk totals first, then each chunk is scanned from the
+		// sum of the chunks before it
+		int[] bounds = Parallelism.chunks(r.length);
+		int[] offsets = new int[bounds.length - 1];
+		Parallelism.forEachChunk(bounds, (c, from, to) -> offsets[c] = this.cumSum(r, from, to, 0));
 
-		for (int i = 0; i < this.value.length; i++) {
-			last += this.value[i];
-			r[i] = last;
+		if (offsets.length > 1) {
+			int carry = 0;
+			for (int c = 0; c < offsets.length; c++) {
+				int total = offsets[c];
+				offsets[c] = carry;
+				carry += total;
+			}
+			Parallelism.forEachChunk(bounds, (c, from, to) -> {
+				if (c > 0)
+					this.cumSum(r, from, to, offsets[c]);
+			});
 		}
 
-		return IntList.of(r);
+		return this.derive(r);
+	}
+
+	/**
+	 * Scans <code>[from, to)</code> into <code>r</code>, starting from
+	 * <code>start</code>, and returns the running total at the end of the range.
+	 */
+	private int cumSum(int[] r, int from, int to, int start) {
+		int last = start;
+		for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity, i + 1,
+				to)) {
+			last += this.value[this.offset + i];
+			r[i] = last;
+		}
+		return last;
 	}
 
 	public IntList cumProd() {
-		if (0 == this.value.length) {
+		if (0 == this.length) {
 			return IntList.of(new int[0]);
 		}
 
-		int[] r = new int[this.value.length];
+		int[] r = new int[this.length];
 
 		int last = 1;
 
-		for (int i = 0; i < this.value.length; i++) {
-			last *= this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			last *= this.value[this.offset + i];
 			r[i] = last;
 		}
 
-		return IntList.of(r);
+		return this.derive(r);
 	}
 
 	public double populationVar() {
-		double mean = this.getMean();
-		return Arrays.stream(this.value).mapToDouble(i -> Math.pow(i - mean, 2)).sum() / this.value.length;
+		return this.squaredDeviations() / this.count();
 	}
 
 	public double sampleVar() {
+		return this.squaredDeviations() / (this.count() - 1.0);
+	}
+
+	private double squaredDeviations() {
 		double mean = this.getMean();
-		return Arrays.stream(this.value).mapToDouble(i -> Math.pow(i - mean, 2)).sum() / (this.value.length - 1.0);
+		double v = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			double d = this.value[this.offset + i] - mean;
+			v += d * d;
+		}
+		return v;
 	}
 
 	public double std() {
@@ -892,15 +1033,151 @@ public class IntList implements NambaList {
 	}
 
 	public Collection<Integer> values() {
-		return Arrays.stream(value).boxed().collect(Collectors.toList());
+		return this.stream().boxed().collect(Collectors.toList());
 	}
 
 	private void verifySizeMatch(IntList left, IntList right) {
-		if (left.value.length != right.value.length) {
+		if (left.length != right.length) {
 			throw new IllegalArgumentException("array sizes don't match");
 		}
 	}
 
+	// nulls
+	private boolean isValid(int i) {
+		return Mask.isValid(this.validity, i);
+	}
+
+	private int nextValid(int from) {
+		return Mask.nextValid(this.validity, from, this.length);
+	}
+
+	/**
+	 * Creates a list with element-wise results computed from this list, with the
+	 * same null elements.
+	 */
+	private IntList derive(int[] result) {
+		return new IntList(result, this.validity);
+	}
+
+	private IntList derive(int[] result, IntList other) {
+		return new IntList(result, Mask.intersect(this.validity, other.validity));
+	}
+
+	/*
+	 * Results of kernels, which run over null slots too: those are reset to 0,
+	 * as the null-skipping operations leave them.
+	 */
+	private IntList derived(int[] result, Mask validity) {
+		if (null != validity) {
+			for (int i = validity.nextClearBit(0); i >= 0; i = validity.nextClearBit(i + 1))
+				result[i] = 0;
+		}
+		return new IntList(result, validity);
+	}
+
+	private Mask validOnly(Mask m) {
+		return null == this.validity ? m : m.and(this.validity);
+	}
+
+	private Mask validOnly(Mask m, IntList other) {
+		Mask valid = Mask.intersect(this.validity, other.validity);
+		return null == valid ? m : m.and(valid);
+	}
+
+	public boolean hasNulls() {
+		return null != this.validity;
+	}
+
+	/**
+	 * Returns the number of non-null elements.
+	 */
+	public int count() {
+		return null == this.validity ? this.length : this.validity.trueCount();
+	}
+
+	public int nullCount() {
+		return this.length - this.count();
+	}
+
+	public Mask isNull() {
+		return null == this.validity ? Mask.falses(this.length) : this.validity.negate();
+	}
+
+	public Mask notNull() {
+		return null == this.validity ? Mask.trues(this.length) : this.validity;
+	}
+
+	public IntList fillNa(int v) {
+		if (null == this.validity) {
+			return this;
+		}
+
+		int[] r = this.toArray();
+		for (int i = this.validity.nextClearBit(0); i >= 0; i = this.validity.nextClearBit(i + 1)) {
+			r[i] = v;
+		}
+		return IntList.of(r);
+	}
+
+	/**
+	 * Replaces null elements with the last non-null element before them. Leading
+	 * null elements remain null.
+	 */
+	public IntList forwardFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		int[] r = this.toArray();
+		int first = this.validity.nextSetBit(0);
+		if (first < 0) {
+			return this;
+		}
+
+		for (int i = first + 1; i < r.length; i++) {
+			if (!this.validity.isSet(i))
+				r[i] = r[i - 1];
+		}
+		return new IntList(r, Mask.of(r.length, i -> i >= first));
+	}
+
+	/**
+	 * Replaces null elements with the first non-null element after them. Trailing
+	 * null elements remain null.
+	 */
+	public IntList backFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		int[] r = this.toArray();
+		int last = -1;
+		for (int i = r.length - 1; i >= 0; i--) {
+			if (this.validity.isSet(i)) {
+				last = Math.max(last, i);
+			} else if (-1 != last) {
+				r[i] = r[i + 1];
+			}
+		}
+
+		int lastValid = last;
+		return new IntList(r, Mask.of(r.length, i -> i <= lastValid));
+	}
+
+	/**
+	 * Returns the non-null elements of this list.
+	 */
+	public IntList dropNa() {
+		return null == this.validity ? this : this.getAt(this.validity);
+	}
+
+	/**
+	 * A copy of the non-null values, which callers may reorder.
+	 */
+	private int[] validValues() {
+		return null == this.validity ? this.toArray() : this.getAt(this.validity).value;
+	}
+
 	// data type casting
 	public LongList asLong() {
 		return ListCast.toLong(this);
@@ -926,13 +1203,13 @@ public class IntList implements NambaList {
 
 	@Override
 	public IntList repeat(int n) {
-		int[] v = new int[n * this.value.length];
+		int[] v = new int[n * this.length];
 
 		for (int i = 0; i < n; i++) {
-			System.arraycopy(this.value, 0, v, i * this.value.length, this.value.length);
+			System.arraycopy(this.value, this.offset, v, i * this.length, this.length);
 		}
 
-		return IntList.of(v);
+		return new IntList(v, null == this.validity ? null : this.validity.repeat(n));
 	}
 
 	/**
@@ -941,12 +1218,12 @@ public class IntList implements NambaList {
 	 * @return
 	 */
 	public IntList nonZero() {
-		return IntList.of(IntStream.range(0, this.value.length).filter(i -> this.value[i] != 0.0).toArray());
+		return IntList.of(IntStream.range(0, this.length).filter(i -> this.value[this.offset + i] != 0.0).toArray());
 	}
 
 	public boolean noneZero() {
-		for (int i : this.value) {
-			if (i == 0) {
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (this.value[i] == 0) {
 				return false;
 			}
 		}
@@ -955,8 +1232,8 @@ public class IntList implements NambaList {
 	}
 
 	public boolean anyNonZero() {
-		for (int i : this.value) {
-			if (i != 0) {
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (this.value[i] != 0) {
 				return true;
 			}
 		}
@@ -966,7 +1243,9 @@ public class IntList implements NambaList {
 
 	@Override
 	public StringList string() {
-		return StringList.of(IntStream.of(value).mapToObj(Integer::toString).collect(Collectors.toList()));
+		return StringList.of(IntStream.range(0, this.length)
+				.mapToObj(i -> this.isValid(i) ? Integer.toString(this.value[this.offset + i]) : null)
+				.collect(Collectors.toList()));
 	}
 
 	public class IndexAccessor {
@@ -985,7 +1264,8 @@ public class IntList implements NambaList {
 
 	public class RadixAccessor {
 		public StringList getAt(int radix) {
-			return StringList.of(IntStream.range(0, IntList.this.value.length).map(i -> IntList.this.value[i])
+			return StringList.of(IntStream.range(0,
+					IntList.this.length).map(i -> IntList.this.value[IntList.this.offset + i])
 					.mapToObj(i -> Integer.toString(i, radix)).collect(Collectors.toList()));
 		}
 
@@ -994,8 +1274,9 @@ public class IntList implements NambaList {
 		}
 
 		public StringList getAt(IntList radix) {
-			return StringList.of(IntStream.range(0, IntList.this.value.length)
-					.mapToObj(i -> Integer.toString(IntList.this.value[i], radix.value[i]))
+			return StringList.of(IntStream.range(0, IntList.this.length)
+					.mapToObj(i -> Integer.toString(IntList.this.value[IntList.this.offset + i],
+					radix.value[radix.offset + i]))
 					.collect(Collectors.toList()));
 		}
 
@@ -1031,7 +1312,29 @@ public class IntList implements NambaList {
 
 	@Override
 	public Mask asMask() {
-		return Mask.of(this.size(), i -> this.value[i] != 0);
+		return this.validOnly(Mask.of(this.size(), i -> this.value[this.offset + i] != 0));
+	}
+
+	/**
+	 * Run-length encodes this list, for sorted or low-cardinality data.
+	 */
+	public RleIntList toRle() {
+		return RleIntList.of(this);
+	}
+
+	/**
+	 * Compresses this list with frame-of-reference or delta bit packing.
+	 */
+	public PackedIntList toPacked() {
+		return PackedIntList.of(this);
+	}
+
+	/**
+	 * Copies this list's data to off-heap memory allocated in the given arena.
+	 * The direct list keeps this list's validity mask, so nulls stay null.
+	 */
+	public DirectIntList toDirect(OffHeapArena arena) {
+		return arena.copyOf(this);
 	}
 
 	////////////// -- completing methods --
@@ -1072,7 +1375,7 @@ public class IntList implements NambaList {
 	 * @return A new decimal list with distinct values from this list.
 	 */
 	public IntList distinct() {
-		return new IntList(this.stream().distinct().toArray());
+		return this.dropDuplicates(false);
 	}
 
 	/**
@@ -1087,11 +1390,16 @@ public class IntList implements NambaList {
 	}
 
 	public IntStream reverseStream() {
-		return IntStream.iterate(this.value.length - 1, i -> i >= 0, i -> i - 1);
+		return IntStream.iterate(this.length - 1, i -> i >= 0, i -> i - 1).map(i -> this.value[this.offset + i]);
 	}
 
 	public IntList reversed() {
-		return new IntList(reverseStream().toArray());
+		int n = this.length;
+		int[] r = new int[n];
+		for (int i = 0; i < n; i++)
+			r[i] = this.value[this.offset + n - 1 - i];
+
+		return null == this.validity ? new IntList(r) : new IntList(r, Mask.of(n, i -> this.isValid(n - 1 - i)));
 	}
 
 	/**
@@ -1099,58 +1407,120 @@ public class IntList implements NambaList {
 	 * value, depending on whether <code>keepLast</code> is set to
 	 * <code>false</code> or <code>true</code>, respectively.
 	 * 
+	 * Null elements are treated as equal to each other.
+	 * 
 	 * @param keepLast
 	 *            If <code>true</code>, only the last instance of the duplicate is
 	 *            retained.
 	 * @return A new decimal list with unique values.
 	 */
 	public IntList dropDuplicates(boolean keepLast) {
-		int[] data = (keepLast ? this.reverseStream() : this.stream()).distinct().toArray();
+		int n = this.length;
+		int[] r = new int[n];
+		IntHashSet seen = new IntHashSet();
+		int nullAt = -1;
+
+		// walking backwards when keeping the last instance, and filling the result
+		// from its end, keeps the original order in a single pass
+		int step = keepLast ? -1 : 1;
+		int out = keepLast ? n : -1;
+		for (int k = 0, i = keepLast ? n - 1 : 0; k < n; k++, i += step) {
+			if (!this.isValid(i)) {
+				if (nullAt < 0)
+					nullAt = out += step;
+			} else if (seen.add(this.value[this.offset + i])) {
+				r[out += step] = this.value[this.offset + i];
+			}
+		}
 
-		if (keepLast) {
-			return new IntList(data).reversed();
-		} else {
+		int from = keepLast ? out : 0;
+		int to = keepLast ? n : out + 1;
+		int[] data = Arrays.copyOfRange(r, from, to);
+		if (nullAt < 0)
 			return new IntList(data);
-		}
+
+		int nullLoc = nullAt - from;
+		return new IntList(data, Mask.of(data.length, i -> i != nullLoc));
 	}
 
 	// TODO: look into storing a "sorted" flag with corresponding order.
 	/**
 	 * Return the given number of this list's largest values. This is equivalent to
-	 * slicing a reverse-sorted version of this list using the given number.
+	 * slicing a reverse-sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> largest values.
 	 */
 	public IntList nLargest(int n) {
-		return new IntList(this.stream().sorted().skip(this.size() - n).toArray()).reversed();
+		return new IntList(OrderStatistics.top(this.validValues(), n, true));
 	}
 
 	/**
 	 * Return the given number of this list's smallest values. This is equivalent to
-	 * slicing a sorted version of this list using the given number.
+	 * slicing a sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> smallest values.
 	 */
 	public IntList nSmallest(int n) {
-		return new IntList(this.stream().sorted().limit(n).toArray());
+		return new IntList(OrderStatistics.top(this.validValues(), n, false));
 	}
 
 	/**
-	 * Returns the number of unique elements in this list.
+	 * Returns the number of unique non-null elements in this list.
 	 */
 	public int nUnique() {
-		return (int) this.stream().distinct().count();
+		IntHashSet seen = new IntHashSet();
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			seen.add(this.value[this.offset + i]);
+		return seen.size();
+	}
+
+	/**
+	 * Estimates the number of unique non-null elements in this list with a
+	 * {@link HyperLogLog} sketch, within about 1%.
+	 */
+	public long approxNUnique() {
+		return this.hyperLogLog().estimate();
+	}
+
+	/**
+	 * Builds a {@link HyperLogLog} sketch of this list's non-null values, which can
+	 * be merged with sketches of other lists.
+	 */
+	public HyperLogLog hyperLogLog() {
+		List<HyperLogLog> parts = Parallelism.map(this.length, (from, to) -> {
+			HyperLogLog sketch = HyperLogLog.of();
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				sketch.add(this.value[this.offset + i]);
+			}
+			return sketch;
+		});
+
+		HyperLogLog sketch = parts.get(0);
+		for (int c = 1; c < parts.size(); c++)
+			sketch.merge(parts.get(c));
+		return sketch;
 	}
 
 	/**
 	 * Creates a copy of this list's data.
 	 */
 	public int[] toArray() {
-		return this.stream().toArray();
+		return Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
+	}
+
+	/**
+	 * This list's elements, not copied unless this list is a slice of a larger
+	 * array. Callers must not modify the returned array.
+	 */
+	int[] array() {
+		return 0 == this.offset && this.length == this.value.length ? this.value : this.toArray();
 	}
 
 	/**
@@ -1195,8 +1565,8 @@ public class IntList implements NambaList {
 	}
 
 	public boolean all(IntPredicate test) {
-		for (int i : this.value) {
-			if (!test.test(i))
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (!test.test(this.value[i]))
 				return false;
 		}
 
@@ -1204,8 +1574,8 @@ public class IntList implements NambaList {
 	}
 
 	public boolean any(IntPredicate test) {
-		for (int i : this.value) {
-			if (test.test(i))
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (test.test(this.value[i]))
 				return true;
 		}
 
@@ -1221,11 +1591,16 @@ public class IntList implements NambaList {
 	 * @return A new decimal list with this and <code>other</code> joined.
 	 */
 	public IntList concat(IntList other) {
-		int[] all = new int[this.value.length + other.value.length];
+		int[] all = new int[this.length + other.length];
 
-		System.arraycopy(other, 0, all, this.value.length, other.value.length);
+		System.arraycopy(this.value, this.offset, all, 0, this.length);
+		System.arraycopy(other.value, other.offset, all, this.length, other.length);
 
-		return IntList.of(all);
+		if (null == this.validity && null == other.validity) {
+			return IntList.of(all);
+		}
+		return new IntList(all, Mask.of(all.length, i -> i < this.length ? this.isValid(i)
+				: other.isValid(i - this.length)));
 	}
 
 	/**
@@ -1236,19 +1611,44 @@ public class IntList implements NambaList {
 	}
 
 	/**
-	 * Return the integer indices that would sort the list's values.
+	 * Return the integer indices that would sort the list's values. The sort is
+	 * stable, and indices of null elements come last, in their original order.
 	 */
 	public IntList argSort() {
-		return IntList.of(IntStream.range(0, this.size()).mapToObj(i -> TwoInts.of(i, this.value[i]))
-				.sorted(Comparator.comparing(TwoInts::b)).mapToInt(TwoInts::a).toArray());
+		return IntList.of(this.argSort(false));
 	}
 
 	/**
 	 * Return the integer indices that would reverse-sort the list's values.
+	 * Equal values keep their original order, and indices of null elements come
+	 * last.
 	 */
 	public IntList argSortReversed() {
-		// TODO: sort here? Any room for optimization?
-		return this.argSort().reversed();
+		return IntList.of(this.argSort(true));
+	}
+
+	private int[] argSort(boolean descending) {
+		if (null == this.validity)
+			return RadixSort.argSort(this.array(), descending);
+
+		int[] rows = new int[this.length];
+		int valid = 0;
+		int nulls = this.length;
+		for (int i = 0; i < this.length; i++) {
+			if (this.isValid(i))
+				rows[valid++] = i;
+			else
+				rows[--nulls] = i;
+		}
+
+		int[] order = RadixSort.argSort(this.validValues(), descending);
+		int[] r = new int[this.length];
+		for (int i = 0; i < valid; i++)
+			r[i] = rows[order[i]];
+		for (int i = valid, j = this.length - 1; i < this.length; i++, j--)
+			r[i] = rows[j];
+
+		return r;
 	}
 
 	public IntList shift() {
@@ -1259,11 +1659,12 @@ public class IntList implements NambaList {
 		if (0 >= n)
 			throw new IllegalArgumentException("n <= 0");
 
-		int[] b = new int[this.value.length];
+		int[] b = new int[this.length];
 
-		System.arraycopy(this.value, 0, b, n, this.value.length - n);
+		System.arraycopy(this.value, this.offset, b, n, this.length - n);
 
-		return IntList.of(b);
+		// shifted-in elements are null
+		return new IntList(b, Mask.of(b.length, i -> i >= n && this.isValid(i - n)));
 	}
 
 	/**
@@ -1276,11 +1677,11 @@ public class IntList implements NambaList {
 		boolean[] b = new boolean[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			int v = this.value[i];
+			int v = this.value[this.offset + i];
 			b[i] = low <= v && high >= v;
 		}
 
-		return Mask.of(b);
+		return this.validOnly(Mask.of(b));
 	}
 
 	/**
@@ -1297,11 +1698,11 @@ public class IntList implements NambaList {
 		int[] b = new int[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			int bd = this.value[i];
+			int bd = this.value[this.offset + i];
 			b[i] = Math.max(low, Math.min(high, bd));
 		}
 
-		return of(b);
+		return this.derive(b);
 	}
 
 	/**
@@ -1396,14 +1797,14 @@ public class IntList implements NambaList {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public IntList head() {
-		return getAt(IntRange.of(SUMMARY_SIZE));
+		return this.head(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the first <code>n</code> values of this list.
 	 */
 	public IntList head(int n) {
-		return getAt(IntRange.of(n));
+		return this.getAt(0, n);
 	}
 
 	/**
@@ -1411,28 +1812,31 @@ public class IntList implements NambaList {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public IntList tail() {
-		return getAt(IntRange.of(this.size() - SUMMARY_SIZE, this.size()));
+		return this.tail(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the last <code>n</code> values of this list.
 	 */
 	public IntList tail(int n) {
-		return getAt(IntRange.of(this.size() - n, this.size()));
+		return this.getAt(this.size() - n, this.size());
 	}
 
 	public Map<Integer, Integer> histogram() {
-		return this.stream().boxed().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-				.entrySet().stream().sorted(Entry.comparingByKey()).collect(Collectors.toMap(e -> e.getKey(),
-						e -> e.getValue().intValue(), (a, b) -> a, LinkedHashMap::new));
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		Map<Integer, Integer> histogram = new LinkedHashMap<>();
+		for (int k = 0; k < counts.size(); k++)
+			histogram.put((int) counts.keys[k], counts.counts[k]);
+		return histogram;
 	}
 
 	public Map<Integer, Double> normalizedHistogram(boolean percentage) {
-		int size = this.size();
-		int factor = percentage ? 100 : 1;
-		return this.stream().boxed().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-				.entrySet().stream().sorted(Entry.comparingByKey()).collect(Collectors.toMap(e -> e.getKey(),
-						e -> e.getValue().doubleValue() / size * factor, (a, b) -> a, LinkedHashMap::new));
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		double factor = (percentage ? 100.0 : 1.0) / counts.total;
+		Map<Integer, Double> histogram = new LinkedHashMap<>();
+		for (int k = 0; k < counts.size(); k++)
+			histogram.put((int) counts.keys[k], counts.counts[k] * factor);
+		return histogram;
 	}
 
 	/**
@@ -1441,18 +1845,12 @@ public class IntList implements NambaList {
 	 * @return A <code>Table</code> with values and their counts.
 	 */
 	public Table hist() {
-		Map<Integer, Integer> groups = this.histogram();
-
-		int[] keys = new int[groups.size()];
-		int[] counts = new int[groups.size()];
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		int[] keys = new int[counts.size()];
+		for (int k = 0; k < keys.length; k++)
+			keys[k] = (int) counts.keys[k];
 
-		int i = 0;
-		for (Entry<Integer, Integer> entry : groups.entrySet()) {
-			keys[i] = entry.getKey();
-			counts[i++] = entry.getValue();
-		}
-
-		return Table.of(null, IntList.of(keys), IntList.of(counts));
+		return Table.of(null, IntList.of(keys), IntList.of(counts.counts));
 	}
 
 	/**
@@ -1465,17 +1863,16 @@ public class IntList implements NambaList {
 	 * @return A <code>Table</code> with values and their count ratios.
 	 */
 	public Table normalizedHist(boolean percentage) {
-		Map<Integer, Double> hist = this.normalizedHistogram(percentage);
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		int[] keys = new int[counts.size()];
+		for (int k = 0; k < keys.length; k++)
+			keys[k] = (int) counts.keys[k];
+		double factor = (percentage ? 100.0 : 1.0) / counts.total;
+		double[] ratios = new double[counts.size()];
+		for (int k = 0; k < ratios.length; k++)
+			ratios[k] = counts.counts[k] * factor;
 
-		int[] keys = new int[hist.size()];
-		double[] counts = new double[hist.size()];
-		int i = 0;
-		for (Entry<Integer, Double> entry : hist.entrySet()) {
-			keys[i] = entry.getKey();
-			counts[i++] = entry.getValue();
-		}
-
-		return Table.of(null, IntList.of(keys), DoubleList.of(counts));
+		return Table.of(null, IntList.of(keys), DoubleList.of(ratios));
 	}
 
 	/*
@@ -1501,7 +1898,15 @@ public class IntList implements NambaList {
 	 *         otherwise.
 	 */
 	public boolean isUnique() {
-		return this.distinct().size() == this.size();
+		if (this.nullCount() > 1)
+			return false;
+
+		IntHashSet seen = new IntHashSet();
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!seen.add(this.value[this.offset + i]))
+				return false;
+		}
+		return true;
 	}
 
 	/**
@@ -1510,7 +1915,7 @@ public class IntList implements NambaList {
 	 * @return Null if the list is empty, the first element otherwise.
 	 */
 	public OptionalInt item() {
-		return this.value.length == 0 ? OptionalInt.empty() : OptionalInt.of(this.value[0]);
+		return this.length == 0 ? OptionalInt.empty() : OptionalInt.of(this.value[this.offset]);
 	}
 
 	/*
@@ -1536,7 +1941,7 @@ public class IntList implements NambaList {
 	 * @see {@link #indexItemStreamReversed()}
 	 */
 	public Stream<IndexedObject<Integer>> indexItemStream() {
-		return IntStream.range(0, this.size()).mapToObj(i -> IndexedObject.of(i, this.value[i]));
+		return IntStream.range(0, this.size()).mapToObj(i -> IndexedObject.of(i, this.value[this.offset + i]));
 	}
 
 	/**
@@ -1552,7 +1957,7 @@ public class IntList implements NambaList {
 	public Stream<IndexedObject<Integer>> indexItemStreamReversed() {
 		int total = this.size();
 		return IntStream.range(0, this.size()).map(i -> total - i - 1)
-				.mapToObj(i -> IndexedObject.of(i, this.value[i]));
+				.mapToObj(i -> IndexedObject.of(i, this.value[this.offset + i]));
 	}
 
 	/*
@@ -1595,7 +2000,7 @@ public class IntList implements NambaList {
 		int[] v = new int[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			int value = this.getAt(i);
+			int value = this.getInt(i);
 			if (cond.test(value)) {
 				v[i] = val;
 			} else {
@@ -1603,7 +2008,7 @@ public class IntList implements NambaList {
 			}
 		}
 
-		return IntList.of(v);
+		return this.derive(v);
 	}
 
 	/**
@@ -1621,7 +2026,7 @@ public class IntList implements NambaList {
 		int[] v = new int[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			int value = this.getAt(i);
+			int value = this.getInt(i);
 			if (cond.getAt(i)) {
 				v[i] = val;
 			} else {
@@ -1629,78 +2034,132 @@ public class IntList implements NambaList {
 			}
 		}
 
-		return IntList.of(v);
+		return this.derive(v);
 	}
 
 	/**
 	 * Return the median of the values. Note that this skips null values.
 	 */
 	public OptionalInt median() {
+		int[] v = this.validValues();
 
-		IntList withoutNa = this.sorted();
-
-		if (withoutNa.size() == 0)
+		if (v.length == 0)
 			return OptionalInt.empty();
-		if (withoutNa.size() % 2 == 1) {
-			return withoutNa.getAt(withoutNa.size() / 2 + 1);
+		if (v.length % 2 == 1) {
+			return OptionalInt.of(OrderStatistics.select(v, v.length / 2));
 		} else {
-			int medLocation = withoutNa.size() / 2;
-			return OptionalInt.of((withoutNa.value[medLocation] + withoutNa.value[medLocation + 1]) / 2);
+			int lower = OrderStatistics.select(v, v.length / 2 - 1);
+			int higher = OrderStatistics.minFrom(v, v.length / 2);
+			return OptionalInt.of((int) (((long) lower + higher) / 2));
 		}
 	}
 
-	/*
-	 * Return value at the given quantile.
-	 */
-	// TODO: implement quantile
-	// public int quantile(int quantile) {
-	/*
-	 * This optional parameter specifies the interpolation method to use, when the
-	 * desired quantile lies between two data points i and j:
-	 * 
-	 * linear: i + (j - i) * fraction, where fraction is the fractional part of the
-	 * index surrounded by i and j.
-	 * 
-	 * lower: i.
-	 * 
-	 * higher: j.
-	 * 
-	 * nearest: i or j whichever is nearest.
+	/**
+	 * Return the value at the given quantile, using linear interpolation. Note
+	 * that this skips null values.
 	 * 
-	 * midpoint: (i + j) / 2.
+	 * @param q
+	 *            The quantile, between 0 and 1.
 	 */
-	// }
+	public OptionalDouble quantile(double q) {
+		return this.quantile(q, Interpolation.LINEAR);
+	}
 
-	/*
-	 * Compute numerical data ranks (1 through n) along axis.
+	/**
+	 * Return the value at the given quantile. Note that this skips null values.
 	 * 
-	 * By default, equal values are assigned a rank that is the average of the ranks
-	 * of those values.
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 * @param interpolation
+	 *            How to compute the quantile when it lies between two values.
 	 */
-	// TODO: Implement rank()
-	// public IntList rank() {
-	/*
-	 * How to rank the group of records that have the same value (i.e. ties):
-	 * 
-	 * average: average rank of the group
-	 * 
-	 * min: lowest rank in the group
-	 * 
-	 * max: highest rank in the group
-	 * 
-	 * first: ranks assigned in order they appear in the array
+	public OptionalDouble quantile(double q, Interpolation interpolation) {
+		OrderStatistics.checkQuantile(q);
+		Objects.requireNonNull(interpolation, "interpolation may not be null");
+
+		int[] v = this.validValues();
+		if (v.length == 0)
+			return OptionalDouble.empty();
+
+		return OptionalDouble.of(OrderStatistics.quantile(v, q, interpolation));
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Equal values are assigned the
+	 * average of their ranks. Null values are not ranked.
+	 */
+	public DoubleList rank() {
+		return this.rank(RankMethod.AVERAGE, true, false);
+	}
+
+	public DoubleList rank(RankMethod method) {
+		return this.rank(method, true, false);
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Null values are not ranked.
 	 * 
-	 * dense: like ‘min’, but rank always increases by 1 between groups.
+	 * @param method
+	 *            How to rank equal values.
+	 * @param ascending
+	 *            Whether the smallest value is ranked 1.
+	 * @param percentile
+	 *            Whether to divide ranks by the number of ranked values (of
+	 *            distinct values with {@link RankMethod#DENSE}).
 	 */
-	// }
+	public DoubleList rank(RankMethod method, boolean ascending, boolean percentile) {
+		return Ranks.rank(RadixSort.argSort(this.array(), !ascending), i -> !this.isValid(i),
+				(a, b) -> this.value[this.offset + a] == this.value[this.offset + b], method, percentile);
+	}
 
-	/*
-	 * Needs to be defined with window objects.
+	/**
+	 * Rolling windows of <code>window</code> rows over this list's values.
 	 */
-	// TODO: Implement Rolling
-	// public Map<Two<int, int>, IntList> rolling() {
-	//
-	// }
+	public Rolling rolling(int window) {
+		return Rolling.of(this.stream().asDoubleStream().toArray(), this.validity, window);
+	}
+
+	/**
+	 * Rolling windows spanning <code>window</code> of time up to each element's
+	 * time. <code>times</code> must be sorted and have the same size as this
+	 * list.
+	 */
+	public Rolling rolling(DateTimeArray times, Duration window) {
+		return Rolling.of(this.stream().asDoubleStream().toArray(), this.validity, times, window);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with smoothing factor
+	 * <code>alpha</code>, <code>0 < alpha <= 1</code>.
+	 */
+	public Ewm ewm(double alpha) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, alpha);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with
+	 * <code>alpha = 2 / (span + 1)</code>.
+	 */
+	public Ewm ewmSpan(double span) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, Ewm.alphaOfSpan(span));
+	}
+
+	/**
+	 * Exponentially weighted moving statistics whose weights halve every
+	 * <code>halfLife</code> rows.
+	 */
+	public Ewm ewmHalfLife(double halfLife) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, Ewm.alphaOfHalfLife(halfLife));
+	}
+
+	/**
+	 * Time-aware exponentially weighted moving statistics: weights halve every
+	 * <code>halfLife</code> elapsed between the elements' times, which must be
+	 * sorted.
+	 */
+	public Ewm ewm(DateTimeArray times, Duration halfLife) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, times, halfLife);
+	}
 
 	/**
 	 * Extract a sample of values from this decimal list.
@@ -1731,13 +2190,17 @@ public class IntList implements NambaList {
 		return this.getAt(IntData.instance().randomArray(randomState, size, 0, this.size()));
 	}
 
+	/**
+	 * Returns the values in ascending or descending order, with null elements at
+	 * the end.
+	 */
 	public IntList sorted(boolean descending) {
-		IntList v = of(this.stream().sorted().toArray());
-		if (descending) {
-			return v.reversed();
-		} else {
-			return v;
-		}
+		int[] valid = this.validValues();
+		RadixSort.sort(valid, descending);
+		if (null == this.validity)
+			return of(valid);
+
+		return new IntList(Arrays.copyOf(valid, this.length), Mask.of(this.length, i -> i < valid.length));
 	}
 
 	public IntList sorted() {
@@ -1749,9 +2212,7 @@ public class IntList implements NambaList {
 	}
 
 	public <K> IntGrouping<K> groupBy(IntFunction<K> classifier) {
-		return IntGrouping.of(this.boxed(),
-				IntStream.range(0, size()).mapToObj(i -> Two.of(i, classifier.apply(this.value[i])))
-						.collect(Collectors.groupingBy(Two::b, Collectors.mapping(Two::a, Collectors.toList()))));
+		return IntGrouping.of(this, GroupIndex.of(this.size(), i -> classifier.apply(this.value[this.offset + i])));
 	}
 
 	public StringList string(DecimalFormat numberFormat) {
@@ -1761,12 +2222,12 @@ public class IntList implements NambaList {
 	public Mask test(IntPredicate predicate) {
 		Objects.requireNonNull(predicate, "predicate cannot be null");
 
-		boolean[] b = new boolean[this.value.length];
+		boolean[] b = new boolean[this.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			b[i] = predicate.test(this.value[i]);
+		for (int i = 0; i < this.length; i++)
+			b[i] = predicate.test(this.value[this.offset + i]);
 
-		return Mask.of(b);
+		return this.validOnly(Mask.of(b));
 	}
 
 	// Cookbook
@@ -1796,10 +2257,10 @@ public class IntList implements NambaList {
 		int[] b = new int[this.size()];
 
 		for (int i = 0; i < size(); i++) {
-			b[i] = op.applyAsInt(i, this.value[i]);
+			b[i] = op.applyAsInt(i, this.value[this.offset + i]);
 		}
 
-		return of(b);
+		return this.derive(b);
 	}
 
 	public <T> DataList<T> applyWithIndex(BiFunction<Integer, Integer, T> op) {
@@ -1808,7 +2269,7 @@ public class IntList implements NambaList {
 		List<T> res = new ArrayList<>(this.size());
 
 		for (int i = 0; i < size(); i++) {
-			res.add(op.apply(i, this.value[i]));
+			res.add(op.apply(i, this.value[this.offset + i]));
 		}
 
 		return new DataList<>(DataType.OBJECT, res);
@@ -1862,8 +2323,18 @@ public class IntList implements NambaList {
 		return this.getAt(this.test(predicate));
 	}
 
+	/**
+	 * Returns the elements in the contiguous range <code>[from, to)</code>,
+	 * clipped to this list's bounds. The returned list is a view sharing this
+	 * list's array, so slicing doesn't copy elements (only the validity mask of a
+	 * list with nulls is copied).
+	 */
+	@Override
 	public IntList getAt(int from, int to) {
-		return this.getAt(IntRange.of(from, to));
+		int start = Math.max(0, from);
+		int end = Math.max(start, Math.min(this.length, to));
+
+		return 0 == start && this.length == end ? this : new IntList(this, start, end);
 	}
 
 	public IntList putAt(IntPredicate test, IntUnaryOperator valueMapper) {
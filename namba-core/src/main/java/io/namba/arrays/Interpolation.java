@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * How quantiles are computed when the desired quantile lies between two data
+ * points <code>i</code> and <code>j</code>.
+ * 
+ * @author Ernest Kiwele
+ */
+public enum Interpolation {
+	/**
+	 * <code>i + (j - i) * fraction</code>, where fraction is the fractional part
+	 * of the index surrounded by i and j.
+	 */
+	LINEAR,
+
+	/**
+	 * <code>i</code>.
+	 */
+	LOWER,
+
+	/**
+	 * <code>j</code>.
+	 */
+	HIGHER,
+
+	/**
+	 * <code>i</code> or <code>j</code>, whichever is nearest; halfway positions
+	 * go to the even index.
+	 */
+	NEAREST,
+
+	/**
+	 * <code>(i + j) / 2</code>.
+	 */
+	MIDPOINT;
+
+	/**
+	 * Interpolates between the values at the floor and ceiling of the (zero
+	 * based) sorted position.
+	 */
+	double interpolate(double lower, double higher, double position) {
+		double fraction = position - Math.floor(position);
+
+		switch (this) {
+		case LOWER:
+			return lower;
+		case HIGHER:
+			return higher;
+		case NEAREST:
+			return Math.rint(position) == Math.floor(position) ? lower : higher;
+		case MIDPOINT:
+			return (lower + higher) / 2;
+		default:
+			return 0 == fraction ? lower : lower + (higher - lower) * fraction;
+		}
+	}
+
+	BigDecimal interpolate(BigDecimal lower, BigDecimal higher, double position, MathContext mathContext) {
+		double fraction = position - Math.floor(position);
+
+		switch (this) {
+		case LOWER:
+			return lower;
+		case HIGHER:
+			return higher;
+		case NEAREST:
+			return Math.rint(position) == Math.floor(position) ? lower : higher;
+		case MIDPOINT:
+			return lower.add(higher, mathContext).divide(BigDecimal.valueOf(2), mathContext);
+		default:
+			return 0 == fraction ? lower
+					: lower.add(higher.subtract(lower, mathContext).multiply(BigDecimal.valueOf(fraction), mathContext),
+							mathContext);
+		}
+	}
+}
@@ -0,0 +1,561 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+/**
+ * Element-wise arithmetic, comparison and reduction kernels over primitive
+ * arrays. Each kernel is a plain counted loop with no lambda or null check in
+ * its body, the shape HotSpot's superword pass compiles to SIMD instructions.
+ * Comparisons pack their results straight into {@link Mask} words. Callers
+ * handle nulls, typically by running a kernel over all elements and then
+ * masking the result with their validity.
+ * 
+ * <p>
+ * Kernels read the <code>n</code> elements of their operands starting at
+ * <code>aFrom</code> and <code>bFrom</code>, so list slices sharing a larger
+ * array are passed without copying. Results always start at index 0.
+ * </p>
+ * 
+ * <p>
+ * Large arrays are split into chunks run concurrently when
+ * {@link Parallelism} is enabled.
+ * 
+ * @author Ernest Kiwele
+ */
+final class Kernels {
+
+	enum Cmp {
+		EQ, NE, LT, LE, GT, GE
+	}
+
+	private Kernels() {
+	}
+
+	// int
+	static int[] add(int[] a, int aFrom, int n, int b) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b;
+		});
+		return r;
+	}
+
+	static int[] add(int[] a, int aFrom, int[] b, int bFrom, int n) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b[bFrom + i];
+		});
+		return r;
+	}
+
+	static int[] subtract(int[] a, int aFrom, int n, int b) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b;
+		});
+		return r;
+	}
+
+	static int[] subtract(int[] a, int aFrom, int[] b, int bFrom, int n) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b[bFrom + i];
+		});
+		return r;
+	}
+
+	static int[] multiply(int[] a, int aFrom, int n, int b) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b;
+		});
+		return r;
+	}
+
+	static int[] multiply(int[] a, int aFrom, int[] b, int bFrom, int n) {
+		int[] r = new int[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b[bFrom + i];
+		});
+		return r;
+	}
+
+	static long[] compare(int[] a, int aFrom, int n, int b, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	static long[] compare(int[] a, int aFrom, int[] b, int bFrom, int n, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	static int sum(int[] a, int aFrom, int n) {
+		int s = 0;
+		for (Integer partial : Parallelism.map(n, (from, to) -> sumRange(a, aFrom + from, aFrom + to)))
+			s += partial;
+		return s;
+	}
+
+	private static int sumRange(int[] a, int from, int to) {
+		int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for (; i + 3 < to; i += 4) {
+			s0 += a[i];
+			s1 += a[i + 1];
+			s2 += a[i + 2];
+			s3 += a[i + 3];
+		}
+		for (; i < to; i++)
+			s0 += a[i];
+		return s0 + s1 + s2 + s3;
+	}
+
+	static int min(int[] a, int aFrom, int n) {
+		int m = Integer.MAX_VALUE;
+		for (Integer partial : Parallelism.map(n, (from, to) -> {
+			int c = Integer.MAX_VALUE;
+			for (int i = from; i < to; i++)
+				c = Math.min(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.min(m, partial);
+		return m;
+	}
+
+	static int max(int[] a, int aFrom, int n) {
+		int m = Integer.MIN_VALUE;
+		for (Integer partial : Parallelism.map(n, (from, to) -> {
+			int c = Integer.MIN_VALUE;
+			for (int i = from; i < to; i++)
+				c = Math.max(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.max(m, partial);
+		return m;
+	}
+
+	// long
+	static long[] add(long[] a, int aFrom, int n, long b) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b;
+		});
+		return r;
+	}
+
+	static long[] add(long[] a, int aFrom, long[] b, int bFrom, int n) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b[bFrom + i];
+		});
+		return r;
+	}
+
+	static long[] subtract(long[] a, int aFrom, int n, long b) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b;
+		});
+		return r;
+	}
+
+	static long[] subtract(long[] a, int aFrom, long[] b, int bFrom, int n) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b[bFrom + i];
+		});
+		return r;
+	}
+
+	static long[] multiply(long[] a, int aFrom, int n, long b) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b;
+		});
+		return r;
+	}
+
+	static long[] multiply(long[] a, int aFrom, long[] b, int bFrom, int n) {
+		long[] r = new long[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b[bFrom + i];
+		});
+		return r;
+	}
+
+	static long[] compare(long[] a, int aFrom, int n, long b, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	static long[] compare(long[] a, int aFrom, long[] b, int bFrom, int n, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	static long sum(long[] a, int aFrom, int n) {
+		long s = 0;
+		for (Long partial : Parallelism.map(n, (from, to) -> sumRange(a, aFrom + from, aFrom + to)))
+			s += partial;
+		return s;
+	}
+
+	private static long sumRange(long[] a, int from, int to) {
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for (; i + 3 < to; i += 4) {
+			s0 += a[i];
+			s1 += a[i + 1];
+			s2 += a[i + 2];
+			s3 += a[i + 3];
+		}
+		for (; i < to; i++)
+			s0 += a[i];
+		return s0 + s1 + s2 + s3;
+	}
+
+	static long min(long[] a, int aFrom, int n) {
+		long m = Long.MAX_VALUE;
+		for (Long partial : Parallelism.map(n, (from, to) -> {
+			long c = Long.MAX_VALUE;
+			for (int i = from; i < to; i++)
+				c = Math.min(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.min(m, partial);
+		return m;
+	}
+
+	static long max(long[] a, int aFrom, int n) {
+		long m = Long.MIN_VALUE;
+		for (Long partial : Parallelism.map(n, (from, to) -> {
+			long c = Long.MIN_VALUE;
+			for (int i = from; i < to; i++)
+				c = Math.max(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.max(m, partial);
+		return m;
+	}
+
+	// double
+	static double[] add(double[] a, int aFrom, int n, double b) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b;
+		});
+		return r;
+	}
+
+	static double[] add(double[] a, int aFrom, double[] b, int bFrom, int n) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] + b[bFrom + i];
+		});
+		return r;
+	}
+
+	static double[] subtract(double[] a, int aFrom, int n, double b) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b;
+		});
+		return r;
+	}
+
+	static double[] subtract(double[] a, int aFrom, double[] b, int bFrom, int n) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] - b[bFrom + i];
+		});
+		return r;
+	}
+
+	static double[] multiply(double[] a, int aFrom, int n, double b) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b;
+		});
+		return r;
+	}
+
+	static double[] multiply(double[] a, int aFrom, double[] b, int bFrom, int n) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] * b[bFrom + i];
+		});
+		return r;
+	}
+
+	static double[] divide(double[] a, int aFrom, int n, double b) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] / b;
+		});
+		return r;
+	}
+
+	static double[] divide(double[] a, int aFrom, double[] b, int bFrom, int n) {
+		double[] r = new double[n];
+		Parallelism.forEach(r.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				r[i] = a[aFrom + i] / b[bFrom + i];
+		});
+		return r;
+	}
+
+	static long[] compare(double[] a, int aFrom, int n, double b, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	static long[] compare(double[] a, int aFrom, double[] b, int bFrom, int n, Cmp cmp) {
+		long[] w = new long[Mask.wordCount(n)];
+
+		Parallelism.forEach(n, (from, to) -> {
+			switch (cmp) {
+			case EQ:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] == b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case NE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] != b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] < b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case LE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] <= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GT:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] > b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			case GE:
+				for (int i = from; i < to; i++)
+					w[i >>> 6] |= (a[aFrom + i] >= b[bFrom + i] ? 1L : 0L) << i;
+				break;
+			}
+		});
+
+		return w;
+	}
+
+	/**
+	 * Minimum of non-NaN values, or positive infinity if there are none.
+	 */
+	static double min(double[] a, int aFrom, int n) {
+		double m = Double.POSITIVE_INFINITY;
+		for (Double partial : Parallelism.map(n, (from, to) -> {
+			double c = Double.POSITIVE_INFINITY;
+			for (int i = from; i < to; i++)
+				if (a[aFrom + i] == a[aFrom + i])
+					c = Math.min(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.min(m, partial);
+		return m;
+	}
+
+	/**
+	 * Maximum of non-NaN values, or negative infinity if there are none.
+	 */
+	static double max(double[] a, int aFrom, int n) {
+		double m = Double.NEGATIVE_INFINITY;
+		for (Double partial : Parallelism.map(n, (from, to) -> {
+			double c = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++)
+				if (a[aFrom + i] == a[aFrom + i])
+					c = Math.max(c, a[aFrom + i]);
+			return c;
+		}))
+			m = Math.max(m, partial);
+		return m;
+	}
+}
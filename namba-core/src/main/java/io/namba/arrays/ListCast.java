@@ -16,10 +16,13 @@
 package io.namba.arrays;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
 import java.util.function.ToDoubleFunction;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 
 /**
  * 
@@ -31,39 +34,45 @@ public class ListCast {
 	}
 
 	public static DoubleList toDouble(IntList l) {
-		return DoubleList.of(Arrays.stream(l.value).mapToDouble(i -> i).toArray());
+		return DoubleList.of(l.stream().mapToDouble(i -> i).toArray(), l.validity);
 	}
 
 	public static DoubleList toDouble(LongList l) {
-		return DoubleList.of(Arrays.stream(l.value).mapToDouble(i -> i).toArray());
+		return DoubleList.of(l.stream().mapToDouble(i -> i).toArray(), l.validity);
 	}
 
 	public static LongList toLong(IntList l) {
-		return LongList.of(Arrays.stream(l.value).mapToLong(i -> i).toArray());
+		return LongList.of(l.stream().mapToLong(i -> i).toArray(), l.validity);
 	}
 
 	public static LongList toLong(DoubleList l) {
-		return LongList.of(Arrays.stream(l.value).mapToLong(i -> (long) i).toArray());
+		return LongList.of(l.stream().mapToLong(i -> (long) i).toArray(), l.validity);
 	}
 
 	public static IntList toInt(LongList l) {
-		return IntList.of(Arrays.stream(l.value).mapToInt(i -> (int) i).toArray());
+		return IntList.of(l.stream().mapToInt(i -> (int) i).toArray(), l.validity);
 	}
 
 	public static IntList toInt(DoubleList l) {
-		return IntList.of(Arrays.stream(l.value).mapToInt(i -> (int) i).toArray());
+		return IntList.of(l.stream().mapToInt(i -> (int) i).toArray(), l.validity);
 	}
 
 	public static DecimalList toDecimal(DoubleList l) {
-		return DecimalList.of(l.stream().mapToObj(BigDecimal::valueOf).toArray(i -> new BigDecimal[i]));
+		return DecimalList.of(IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity, i) ? BigDecimal.valueOf(l.value[l.offset + i]) : null)
+				.toArray(BigDecimal[]::new));
 	}
 
 	public static DecimalList toDecimal(IntList l) {
-		return DecimalList.of(l.stream().mapToObj(BigDecimal::valueOf).toArray(i -> new BigDecimal[i]));
+		return DecimalList.of(IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity, i) ? BigDecimal.valueOf(l.value[l.offset + i]) : null)
+				.toArray(BigDecimal[]::new));
 	}
 
 	public static DecimalList toDecimal(LongList l) {
-		return DecimalList.of(l.stream().mapToObj(BigDecimal::valueOf).toArray(i -> new BigDecimal[i]));
+		return DecimalList.of(IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity, i) ? BigDecimal.valueOf(l.value[l.offset + i]) : null)
+				.toArray(BigDecimal[]::new));
 	}
 
 	public static DoubleList toDouble(DecimalList l) {
@@ -91,14 +100,61 @@ public class ListCast {
 	}
 
 	public static DataList<Integer> boxed(IntList l) {
-		return DataList.of(DataType.INT, l.stream().boxed().toArray(i -> new Integer[i]));
+		return DataList.of(DataType.INT, IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity,
+				i) ? Integer.valueOf(l.value[l.offset + i]) : null).toArray(Integer[]::new));
 	}
 
 	public static DataList<Long> boxed(LongList l) {
-		return DataList.of(DataType.LONG, l.stream().boxed().toArray(i -> new Long[i]));
+		return DataList.of(DataType.LONG, IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity,
+				i) ? Long.valueOf(l.value[l.offset + i]) : null).toArray(Long[]::new));
+	}
+
+	/**
+	 * Returns a view of the list that boxes elements as they're read, instead of
+	 * copying them all to boxed values like {@link #boxed(IntList)}.
+	 */
+	public static DataList<Integer> boxedView(IntList l) {
+		return new DataList<>(DataType.INT, new BoxedValues<>(l.length, l.validity, i -> l.value[l.offset + i]));
+	}
+
+	/**
+	 * Returns a view of the list that boxes elements as they're read, instead of
+	 * copying them all to boxed values like {@link #boxed(LongList)}.
+	 */
+	public static DataList<Long> boxedView(LongList l) {
+		return new DataList<>(DataType.LONG, new BoxedValues<>(l.length, l.validity, i -> l.value[l.offset + i]));
 	}
 
 	public static DataList<Double> boxed(DoubleList l) {
-		return DataList.of(DataType.DOUBLE, l.stream().boxed().toArray(i -> new Double[i]));
+		return DataList.of(DataType.DOUBLE, IntStream.range(0, l.length)
+				.mapToObj(i -> Mask.isValid(l.validity, i) ? Double.valueOf(l.value[l.offset + i]) : null)
+				.toArray(Double[]::new));
+	}
+
+	private static final class BoxedValues<T> extends AbstractList<T> implements RandomAccess {
+		private final int size;
+		private final Mask validity;
+		private final IntFunction<T> reader;
+
+		BoxedValues(int size, Mask validity, IntFunction<T> reader) {
+			this.size = size;
+			this.validity = validity;
+			this.reader = reader;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= this.size) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.size);
+			}
+			return Mask.isValid(this.validity, index) ? this.reader.apply(index) : null;
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
 	}
 }
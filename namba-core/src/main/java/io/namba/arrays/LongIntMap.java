@@ -0,0 +1,98 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive longs to ints, iterated in insertion order. Keys
+ * live in an {@link LongHashSet}; values are kept in an array parallel to the
+ * set's key indices.
+ * 
+ * @author Ernest Kiwele
+ */
+final class LongIntMap {
+
+	private final LongHashSet keys;
+	private int[] values;
+
+	LongIntMap() {
+		this(16);
+	}
+
+	LongIntMap(int expected) {
+		this.keys = new LongHashSet(expected);
+		this.values = new int[Math.max(expected, 16)];
+	}
+
+	int get(long key, int missing) {
+		int index = this.keys.indexOf(key);
+		return index < 0 ? missing : this.values[index];
+	}
+
+	boolean containsKey(long key) {
+		return this.keys.contains(key);
+	}
+
+	void put(long key, int value) {
+		// slot() may grow the array, so it must run before the array is written
+		int index = this.slot(key);
+		this.values[index] = value;
+	}
+
+	/**
+	 * Adds <code>delta</code> to the key's value, a missing key starting at 0,
+	 * and returns the new value.
+	 */
+	int addTo(long key, int delta) {
+		// slot() may grow the array, so it must run before the array is read
+		int index = this.slot(key);
+		return this.values[index] += delta;
+	}
+
+	private int slot(long key) {
+		int index = this.keys.insert(key);
+		if (index == this.values.length)
+			this.values = Arrays.copyOf(this.values, index + (index >> 1) + 1);
+		return index;
+	}
+
+	int size() {
+		return this.keys.size();
+	}
+
+	long keyAt(int index) {
+		return this.keys.keyAt(index);
+	}
+
+	int valueAt(int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * The keys in insertion order.
+	 */
+	long[] keys() {
+		return this.keys.toArray();
+	}
+
+	/**
+	 * The values, in the order of {@link #keys()}.
+	 */
+	int[] values() {
+		return Arrays.copyOf(this.values, this.keys.size());
+	}
+}
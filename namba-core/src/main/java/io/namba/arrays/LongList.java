@@ -16,21 +16,19 @@
 package io.namba.arrays;
 
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.OptionalDouble;
 import java.util.OptionalLong;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
-import java.util.function.Function;
 import java.util.function.LongBinaryOperator;
 import java.util.function.LongFunction;
 import java.util.function.LongPredicate;
@@ -40,6 +38,7 @@ import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import io.namba.arrays.agg.GroupIndex;
 import io.namba.arrays.agg.LongGrouping;
 import io.namba.arrays.data.IndexedLong;
 import io.namba.arrays.data.IntData;
@@ -57,16 +56,73 @@ public class LongList implements NambaList {
 
 	protected final long[] value;
 
+	/**
+	 * Position of the first element in <code>value</code>, and number of
+	 * elements. Slices share their parent's array, which may hold elements
+	 * outside of this list.
+	 */
+	protected final int offset;
+	protected final int length;
+
+	/**
+	 * Validity of elements: elements whose bit is not set are null. This is null
+	 * if all elements are valid.
+	 */
+	protected final Mask validity;
+
 	private LongList(long[] a) {
+		this(a, null);
+	}
+
+	private LongList(long[] a, Mask validity) {
 		this.value = a;
+		this.offset = 0;
+		this.length = a.length;
+		this.validity = Mask.validity(validity, a.length);
+	}
+
+	/**
+	 * A slice of <code>[from, to)</code> of the parent list, sharing its array.
+	 */
+	private LongList(LongList parent, int from, int to) {
+		this.value = parent.value;
+		this.offset = parent.offset + from;
+		this.length = to - from;
+		this.validity = null == parent.validity ? null
+				: Mask.validity(parent.validity.getAt(from, to), this.length);
 	}
 
 	public static LongList of(long[] a) {
 		return new LongList(a);
 	}
 
+	/**
+	 * Creates a nullable list. Elements whose bit is not set in
+	 * <code>validity</code> are null, and their values in <code>value</code> are
+	 * ignored. A null <code>validity</code> mask makes all elements valid.
+	 */
+	public static LongList of(long[] value, Mask validity) {
+		return new LongList(value, validity);
+	}
+
+	/**
+	 * Creates a nullable list from boxed values, null elements being null in the
+	 * list.
+	 */
+	public static LongList ofNullable(Long... values) {
+		long[] v = new long[values.length];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = null == values[i] ? 0 : values[i];
+		}
+		return new LongList(v, Mask.of(values.length, i -> null != values[i]));
+	}
+
+	/**
+	 * Streams the stored values. Null elements appear with their undefined
+	 * stored value, so callers that must skip them check validity by position.
+	 */
 	public LongStream stream() {
-		return Arrays.stream(this.value);
+		return Arrays.stream(this.value, this.offset, this.offset + this.length);
 	}
 
 	public DecimalList asDecimal() {
@@ -84,8 +140,14 @@ public class LongList implements NambaList {
 	/////// from intlist
 	// accessors
 	private LongList getAt(IntStream stream) {
-		return LongList.of(Objects.requireNonNull(stream).filter(i -> i >= 0 && i < this.value.length)
-				.mapToLong(i -> this.value[i]).toArray());
+		int[] loc = Objects.requireNonNull(stream).filter(i -> i >= 0 && i < this.length).toArray();
+
+		long[] v = new long[loc.length];
+		for (int i = 0; i < loc.length; i++) {
+			v[i] = this.value[this.offset + loc[i]];
+		}
+
+		return new LongList(v, null == this.validity ? null : this.validity.getAt(loc));
 	}
 
 	public LongList getAt(Mask mask) {
@@ -101,18 +163,31 @@ public class LongList implements NambaList {
 	public Mask where(LongPredicate p) {
 		boolean[] b = new boolean[this.size()];
 		for (int i = 0; i < this.size(); i++) {
-			b[i] = p.test(this.value[i]);
+			b[i] = p.test(this.value[this.offset + i]);
 		}
-		return Mask.of(b);
+		return this.validOnly(Mask.of(b));
 	}
 
 	public LongList take(int size) {
-		return getAt(IntRange.of(size));
+		return this.getAt(0, size);
+	}
+
+	/**
+	 * Reads an element without boxing it. The value of a null element is
+	 * undefined.
+	 */
+	public long getLong(int loc) {
+		return this.value[this.offset + Objects.checkIndex(loc, this.length)];
+	}
+
+	public boolean isNull(int loc) {
+		return !this.isValid(loc);
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T> T getAt(int loc) {
-		return (T) Long.valueOf(this.value[loc]);
+		Objects.checkIndex(loc, this.length);
+		return this.isValid(loc) ? (T) Long.valueOf(this.value[this.offset + loc]) : null;
 	}
 
 	public LongList getAt(IntRange range) {
@@ -131,21 +206,36 @@ public class LongList implements NambaList {
 	public LongList zip(LongList other, LongBinaryOperator op) {
 		this.verifySizeMatch(this, other);
 
-		long[] res = new long[this.value.length];
-		for (int i = 0; i < res.length; i++) {
-			res[i] = op.applyAsLong(this.value[i], other.value[i]);
-		}
+		Mask valid = Mask.intersect(this.validity, other.validity);
+		long[] res = new long[this.length];
+		Parallelism.forEach(res.length, (from, to) -> {
+			for (int i = Mask.nextValid(valid, from, to); i >= 0 && i < to; i = Mask.nextValid(valid, i + 1, to)) {
+				res[i] = op.applyAsLong(this.value[this.offset + i], other.value[other.offset + i]);
+			}
+		});
 
-		return of(res);
+		return new LongList(res, valid);
+	}
+
+	/**
+	 * Starts a lazy pipeline over this list: element-wise operations chained on
+	 * it are fused and run in a single pass when the pipeline is collected or
+	 * reduced.
+	 */
+	public LongPipeline lazy() {
+		return new LongPipeline(this);
 	}
 
 	public LongList map(LongUnaryOperator op) {
 		LongUnaryOperator operation = Objects.requireNonNull(op);
-		long[] n = new long[this.value.length];
-		for (int i = 0; i < this.value.length; i++) {
-			n[i] = operation.applyAsLong(this.value[i]);
-		}
-		return LongList.of(n);
+		long[] n = new long[this.length];
+		Parallelism.forEach(n.length, (from, to) -> {
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				n[i] = operation.applyAsLong(this.value[this.offset + i]);
+			}
+		});
+		return this.derive(n);
 	}
 
 	public LongList apply(LongUnaryOperator op) {
@@ -153,27 +243,33 @@ public class LongList implements NambaList {
 	}
 
 	public LongList multiply(long n) {
-		return this.map(i -> i * n);
+		return this.derived(Kernels.multiply(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public LongList multiply(LongList n) {
-		return this.zip(n, (a, b) -> a * b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.multiply(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public LongList minus(long n) {
-		return this.map(i -> i - n);
+		return this.derived(Kernels.subtract(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public LongList minus(LongList n) {
-		return this.zip(n, (a, b) -> a - b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.subtract(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public LongList plus(long n) {
-		return this.map(i -> i + n);
+		return this.derived(Kernels.add(this.value, this.offset, this.length, n), this.validity);
 	}
 
 	public LongList plus(LongList n) {
-		return this.zip(n, (a, b) -> a + b);
+		this.verifySizeMatch(this, n);
+		return this.derived(Kernels.add(this.value, this.offset, n.value, n.offset, this.length),
+				Mask.intersect(this.validity, n.validity));
 	}
 
 	public LongList divide(long n) {
@@ -193,12 +289,12 @@ public class LongList implements NambaList {
 	}
 
 	public LongList abs() {
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = Math.abs(this.value[i]);
+			r[i] = Math.abs(this.value[this.offset + i]);
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public LongList absolute() {
@@ -206,12 +302,12 @@ public class LongList implements NambaList {
 	}
 
 	public LongList negative() {
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = -this.value[i];
+			r[i] = -this.value[this.offset + i];
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public LongList positive() {
@@ -219,12 +315,12 @@ public class LongList implements NambaList {
 	}
 
 	public LongList mod(long other) {
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = this.value[i] % other;
+			r[i] = this.value[this.offset + i] % other;
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public LongList mod(LongList n) {
@@ -232,12 +328,12 @@ public class LongList implements NambaList {
 	}
 
 	public LongList signum() {
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
 		for (int i = 0; i < r.length; i++)
-			r[i] = Long.signum(this.value[i]);
+			r[i] = Long.signum(this.value[this.offset + i]);
 
-		return of(r);
+		return this.derive(r);
 	}
 
 	public LongList sign() {
@@ -245,22 +341,24 @@ public class LongList implements NambaList {
 	}
 
 	public long mode() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> this.value[i])
-				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting())).entrySet().stream()
-				.max(Map.Entry.comparingByValue()).orElseThrow(() -> new IllegalStateException("no value found"))
-				.getKey();
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		int mode = counts.mode();
+		if (mode < 0)
+			throw new IllegalStateException("no value found");
+
+		return counts.keys[mode];
 	}
 
 	public DoubleList sin() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::sin).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::sin).toArray(), this.validity);
 	}
 
 	public DoubleList cos() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::cos).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::cos).toArray(), this.validity);
 	}
 
 	public DoubleList tan() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::tan).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::tan).toArray(), this.validity);
 	}
 
 	public DoubleList arcsin() {
@@ -268,7 +366,7 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList asin() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::asin).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::asin).toArray(), this.validity);
 	}
 
 	public DoubleList arccos() {
@@ -276,7 +374,7 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList acos() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::acos).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::acos).toArray(), this.validity);
 	}
 
 	public DoubleList arctan() {
@@ -284,11 +382,11 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList atan() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::atan).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::atan).toArray(), this.validity);
 	}
 
 	public DoubleList hsin() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::sinh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::sinh).toArray(), this.validity);
 	}
 
 	public DoubleList sinh() {
@@ -296,7 +394,7 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList hcos() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::cosh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::cosh).toArray(), this.validity);
 	}
 
 	public DoubleList cosh() {
@@ -304,7 +402,7 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList htan() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::tanh).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::tanh).toArray(), this.validity);
 	}
 
 	public DoubleList tanh() {
@@ -312,7 +410,7 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList rad() {
-		return DoubleList.of(LongStream.of(this.value).mapToDouble(Math::toRadians).toArray());
+		return DoubleList.of(this.stream().mapToDouble(Math::toRadians).toArray(), this.validity);
 	}
 
 	public DoubleList toRadians() {
@@ -320,21 +418,21 @@ public class LongList implements NambaList {
 	}
 
 	public LongList square() {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = this.value[i] * this.value[i];
+			a[i] = this.value[this.offset + i] * this.value[this.offset + i];
 
-		return of(a);
+		return this.derive(a);
 	}
 
 	public DoubleList squareRoot() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.sqrt(this.value[i]);
+			a[i] = Math.sqrt(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public DoubleList sqrt() {
@@ -342,49 +440,49 @@ public class LongList implements NambaList {
 	}
 
 	public DoubleList log10() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.log10(this.value[i]);
+			a[i] = Math.log10(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public DoubleList log() {
-		double[] a = new double[this.value.length];
+		double[] a = new double[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = Math.log(this.value[i]);
+			a[i] = Math.log(this.value[this.offset + i]);
 
-		return DoubleList.of(a);
+		return DoubleList.of(a, this.validity);
 	}
 
 	public LongList exp2() {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++)
-			a[i] = (long) Math.pow(2, this.value[i]);
+			a[i] = (long) Math.pow(2, this.value[this.offset + i]);
 
-		return of(a);
+		return this.derive(a);
 	}
 
 	// increment/decrement
 	public LongList next() {
-		long[] v = new long[this.value.length];
+		long[] v = new long[this.length];
 
 		for (int i = 0; i < v.length; i++)
-			v[i] = this.value[i] + 1;
+			v[i] = this.value[this.offset + i] + 1;
 
-		return of(v);
+		return this.derive(v);
 	}
 
 	public LongList previous() {
-		long[] v = new long[this.value.length];
+		long[] v = new long[this.length];
 
 		for (int i = 0; i < v.length; i++)
-			v[i] = this.value[i] - 1;
+			v[i] = this.value[this.offset + i] - 1;
 
-		return of(v);
+		return this.derive(v);
 	}
 
 	// bitwise operators
@@ -397,25 +495,25 @@ public class LongList implements NambaList {
 	}
 
 	public LongList bitwiseAnd(long other) {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] & other;
+			a[i] = this.value[this.offset + i] & other;
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	public LongList bitwiseAnd(LongList other) {
 		this.verifySizeMatch(this, other);
 
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] & other.value[i];
+			a[i] = this.value[this.offset + i] & other.value[other.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a, other);
 	}
 
 	public LongList or(long other) {
@@ -427,25 +525,25 @@ public class LongList implements NambaList {
 	}
 
 	public LongList bitwiseOr(long other) {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] | other;
+			a[i] = this.value[this.offset + i] | other;
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	public LongList bitwiseOr(LongList other) {
 		this.verifySizeMatch(this, other);
 
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] | other.value[i];
+			a[i] = this.value[this.offset + i] | other.value[other.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a, other);
 	}
 
 	public LongList xor(long other) {
@@ -457,25 +555,25 @@ public class LongList implements NambaList {
 	}
 
 	public LongList bitwiseXor(long other) {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] ^ other;
+			a[i] = this.value[this.offset + i] ^ other;
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	public LongList bitwiseXor(LongList other) {
 		this.verifySizeMatch(this, other);
 
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] ^ other.value[i];
+			a[i] = this.value[this.offset + i] ^ other.value[other.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a, other);
 	}
 
 	public LongList leftShift(long other) {
@@ -487,25 +585,25 @@ public class LongList implements NambaList {
 	}
 
 	public LongList bitwiseLeftShift(long other) {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] << other;
+			a[i] = this.value[this.offset + i] << other;
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	public LongList bitwiseLeftShift(LongList other) {
 		this.verifySizeMatch(this, other);
 
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] << other.value[i];
+			a[i] = this.value[this.offset + i] << other.value[other.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a, other);
 	}
 
 	public LongList rightShift(long other) {
@@ -517,35 +615,35 @@ public class LongList implements NambaList {
 	}
 
 	public LongList bitwiseRightShift(long other) {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >> other;
+			a[i] = this.value[this.offset + i] >> other;
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	public LongList bitwiseRightShift(LongList other) {
 		this.verifySizeMatch(this, other);
 
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >> other.value[i];
+			a[i] = this.value[this.offset + i] >> other.value[other.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a, other);
 	}
 
 	public LongList bitwiseNegate() {
-		long[] a = new long[this.value.length];
+		long[] a = new long[this.length];
 
 		for (int i = 0; i < a.length; i++) {
-			a[i] = ~this.value[i];
+			a[i] = ~this.value[this.offset + i];
 		}
 
-		return LongList.of(a);
+		return this.derive(a);
 	}
 
 	// Comparison
@@ -554,13 +652,8 @@ public class LongList implements NambaList {
 	}
 
 	public Mask equals(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] == other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.EQ),
+				this.length));
 	}
 
 	public Mask eq(LongList other) {
@@ -569,80 +662,45 @@ public class LongList implements NambaList {
 
 	public Mask equals(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] == other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.EQ), this.length), other);
 	}
 
 	public Mask lt(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] < other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.LT), this.length), other);
 	}
 
 	public Mask lt(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] < other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LT),
+				this.length));
 	}
 
 	public Mask le(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] <= other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.LE), this.length), other);
 	}
 
 	public Mask le(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] <= other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.LE),
+				this.length));
 	}
 
 	public Mask gt(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] > other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.GT), this.length), other);
 	}
 
 	public Mask gt(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] > other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GT),
+				this.length));
 	}
 
 	public Mask even() {
@@ -655,76 +713,59 @@ public class LongList implements NambaList {
 
 	public Mask ge(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >= other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.GE), this.length), other);
 	}
 
 	public Mask ge(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] >= other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.GE),
+				this.length));
 	}
 
 	public Mask ne(LongList other) {
 		this.verifySizeMatch(this, other);
-
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] != other.value[i];
-		}
-
-		return Mask.of(a);
+		return this.validOnly(
+				Mask.ofWords(Kernels.compare(this.value, this.offset, other.value, other.offset, this.length,
+				Kernels.Cmp.NE), this.length), other);
 	}
 
 	public Mask ne(long other) {
-		boolean[] a = new boolean[this.value.length];
-
-		for (int i = 0; i < a.length; i++) {
-			a[i] = this.value[i] != other;
-		}
-
-		return Mask.of(a);
+		return this.validOnly(Mask.ofWords(Kernels.compare(this.value, this.offset, this.length, other, Kernels.Cmp.NE),
+				this.length));
 	}
 
 	// Reduction
 	public OptionalLong sum() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalLong.empty();
 
+		if (null == this.validity)
+			return OptionalLong.of(Kernels.sum(this.value, this.offset, this.length));
+
 		long v = 0;
-		for (int i = 0; i < this.value.length; i++)
-			v += this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v += this.value[this.offset + i];
 		return OptionalLong.of(v);
 	}
 
 	public OptionalLong sumExact() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalLong.empty();
 
 		long v = 0;
-		for (int i = 0; i < this.value.length; i++)
-			v = Math.addExact(v, this.value[i]);
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.addExact(v, this.value[this.offset + i]);
 		return OptionalLong.of(v);
 	}
 
 	public OptionalLong product() {
-		if (this.value.length == 0)
+		if (0 == this.count())
 			return OptionalLong.empty();
 
 		long v = 1;
-		for (int i = 0; i < this.value.length; i++)
-			v *= this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v *= this.value[this.offset + i];
 		return OptionalLong.of(v);
 	}
 
@@ -733,15 +774,40 @@ public class LongList implements NambaList {
 	}
 
 	public OptionalLong max() {
-		return Arrays.stream(this.value).max();
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		if (null == this.validity)
+			return OptionalLong.of(Kernels.max(this.value, this.offset, this.length));
+
+		long v = Long.MIN_VALUE;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.max(v, this.value[this.offset + i]);
+		return OptionalLong.of(v);
 	}
 
 	public OptionalLong min() {
-		return Arrays.stream(this.value).min();
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		if (null == this.validity)
+			return OptionalLong.of(Kernels.min(this.value, this.offset, this.length));
+
+		long v = Long.MAX_VALUE;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v = Math.min(v, this.value[this.offset + i]);
+		return OptionalLong.of(v);
 	}
 
 	public OptionalDouble mean() {
-		return Arrays.stream(this.value).average();
+		int n = this.count();
+		if (0 == n)
+			return OptionalDouble.empty();
+
+		long v = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			v += this.value[this.offset + i];
+		return OptionalDouble.of((double) v / n);
 	}
 
 	public long getSum() {
@@ -769,18 +835,25 @@ public class LongList implements NambaList {
 	}
 
 	public int argmax() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> IndexedLong.of(i, this.value[i]))
-				.max(Comparator.comparingLong(IndexedLong::value)).map(IndexedLong::index).orElse(-1);
+		int loc = -1;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (-1 == loc || this.value[this.offset + i] > this.value[this.offset + loc])
+				loc = i;
+		}
+		return loc;
 	}
 
 	public int argmin() {
-		return IntStream.range(0, this.value.length).mapToObj(i -> IndexedLong.of(i, this.value[i]))
-				.min(Comparator.comparingLong(IndexedLong::value)).map(IndexedLong::index).orElse(-1);
+		int loc = -1;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (-1 == loc || this.value[this.offset + i] < this.value[this.offset + loc])
+				loc = i;
+		}
+		return loc;
 	}
 
 	public long ptp() {
-		LongSummaryStatistics stats = Arrays.stream(this.value).summaryStatistics();
-		return stats.getMax() - stats.getMin();
+		return this.getMax() - this.getMin();
 	}
 
 	public long peakToPeak() {
@@ -788,51 +861,85 @@ public class LongList implements NambaList {
 	}
 
 	public LongList clip(long low, long high) {
-		return LongList.of(Arrays.stream(this.value).filter(i -> low <= i && high >= i).toArray());
+		return LongList.of(this.stream().filter(i -> low <= i && high >= i).toArray());
 	}
 
 	public LongList cumSum() {
-		if (0 == this.value.length) {
+		if (0 == this.length) {
 			return LongList.of(new long[0]);
 		}
 
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
-		long last = 0;
+		// parallel prefix: chunk totals first, then each chunk is scanned from the
+		// sum of the chunks before it
+		int[] bounds = Parallelism.chunks(r.length);
+		long[] offsets = new long[bounds.length - 1];
+		Parallelism.forEachChunk(bounds, (c, from, to) -> offsets[c] = this.cumSum(r, from, to, 0));
 
-		for (int i = 0; i < this.value.length; i++) {
-			last += this.value[i];
-			r[i] = last;
+		if (offsets.length > 1) {
+			long carry = 0;
+			for (int c = 0; c < offsets.length; c++) {
+				long total = offsets[c];
+				offsets[c] = carry;
+				carry += total;
+			}
+			Parallelism.forEachChunk(bounds, (c, from, to) -> {
+				if (c > 0)
+					this.cumSum(r, from, to, offsets[c]);
+			});
 		}
 
-		return LongList.of(r);
+		return this.derive(r);
+	}
+
+	/**
+	 * Scans <code>[from, to)</code> into <code>r</code>, starting from
+	 * <code>start</code>, and returns the running total at the end of the range.
+	 */
+	private long cumSum(long[] r, int from, int to, long start) {
+		long last = start;
+		for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity, i + 1,
+				to)) {
+			last += this.value[this.offset + i];
+			r[i] = last;
+		}
+		return last;
 	}
 
 	public LongList cumProd() {
-		if (0 == this.value.length) {
+		if (0 == this.length) {
 			return LongList.of(new long[0]);
 		}
 
-		long[] r = new long[this.value.length];
+		long[] r = new long[this.length];
 
 		long last = 1;
 
-		for (int i = 0; i < this.value.length; i++) {
-			last *= this.value[i];
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			last *= this.value[this.offset + i];
 			r[i] = last;
 		}
 
-		return LongList.of(r);
+		return this.derive(r);
 	}
 
 	public double populationVar() {
-		double mean = this.getMean();
-		return Arrays.stream(this.value).mapToDouble(i -> Math.pow(i - mean, 2)).sum() / this.value.length;
+		return this.squaredDeviations() / this.count();
 	}
 
 	public double sampleVar() {
+		return this.squaredDeviations() / (this.count() - 1.0);
+	}
+
+	private double squaredDeviations() {
 		double mean = this.getMean();
-		return Arrays.stream(this.value).mapToDouble(i -> Math.pow(i - mean, 2)).sum() / (this.value.length - 1.0);
+		double v = 0;
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			double d = this.value[this.offset + i] - mean;
+			v += d * d;
+		}
+		return v;
 	}
 
 	public double std() {
@@ -844,15 +951,151 @@ public class LongList implements NambaList {
 	}
 
 	public Collection<Long> values() {
-		return Arrays.stream(value).boxed().collect(Collectors.toList());
+		return this.stream().boxed().collect(Collectors.toList());
 	}
 
 	private void verifySizeMatch(LongList left, LongList right) {
-		if (left.value.length != right.value.length) {
+		if (left.length != right.length) {
 			throw new IllegalArgumentException("array sizes don't match");
 		}
 	}
 
+	// nulls
+	private boolean isValid(int i) {
+		return Mask.isValid(this.validity, i);
+	}
+
+	private int nextValid(int from) {
+		return Mask.nextValid(this.validity, from, this.length);
+	}
+
+	/**
+	 * Creates a list with element-wise results computed from this list, with the
+	 * same null elements.
+	 */
+	private LongList derive(long[] result) {
+		return new LongList(result, this.validity);
+	}
+
+	private LongList derive(long[] result, LongList other) {
+		return new LongList(result, Mask.intersect(this.validity, other.validity));
+	}
+
+	/*
+	 * Results of kernels, which run over null slots too: those are reset to 0,
+	 * as the null-skipping operations leave them.
+	 */
+	private LongList derived(long[] result, Mask validity) {
+		if (null != validity) {
+			for (int i = validity.nextClearBit(0); i >= 0; i = validity.nextClearBit(i + 1))
+				result[i] = 0;
+		}
+		return new LongList(result, validity);
+	}
+
+	private Mask validOnly(Mask m) {
+		return null == this.validity ? m : m.and(this.validity);
+	}
+
+	private Mask validOnly(Mask m, LongList other) {
+		Mask valid = Mask.intersect(this.validity, other.validity);
+		return null == valid ? m : m.and(valid);
+	}
+
+	public boolean hasNulls() {
+		return null != this.validity;
+	}
+
+	/**
+	 * Returns the number of non-null elements.
+	 */
+	public int count() {
+		return null == this.validity ? this.length : this.validity.trueCount();
+	}
+
+	public int nullCount() {
+		return this.length - this.count();
+	}
+
+	public Mask isNull() {
+		return null == this.validity ? Mask.falses(this.length) : this.validity.negate();
+	}
+
+	public Mask notNull() {
+		return null == this.validity ? Mask.trues(this.length) : this.validity;
+	}
+
+	public LongList fillNa(long v) {
+		if (null == this.validity) {
+			return this;
+		}
+
+		long[] r = this.toArray();
+		for (int i = this.validity.nextClearBit(0); i >= 0; i = this.validity.nextClearBit(i + 1)) {
+			r[i] = v;
+		}
+		return LongList.of(r);
+	}
+
+	/**
+	 * Replaces null elements with the last non-null element before them. Leading
+	 * null elements remain null.
+	 */
+	public LongList forwardFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		long[] r = this.toArray();
+		int first = this.validity.nextSetBit(0);
+		if (first < 0) {
+			return this;
+		}
+
+		for (int i = first + 1; i < r.length; i++) {
+			if (!this.validity.isSet(i))
+				r[i] = r[i - 1];
+		}
+		return new LongList(r, Mask.of(r.length, i -> i >= first));
+	}
+
+	/**
+	 * Replaces null elements with the first non-null element after them. Trailing
+	 * null elements remain null.
+	 */
+	public LongList backFill() {
+		if (null == this.validity) {
+			return this;
+		}
+
+		long[] r = this.toArray();
+		int last = -1;
+		for (int i = r.length - 1; i >= 0; i--) {
+			if (this.validity.isSet(i)) {
+				last = Math.max(last, i);
+			} else if (-1 != last) {
+				r[i] = r[i + 1];
+			}
+		}
+
+		int lastValid = last;
+		return new LongList(r, Mask.of(r.length, i -> i <= lastValid));
+	}
+
+	/**
+	 * Returns the non-null elements of this list.
+	 */
+	public LongList dropNa() {
+		return null == this.validity ? this : this.getAt(this.validity);
+	}
+
+	/**
+	 * A copy of the non-null values, which callers may reorder.
+	 */
+	private long[] validValues() {
+		return null == this.validity ? this.toArray() : this.getAt(this.validity).value;
+	}
+
 	// data type casting
 	public DataList<Long> toLong() {
 		return this.boxed();
@@ -862,13 +1105,13 @@ public class LongList implements NambaList {
 
 	@Override
 	public LongList repeat(int n) {
-		long[] v = new long[n * this.value.length];
+		long[] v = new long[n * this.length];
 
 		for (int i = 0; i < n; i++) {
-			System.arraycopy(this.value, 0, v, i * this.value.length, this.value.length);
+			System.arraycopy(this.value, this.offset, v, i * this.length, this.length);
 		}
 
-		return LongList.of(v);
+		return new LongList(v, null == this.validity ? null : this.validity.repeat(n));
 	}
 
 	/**
@@ -877,13 +1120,13 @@ public class LongList implements NambaList {
 	 * @return
 	 */
 	public LongList nonZero() {
-		return new LongList(IntStream.range(0, this.value.length).filter(i -> this.value[i] != 0.0)
-				.mapToLong(i -> this.value[i]).toArray());
+		return new LongList(IntStream.range(0, this.length).filter(i -> this.value[this.offset + i] != 0.0)
+				.mapToLong(i -> this.value[this.offset + i]).toArray());
 	}
 
 	public boolean noneZero() {
-		for (long i : this.value) {
-			if (i == 0) {
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (this.value[i] == 0) {
 				return false;
 			}
 		}
@@ -892,8 +1135,8 @@ public class LongList implements NambaList {
 	}
 
 	public boolean anyNonZero() {
-		for (long i : this.value) {
-			if (i != 0) {
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (this.value[i] != 0) {
 				return true;
 			}
 		}
@@ -903,7 +1146,9 @@ public class LongList implements NambaList {
 
 	@Override
 	public StringList string() {
-		return StringList.of(LongStream.of(value).mapToObj(Long::toString).collect(Collectors.toList()));
+		return StringList.of(IntStream.range(0, this.length)
+				.mapToObj(i -> this.isValid(i) ? Long.toString(this.value[this.offset + i]) : null)
+				.collect(Collectors.toList()));
 	}
 
 	@Override
@@ -914,7 +1159,29 @@ public class LongList implements NambaList {
 
 	@Override
 	public Mask asMask() {
-		return Mask.of(this.size(), i -> this.value[i] != 0);
+		return this.validOnly(Mask.of(this.size(), i -> this.value[this.offset + i] != 0));
+	}
+
+	/**
+	 * Run-length encodes this list, for sorted or low-cardinality data.
+	 */
+	public RleLongList toRle() {
+		return RleLongList.of(this);
+	}
+
+	/**
+	 * Compresses this list with frame-of-reference or delta bit packing.
+	 */
+	public PackedLongList toPacked() {
+		return PackedLongList.of(this);
+	}
+
+	/**
+	 * Copies this list's data to off-heap memory allocated in the given arena.
+	 * The direct list keeps this list's validity mask, so nulls stay null.
+	 */
+	public DirectLongList toDirect(OffHeapArena arena) {
+		return arena.copyOf(this);
 	}
 
 	////////////// -- completing methods --
@@ -940,7 +1207,7 @@ public class LongList implements NambaList {
 	 * @return A new decimal list with distinct values from this list.
 	 */
 	public LongList distinct() {
-		return new LongList(this.stream().distinct().toArray());
+		return this.dropDuplicates(false);
 	}
 
 	/**
@@ -955,11 +1222,17 @@ public class LongList implements NambaList {
 	}
 
 	public LongStream reverseStream() {
-		return LongStream.iterate(this.value.length - 1, i -> i - 1).limit(this.size());
+		return IntStream.iterate(this.length - 1, i -> i >= 0, i -> i - 1)
+				.mapToLong(i -> this.value[this.offset + i]);
 	}
 
 	public LongList reversed() {
-		return new LongList(reverseStream().toArray());
+		int n = this.length;
+		long[] r = new long[n];
+		for (int i = 0; i < n; i++)
+			r[i] = this.value[this.offset + n - 1 - i];
+
+		return null == this.validity ? new LongList(r) : new LongList(r, Mask.of(n, i -> this.isValid(n - 1 - i)));
 	}
 
 	/**
@@ -967,58 +1240,120 @@ public class LongList implements NambaList {
 	 * value, depending on whether <code>keepLast</code> is set to
 	 * <code>false</code> or <code>true</code>, respectively.
 	 * 
+	 * Null elements are treated as equal to each other.
+	 * 
 	 * @param keepLast
 	 *            If <code>true</code>, only the last instance of the duplicate is
 	 *            retained.
 	 * @return A new decimal list with unique values.
 	 */
 	public LongList dropDuplicates(boolean keepLast) {
-		long[] data = (keepLast ? this.reverseStream() : this.stream()).distinct().toArray();
+		int n = this.length;
+		long[] r = new long[n];
+		LongHashSet seen = new LongHashSet();
+		int nullAt = -1;
+
+		// walking backwards when keeping the last instance, and filling the result
+		// from its end, keeps the original order in a single pass
+		int step = keepLast ? -1 : 1;
+		int out = keepLast ? n : -1;
+		for (int k = 0, i = keepLast ? n - 1 : 0; k < n; k++, i += step) {
+			if (!this.isValid(i)) {
+				if (nullAt < 0)
+					nullAt = out += step;
+			} else if (seen.add(this.value[this.offset + i])) {
+				r[out += step] = this.value[this.offset + i];
+			}
+		}
 
-		if (keepLast) {
-			return new LongList(data).reversed();
-		} else {
+		int from = keepLast ? out : 0;
+		int to = keepLast ? n : out + 1;
+		long[] data = Arrays.copyOfRange(r, from, to);
+		if (nullAt < 0)
 			return new LongList(data);
-		}
+
+		int nullLoc = nullAt - from;
+		return new LongList(data, Mask.of(data.length, i -> i != nullLoc));
 	}
 
 	// TODO: look longo storing a "sorted" flag with corresponding order.
 	/**
 	 * Return the given number of this list's largest values. This is equivalent to
-	 * slicing a reverse-sorted version of this list using the given number.
+	 * slicing a reverse-sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> largest values.
 	 */
 	public LongList nLargest(long n) {
-		return new LongList(this.stream().sorted().skip(this.size() - n).toArray()).reversed();
+		return new LongList(OrderStatistics.top(this.validValues(), (int) Math.min(n, Integer.MAX_VALUE), true));
 	}
 
 	/**
 	 * Return the given number of this list's smallest values. This is equivalent to
-	 * slicing a sorted version of this list using the given number.
+	 * slicing a sorted version of this list using the given number. Null values
+	 * are skipped.
 	 * 
 	 * @param n
 	 *            The number of elements to return.
 	 * @return A new list with the <code>n</code> smallest values.
 	 */
 	public LongList nSmallest(long n) {
-		return new LongList(this.stream().sorted().limit(n).toArray());
+		return new LongList(OrderStatistics.top(this.validValues(), (int) Math.min(n, Integer.MAX_VALUE), false));
 	}
 
 	/**
-	 * Returns the number of unique elements in this list.
+	 * Returns the number of unique non-null elements in this list.
 	 */
 	public long nUnique() {
-		return (long) this.stream().distinct().count();
+		LongHashSet seen = new LongHashSet();
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1))
+			seen.add(this.value[this.offset + i]);
+		return seen.size();
+	}
+
+	/**
+	 * Estimates the number of unique non-null elements in this list with a
+	 * {@link HyperLogLog} sketch, within about 1%.
+	 */
+	public long approxNUnique() {
+		return this.hyperLogLog().estimate();
+	}
+
+	/**
+	 * Builds a {@link HyperLogLog} sketch of this list's non-null values, which can
+	 * be merged with sketches of other lists.
+	 */
+	public HyperLogLog hyperLogLog() {
+		List<HyperLogLog> parts = Parallelism.map(this.length, (from, to) -> {
+			HyperLogLog sketch = HyperLogLog.of();
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				sketch.add(this.value[this.offset + i]);
+			}
+			return sketch;
+		});
+
+		HyperLogLog sketch = parts.get(0);
+		for (int c = 1; c < parts.size(); c++)
+			sketch.merge(parts.get(c));
+		return sketch;
 	}
 
 	/**
 	 * Creates a copy of this list's data.
 	 */
 	public long[] toArray() {
-		return this.stream().toArray();
+		return Arrays.copyOfRange(this.value, this.offset, this.offset + this.length);
+	}
+
+	/**
+	 * This list's elements, not copied unless this list is a slice of a larger
+	 * array. Callers must not modify the returned array.
+	 */
+	long[] array() {
+		return 0 == this.offset && this.length == this.value.length ? this.value : this.toArray();
 	}
 
 	/**
@@ -1063,8 +1398,8 @@ public class LongList implements NambaList {
 	}
 
 	public boolean all(LongPredicate test) {
-		for (long i : this.value) {
-			if (!test.test(i))
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (!test.test(this.value[i]))
 				return false;
 		}
 
@@ -1072,8 +1407,8 @@ public class LongList implements NambaList {
 	}
 
 	public boolean any(LongPredicate test) {
-		for (long i : this.value) {
-			if (test.test(i))
+		for (int i = this.offset; i < this.offset + this.length; i++) {
+			if (test.test(this.value[i]))
 				return true;
 		}
 
@@ -1089,11 +1424,16 @@ public class LongList implements NambaList {
 	 * @return A new decimal list with this and <code>other</code> joined.
 	 */
 	public LongList concat(LongList other) {
-		long[] all = new long[this.value.length + other.value.length];
+		long[] all = new long[this.length + other.length];
 
-		System.arraycopy(other, 0, all, this.value.length, other.value.length);
+		System.arraycopy(this.value, this.offset, all, 0, this.length);
+		System.arraycopy(other.value, other.offset, all, this.length, other.length);
 
-		return LongList.of(all);
+		if (null == this.validity && null == other.validity) {
+			return LongList.of(all);
+		}
+		return new LongList(all, Mask.of(all.length, i -> i < this.length ? this.isValid(i)
+				: other.isValid(i - this.length)));
 	}
 
 	/**
@@ -1104,19 +1444,44 @@ public class LongList implements NambaList {
 	}
 
 	/**
-	 * Return the integer indices that would sort the list's values.
+	 * Return the integer indices that would sort the list's values. The sort is
+	 * stable, and indices of null elements come last, in their original order.
 	 */
 	public IntList argSort() {
-		return IntList.of(IntStream.range(0, this.size()).mapToObj(i -> IndexedLong.of(i, this.value[i]))
-				.sorted(Comparator.comparing(IndexedLong::value)).mapToInt(IndexedLong::index).toArray());
+		return IntList.of(this.argSort(false));
 	}
 
 	/**
 	 * Return the integer indices that would reverse-sort the list's values.
+	 * Equal values keep their original order, and indices of null elements come
+	 * last.
 	 */
 	public IntList argSortReversed() {
-		// TODO: sort here? Any room for optimization?
-		return this.argSort().reversed();
+		return IntList.of(this.argSort(true));
+	}
+
+	private int[] argSort(boolean descending) {
+		if (null == this.validity)
+			return RadixSort.argSort(this.array(), descending);
+
+		int[] rows = new int[this.length];
+		int valid = 0;
+		int nulls = this.length;
+		for (int i = 0; i < this.length; i++) {
+			if (this.isValid(i))
+				rows[valid++] = i;
+			else
+				rows[--nulls] = i;
+		}
+
+		int[] order = RadixSort.argSort(this.validValues(), descending);
+		int[] r = new int[this.length];
+		for (int i = 0; i < valid; i++)
+			r[i] = rows[order[i]];
+		for (int i = valid, j = this.length - 1; i < this.length; i++, j--)
+			r[i] = rows[j];
+
+		return r;
 	}
 
 	public LongList shift() {
@@ -1127,11 +1492,12 @@ public class LongList implements NambaList {
 		if (0 >= n)
 			throw new IllegalArgumentException("n <= 0");
 
-		long[] b = new long[this.value.length];
+		long[] b = new long[this.length];
 
-		System.arraycopy(this.value, 0, b, n, this.value.length - n);
+		System.arraycopy(this.value, this.offset, b, n, this.length - n);
 
-		return LongList.of(b);
+		// shifted-in elements are null
+		return new LongList(b, Mask.of(b.length, i -> i >= n && this.isValid(i - n)));
 	}
 
 	/**
@@ -1144,11 +1510,11 @@ public class LongList implements NambaList {
 		boolean[] b = new boolean[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			long v = this.value[i];
+			long v = this.value[this.offset + i];
 			b[i] = low <= v && high >= v;
 		}
 
-		return Mask.of(b);
+		return this.validOnly(Mask.of(b));
 	}
 
 	/**
@@ -1165,11 +1531,11 @@ public class LongList implements NambaList {
 		long[] b = new long[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			long bd = this.value[i];
+			long bd = this.value[this.offset + i];
 			b[i] = Math.max(low, Math.min(high, bd));
 		}
 
-		return of(b);
+		return this.derive(b);
 	}
 
 	/**
@@ -1264,14 +1630,14 @@ public class LongList implements NambaList {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public LongList head() {
-		return getAt(IntRange.of(SUMMARY_SIZE));
+		return this.head(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the first <code>n</code> values of this list.
 	 */
 	public LongList head(int n) {
-		return getAt(IntRange.of(n));
+		return this.getAt(0, n);
 	}
 
 	/**
@@ -1279,28 +1645,31 @@ public class LongList implements NambaList {
 	 * {@link NambaList#SUMMARY_SIZE}
 	 */
 	public LongList tail() {
-		return getAt(IntRange.of(this.size() - SUMMARY_SIZE, this.size()));
+		return this.tail(SUMMARY_SIZE);
 	}
 
 	/**
 	 * Return the last <code>n</code> values of this list.
 	 */
 	public LongList tail(int n) {
-		return getAt(IntRange.of(this.size() - n, this.size()));
+		return this.getAt(this.size() - n, this.size());
 	}
 
 	public Map<Long, Integer> histogram() {
-		return this.stream().boxed().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-				.entrySet().stream().sorted(Entry.comparingByKey()).collect(Collectors.toMap(e -> e.getKey(),
-						e -> e.getValue().intValue(), (a, b) -> a, LinkedHashMap::new));
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		Map<Long, Integer> histogram = new LinkedHashMap<>();
+		for (int k = 0; k < counts.size(); k++)
+			histogram.put(counts.keys[k], counts.counts[k]);
+		return histogram;
 	}
 
 	public Map<Long, Double> normalizedHistogram(boolean percentage) {
-		long size = this.size();
-		long factor = percentage ? 100 : 1;
-		return this.stream().boxed().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-				.entrySet().stream().sorted(Entry.comparingByKey()).collect(Collectors.toMap(e -> e.getKey(),
-						e -> e.getValue().doubleValue() / size * factor, (a, b) -> a, LinkedHashMap::new));
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		double factor = (percentage ? 100.0 : 1.0) / counts.total;
+		Map<Long, Double> histogram = new LinkedHashMap<>();
+		for (int k = 0; k < counts.size(); k++)
+			histogram.put(counts.keys[k], counts.counts[k] * factor);
+		return histogram;
 	}
 
 	/**
@@ -1309,18 +1678,12 @@ public class LongList implements NambaList {
 	 * @return A <code>Table</code> with values and their counts.
 	 */
 	public Table hist() {
-		Map<Long, Integer> groups = this.histogram();
-
-		long[] keys = new long[groups.size()];
-		long[] counts = new long[groups.size()];
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		long[] tallies = new long[counts.size()];
+		for (int k = 0; k < tallies.length; k++)
+			tallies[k] = counts.counts[k];
 
-		int i = 0;
-		for (Entry<Long, Integer> entry : groups.entrySet()) {
-			keys[i] = entry.getKey();
-			counts[i++] = entry.getValue();
-		}
-
-		return Table.of(null, LongList.of(keys), LongList.of(counts));
+		return Table.of(null, LongList.of(counts.keys), LongList.of(tallies));
 	}
 
 	/**
@@ -1333,17 +1696,13 @@ public class LongList implements NambaList {
 	 * @return A <code>Table</code> with values and their count ratios.
 	 */
 	public Table normalizedHist(boolean percentage) {
-		Map<Long, Double> hist = this.normalizedHistogram(percentage);
-
-		long[] keys = new long[hist.size()];
-		double[] counts = new double[hist.size()];
-		int i = 0;
-		for (Entry<Long, Double> entry : hist.entrySet()) {
-			keys[i] = entry.getKey();
-			counts[i++] = entry.getValue();
-		}
+		ValueCounts counts = ValueCounts.of(this.array(), this.validity);
+		double factor = (percentage ? 100.0 : 1.0) / counts.total;
+		double[] ratios = new double[counts.size()];
+		for (int k = 0; k < ratios.length; k++)
+			ratios[k] = counts.counts[k] * factor;
 
-		return Table.of(null, LongList.of(keys), DoubleList.of(counts));
+		return Table.of(null, LongList.of(counts.keys), DoubleList.of(ratios));
 	}
 
 	/*
@@ -1369,7 +1728,15 @@ public class LongList implements NambaList {
 	 *         otherwise.
 	 */
 	public boolean isUnique() {
-		return this.distinct().size() == this.size();
+		if (this.nullCount() > 1)
+			return false;
+
+		LongHashSet seen = new LongHashSet();
+		for (int i = this.nextValid(0); i >= 0; i = this.nextValid(i + 1)) {
+			if (!seen.add(this.value[this.offset + i]))
+				return false;
+		}
+		return true;
 	}
 
 	/**
@@ -1378,7 +1745,7 @@ public class LongList implements NambaList {
 	 * @return Null if the list is empty, the first element otherwise.
 	 */
 	public OptionalLong item() {
-		return this.value.length == 0 ? OptionalLong.empty() : OptionalLong.of(this.value[0]);
+		return this.length == 0 ? OptionalLong.empty() : OptionalLong.of(this.value[this.offset]);
 	}
 
 	/**
@@ -1389,7 +1756,7 @@ public class LongList implements NambaList {
 	 * @see {@link #indexItemStreamReversed()}
 	 */
 	public Stream<IndexedLong> indexItemStream() {
-		return IntStream.range(0, this.size()).mapToObj(i -> IndexedLong.of(i, this.value[i]));
+		return IntStream.range(0, this.size()).mapToObj(i -> IndexedLong.of(i, this.value[this.offset + i]));
 	}
 
 	/**
@@ -1404,7 +1771,8 @@ public class LongList implements NambaList {
 	 */
 	public Stream<IndexedLong> indexItemStreamReversed() {
 		int total = this.size();
-		return IntStream.range(0, this.size()).map(i -> total - i - 1).mapToObj(i -> IndexedLong.of(i, this.value[i]));
+		return IntStream.range(0, this.size()).map(i -> total - i - 1).mapToObj(i -> IndexedLong.of(i,
+				this.value[this.offset + i]));
 	}
 
 	/**
@@ -1422,7 +1790,7 @@ public class LongList implements NambaList {
 		long[] v = new long[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			long value = this.getAt(i);
+			long value = this.getLong(i);
 			if (cond.test(value)) {
 				v[i] = val;
 			} else {
@@ -1430,7 +1798,7 @@ public class LongList implements NambaList {
 			}
 		}
 
-		return LongList.of(v);
+		return this.derive(v);
 	}
 
 	/**
@@ -1448,7 +1816,7 @@ public class LongList implements NambaList {
 		long[] v = new long[this.size()];
 
 		for (int i = 0; i < this.size(); i++) {
-			long value = this.getAt(i);
+			long value = this.getLong(i);
 			if (cond.getAt(i)) {
 				v[i] = val;
 			} else {
@@ -1456,26 +1824,159 @@ public class LongList implements NambaList {
 			}
 		}
 
-		return LongList.of(v);
+		return this.derive(v);
 	}
 
 	/**
 	 * Return the median of the values. Note that this skips null values.
 	 */
 	public OptionalLong median() {
+		long[] v = this.validValues();
 
-		LongList withoutNa = this.sorted();
-
-		if (withoutNa.size() == 0)
+		if (v.length == 0)
 			return OptionalLong.empty();
-		if (withoutNa.size() % 2 == 1) {
-			return withoutNa.getAt(withoutNa.size() / 2 + 1);
+		if (v.length % 2 == 1) {
+			return OptionalLong.of(OrderStatistics.select(v, v.length / 2));
 		} else {
-			int medLocation = withoutNa.size() / 2;
-			return OptionalLong.of((withoutNa.value[medLocation] + withoutNa.value[medLocation + 1]) / 2);
+			long lower = OrderStatistics.select(v, v.length / 2 - 1);
+			long higher = OrderStatistics.minFrom(v, v.length / 2);
+			// (lower + higher) / 2 without overflow, truncated toward zero
+			long half = (lower >> 1) + (higher >> 1) + (lower & higher & 1);
+			return OptionalLong.of(half < 0 && 0 != ((lower ^ higher) & 1) ? half + 1 : half);
 		}
 	}
 
+	/**
+	 * Return the value at the given quantile, using linear interpolation. Note
+	 * that this skips null values.
+	 * 
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 */
+	public OptionalDouble quantile(double q) {
+		return this.quantile(q, Interpolation.LINEAR);
+	}
+
+	/**
+	 * Return the value at the given quantile. Note that this skips null values.
+	 * 
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 * @param interpolation
+	 *            How to compute the quantile when it lies between two values.
+	 */
+	public OptionalDouble quantile(double q, Interpolation interpolation) {
+		OrderStatistics.checkQuantile(q);
+		Objects.requireNonNull(interpolation, "interpolation may not be null");
+
+		long[] v = this.validValues();
+		if (v.length == 0)
+			return OptionalDouble.empty();
+
+		return OptionalDouble.of(OrderStatistics.quantile(v, q, interpolation));
+	}
+
+	/**
+	 * Builds a {@link TDigest} over the non-null values for approximate quantiles
+	 * in a single pass.
+	 */
+	public TDigest digest() {
+		return this.digest(TDigest.DEFAULT_COMPRESSION);
+	}
+
+	public TDigest digest(double compression) {
+		List<TDigest> parts = Parallelism.map(this.length, (from, to) -> {
+			TDigest digest = TDigest.of(compression);
+			for (int i = Mask.nextValid(this.validity, from, to); i >= 0 && i < to; i = Mask.nextValid(this.validity,
+					i + 1, to)) {
+				digest.add(this.value[this.offset + i]);
+			}
+			return digest;
+		});
+
+		TDigest digest = parts.get(0);
+		for (int c = 1; c < parts.size(); c++)
+			digest.merge(parts.get(c));
+		return digest;
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Equal values are assigned the
+	 * average of their ranks. Null values are not ranked.
+	 */
+	public DoubleList rank() {
+		return this.rank(RankMethod.AVERAGE, true, false);
+	}
+
+	public DoubleList rank(RankMethod method) {
+		return this.rank(method, true, false);
+	}
+
+	/**
+	 * Compute numerical data ranks (1 through n). Null values are not ranked.
+	 * 
+	 * @param method
+	 *            How to rank equal values.
+	 * @param ascending
+	 *            Whether the smallest value is ranked 1.
+	 * @param percentile
+	 *            Whether to divide ranks by the number of ranked values (of
+	 *            distinct values with {@link RankMethod#DENSE}).
+	 */
+	public DoubleList rank(RankMethod method, boolean ascending, boolean percentile) {
+		return Ranks.rank(RadixSort.argSort(this.array(), !ascending), i -> !this.isValid(i),
+				(a, b) -> this.value[this.offset + a] == this.value[this.offset + b], method, percentile);
+	}
+
+	/**
+	 * Rolling windows of <code>window</code> rows over this list's values.
+	 */
+	public Rolling rolling(int window) {
+		return Rolling.of(this.stream().asDoubleStream().toArray(), this.validity, window);
+	}
+
+	/**
+	 * Rolling windows spanning <code>window</code> of time up to each element's
+	 * time. <code>times</code> must be sorted and have the same size as this
+	 * list.
+	 */
+	public Rolling rolling(DateTimeArray times, Duration window) {
+		return Rolling.of(this.stream().asDoubleStream().toArray(), this.validity, times, window);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with smoothing factor
+	 * <code>alpha</code>, <code>0 < alpha <= 1</code>.
+	 */
+	public Ewm ewm(double alpha) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, alpha);
+	}
+
+	/**
+	 * Exponentially weighted moving statistics with
+	 * <code>alpha = 2 / (span + 1)</code>.
+	 */
+	public Ewm ewmSpan(double span) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, Ewm.alphaOfSpan(span));
+	}
+
+	/**
+	 * Exponentially weighted moving statistics whose weights halve every
+	 * <code>halfLife</code> rows.
+	 */
+	public Ewm ewmHalfLife(double halfLife) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, Ewm.alphaOfHalfLife(halfLife));
+	}
+
+	/**
+	 * Time-aware exponentially weighted moving statistics: weights halve every
+	 * <code>halfLife</code> elapsed between the elements' times, which must be
+	 * sorted.
+	 */
+	public Ewm ewm(DateTimeArray times, Duration halfLife) {
+		return Ewm.of(this.stream().asDoubleStream().toArray(), this.validity, times, halfLife);
+	}
+
 	/**
 	 * Extract a sample of values from this decimal list.
 	 * 
@@ -1505,13 +2006,17 @@ public class LongList implements NambaList {
 		return this.getAt(IntData.instance().randomArray(randomState, size, 0, this.size()));
 	}
 
+	/**
+	 * Returns the values in ascending or descending order, with null elements at
+	 * the end.
+	 */
 	public LongList sorted(boolean descending) {
-		LongList v = of(this.stream().sorted().toArray());
-		if (descending) {
-			return v.reversed();
-		} else {
-			return v;
-		}
+		long[] valid = this.validValues();
+		RadixSort.sort(valid, descending);
+		if (null == this.validity)
+			return of(valid);
+
+		return new LongList(Arrays.copyOf(valid, this.length), Mask.of(this.length, i -> i < valid.length));
 	}
 
 	public LongList sorted() {
@@ -1527,9 +2032,7 @@ public class LongList implements NambaList {
 	}
 
 	public <K> LongGrouping<K> groupBy(LongFunction<K> classifier) {
-		return LongGrouping.of(this.boxed(),
-				IntStream.range(0, size()).mapToObj(i -> Two.of(i, classifier.apply(this.value[i])))
-						.collect(Collectors.groupingBy(Two::b, Collectors.mapping(Two::a, Collectors.toList()))));
+		return LongGrouping.of(this, GroupIndex.of(this.size(), i -> classifier.apply(this.value[this.offset + i])));
 	}
 
 	public StringList string(DecimalFormat numberFormat) {
@@ -1539,12 +2042,12 @@ public class LongList implements NambaList {
 	public Mask test(LongPredicate predicate) {
 		Objects.requireNonNull(predicate, "predicate cannot be null");
 
-		boolean[] b = new boolean[this.value.length];
+		boolean[] b = new boolean[this.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			b[i] = predicate.test(this.value[i]);
+		for (int i = 0; i < this.length; i++)
+			b[i] = predicate.test(this.value[this.offset + i]);
 
-		return Mask.of(b);
+		return this.validOnly(Mask.of(b));
 	}
 
 	// Cookbook
@@ -1574,10 +2077,10 @@ public class LongList implements NambaList {
 		long[] b = new long[this.size()];
 
 		for (int i = 0; i < size(); i++) {
-			b[i] = op.apply(i, this.value[i]);
+			b[i] = op.apply(i, this.value[this.offset + i]);
 		}
 
-		return of(b);
+		return this.derive(b);
 	}
 
 	public <T> DataList<T> applyWithIndex(BiFunction<Integer, Long, T> op) {
@@ -1586,7 +2089,7 @@ public class LongList implements NambaList {
 		List<T> res = new ArrayList<>(this.size());
 
 		for (int i = 0; i < size(); i++) {
-			res.add(op.apply(i, this.value[i]));
+			res.add(op.apply(i, this.value[this.offset + i]));
 		}
 
 		return new DataList<>(DataType.OBJECT, res);
@@ -1640,8 +2143,18 @@ public class LongList implements NambaList {
 		return this.getAt(this.test(predicate));
 	}
 
+	/**
+	 * Returns the elements in the contiguous range <code>[from, to)</code>,
+	 * clipped to this list's bounds. The returned list is a view sharing this
+	 * list's array, so slicing doesn't copy elements (only the validity mask of a
+	 * list with nulls is copied).
+	 */
+	@Override
 	public LongList getAt(int from, int to) {
-		return this.getAt(IntRange.of(from, to));
+		int start = Math.max(0, from);
+		int end = Math.max(start, Math.min(this.length, to));
+
+		return 0 == start && this.length == end ? this : new LongList(this, start, end);
 	}
 
 	public LongList putAt(LongPredicate test, LongUnaryOperator valueMapper) {
@@ -1655,7 +2168,7 @@ public class LongList implements NambaList {
 
 	@Override
 	public int size() {
-		return this.value.length;
+		return this.length;
 	}
 
 	// TODO: implement index()
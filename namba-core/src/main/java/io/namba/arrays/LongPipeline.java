@@ -0,0 +1,449 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A lazy chain of element-wise operations on an {@link LongList}, created with
+ * {@link LongList#lazy()}. Operations are only recorded; {@link #collect()},
+ * the comparisons and the reductions then run all of them in one pass, a
+ * cache-sized block at a time, without allocating intermediate lists.
+ * 
+ * <p>
+ * Nulls propagate as in the eager operations: a row is null if it's null in
+ * the source or in any list combined into the pipeline.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class LongPipeline {
+
+	/**
+	 * Rows per block: 8KB of longs, small enough to stay in L1 across stages.
+	 */
+	static final int BLOCK_SIZE = 1024;
+
+	private final LongList source;
+	private final List<Stage> stages;
+	private final Mask validity;
+
+	LongPipeline(LongList source) {
+		this(source, Collections.emptyList(), source.validity);
+	}
+
+	private LongPipeline(LongList source, List<Stage> stages, Mask validity) {
+		this.source = source;
+		this.stages = stages;
+		this.validity = validity;
+	}
+
+	private LongPipeline then(Stage stage) {
+		List<Stage> s = new ArrayList<>(this.stages);
+		s.add(stage);
+		return new LongPipeline(this.source, s, this.validity);
+	}
+
+	public int size() {
+		return this.source.length;
+	}
+
+	// element-wise operations
+	public LongPipeline plus(long n) {
+		return this.then(new Scalar(Op.PLUS, n));
+	}
+
+	public LongPipeline plus(LongList n) {
+		return this.zip(n, Op.PLUS);
+	}
+
+	public LongPipeline minus(long n) {
+		return this.then(new Scalar(Op.MINUS, n));
+	}
+
+	public LongPipeline minus(LongList n) {
+		return this.zip(n, Op.MINUS);
+	}
+
+	public LongPipeline multiply(long n) {
+		return this.then(new Scalar(Op.MULTIPLY, n));
+	}
+
+	public LongPipeline multiply(LongList n) {
+		return this.zip(n, Op.MULTIPLY);
+	}
+
+	public LongPipeline divide(long n) {
+		return this.then(new Scalar(Op.DIVIDE, n));
+	}
+
+	public LongPipeline divide(LongList n) {
+		return this.zip(n, Op.DIVIDE);
+	}
+
+	public LongPipeline mod(long n) {
+		return this.then(new Scalar(Op.MOD, n));
+	}
+
+	public LongPipeline mod(LongList n) {
+		return this.zip(n, Op.MOD);
+	}
+
+	public LongPipeline power(long n) {
+		return this.then(new Scalar(Op.POWER, n));
+	}
+
+	public LongPipeline power(LongList n) {
+		return this.zip(n, Op.POWER);
+	}
+
+	public LongPipeline abs() {
+		return this.then(new Mapped(Math::abs));
+	}
+
+	public LongPipeline negative() {
+		return this.then(new Mapped(i -> -i));
+	}
+
+	public LongPipeline signum() {
+		return this.then(new Mapped(Long::signum));
+	}
+
+	public LongPipeline map(LongUnaryOperator op) {
+		return this.then(new Mapped(Objects.requireNonNull(op)));
+	}
+
+	public LongPipeline zip(LongList other, LongBinaryOperator op) {
+		Objects.requireNonNull(op);
+		Objects.requireNonNull(other, "other");
+		if (this.source.length != other.length) {
+			throw new IllegalArgumentException("arrays are not of the same length");
+		}
+
+		List<Stage> s = new ArrayList<>(this.stages);
+		s.add(new Zipped(op, other.value, other.offset));
+		return new LongPipeline(this.source, s, Mask.intersect(this.validity, other.validity));
+	}
+
+	// terminal operations
+	/**
+	 * Runs the pipeline into a new list, the only allocation made.
+	 */
+	public LongList collect() {
+		long[] out = new long[this.size()];
+		this.run(out, (buf, from, n, row, allValid) -> {
+		});
+		return LongList.of(out, this.validity);
+	}
+
+	public Mask test(LongPredicate predicate) {
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		this.run(null, (buf, from, n, row, allValid) -> {
+			for (int i = 0; i < n; i++) {
+				if (predicate.test(buf[from + i])) {
+					words[(row + i) >>> 6] |= 1L << (row + i);
+				}
+			}
+		});
+
+		if (null != this.validity) {
+			long[] v = this.validity.words();
+			for (int w = 0; w < words.length; w++) {
+				words[w] &= v[w];
+			}
+		}
+		return Mask.ofWords(words, this.size());
+	}
+
+	public Mask eq(long other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask ne(long other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask lt(long other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask le(long other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask gt(long other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask ge(long other) {
+		return this.test(v -> v >= other);
+	}
+
+	public int count() {
+		return null == this.validity ? this.size() : this.validity.trueCount();
+	}
+
+	public OptionalLong sum() {
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		long[] sum = { 0 };
+		this.run(null, (buf, from, n, row, allValid) -> {
+			long s = 0;
+			for (int i = 0; i < n; i++)
+				s += buf[from + i];
+			sum[0] += s;
+		});
+		return OptionalLong.of(sum[0]);
+	}
+
+	public OptionalDouble mean() {
+		int count = this.count();
+		if (0 == count)
+			return OptionalDouble.empty();
+
+		long[] sum = { 0 };
+		this.run(null, (buf, from, n, row, allValid) -> {
+			for (int i = 0; i < n; i++)
+				sum[0] += buf[from + i];
+		});
+		return OptionalDouble.of((double) sum[0] / count);
+	}
+
+	public OptionalLong max() {
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		long[] max = { Long.MIN_VALUE };
+		this.run(null, (buf, from, n, row, allValid) -> {
+			for (int i = 0; i < n; i++)
+				if (allValid || this.validity.isSet(row + i))
+					max[0] = Math.max(max[0], buf[from + i]);
+		});
+		return OptionalLong.of(max[0]);
+	}
+
+	public OptionalLong min() {
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		long[] min = { Long.MAX_VALUE };
+		this.run(null, (buf, from, n, row, allValid) -> {
+			for (int i = 0; i < n; i++)
+				if (allValid || this.validity.isSet(row + i))
+					min[0] = Math.min(min[0], buf[from + i]);
+		});
+		return OptionalLong.of(min[0]);
+	}
+
+	/**
+	 * Runs all stages block by block, either in place in <code>out</code> or in
+	 * a scratch buffer, and hands each block to the sink. Null rows are skipped
+	 * by the stages and left as 0.
+	 */
+	private void run(long[] out, Sink sink) {
+		int size = this.size();
+		long[] buf = null == out ? new long[BLOCK_SIZE] : out;
+
+		for (int row = 0; row < size; row += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, size - row);
+			int from = null == out ? 0 : row;
+			boolean allValid = Mask.allValid(this.validity, row, row + n);
+
+			if (allValid) {
+				System.arraycopy(this.source.value, this.source.offset + row, buf, from, n);
+				for (Stage stage : this.stages) {
+					stage.apply(buf, from, n, row);
+				}
+			} else {
+				for (int i = 0; i < n; i++) {
+					long x = 0;
+					if (this.validity.isSet(row + i)) {
+						x = this.source.value[this.source.offset + row + i];
+						for (Stage stage : this.stages) {
+							x = stage.at(x, row + i);
+						}
+					}
+					buf[from + i] = x;
+				}
+			}
+
+			sink.accept(buf, from, n, row, allValid);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Sink {
+		void accept(long[] buf, int from, int n, int row, boolean allValid);
+	}
+
+	private enum Op implements LongBinaryOperator {
+		PLUS {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a + b;
+			}
+		},
+		MINUS {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a - b;
+			}
+		},
+		MULTIPLY {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a * b;
+			}
+		},
+		DIVIDE {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a / b;
+			}
+		},
+		MOD {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return a % b;
+			}
+		},
+		POWER {
+			@Override
+			public long applyAsLong(long a, long b) {
+				return (long) Math.pow(a, b);
+			}
+		};
+	}
+
+	private abstract static class Stage {
+		/**
+		 * Applies this stage to the block <code>buf[from, from + n)</code>, which
+		 * holds rows starting at <code>row</code>.
+		 */
+		abstract void apply(long[] buf, int from, int n, int row);
+
+		/**
+		 * Applies this stage to a single row.
+		 */
+		abstract long at(long x, int row);
+	}
+
+	private static final class Scalar extends Stage {
+		private final Op op;
+		private final long operand;
+
+		Scalar(Op op, long operand) {
+			this.op = op;
+			this.operand = operand;
+		}
+
+		@Override
+		void apply(long[] buf, int from, int n, int row) {
+			long c = this.operand;
+			int end = from + n;
+
+			// simple counted loops, one per operator, which the JIT unrolls
+			switch (this.op) {
+			case PLUS:
+				for (int i = from; i < end; i++)
+					buf[i] += c;
+				break;
+			case MINUS:
+				for (int i = from; i < end; i++)
+					buf[i] -= c;
+				break;
+			case MULTIPLY:
+				for (int i = from; i < end; i++)
+					buf[i] *= c;
+				break;
+			default:
+				for (int i = from; i < end; i++)
+					buf[i] = this.op.applyAsLong(buf[i], c);
+			}
+		}
+
+		@Override
+		long at(long x, int row) {
+			return this.op.applyAsLong(x, this.operand);
+		}
+	}
+
+	private static final class Zipped extends Stage {
+		private final LongBinaryOperator op;
+		private final long[] other;
+		private final int offset;
+
+		Zipped(LongBinaryOperator op, long[] other, int offset) {
+			this.op = op;
+			this.other = other;
+			this.offset = offset;
+		}
+
+		@Override
+		void apply(long[] buf, int from, int n, int row) {
+			long[] o = this.other;
+			int shift = this.offset + row - from;
+			int end = from + n;
+
+			if (Op.PLUS == this.op) {
+				for (int i = from; i < end; i++)
+					buf[i] += o[i + shift];
+			} else if (Op.MINUS == this.op) {
+				for (int i = from; i < end; i++)
+					buf[i] -= o[i + shift];
+			} else if (Op.MULTIPLY == this.op) {
+				for (int i = from; i < end; i++)
+					buf[i] *= o[i + shift];
+			} else {
+				for (int i = from; i < end; i++)
+					buf[i] = this.op.applyAsLong(buf[i], o[i + shift]);
+			}
+		}
+
+		@Override
+		long at(long x, int row) {
+			return this.op.applyAsLong(x, this.other[this.offset + row]);
+		}
+	}
+
+	private static final class Mapped extends Stage {
+		private final LongUnaryOperator op;
+
+		Mapped(LongUnaryOperator op) {
+			this.op = op;
+		}
+
+		@Override
+		void apply(long[] buf, int from, int n, int row) {
+			for (int i = from; i < from + n; i++)
+				buf[i] = this.op.applyAsLong(buf[i]);
+		}
+
+		@Override
+		long at(long x, int row) {
+			return this.op.applyAsLong(x);
+		}
+	}
+}
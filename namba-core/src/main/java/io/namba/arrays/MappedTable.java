@@ -0,0 +1,109 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table opened from a {@link ColumnFile}. Numeric columns are views of the
+ * mapped file; other columns are decoded the first time they are accessed.
+ * 
+ * <p>
+ * Closing the table releases its column views, after which the columns can no
+ * longer be accessed.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class MappedTable extends Table implements AutoCloseable {
+
+	private final LazyColumns lazyColumns;
+
+	private MappedTable(int size, LazyColumns columns, Map<String, Integer> names) {
+		super(size, columns, names, null);
+		this.lazyColumns = columns;
+	}
+
+	static MappedTable of(int size, List<ColumnFile.Segment> segments) {
+		Map<String, Integer> names = new HashMap<>();
+		for (int i = 0; i < segments.size(); i++) {
+			names.put(segments.get(i).name, i);
+		}
+
+		return new MappedTable(size, new LazyColumns(size, segments), Collections.unmodifiableMap(names));
+	}
+
+	/**
+	 * Returns true if the column has already been decoded.
+	 */
+	public boolean isLoaded(String name) {
+		return null != this.lazyColumns.loaded[this.names.get(name)];
+	}
+
+	public boolean isClosed() {
+		return this.lazyColumns.closed;
+	}
+
+	@Override
+	public void close() {
+		this.lazyColumns.close();
+	}
+
+	private static class LazyColumns extends AbstractList<NambaList> {
+		private final int rows;
+		private final List<ColumnFile.Segment> segments;
+		private final NambaList[] loaded;
+		private boolean closed;
+
+		LazyColumns(int rows, List<ColumnFile.Segment> segments) {
+			this.rows = rows;
+			this.segments = segments;
+			this.loaded = new NambaList[segments.size()];
+		}
+
+		@Override
+		public synchronized NambaList get(int index) {
+			if (this.closed) {
+				throw new IllegalStateException("table is closed");
+			}
+
+			NambaList column = this.loaded[index];
+			if (null == column) {
+				column = ColumnFile.decode(this.segments.get(index), this.rows);
+				this.loaded[index] = column;
+			}
+			return column;
+		}
+
+		@Override
+		public int size() {
+			return this.loaded.length;
+		}
+
+		synchronized void close() {
+			this.closed = true;
+			for (NambaList column : this.loaded) {
+				if (column instanceof DirectList) {
+					((DirectList) column).close();
+				}
+			}
+		}
+	}
+}
@@ -27,55 +27,197 @@ import java.util.stream.IntStream;
 import io.namba.arrays.data.tuple.Two;
 
 /**
+ * A list of boolean values. Values are packed 64 to a <code>long</code> word,
+ * so that counting and logical operations can be done a word at a time.
  * 
  * @author Ernest Kiwele
  */
 public class Mask implements NambaList {
 
-	private final boolean[] value;
+	private static final int WORD_SHIFT = 6;
+	private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+	private final long[] words;
+	private final int size;
 	private final Index index;
 
-	private Mask(boolean[] array, Index index) {
-		this.value = array;
+	private Mask(long[] words, int size, Index index) {
+		this.words = words;
+		this.size = size;
 		this.index = index;
 	}
 
-	private Mask(boolean[] array) {
-		this(array, null);
+	private Mask(long[] words, int size) {
+		this(words, size, null);
 	}
 
 	public static Mask of(boolean[] array) {
-		return new Mask(array, null);
+		long[] w = new long[wordCount(array.length)];
+		for (int i = 0; i < array.length; i++) {
+			if (array[i])
+				w[i >>> WORD_SHIFT] |= 1L << i;
+		}
+		return new Mask(w, array.length);
 	}
 
 	public static Mask trues(int size) {
-		boolean[] b = new boolean[size];
-		Arrays.fill(b, true);
-		return new Mask(b);
+		long[] w = new long[wordCount(size)];
+		Arrays.fill(w, WORD_MASK);
+		clearTail(w, size);
+		return new Mask(w, size);
 	}
 
 	public static Mask falses(int size) {
-		boolean[] b = new boolean[size];
-		Arrays.fill(b, false);
-		return new Mask(b);
+		return new Mask(new long[wordCount(size)], size);
 	}
 
 	public static Mask of(Boolean[] array) {
-		boolean[] b = new boolean[array.length];
-		for (int i = 0; i < array.length; i++)
-			b[i] = array[i];
-
-		return new Mask(b);
+		long[] w = new long[wordCount(array.length)];
+		for (int i = 0; i < array.length; i++) {
+			if (array[i])
+				w[i >>> WORD_SHIFT] |= 1L << i;
+		}
+		return new Mask(w, array.length);
 	}
 
 	public static Mask of(int size, IntPredicate predicate) {
-		boolean[] b = new boolean[size];
+		long[] w = new long[wordCount(size)];
 
 		for (int i = 0; i < size; i++) {
-			b[i] = predicate.test(i);
+			if (predicate.test(i))
+				w[i >>> WORD_SHIFT] |= 1L << i;
 		}
 
-		return of(b);
+		return new Mask(w, size);
+	}
+
+	/**
+	 * Creates a mask over the given words, without copying them. Bit
+	 * <code>i % 64</code> of word <code>i / 64</code> holds element
+	 * <code>i</code>, and bits past <code>size</code> must be clear.
+	 */
+	static Mask ofWords(long[] words, int size) {
+		if (words.length != wordCount(size)) {
+			throw new IllegalArgumentException("word count doesn't match size");
+		}
+		return new Mask(words, size);
+	}
+
+	/**
+	 * The backing words, laid out as described in {@link #ofWords(long[], int)}.
+	 * Callers must not modify the returned array.
+	 */
+	long[] words() {
+		return this.words;
+	}
+
+	static int wordCount(int size) {
+		return (size + 63) >>> WORD_SHIFT;
+	}
+
+	/**
+	 * Unchecked variant of {@link #getAt(int)}, for hot loops.
+	 */
+	boolean isSet(int loc) {
+		return 0 != (this.words[loc >>> WORD_SHIFT] & (1L << loc));
+	}
+
+	/*
+	 * Validity masks of nullable lists: a null mask means that all elements are
+	 * valid.
+	 */
+	static boolean isValid(Mask validity, int loc) {
+		return null == validity || validity.isSet(loc);
+	}
+
+	/**
+	 * Returns the first valid position at or after <code>from</code>, or -1 if
+	 * there's none.
+	 */
+	static int nextValid(Mask validity, int from, int size) {
+		if (null == validity) {
+			return from < size ? from : -1;
+		}
+		return validity.nextSetBit(from);
+	}
+
+	static Mask intersect(Mask a, Mask b) {
+		if (null == a) {
+			return b;
+		}
+		return null == b ? a : a.and(b);
+	}
+
+	/**
+	 * Normalizes a validity mask, dropping it if all elements are valid.
+	 */
+	static Mask validity(Mask validity, int size) {
+		if (null == validity) {
+			return null;
+		}
+		if (validity.size != size) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return validity.all() ? null : validity;
+	}
+
+	/**
+	 * Whether all elements in <code>[from, to)</code> are valid.
+	 */
+	static boolean allValid(Mask validity, int from, int to) {
+		if (null == validity || from >= to) {
+			return true;
+		}
+
+		long[] w = validity.words;
+		int first = from >>> WORD_SHIFT;
+		int last = (to - 1) >>> WORD_SHIFT;
+		long firstMask = WORD_MASK << from;
+		long lastMask = WORD_MASK >>> -to;
+
+		if (first == last) {
+			long m = firstMask & lastMask;
+			return (w[first] & m) == m;
+		}
+		if ((w[first] & firstMask) != firstMask || (w[last] & lastMask) != lastMask) {
+			return false;
+		}
+		for (int i = first + 1; i < last; i++) {
+			if (WORD_MASK != w[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the bits in <code>[from, to)</code>, filling whole words where the
+	 * range covers them.
+	 */
+	static void setRange(long[] w, int from, int to) {
+		if (from >= to) {
+			return;
+		}
+
+		int first = from >>> WORD_SHIFT;
+		int last = (to - 1) >>> WORD_SHIFT;
+		long firstMask = WORD_MASK << from;
+		long lastMask = WORD_MASK >>> -to;
+
+		if (first == last) {
+			w[first] |= firstMask & lastMask;
+			return;
+		}
+
+		w[first] |= firstMask;
+		Arrays.fill(w, first + 1, last, WORD_MASK);
+		w[last] |= lastMask;
+	}
+
+	private static void clearTail(long[] w, int size) {
+		if (0 != (size & 63)) {
+			w[w.length - 1] &= WORD_MASK >>> -size;
+		}
 	}
 
 	@Override
@@ -85,15 +227,45 @@ public class Mask implements NambaList {
 
 	@Override
 	public Mask getAt(int[] loc) {
-		boolean[] r = new boolean[loc.length];
-		for (int i = 0; i < r.length; i++) {
-			r[i] = this.value[loc[i]];
+		long[] w = new long[wordCount(loc.length)];
+		for (int i = 0; i < loc.length; i++) {
+			if (this.getAt(loc[i]))
+				w[i >>> WORD_SHIFT] |= 1L << i;
 		}
-		return Mask.of(r);
+		return new Mask(w, loc.length);
+	}
+
+	/**
+	 * Returns the elements in the contiguous range <code>[from, to)</code>,
+	 * copying whole words rather than individual bits.
+	 */
+	public Mask getAt(int from, int to) {
+		if (from < 0 || to > this.size || from > to) {
+			throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") out of bounds for size " + this.size);
+		}
+
+		int n = to - from;
+		long[] w = new long[wordCount(n)];
+		int shift = from & 63;
+		for (int k = 0, src = from >>> WORD_SHIFT; k < w.length; k++, src++) {
+			long word = this.words[src] >>> shift;
+			if (0 != shift && src + 1 < this.words.length) {
+				word |= this.words[src + 1] << (64 - shift);
+			}
+			w[k] = word;
+		}
+		if (0 != (n & 63)) {
+			w[w.length - 1] &= (1L << n) - 1;
+		}
+
+		return new Mask(w, n);
 	}
 
 	public boolean getAt(int loc) {
-		return this.value[loc];
+		if (loc < 0 || loc >= this.size) {
+			throw new ArrayIndexOutOfBoundsException(loc);
+		}
+		return 0 != (this.words[loc >>> WORD_SHIFT] & (1L << loc));
 	}
 
 	@Override
@@ -103,29 +275,98 @@ public class Mask implements NambaList {
 
 	@Override
 	public Mask repeat(int n) {
-		boolean[] v = new boolean[n * this.value.length];
-
-		for (int i = 0; i < n; i++) {
-			System.arraycopy(this.value, 0, v, i * this.value.length, this.value.length);
+		int total = n * this.size;
+		long[] w = new long[wordCount(total)];
+
+		for (int r = 0; r < n; r++) {
+			int base = r * this.size;
+			for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) {
+				int p = base + i;
+				w[p >>> WORD_SHIFT] |= 1L << p;
+			}
 		}
 
-		return Mask.of(v);
+		return new Mask(w, total);
 	}
 
 	@Override
 	public int size() {
-		return this.value.length;
+		return this.size;
 	}
 
 	@Override
 	public StringList string() {
-		return StringList.of(IntStream.range(0, this.value.length).mapToObj(i -> this.value[i] ? "true" : "false")
+		return StringList.of(IntStream.range(0, this.size).mapToObj(i -> this.getAt(i) ? "true" : "false")
 				.collect(Collectors.toList()));
 	}
 
 	@Override
 	public String toString() {
-		return Arrays.toString(this.value);
+		return Arrays.toString(this.toArray());
+	}
+
+	/**
+	 * Returns a copy of this mask's values as a boolean array.
+	 */
+	public boolean[] toArray() {
+		boolean[] b = new boolean[this.size];
+		for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) {
+			b[i] = true;
+		}
+		return b;
+	}
+
+	/**
+	 * Returns the index of the first true value at or after <code>from</code>, or
+	 * -1 if there is none.
+	 */
+	public int nextSetBit(int from) {
+		if (from < 0) {
+			throw new IndexOutOfBoundsException("from < 0: " + from);
+		}
+		if (from >= this.size) {
+			return -1;
+		}
+
+		int w = from >>> WORD_SHIFT;
+		long word = this.words[w] & (WORD_MASK << from);
+
+		while (true) {
+			if (0 != word) {
+				return (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == this.words.length) {
+				return -1;
+			}
+			word = this.words[w];
+		}
+	}
+
+	/**
+	 * Returns the index of the first false value at or after <code>from</code>, or
+	 * -1 if there is none.
+	 */
+	public int nextClearBit(int from) {
+		if (from < 0) {
+			throw new IndexOutOfBoundsException("from < 0: " + from);
+		}
+		if (from >= this.size) {
+			return -1;
+		}
+
+		int w = from >>> WORD_SHIFT;
+		long word = ~this.words[w] & (WORD_MASK << from);
+
+		while (true) {
+			if (0 != word) {
+				int i = (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+				return i < this.size ? i : -1;
+			}
+			if (++w == this.words.length) {
+				return -1;
+			}
+			word = ~this.words[w];
+		}
 	}
 
 	/**
@@ -134,7 +375,11 @@ public class Mask implements NambaList {
 	 * @return
 	 */
 	public int count() {
-		return (int) IntStream.range(0, this.value.length).filter(i -> this.value[i]).count();
+		int c = 0;
+		for (long w : this.words) {
+			c += Long.bitCount(w);
+		}
+		return c;
 	}
 
 	public int trueCount() {
@@ -147,39 +392,62 @@ public class Mask implements NambaList {
 	 * @return
 	 */
 	public int falseCount() {
-		return this.value.length - this.count();
+		return this.size - this.count();
 	}
 
 	public IntList asInt() {
-		return IntList.of(IntStream.range(0, this.value.length).map(i -> this.value[i] ? 1 : 0).toArray());
+		int[] r = new int[this.size];
+		for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) {
+			r[i] = 1;
+		}
+		return IntList.of(r);
 	}
 
 	public IntList truthy() {
-		return IntList.of(IntStream.range(0, this.value.length).filter(i -> this.value[i]).toArray());
+		int[] r = new int[this.count()];
+		int p = 0;
+		for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) {
+			r[p++] = i;
+		}
+		return IntList.of(r);
 	}
 
 	public IntList falsy() {
-		return IntList.of(IntStream.range(0, this.value.length).filter(i -> !this.value[i]).toArray());
+		int[] r = new int[this.falseCount()];
+		int p = 0;
+		for (int i = this.nextClearBit(0); i >= 0; i = this.nextClearBit(i + 1)) {
+			r[p++] = i;
+		}
+		return IntList.of(r);
 	}
 
 	public boolean all() {
-		return IntStream.range(0, this.value.length).allMatch(i -> this.value[i]);
+		int full = this.size >>> WORD_SHIFT;
+		for (int i = 0; i < full; i++) {
+			if (WORD_MASK != this.words[i])
+				return false;
+		}
+		return full == this.words.length || this.words[full] == WORD_MASK >>> -this.size;
 	}
 
 	public boolean any() {
-		return IntStream.range(0, this.value.length).anyMatch(i -> this.value[i]);
+		for (long w : this.words) {
+			if (0 != w)
+				return true;
+		}
+		return false;
 	}
 
 	public boolean none() {
-		return IntStream.range(0, this.value.length).noneMatch(i -> this.value[i]);
+		return !this.any();
 	}
 
 	public boolean anyFalse() {
-		return IntStream.range(0, this.value.length).anyMatch(i -> !this.value[i]);
+		return !this.all();
 	}
 
 	public int sum() {
-		return this.asInt().sum().orElse(0);
+		return this.count();
 	}
 
 	public double mean() {
@@ -193,40 +461,50 @@ public class Mask implements NambaList {
 		return ((double) this.sum()) / this.size() * 100;
 	}
 
+	private void verifySizeMatch(Mask other) {
+		if (this.size != other.size) {
+			throw new IllegalArgumentException("mask sizes don't match");
+		}
+	}
+
 	public Mask and(Mask other) {
-		boolean[] r = new boolean[this.value.length];
+		this.verifySizeMatch(other);
+		long[] r = new long[this.words.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			r[i] = this.value[i] && other.value[i];
+		for (int i = 0; i < r.length; i++)
+			r[i] = this.words[i] & other.words[i];
 
-		return Mask.of(r);
+		return new Mask(r, this.size);
 	}
 
 	public Mask or(Mask other) {
-		boolean[] r = new boolean[this.value.length];
+		this.verifySizeMatch(other);
+		long[] r = new long[this.words.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			r[i] = this.value[i] || other.value[i];
+		for (int i = 0; i < r.length; i++)
+			r[i] = this.words[i] | other.words[i];
 
-		return Mask.of(r);
+		return new Mask(r, this.size);
 	}
 
 	public Mask xor(Mask other) {
-		boolean[] r = new boolean[this.value.length];
+		this.verifySizeMatch(other);
+		long[] r = new long[this.words.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			r[i] = this.value[i] ^ other.value[i];
+		for (int i = 0; i < r.length; i++)
+			r[i] = this.words[i] ^ other.words[i];
 
-		return Mask.of(r);
+		return new Mask(r, this.size);
 	}
 
 	public Mask negate() {
-		boolean[] r = new boolean[this.value.length];
+		long[] r = new long[this.words.length];
 
-		for (int i = 0; i < this.value.length; i++)
-			r[i] = !this.value[i];
+		for (int i = 0; i < r.length; i++)
+			r[i] = ~this.words[i];
+		clearTail(r, this.size);
 
-		return Mask.of(r);
+		return new Mask(r, this.size);
 	}
 
 	public Mask negative() {
@@ -242,7 +520,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			values.add(this.value[i] ? trueFunction.apply(i) : falseFunction.apply(i));
+			values.add(this.getAt(i) ? trueFunction.apply(i) : falseFunction.apply(i));
 		}
 
 		return listGenerator.apply(values);
@@ -252,7 +530,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			values.add(this.value[i] ? trueFunction.apply(i) : null);
+			values.add(this.getAt(i) ? trueFunction.apply(i) : null);
 		}
 
 		return listGenerator.apply(values);
@@ -262,7 +540,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			values.add(this.value[i] ? trueFunction.apply(i) : falseFunction.apply(i));
+			values.add(this.getAt(i) ? trueFunction.apply(i) : falseFunction.apply(i));
 		}
 
 		return values;
@@ -272,7 +550,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			values.add(this.value[i] ? trueFunction.apply(i) : null);
+			values.add(this.getAt(i) ? trueFunction.apply(i) : null);
 		}
 
 		return values;
@@ -282,7 +560,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			if (this.value[i])
+			if (this.getAt(i))
 				values.add(function.apply(i));
 		}
 
@@ -293,7 +571,7 @@ public class Mask implements NambaList {
 		List<E> values = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			if (this.value[i])
+			if (this.getAt(i))
 				values.add(f.apply(i));
 		}
 
@@ -305,7 +583,7 @@ public class Mask implements NambaList {
 		List<E> falses = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			if (this.value[i])
+			if (this.getAt(i))
 				trues.add(data.getAt(i));
 			else
 				falses.add(data.getAt(i));
@@ -319,7 +597,7 @@ public class Mask implements NambaList {
 		List<Integer> falses = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			if (this.value[i])
+			if (this.getAt(i))
 				trues.add(data.getAt(i));
 			else
 				falses.add(data.getAt(i));
@@ -333,7 +611,7 @@ public class Mask implements NambaList {
 		List<Long> falses = new ArrayList<>();
 
 		for (int i = 0; i < this.size(); i++) {
-			if (this.value[i])
+			if (this.getAt(i))
 				trues.add(data.getAt(i));
 			else
 				falses.add(data.getAt(i));
@@ -344,9 +622,9 @@ public class Mask implements NambaList {
 
 	@Override
 	public LongList asLong() {
-		long[] data = new long[this.size()];
-		for (int i = 0; i < this.size(); i++) {
-			data[i] = this.value[i] ? 1 : 0;
+		long[] data = new long[this.size];
+		for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) {
+			data[i] = 1;
 		}
 		return LongList.of(data);
 	}
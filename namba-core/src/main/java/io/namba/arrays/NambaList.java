@@ -15,6 +15,8 @@
 
 package io.namba.arrays;
 
+import java.util.stream.IntStream;
+
 /**
  * 
  * @author Ernest Kiwele
@@ -53,6 +55,15 @@ public interface NambaList {
 
 	NambaList getAt(int[] loc);
 
+	/**
+	 * Returns the elements in the contiguous range <code>[from, to)</code>,
+	 * clipped to the list's bounds. Implementations backed by arrays or lists
+	 * override this to avoid gathering elements one by one.
+	 */
+	default NambaList getAt(int from, int to) {
+		return this.getAt(IntStream.range(Math.max(0, from), Math.min(this.size(), to)).toArray());
+	}
+
 	NambaList repeat(int n);
 
 	// casting
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Owns a group of off-heap lists and releases all of them at once when closed.
+ * Lists computed from a list allocated in an arena (by arithmetic, for
+ * example) are allocated in the same arena.
+ * 
+ * <pre>
+ * try (OffHeapArena arena = OffHeapArena.open()) {
+ *     DirectIntList ids = arena.copyOf(list);
+ *     int total = ids.plus(1).getSum();
+ * }
+ * </pre>
+ * 
+ * @author Ernest Kiwele
+ */
+public class OffHeapArena implements AutoCloseable {
+
+	private final Set<DirectList> lists = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean closed;
+
+	private OffHeapArena() {
+	}
+
+	public static OffHeapArena open() {
+		return new OffHeapArena();
+	}
+
+	public DirectIntList allocateInts(long size) {
+		return DirectIntList.allocate(size, this);
+	}
+
+	public DirectLongList allocateLongs(long size) {
+		return DirectLongList.allocate(size, this);
+	}
+
+	public DirectDoubleList allocateDoubles(long size) {
+		return DirectDoubleList.allocate(size, this);
+	}
+
+	public DirectIntList copyOf(IntList list) {
+		return DirectIntList.copyOf(list, this);
+	}
+
+	public DirectLongList copyOf(LongList list) {
+		return DirectLongList.copyOf(list, this);
+	}
+
+	public DirectDoubleList copyOf(DoubleList list) {
+		return DirectDoubleList.copyOf(list, this);
+	}
+
+	/**
+	 * Returns the number of open lists owned by this arena.
+	 */
+	public int listCount() {
+		return this.lists.size();
+	}
+
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	void register(DirectList list) {
+		if (this.closed) {
+			throw new IllegalStateException("arena is closed");
+		}
+		this.lists.add(list);
+	}
+
+	void unregister(DirectList list) {
+		this.lists.remove(list);
+	}
+
+	/**
+	 * Closes all lists owned by this arena. Closing a closed arena has no effect.
+	 */
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		List<DirectList> owned = new ArrayList<>(this.lists);
+		this.lists.clear();
+
+		for (DirectList list : owned) {
+			list.close();
+		}
+	}
+}
@@ -0,0 +1,525 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Selection based order statistics: an introselect (quickselect with a
+ * three-way partition and a sort fallback once recursion degrades) for
+ * k<sup>th</sup> values, medians and quantiles, and a bounded heap for
+ * <code>n</code> largest/smallest when <code>n</code> is small.
+ * <p>
+ * All methods work on scratch arrays that callers own; arrays are reordered in
+ * place. Double arrays must not contain <code>NaN</code>.
+ * 
+ * @author Ernest Kiwele
+ */
+final class OrderStatistics {
+
+	private static final int INSERTION_THRESHOLD = 16;
+
+	/**
+	 * Largest <code>n</code> for which top-n selection uses a heap rather than a
+	 * partition of the whole array.
+	 */
+	static final int HEAP_LIMIT = 1024;
+
+	private OrderStatistics() {
+	}
+
+	private static int depthLimit(int size) {
+		return 2 * (32 - Integer.numberOfLeadingZeros(size));
+	}
+
+	static void checkQuantile(double q) {
+		if (!(0 <= q && q <= 1))
+			throw new IllegalArgumentException("quantile must be between 0 and 1");
+	}
+
+	// int
+
+	/**
+	 * Moves the k<sup>th</sup> smallest value of <code>a</code> to position
+	 * <code>k</code>, smaller or equal values before it, and returns it.
+	 */
+	static int select(int[] a, int k) {
+		int from = 0;
+		int to = a.length;
+		int depth = depthLimit(to);
+
+		while (to - from > INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(a, from, to);
+				return a[k];
+			}
+
+			int pivot = medianOf3(a[from], a[(from + to) >>> 1], a[to - 1]);
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				int v = a[i];
+				if (v < pivot) {
+					a[i++] = a[lt];
+					a[lt++] = v;
+				} else if (v > pivot) {
+					a[i] = a[--gt];
+					a[gt] = v;
+				} else {
+					i++;
+				}
+			}
+
+			if (k < lt) {
+				to = lt;
+			} else if (k >= gt) {
+				from = gt;
+			} else {
+				return pivot;
+			}
+		}
+
+		Arrays.sort(a, from, to);
+		return a[k];
+	}
+
+	private static int medianOf3(int a, int b, int c) {
+		return a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+	}
+
+	/**
+	 * Smallest value in <code>a[from, a.length)</code>; after
+	 * <code>select(a, from - 1)</code> this is the next order statistic.
+	 */
+	static int minFrom(int[] a, int from) {
+		int min = a[from];
+		for (int i = from + 1; i < a.length; i++) {
+			if (a[i] < min)
+				min = a[i];
+		}
+		return min;
+	}
+
+	static double quantile(int[] a, double q, Interpolation interpolation) {
+		double position = q * (a.length - 1);
+		int lo = (int) position;
+		double lower = select(a, lo);
+		double higher = lo == position ? lower : minFrom(a, lo + 1);
+		return interpolation.interpolate(lower, higher, position);
+	}
+
+	/**
+	 * The <code>n</code> largest values of <code>a</code>, largest first (or the
+	 * <code>n</code> smallest, smallest first).
+	 */
+	static int[] top(int[] a, int n, boolean largest) {
+		n = Math.min(n, a.length);
+		if (n <= 0)
+			return new int[0];
+
+		int[] r;
+		if (n <= HEAP_LIMIT && n < a.length) {
+			// min-heap of the best n keys; ~x reverses the order for smallest
+			r = new int[n];
+			for (int i = 0; i < n; i++)
+				r[i] = largest ? a[i] : ~a[i];
+			for (int i = n / 2 - 1; i >= 0; i--)
+				siftDown(r, i, n);
+			for (int i = n; i < a.length; i++) {
+				int key = largest ? a[i] : ~a[i];
+				if (key > r[0]) {
+					r[0] = key;
+					siftDown(r, 0, n);
+				}
+			}
+			Arrays.sort(r);
+			// ascending keys; the reverse below gives the requested order either way
+			if (!largest) {
+				for (int i = 0; i < n; i++)
+					r[i] = ~r[i];
+			}
+		} else {
+			if (largest) {
+				if (n < a.length)
+					select(a, a.length - n);
+				r = Arrays.copyOfRange(a, a.length - n, a.length);
+			} else {
+				if (n < a.length)
+					select(a, n - 1);
+				r = Arrays.copyOf(a, n);
+				Arrays.sort(r);
+				return r;
+			}
+			Arrays.sort(r);
+		}
+
+		reverse(r);
+		return r;
+	}
+
+	private static void siftDown(int[] h, int i, int n) {
+		int v = h[i];
+		for (int c = 2 * i + 1; c < n; c = 2 * i + 1) {
+			if (c + 1 < n && h[c + 1] < h[c])
+				c++;
+			if (h[c] >= v)
+				break;
+			h[i] = h[c];
+			i = c;
+		}
+		h[i] = v;
+	}
+
+	private static void reverse(int[] a) {
+		for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// long
+
+	static long select(long[] a, int k) {
+		int from = 0;
+		int to = a.length;
+		int depth = depthLimit(to);
+
+		while (to - from > INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(a, from, to);
+				return a[k];
+			}
+
+			long pivot = medianOf3(a[from], a[(from + to) >>> 1], a[to - 1]);
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				long v = a[i];
+				if (v < pivot) {
+					a[i++] = a[lt];
+					a[lt++] = v;
+				} else if (v > pivot) {
+					a[i] = a[--gt];
+					a[gt] = v;
+				} else {
+					i++;
+				}
+			}
+
+			if (k < lt) {
+				to = lt;
+			} else if (k >= gt) {
+				from = gt;
+			} else {
+				return pivot;
+			}
+		}
+
+		Arrays.sort(a, from, to);
+		return a[k];
+	}
+
+	private static long medianOf3(long a, long b, long c) {
+		return a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+	}
+
+	static long minFrom(long[] a, int from) {
+		long min = a[from];
+		for (int i = from + 1; i < a.length; i++) {
+			if (a[i] < min)
+				min = a[i];
+		}
+		return min;
+	}
+
+	static double quantile(long[] a, double q, Interpolation interpolation) {
+		double position = q * (a.length - 1);
+		int lo = (int) position;
+		double lower = select(a, lo);
+		double higher = lo == position ? lower : minFrom(a, lo + 1);
+		return interpolation.interpolate(lower, higher, position);
+	}
+
+	static long[] top(long[] a, int n, boolean largest) {
+		n = Math.min(n, a.length);
+		if (n <= 0)
+			return new long[0];
+
+		long[] r;
+		if (n <= HEAP_LIMIT && n < a.length) {
+			r = new long[n];
+			for (int i = 0; i < n; i++)
+				r[i] = largest ? a[i] : ~a[i];
+			for (int i = n / 2 - 1; i >= 0; i--)
+				siftDown(r, i, n);
+			for (int i = n; i < a.length; i++) {
+				long key = largest ? a[i] : ~a[i];
+				if (key > r[0]) {
+					r[0] = key;
+					siftDown(r, 0, n);
+				}
+			}
+			Arrays.sort(r);
+			// ascending keys; the reverse below gives the requested order either way
+			if (!largest) {
+				for (int i = 0; i < n; i++)
+					r[i] = ~r[i];
+			}
+		} else {
+			if (largest) {
+				if (n < a.length)
+					select(a, a.length - n);
+				r = Arrays.copyOfRange(a, a.length - n, a.length);
+			} else {
+				if (n < a.length)
+					select(a, n - 1);
+				r = Arrays.copyOf(a, n);
+				Arrays.sort(r);
+				return r;
+			}
+			Arrays.sort(r);
+		}
+
+		reverse(r);
+		return r;
+	}
+
+	private static void siftDown(long[] h, int i, int n) {
+		long v = h[i];
+		for (int c = 2 * i + 1; c < n; c = 2 * i + 1) {
+			if (c + 1 < n && h[c + 1] < h[c])
+				c++;
+			if (h[c] >= v)
+				break;
+			h[i] = h[c];
+			i = c;
+		}
+		h[i] = v;
+	}
+
+	private static void reverse(long[] a) {
+		for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+			long t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// double
+
+	static double select(double[] a, int k) {
+		int from = 0;
+		int to = a.length;
+		int depth = depthLimit(to);
+
+		while (to - from > INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(a, from, to);
+				return a[k];
+			}
+
+			double pivot = medianOf3(a[from], a[(from + to) >>> 1], a[to - 1]);
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				double v = a[i];
+				if (v < pivot) {
+					a[i++] = a[lt];
+					a[lt++] = v;
+				} else if (v > pivot) {
+					a[i] = a[--gt];
+					a[gt] = v;
+				} else {
+					i++;
+				}
+			}
+
+			if (k < lt) {
+				to = lt;
+			} else if (k >= gt) {
+				from = gt;
+			} else {
+				return a[k];
+			}
+		}
+
+		Arrays.sort(a, from, to);
+		return a[k];
+	}
+
+	private static double medianOf3(double a, double b, double c) {
+		return a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+	}
+
+	static double minFrom(double[] a, int from) {
+		double min = a[from];
+		for (int i = from + 1; i < a.length; i++) {
+			if (a[i] < min)
+				min = a[i];
+		}
+		return min;
+	}
+
+	static double quantile(double[] a, double q, Interpolation interpolation) {
+		double position = q * (a.length - 1);
+		int lo = (int) position;
+		double lower = select(a, lo);
+		double higher = lo == position ? lower : minFrom(a, lo + 1);
+		return interpolation.interpolate(lower, higher, position);
+	}
+
+	static double[] top(double[] a, int n, boolean largest) {
+		n = Math.min(n, a.length);
+		if (n <= 0)
+			return new double[0];
+
+		double[] r;
+		if (n <= HEAP_LIMIT && n < a.length) {
+			r = new double[n];
+			for (int i = 0; i < n; i++)
+				r[i] = largest ? a[i] : -a[i];
+			for (int i = n / 2 - 1; i >= 0; i--)
+				siftDown(r, i, n);
+			for (int i = n; i < a.length; i++) {
+				double key = largest ? a[i] : -a[i];
+				if (key > r[0]) {
+					r[0] = key;
+					siftDown(r, 0, n);
+				}
+			}
+			Arrays.sort(r);
+			// ascending keys; the reverse below gives the requested order either way
+			if (!largest) {
+				for (int i = 0; i < n; i++)
+					r[i] = -r[i];
+			}
+		} else {
+			if (largest) {
+				if (n < a.length)
+					select(a, a.length - n);
+				r = Arrays.copyOfRange(a, a.length - n, a.length);
+			} else {
+				if (n < a.length)
+					select(a, n - 1);
+				r = Arrays.copyOf(a, n);
+				Arrays.sort(r);
+				return r;
+			}
+			Arrays.sort(r);
+		}
+
+		reverse(r);
+		return r;
+	}
+
+	private static void siftDown(double[] h, int i, int n) {
+		double v = h[i];
+		for (int c = 2 * i + 1; c < n; c = 2 * i + 1) {
+			if (c + 1 < n && h[c + 1] < h[c])
+				c++;
+			if (h[c] >= v)
+				break;
+			h[i] = h[c];
+			i = c;
+		}
+		h[i] = v;
+	}
+
+	private static void reverse(double[] a) {
+		for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+			double t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// objects
+
+	static <T> T select(T[] a, int k, Comparator<? super T> comparator) {
+		int from = 0;
+		int to = a.length;
+		int depth = depthLimit(to);
+
+		while (to - from > INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(a, from, to, comparator);
+				return a[k];
+			}
+
+			T pivot = medianOf3(a[from], a[(from + to) >>> 1], a[to - 1], comparator);
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				T v = a[i];
+				int c = comparator.compare(v, pivot);
+				if (c < 0) {
+					a[i++] = a[lt];
+					a[lt++] = v;
+				} else if (c > 0) {
+					a[i] = a[--gt];
+					a[gt] = v;
+				} else {
+					i++;
+				}
+			}
+
+			if (k < lt) {
+				to = lt;
+			} else if (k >= gt) {
+				from = gt;
+			} else {
+				return a[k];
+			}
+		}
+
+		Arrays.sort(a, from, to, comparator);
+		return a[k];
+	}
+
+	private static <T> T medianOf3(T a, T b, T c, Comparator<? super T> cmp) {
+		return cmp.compare(a, b) < 0 ? (cmp.compare(b, c) < 0 ? b : (cmp.compare(a, c) < 0 ? c : a))
+				: (cmp.compare(a, c) < 0 ? a : (cmp.compare(b, c) < 0 ? c : b));
+	}
+
+	static <T> T minFrom(T[] a, int from, Comparator<? super T> comparator) {
+		T min = a[from];
+		for (int i = from + 1; i < a.length; i++) {
+			if (comparator.compare(a[i], min) < 0)
+				min = a[i];
+		}
+		return min;
+	}
+
+	/**
+	 * The <code>n</code> smallest values of <code>a</code> according to
+	 * <code>comparator</code>, in order. Pass a reversed comparator for the largest
+	 * values.
+	 */
+	static <T> T[] top(T[] a, int n, Comparator<? super T> comparator) {
+		n = Math.min(Math.max(n, 0), a.length);
+		if (n < a.length && n > 0)
+			select(a, n - 1, comparator);
+		T[] r = Arrays.copyOf(a, n);
+		Arrays.sort(r, comparator);
+		return r;
+	}
+}
@@ -0,0 +1,404 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.function.IntToLongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Compressed storage for integer columns, in blocks of {@link #BLOCK_SIZE}
+ * values. Each block is bit-packed either as offsets from the block's minimum
+ * (frame of reference) or as deltas between consecutive values, whichever
+ * needs fewer bits; monotonic sequences typically pack as deltas. Blocks also
+ * keep the minimum and maximum of their non-null values, so that aggregates
+ * and range comparisons can skip blocks without unpacking them.
+ * 
+ * <p>
+ * Null slots are packed as the preceding value, so they don't widen blocks,
+ * and are decoded as 0.
+ * 
+ * @author Ernest Kiwele
+ */
+final class PackedBlocks {
+
+	static final int BLOCK_SIZE = 128;
+
+	private final int size;
+	private final Mask validity;
+
+	private final long[] refs;
+	private final long[] bases;
+	private final byte[] widths;
+	private final boolean[] delta;
+	private final int[] offsets;
+	private final long[] data;
+
+	private final long[] zoneMin;
+	private final long[] zoneMax;
+	private final int[] validCounts;
+
+	private PackedBlocks(int size, Mask validity) {
+		int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+		this.size = size;
+		this.validity = validity;
+		this.refs = new long[blocks];
+		this.bases = new long[blocks];
+		this.widths = new byte[blocks];
+		this.delta = new boolean[blocks];
+		this.offsets = new int[blocks + 1];
+		this.zoneMin = new long[blocks];
+		this.zoneMax = new long[blocks];
+		this.validCounts = new int[blocks];
+
+		this.data = null;
+	}
+
+	private PackedBlocks(PackedBlocks meta, long[] data) {
+		this.size = meta.size;
+		this.validity = meta.validity;
+		this.refs = meta.refs;
+		this.bases = meta.bases;
+		this.widths = meta.widths;
+		this.delta = meta.delta;
+		this.offsets = meta.offsets;
+		this.zoneMin = meta.zoneMin;
+		this.zoneMax = meta.zoneMax;
+		this.validCounts = meta.validCounts;
+		this.data = data;
+	}
+
+	/**
+	 * Packs the given values, reading them through <code>values</code> so that
+	 * int and long lists share the codec.
+	 */
+	static PackedBlocks encode(int size, IntToLongFunction values, Mask validity) {
+		PackedBlocks meta = new PackedBlocks(size, validity);
+		long[] block = new long[BLOCK_SIZE];
+
+		// first pass: choose each block's encoding and width
+		for (int b = 0; b < meta.refs.length; b++) {
+			int n = meta.fill(b, values, block);
+
+			long lo = block[0], hi = block[0];
+			long dlo = Long.MAX_VALUE, dhi = Long.MIN_VALUE;
+			for (int i = 1; i < n; i++) {
+				lo = Math.min(lo, block[i]);
+				hi = Math.max(hi, block[i]);
+				long d = block[i] - block[i - 1];
+				dlo = Math.min(dlo, d);
+				dhi = Math.max(dhi, d);
+			}
+
+			int forWidth = bits(hi - lo);
+			int deltaWidth = n > 1 ? bits(dhi - dlo) : 64;
+
+			if (deltaWidth < forWidth) {
+				meta.delta[b] = true;
+				meta.refs[b] = block[0];
+				meta.bases[b] = dlo;
+				meta.widths[b] = (byte) deltaWidth;
+			} else {
+				meta.refs[b] = lo;
+				meta.widths[b] = (byte) forWidth;
+			}
+			meta.offsets[b + 1] = meta.offsets[b] + (int) (((long) n * meta.widths[b] + 63) >>> 6);
+		}
+
+		// second pass: pack
+		long[] data = new long[meta.offsets[meta.refs.length]];
+		for (int b = 0; b < meta.refs.length; b++) {
+			int n = meta.fill(b, values, block);
+			int width = meta.widths[b];
+
+			if (0 == width) {
+				continue;
+			}
+
+			for (int i = 0; i < n; i++) {
+				long x = meta.delta[b] ? (0 == i ? 0 : block[i] - block[i - 1] - meta.bases[b])
+						: block[i] - meta.refs[b];
+				pack(data, meta.offsets[b], i, width, x);
+			}
+		}
+
+		return new PackedBlocks(meta, data);
+	}
+
+	/**
+	 * Reads block <code>b</code>, replacing nulls with the preceding value, and
+	 * records the block's zone.
+	 */
+	private int fill(int b, IntToLongFunction values, long[] block) {
+		int start = b * BLOCK_SIZE;
+		int n = Math.min(BLOCK_SIZE, this.size - start);
+		int first = Mask.nextValid(this.validity, start, start + n);
+
+		long prev = first >= 0 && first < start + n ? values.applyAsLong(first) : 0;
+		long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+		int valid = 0;
+
+		for (int i = 0; i < n; i++) {
+			if (Mask.isValid(this.validity, start + i)) {
+				prev = values.applyAsLong(start + i);
+				min = Math.min(min, prev);
+				max = Math.max(max, prev);
+				valid++;
+			}
+			block[i] = prev;
+		}
+
+		this.zoneMin[b] = min;
+		this.zoneMax[b] = max;
+		this.validCounts[b] = valid;
+
+		return n;
+	}
+
+	private static int bits(long unsignedRange) {
+		return 64 - Long.numberOfLeadingZeros(unsignedRange);
+	}
+
+	private static void pack(long[] data, int offset, int i, int width, long x) {
+		long p = (long) i * width;
+		int word = offset + (int) (p >>> 6);
+		int shift = (int) (p & 63);
+
+		data[word] |= x << shift;
+		if (shift + width > 64) {
+			data[word + 1] |= x >>> (64 - shift);
+		}
+	}
+
+	private long unpack(int b, int i) {
+		int width = this.widths[b];
+		if (0 == width) {
+			return 0;
+		}
+
+		long p = (long) i * width;
+		int word = this.offsets[b] + (int) (p >>> 6);
+		int shift = (int) (p & 63);
+
+		long x = this.data[word] >>> shift;
+		if (shift + width > 64) {
+			x |= this.data[word + 1] << (64 - shift);
+		}
+		return 64 == width ? x : x & ((1L << width) - 1);
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	Mask validity() {
+		return this.validity;
+	}
+
+	int blockCount() {
+		return this.refs.length;
+	}
+
+	int blockStart(int b) {
+		return b * BLOCK_SIZE;
+	}
+
+	/**
+	 * Bytes held by the packed data and block headers.
+	 */
+	long bytes() {
+		return 8L * this.data.length + 42L * this.refs.length;
+	}
+
+	/**
+	 * Unpacks block <code>b</code> into <code>out</code>, which must hold at
+	 * least {@link #BLOCK_SIZE} values, and returns the block's length.
+	 */
+	int decode(int b, long[] out) {
+		int start = b * BLOCK_SIZE;
+		int n = Math.min(BLOCK_SIZE, this.size - start);
+
+		if (this.delta[b]) {
+			long v = this.refs[b];
+			out[0] = v;
+			for (int i = 1; i < n; i++) {
+				v += this.bases[b] + this.unpack(b, i);
+				out[i] = v;
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				out[i] = this.refs[b] + this.unpack(b, i);
+			}
+		}
+
+		if (null != this.validity && this.validCounts[b] < n) {
+			for (int i = 0; i < n; i++) {
+				if (!this.validity.isSet(start + i)) {
+					out[i] = 0;
+				}
+			}
+		}
+
+		return n;
+	}
+
+	long get(int loc) {
+		if (loc < 0 || loc >= this.size) {
+			throw new IndexOutOfBoundsException("Index " + loc + " out of bounds for length " + this.size);
+		}
+		if (!Mask.isValid(this.validity, loc)) {
+			return 0;
+		}
+
+		int b = loc / BLOCK_SIZE;
+		int i = loc - b * BLOCK_SIZE;
+
+		if (!this.delta[b]) {
+			return this.refs[b] + this.unpack(b, i);
+		}
+
+		long v = this.refs[b];
+		for (int j = 1; j <= i; j++) {
+			v += this.bases[b] + this.unpack(b, j);
+		}
+		return v;
+	}
+
+	boolean isValid(int loc) {
+		return Mask.isValid(this.validity, loc);
+	}
+
+	int count() {
+		int count = 0;
+		for (int c : this.validCounts) {
+			count += c;
+		}
+		return count;
+	}
+
+	/**
+	 * Sum of non-null values, wrapping on overflow.
+	 */
+	long sum() {
+		long[] block = new long[BLOCK_SIZE];
+		long sum = 0;
+
+		for (int b = 0; b < this.refs.length; b++) {
+			if (0 == this.validCounts[b]) {
+				continue;
+			}
+			if (0 == this.widths[b] && !this.delta[b]) {
+				// constant block
+				sum += this.refs[b] * this.validCounts[b];
+				continue;
+			}
+
+			int n = this.decode(b, block);
+			for (int i = 0; i < n; i++) {
+				sum += block[i];
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Minimum of non-null values, read from block zones. Only meaningful if
+	 * <code>count() &gt; 0</code>.
+	 */
+	long min() {
+		long min = Long.MAX_VALUE;
+		for (int b = 0; b < this.refs.length; b++) {
+			if (0 != this.validCounts[b])
+				min = Math.min(min, this.zoneMin[b]);
+		}
+		return min;
+	}
+
+	long max() {
+		long max = Long.MIN_VALUE;
+		for (int b = 0; b < this.refs.length; b++) {
+			if (0 != this.validCounts[b])
+				max = Math.max(max, this.zoneMax[b]);
+		}
+		return max;
+	}
+
+	/**
+	 * Mask of non-null values in <code>[lo, hi]</code>. Blocks whose zone is
+	 * entirely inside or outside the range aren't unpacked.
+	 */
+	Mask range(long lo, long hi) {
+		long[] words = new long[Mask.wordCount(this.size)];
+		long[] block = new long[BLOCK_SIZE];
+
+		for (int b = 0; b < this.refs.length; b++) {
+			if (0 == this.validCounts[b] || this.zoneMax[b] < lo || this.zoneMin[b] > hi) {
+				continue;
+			}
+
+			int start = b * BLOCK_SIZE;
+			if (lo <= this.zoneMin[b] && this.zoneMax[b] <= hi) {
+				Mask.setRange(words, start, start + Math.min(BLOCK_SIZE, this.size - start));
+				continue;
+			}
+
+			int n = this.decode(b, block);
+			for (int i = 0; i < n; i++) {
+				if (lo <= block[i] && block[i] <= hi) {
+					words[(start + i) >>> 6] |= 1L << (start + i);
+				}
+			}
+		}
+
+		return this.valid(words);
+	}
+
+	/**
+	 * Mask of non-null values matching the predicate, unpacking a block at a
+	 * time.
+	 */
+	Mask test(LongPredicate predicate) {
+		long[] words = new long[Mask.wordCount(this.size)];
+		long[] block = new long[BLOCK_SIZE];
+
+		for (int b = 0; b < this.refs.length; b++) {
+			if (0 == this.validCounts[b]) {
+				continue;
+			}
+
+			int start = b * BLOCK_SIZE;
+			int n = this.decode(b, block);
+			for (int i = 0; i < n; i++) {
+				if (predicate.test(block[i])) {
+					words[(start + i) >>> 6] |= 1L << (start + i);
+				}
+			}
+		}
+
+		return this.valid(words);
+	}
+
+	private Mask valid(long[] words) {
+		if (null != this.validity) {
+			long[] v = this.validity.words();
+			for (int w = 0; w < words.length; w++) {
+				words[w] &= v[w];
+			}
+		}
+		return Mask.ofWords(words, this.size);
+	}
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Int list compressed with frame-of-reference or delta bit packing, for
+ * columns whose values span a small range or grow monotonically. Scans and
+ * aggregates unpack one block at a time; other operations go through
+ * {@link #decode()}.
+ * 
+ * @author Ernest Kiwele
+ */
+public class PackedIntList implements NambaList {
+
+	private final PackedBlocks blocks;
+
+	private PackedIntList(PackedBlocks blocks) {
+		this.blocks = blocks;
+	}
+
+	public static PackedIntList of(IntList list) {
+		Objects.requireNonNull(list, "list");
+		return new PackedIntList(PackedBlocks.encode(list.size(), i -> list.value[list.offset + i], list.validity));
+	}
+
+	public static PackedIntList of(int[] values) {
+		return new PackedIntList(PackedBlocks.encode(values.length, i -> values[i], null));
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.INT;
+	}
+
+	@Override
+	public Index index() {
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return this.blocks.size();
+	}
+
+	/**
+	 * Bytes used by the packed representation.
+	 */
+	public long compressedSize() {
+		return this.blocks.bytes();
+	}
+
+	public int getAt(int loc) {
+		return (int) this.blocks.get(loc);
+	}
+
+	public boolean isNull(int loc) {
+		return !this.blocks.isValid(loc);
+	}
+
+	@Override
+	public IntList getAt(int[] loc) {
+		int[] v = new int[loc.length];
+		for (int i = 0; i < loc.length; i++) {
+			v[i] = (int) this.blocks.get(loc[i]);
+		}
+
+		Mask validity = this.blocks.validity();
+		return IntList.of(v, null == validity ? null : validity.getAt(loc));
+	}
+
+	@Override
+	public IntList getAt(int from, int to) {
+		return this.decode().getAt(from, to);
+	}
+
+	@Override
+	public IntList repeat(int n) {
+		return this.decode().repeat(n);
+	}
+
+	public IntList decode() {
+		int[] v = new int[this.size()];
+		long[] block = new long[PackedBlocks.BLOCK_SIZE];
+
+		for (int b = 0; b < this.blocks.blockCount(); b++) {
+			int n = this.blocks.decode(b, block);
+			int start = this.blocks.blockStart(b);
+			for (int i = 0; i < n; i++) {
+				v[start + i] = (int) block[i];
+			}
+		}
+
+		return IntList.of(v, this.blocks.validity());
+	}
+
+	/**
+	 * Streams all values, nulls as 0, unpacking a block at a time.
+	 */
+	public IntStream stream() {
+		return IntStream.range(0, this.blocks.blockCount()).mapToObj(b -> {
+			long[] block = new long[PackedBlocks.BLOCK_SIZE];
+			int n = this.blocks.decode(b, block);
+			return LongStream.of(block).limit(n).mapToInt(v -> (int) v);
+		}).flatMapToInt(s -> s);
+	}
+
+	@Override
+	public StringList string() {
+		return this.decode().string();
+	}
+
+	@Override
+	public IntList asInt() {
+		return this.decode();
+	}
+
+	@Override
+	public LongList asLong() {
+		return this.decode().asLong();
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return this.decode().asDouble();
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.ne(0);
+	}
+
+	// aggregates
+	public int count() {
+		return this.blocks.count();
+	}
+
+	public int nullCount() {
+		return this.size() - this.count();
+	}
+
+	public OptionalInt sum() {
+		return 0 == this.count() ? OptionalInt.empty() : OptionalInt.of((int) this.blocks.sum());
+	}
+
+	public OptionalInt max() {
+		return 0 == this.count() ? OptionalInt.empty() : OptionalInt.of((int) this.blocks.max());
+	}
+
+	public OptionalInt min() {
+		return 0 == this.count() ? OptionalInt.empty() : OptionalInt.of((int) this.blocks.min());
+	}
+
+	public OptionalDouble mean() {
+		int n = this.count();
+		return 0 == n ? OptionalDouble.empty() : OptionalDouble.of((double) this.blocks.sum() / n);
+	}
+
+	// comparisons
+	public Mask test(IntPredicate predicate) {
+		return this.blocks.test(v -> predicate.test((int) v));
+	}
+
+	public Mask between(int lo, int hi) {
+		return this.blocks.range(lo, hi);
+	}
+
+	public Mask eq(int other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(int other) {
+		return this.blocks.range(other, other);
+	}
+
+	public Mask ne(int other) {
+		return this.blocks.test(v -> v != other);
+	}
+
+	public Mask lt(int other) {
+		return this.blocks.range(Long.MIN_VALUE, other - 1L);
+	}
+
+	public Mask le(int other) {
+		return this.blocks.range(Long.MIN_VALUE, other);
+	}
+
+	public Mask gt(int other) {
+		return this.blocks.range(other + 1L, Long.MAX_VALUE);
+	}
+
+	public Mask ge(int other) {
+		return this.blocks.range(other, Long.MAX_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return this.string().toString();
+	}
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Long list compressed with frame-of-reference or delta bit packing, for
+ * columns whose values span a small range or grow monotonically. Scans and
+ * aggregates unpack one block at a time; other operations go through
+ * {@link #decode()}.
+ * 
+ * @author Ernest Kiwele
+ */
+public class PackedLongList implements NambaList {
+
+	private final PackedBlocks blocks;
+
+	private PackedLongList(PackedBlocks blocks) {
+		this.blocks = blocks;
+	}
+
+	public static PackedLongList of(LongList list) {
+		Objects.requireNonNull(list, "list");
+		return new PackedLongList(PackedBlocks.encode(list.size(), i -> list.value[list.offset + i], list.validity));
+	}
+
+	public static PackedLongList of(long[] values) {
+		return new PackedLongList(PackedBlocks.encode(values.length, i -> values[i], null));
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.LONG;
+	}
+
+	@Override
+	public Index index() {
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return this.blocks.size();
+	}
+
+	/**
+	 * Bytes used by the packed representation.
+	 */
+	public long compressedSize() {
+		return this.blocks.bytes();
+	}
+
+	public long getAt(int loc) {
+		return this.blocks.get(loc);
+	}
+
+	public boolean isNull(int loc) {
+		return !this.blocks.isValid(loc);
+	}
+
+	@Override
+	public LongList getAt(int[] loc) {
+		long[] v = new long[loc.length];
+		for (int i = 0; i < loc.length; i++) {
+			v[i] = this.blocks.get(loc[i]);
+		}
+
+		Mask validity = this.blocks.validity();
+		return LongList.of(v, null == validity ? null : validity.getAt(loc));
+	}
+
+	@Override
+	public LongList getAt(int from, int to) {
+		return this.decode().getAt(from, to);
+	}
+
+	@Override
+	public LongList repeat(int n) {
+		return this.decode().repeat(n);
+	}
+
+	public LongList decode() {
+		long[] v = new long[this.size()];
+		long[] block = new long[PackedBlocks.BLOCK_SIZE];
+
+		for (int b = 0; b < this.blocks.blockCount(); b++) {
+			int n = this.blocks.decode(b, block);
+			System.arraycopy(block, 0, v, this.blocks.blockStart(b), n);
+		}
+
+		return LongList.of(v, this.blocks.validity());
+	}
+
+	/**
+	 * Streams all values, nulls as 0, unpacking a block at a time.
+	 */
+	public LongStream stream() {
+		return IntStream.range(0, this.blocks.blockCount()).mapToObj(b -> {
+			long[] block = new long[PackedBlocks.BLOCK_SIZE];
+			int n = this.blocks.decode(b, block);
+			return LongStream.of(block).limit(n);
+		}).flatMapToLong(s -> s);
+	}
+
+	@Override
+	public StringList string() {
+		return this.decode().string();
+	}
+
+	@Override
+	public IntList asInt() {
+		return this.decode().asInt();
+	}
+
+	@Override
+	public LongList asLong() {
+		return this.decode();
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return this.decode().asDouble();
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.ne(0);
+	}
+
+	// aggregates
+	public int count() {
+		return this.blocks.count();
+	}
+
+	public int nullCount() {
+		return this.size() - this.count();
+	}
+
+	public OptionalLong sum() {
+		return 0 == this.count() ? OptionalLong.empty() : OptionalLong.of(this.blocks.sum());
+	}
+
+	public OptionalLong max() {
+		return 0 == this.count() ? OptionalLong.empty() : OptionalLong.of(this.blocks.max());
+	}
+
+	public OptionalLong min() {
+		return 0 == this.count() ? OptionalLong.empty() : OptionalLong.of(this.blocks.min());
+	}
+
+	public OptionalDouble mean() {
+		int n = this.count();
+		return 0 == n ? OptionalDouble.empty() : OptionalDouble.of((double) this.blocks.sum() / n);
+	}
+
+	// comparisons
+	public Mask test(LongPredicate predicate) {
+		return this.blocks.test(predicate);
+	}
+
+	public Mask between(long lo, long hi) {
+		return this.blocks.range(lo, hi);
+	}
+
+	public Mask eq(long other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(long other) {
+		return this.blocks.range(other, other);
+	}
+
+	public Mask ne(long other) {
+		return this.blocks.test(v -> v != other);
+	}
+
+	public Mask lt(long other) {
+		return Long.MIN_VALUE == other ? Mask.falses(this.size()) : this.blocks.range(Long.MIN_VALUE, other - 1);
+	}
+
+	public Mask le(long other) {
+		return this.blocks.range(Long.MIN_VALUE, other);
+	}
+
+	public Mask gt(long other) {
+		return Long.MAX_VALUE == other ? Mask.falses(this.size()) : this.blocks.range(other + 1, Long.MAX_VALUE);
+	}
+
+	public Mask ge(long other) {
+		return this.blocks.range(other, Long.MAX_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return this.string().toString();
+	}
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings for running large list operations on several threads. Parallel
+ * execution is off by default; once enabled, element-wise operations,
+ * reductions, cumulative sums and sorts on lists of at least
+ * {@link #threshold()} elements are split into contiguous chunks that run on
+ * the configured executor.
+ * 
+ * <p>
+ * Chunk boundaries only depend on the list's size and the configured number of
+ * tasks, and partial results are combined in chunk order, so results are
+ * deterministic. Integer results are identical to those of sequential
+ * execution; floating point sums, and decimal sums under a limited precision,
+ * may differ from them in rounding.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class Parallelism {
+
+	/**
+	 * Default minimum number of elements for an operation to run in parallel.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+	/*
+	 * Chunks are multiples of this, so that chunks never share a mask word, and
+	 * are never smaller than MIN_CHUNK elements.
+	 */
+	private static final int ALIGNMENT = 64;
+	private static final int MIN_CHUNK = 1 << 14;
+
+	private static volatile Settings settings = null;
+
+	private Parallelism() {
+	}
+
+	/**
+	 * Enables parallel execution on the common fork/join pool, with the default
+	 * threshold.
+	 */
+	public static void enable() {
+		enable(DEFAULT_THRESHOLD);
+	}
+
+	public static void enable(int threshold) {
+		enable(threshold, ForkJoinPool.commonPool());
+	}
+
+	public static void enable(int threshold, ForkJoinPool pool) {
+		enable(threshold, pool, pool.getParallelism());
+	}
+
+	/**
+	 * Enables parallel execution on a caller-supplied executor.
+	 * 
+	 * @param threshold Minimum size of lists processed in parallel
+	 * @param executor  Executor running chunks
+	 * @param tasks     Number of chunks running concurrently, usually the
+	 *                  executor's number of threads
+	 */
+	public static void enable(int threshold, Executor executor, int tasks) {
+		Objects.requireNonNull(executor, "executor");
+		if (threshold < 0) {
+			throw new IllegalArgumentException("negative threshold");
+		}
+		if (tasks < 1) {
+			throw new IllegalArgumentException("tasks must be positive");
+		}
+
+		settings = new Settings(threshold, executor, tasks);
+	}
+
+	public static void disable() {
+		settings = null;
+	}
+
+	public static boolean isEnabled() {
+		return null != settings;
+	}
+
+	/**
+	 * Minimum size of lists processed in parallel, or -1 if parallel execution
+	 * is disabled.
+	 */
+	public static int threshold() {
+		Settings s = settings;
+		return null == s ? -1 : s.threshold;
+	}
+
+	@FunctionalInterface
+	interface RangeTask {
+		void run(int from, int to);
+	}
+
+	@FunctionalInterface
+	interface ChunkTask {
+		void run(int chunk, int from, int to);
+	}
+
+	@FunctionalInterface
+	interface RangeFunction<R> {
+		R apply(int from, int to);
+	}
+
+	@FunctionalInterface
+	interface IndexComparator {
+		int compare(int a, int b);
+	}
+
+	/**
+	 * Chunk boundaries for a list of the given size: a single chunk if the list
+	 * is to be processed sequentially.
+	 */
+	static int[] chunks(int size) {
+		Settings s = settings;
+		if (null == s || size < s.threshold || size < 2 * MIN_CHUNK) {
+			return new int[] { 0, size };
+		}
+
+		int count = Math.min(4 * s.tasks, size / MIN_CHUNK);
+		int chunk = ((size / count) + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+
+		int[] bounds = new int[(size + chunk - 1) / chunk + 1];
+		for (int c = 1; c < bounds.length; c++) {
+			bounds[c] = Math.min(size, c * chunk);
+		}
+		return bounds;
+	}
+
+	static boolean applies(int size) {
+		return chunks(size).length > 2;
+	}
+
+	/**
+	 * Runs the task over each chunk of <code>[0, size)</code>.
+	 */
+	static void forEach(int size, RangeTask task) {
+		forEach(chunks(size), task);
+	}
+
+	private static void forEach(int[] bounds, RangeTask task) {
+		Settings s = settings;
+		if (2 == bounds.length || null == s) {
+			for (int c = 0; c < bounds.length - 1; c++) {
+				task.run(bounds[c], bounds[c + 1]);
+			}
+			return;
+		}
+
+		Executor executor = s.executor;
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[bounds.length - 1];
+		for (int c = 0; c < futures.length; c++) {
+			int from = bounds[c], to = bounds[c + 1];
+			futures[c] = CompletableFuture.runAsync(() -> task.run(from, to), executor);
+		}
+
+		join(futures);
+	}
+
+	/**
+	 * Applies the function to each chunk of <code>[0, size)</code>, returning
+	 * the results in chunk order.
+	 */
+	static <R> List<R> map(int size, RangeFunction<R> function) {
+		return map(chunks(size), function);
+	}
+
+	static <R> List<R> map(int[] bounds, RangeFunction<R> function) {
+		List<R> results = new ArrayList<>(bounds.length - 1);
+		for (int c = 0; c < bounds.length - 1; c++) {
+			results.add(null);
+		}
+
+		forEachChunk(bounds, (c, from, to) -> results.set(c, function.apply(from, to)));
+		return results;
+	}
+
+	/**
+	 * Runs the task over each chunk delimited by <code>bounds</code>, as
+	 * returned by {@link #chunks(int)}, passing it the chunk's number.
+	 */
+	static void forEachChunk(int[] bounds, ChunkTask task) {
+		forEach(indices(bounds.length - 1), (from, to) -> {
+			for (int c = from; c < to; c++) {
+				task.run(c, bounds[c], bounds[c + 1]);
+			}
+		});
+	}
+
+	/*
+	 * Bounds splitting n units of work (chunks, merges) into one task each,
+	 * sequential if there's a single unit.
+	 */
+	private static int[] indices(int n) {
+		if (n <= 1 || null == settings) {
+			return new int[] { 0, n };
+		}
+
+		int[] b = new int[n + 1];
+		for (int i = 0; i <= n; i++) {
+			b[i] = i;
+		}
+		return b;
+	}
+
+	private static void join(CompletableFuture<?>[] futures) {
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stable sort of objects: chunks are sorted in parallel, then merged pairwise
+	 * in rounds.
+	 */
+	static <T> void sort(T[] a, Comparator<? super T> comparator) {
+		int[] bounds = chunks(a.length);
+		forEach(bounds, (from, to) -> Arrays.sort(a, from, to, comparator));
+
+		Object[] src = a, dst = new Object[a.length];
+		for (int width = 1; width < bounds.length - 1; width *= 2) {
+			int w = width;
+			Object[] s = src, d = dst;
+			forEach(indices(pairs(bounds, w)), (from, to) -> {
+				for (int p = from; p < to; p++) {
+					int lo = bounds[2 * p * w], mid = bounds[Math.min(2 * p * w + w, bounds.length - 1)],
+							hi = bounds[Math.min(2 * p * w + 2 * w, bounds.length - 1)];
+					int i = lo, j = mid, k = lo;
+					while (i < mid && j < hi)
+						d[k++] = less(comparator, s[j], s[i]) ? s[j++] : s[i++];
+					System.arraycopy(s, i, d, k, mid - i);
+					System.arraycopy(s, j, d, k + mid - i, hi - j);
+				}
+			});
+			src = d;
+			dst = s;
+		}
+
+		if (src != a) {
+			System.arraycopy(src, 0, a, 0, a.length);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> boolean less(Comparator<? super T> comparator, Object a, Object b) {
+		return comparator.compare((T) a, (T) b) < 0;
+	}
+
+	/**
+	 * Indices <code>0..size-1</code>, stably sorted by the comparator.
+	 */
+	static int[] sortedIndices(int size, IndexComparator comparator) {
+		Integer[] boxed = new Integer[size];
+		forEach(size, (from, to) -> {
+			for (int i = from; i < to; i++)
+				boxed[i] = i;
+		});
+
+		sort(boxed, (x, y) -> comparator.compare(x, y));
+
+		int[] idx = new int[size];
+		forEach(size, (from, to) -> {
+			for (int i = from; i < to; i++)
+				idx[i] = boxed[i];
+		});
+		return idx;
+	}
+
+	private static int pairs(int[] bounds, int width) {
+		int chunks = bounds.length - 1;
+		return (chunks + 2 * width - 1) / (2 * width);
+	}
+
+	private static final class Settings {
+		private final int threshold;
+		private final Executor executor;
+		private final int tasks;
+
+		Settings(int threshold, Executor executor, int tasks) {
+			this.threshold = threshold;
+			this.executor = executor;
+			this.tasks = tasks;
+		}
+	}
+}
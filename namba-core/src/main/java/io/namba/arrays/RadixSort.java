@@ -0,0 +1,232 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+
+/**
+ * Stable least-significant-digit radix sorts for int and long values, and
+ * their argsorts. Values are mapped to unsigned keys that preserve their
+ * order (or reverse it, for descending sorts, so no second pass is needed),
+ * and sorted a byte at a time. Histograms for all bytes are collected in a
+ * single pass, which also lets passes over bytes shared by every key be
+ * skipped.
+ * 
+ * <p>
+ * When {@link Parallelism} applies to the input's size, histograms and
+ * scatters run per chunk, each chunk writing to its own slice of every
+ * bucket, which keeps the sort stable.
+ * 
+ * @author Ernest Kiwele
+ */
+final class RadixSort {
+
+	private static final int BITS = 8;
+	private static final int RADIX = 1 << BITS;
+
+	private RadixSort() {
+	}
+
+	/**
+	 * Indices that stably sort the values; ties keep their original order in
+	 * both directions.
+	 */
+	static int[] argSort(int[] a, boolean descending) {
+		long flip = descending ? 0xFFFFFFFFL : 0;
+		long[] keys = new long[a.length];
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				keys[i] = ((a[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL) ^ flip;
+		});
+
+		return order(keys, Integer.BYTES);
+	}
+
+	static int[] argSort(long[] a, boolean descending) {
+		long flip = descending ? -1L : 0;
+		long[] keys = new long[a.length];
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				keys[i] = a[i] ^ Long.MIN_VALUE ^ flip;
+		});
+
+		return order(keys, Long.BYTES);
+	}
+
+	/**
+	 * Indices that stably sort the values, with <code>-0.0</code> equal to
+	 * <code>0.0</code>. NaN sorts after every other value in both directions.
+	 */
+	static int[] argSort(double[] a, boolean descending) {
+		long flip = descending ? -1L : 0;
+		long[] keys = new long[a.length];
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				// flip negatives entirely and positives' sign bit for unsigned order
+				long bits = Double.doubleToLongBits(a[i] + 0.0);
+				long key = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+				keys[i] = Double.isNaN(a[i]) ? -1L : key ^ flip;
+			}
+		});
+
+		return order(keys, Long.BYTES);
+	}
+
+	/**
+	 * Sorts the array in place.
+	 */
+	static void sort(int[] a, boolean descending) {
+		long flip = descending ? 0xFFFFFFFFL : 0;
+		long[] keys = new long[a.length];
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				keys[i] = ((a[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL) ^ flip;
+		});
+
+		radix(keys, null, Integer.BYTES);
+
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				a[i] = (int) (keys[i] ^ flip) ^ Integer.MIN_VALUE;
+		});
+	}
+
+	static void sort(long[] a, boolean descending) {
+		long flip = descending ? -1L : 0;
+		long[] keys = new long[a.length];
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				keys[i] = a[i] ^ Long.MIN_VALUE ^ flip;
+		});
+
+		radix(keys, null, Long.BYTES);
+
+		Parallelism.forEach(a.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				a[i] = keys[i] ^ flip ^ Long.MIN_VALUE;
+		});
+	}
+
+	private static int[] order(long[] keys, int digits) {
+		int[] idx = new int[keys.length];
+		Parallelism.forEach(idx.length, (from, to) -> {
+			for (int i = from; i < to; i++)
+				idx[i] = i;
+		});
+
+		radix(keys, idx, digits);
+		return idx;
+	}
+
+	/**
+	 * Sorts the keys in place, carrying the indices along if they're not null.
+	 */
+	private static void radix(long[] keys, int[] idx, int digits) {
+		int n = keys.length;
+		if (n < 2) {
+			return;
+		}
+
+		int[] bounds = Parallelism.chunks(n);
+		int chunks = bounds.length - 1;
+
+		int[][] hist = new int[chunks][digits * RADIX];
+		Parallelism.forEachChunk(bounds, (c, from, to) -> {
+			int[] h = hist[c];
+			for (int i = from; i < to; i++) {
+				long k = keys[i];
+				for (int d = 0; d < digits; d++) {
+					h[d * RADIX + (int) ((k >>> (d * BITS)) & (RADIX - 1))]++;
+				}
+			}
+		});
+
+		long[] src = keys, dst = new long[n];
+		int[] isrc = idx, idst = null == idx ? null : new int[n];
+		int[][] offsets = new int[chunks][RADIX];
+		boolean moved = false;
+
+		for (int d = 0; d < digits; d++) {
+			int base = d * RADIX;
+			if (isConstant(hist, base, n)) {
+				continue;
+			}
+
+			int shift = d * BITS;
+			if (moved && chunks > 1) {
+				// keys have moved across chunks since the histograms were taken
+				long[] s = src;
+				Parallelism.forEachChunk(bounds, (c, from, to) -> {
+					int[] h = hist[c];
+					Arrays.fill(h, base, base + RADIX, 0);
+					for (int i = from; i < to; i++) {
+						h[base + (int) ((s[i] >>> shift) & (RADIX - 1))]++;
+					}
+				});
+			}
+
+			// bucket b of chunk c starts after all of bucket b's elements from
+			// earlier chunks
+			int pos = 0;
+			for (int b = 0; b < RADIX; b++) {
+				for (int c = 0; c < chunks; c++) {
+					offsets[c][b] = pos;
+					pos += hist[c][base + b];
+				}
+			}
+
+			long[] s = src, t = dst;
+			int[] is = isrc, it = idst;
+			Parallelism.forEachChunk(bounds, (c, from, to) -> {
+				int[] off = offsets[c];
+				for (int i = from; i < to; i++) {
+					int p = off[(int) ((s[i] >>> shift) & (RADIX - 1))]++;
+					t[p] = s[i];
+					if (null != is)
+						it[p] = is[i];
+				}
+			});
+
+			src = t;
+			dst = s;
+			moved = true;
+			isrc = it;
+			idst = is;
+		}
+
+		if (src != keys) {
+			System.arraycopy(src, 0, keys, 0, n);
+			if (null != idx)
+				System.arraycopy(isrc, 0, idx, 0, n);
+		}
+	}
+
+	/**
+	 * Whether all keys share the same digit, making its pass a no-op.
+	 */
+	private static boolean isConstant(int[][] hist, int base, int n) {
+		for (int b = 0; b < RADIX; b++) {
+			int total = 0;
+			for (int[] h : hist) {
+				total += h[base + b];
+			}
+			if (0 != total) {
+				return total == n;
+			}
+		}
+		return true;
+	}
+}
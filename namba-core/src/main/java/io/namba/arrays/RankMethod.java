@@ -0,0 +1,48 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+/**
+ * How to rank the group of records that have the same value (i.e. ties).
+ * 
+ * @author Ernest Kiwele
+ */
+public enum RankMethod {
+	/**
+	 * Average rank of the group.
+	 */
+	AVERAGE,
+
+	/**
+	 * Lowest rank in the group.
+	 */
+	MIN,
+
+	/**
+	 * Highest rank in the group.
+	 */
+	MAX,
+
+	/**
+	 * Ranks assigned in the order values appear in the list.
+	 */
+	FIRST,
+
+	/**
+	 * Like {@link #MIN}, but the rank always increases by 1 between groups.
+	 */
+	DENSE;
+}
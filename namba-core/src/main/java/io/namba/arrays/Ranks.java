@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Assigns ranks from a stable sort order. Lists supply the indices that sort
+ * them and a test for equal values; null elements stay null.
+ * 
+ * @author Ernest Kiwele
+ */
+final class Ranks {
+
+	@FunctionalInterface
+	interface Tie {
+		boolean same(int a, int b);
+	}
+
+	private Ranks() {
+	}
+
+	/**
+	 * @param order
+	 *            Indices that stably sort the list, nulls included anywhere.
+	 * @param isNull
+	 *            Tests whether the element at an index is null.
+	 * @param tie
+	 *            Tests whether the elements at two indices are equal.
+	 */
+	static DoubleList rank(int[] order, IntPredicate isNull, Tie tie, RankMethod method, boolean percentile) {
+		Objects.requireNonNull(method, "rank method may not be null");
+
+		int size = order.length;
+		int[] sorted = new int[size];
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			if (!isNull.test(order[i]))
+				sorted[n++] = order[i];
+		}
+
+		double[] r = new double[size];
+		int groups = 0;
+		for (int start = 0, end; start < n; start = end) {
+			end = start + 1;
+			while (end < n && tie.same(sorted[start], sorted[end]))
+				end++;
+			groups++;
+
+			for (int j = start; j < end; j++) {
+				double rank;
+				switch (method) {
+				case MIN:
+					rank = start + 1;
+					break;
+				case MAX:
+					rank = end;
+					break;
+				case FIRST:
+					rank = j + 1;
+					break;
+				case DENSE:
+					rank = groups;
+					break;
+				default:
+					rank = (start + 1 + end) / 2.0;
+				}
+				r[sorted[j]] = rank;
+			}
+		}
+
+		if (percentile && 0 < n) {
+			double total = RankMethod.DENSE == method ? groups : n;
+			for (int j = 0; j < n; j++)
+				r[sorted[j]] /= total;
+		}
+
+		return DoubleList.of(r, n == size ? null : Mask.of(size, i -> !isNull.test(i)));
+	}
+}
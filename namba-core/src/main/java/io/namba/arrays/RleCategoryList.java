@@ -0,0 +1,207 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.namba.arrays.agg.GroupIndex;
+import io.namba.arrays.agg.ObjectGrouping;
+
+/**
+ * Run-length encoded category list: runs of level codes. Equality tests and
+ * grouping work on the runs, resolving each level once.
+ * 
+ * @author Ernest Kiwele
+ */
+public class RleCategoryList extends RunLengthList {
+
+	private final String[] levels;
+	private final int[] codes;
+
+	private RleCategoryList(String[] levels, int[] codes, int[] ends) {
+		super(ends, null);
+		this.levels = levels;
+		this.codes = codes;
+	}
+
+	public static RleCategoryList of(CategoryList list) {
+		Objects.requireNonNull(list, "list");
+
+		int[] value = list.codes();
+		int[] codes = new int[value.length];
+		int[] ends = new int[value.length];
+		int runs = 0;
+
+		for (int i = 0; i < value.length; i++) {
+			if (0 == runs || value[i] != codes[runs - 1]) {
+				codes[runs++] = value[i];
+			}
+			ends[runs - 1] = i + 1;
+		}
+
+		return new RleCategoryList(list.levels().toArray(new String[0]), Arrays.copyOf(codes, runs),
+				Arrays.copyOf(ends, runs));
+	}
+
+	public static RleCategoryList of(StringList list) {
+		return of(CategoryList.of(list));
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.CATEGORY;
+	}
+
+	public List<String> levels() {
+		return Arrays.asList(this.levels);
+	}
+
+	public String getAt(int loc) {
+		return this.levels[this.codes[this.runOf(loc)]];
+	}
+
+	@Override
+	public StringList getAt(int[] loc) {
+		return StringList.of(Arrays.stream(loc).mapToObj(this::getAt).collect(Collectors.toList()));
+	}
+
+	@Override
+	public RleCategoryList getAt(int from, int to) {
+		int[] runs = this.runRange(from, to);
+		if (null == runs) {
+			return new RleCategoryList(this.levels, new int[0], new int[0]);
+		}
+
+		from = Math.max(0, from);
+		to = Math.min(this.size(), to);
+
+		return new RleCategoryList(this.levels, Arrays.copyOfRange(this.codes, runs[0], runs[1] + 1),
+				this.sliceEnds(runs[0], runs[1], from, to));
+	}
+
+	@Override
+	public RleCategoryList repeat(int n) {
+		int[] c = new int[Math.multiplyExact(n, this.codes.length)];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(this.codes, 0, c, i * this.codes.length, this.codes.length);
+		}
+		return new RleCategoryList(this.levels, c, this.repeatEnds(n));
+	}
+
+	/**
+	 * Expands the runs into a plain category list, sharing this list's levels.
+	 */
+	public CategoryList decode() {
+		int[] v = new int[this.size()];
+		for (int r = 0; r < this.codes.length; r++) {
+			Arrays.fill(v, this.start(r), this.ends[r], this.codes[r]);
+		}
+
+		Map<Integer, String> mapping = IntStream.range(0, this.levels.length).boxed()
+				.collect(Collectors.toMap(Function.identity(), i -> this.levels[i]));
+		return new CategoryList(this.levels, v, mapping);
+	}
+
+	@Override
+	public StringList string() {
+		List<String> s = new ArrayList<>(this.size());
+		for (int r = 0; r < this.codes.length; r++) {
+			s.addAll(Collections.nCopies(this.length(r), this.levels[this.codes[r]]));
+		}
+		return StringList.of(s);
+	}
+
+	@Override
+	public IntList asInt() {
+		return null;
+	}
+
+	@Override
+	public LongList asLong() {
+		return null;
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return null;
+	}
+
+	@Override
+	public Mask asMask() {
+		return null;
+	}
+
+	// run operations
+	public Mask test(Predicate<String> predicate) {
+		boolean[] matches = new boolean[this.levels.length];
+		for (int l = 0; l < this.levels.length; l++) {
+			matches[l] = predicate.test(this.levels[l]);
+		}
+		return this.mask(r -> matches[this.codes[r]]);
+	}
+
+	public Mask eq(String other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(String other) {
+		return this.test(l -> Objects.equals(l, other));
+	}
+
+	public Mask ne(String other) {
+		return this.test(l -> !Objects.equals(l, other));
+	}
+
+	public <K> ObjectGrouping<K, String> groupBy(Function<String, K> classifier) {
+		Map<K, Integer> dictionary = new HashMap<>();
+		List<K> keys = new ArrayList<>();
+		int[] ids = new int[this.size()];
+
+		for (int r = 0; r < this.codes.length; r++) {
+			K key = classifier.apply(this.levels[this.codes[r]]);
+			Integer id = dictionary.get(key);
+			if (null == id) {
+				id = keys.size();
+				dictionary.put(key, id);
+				keys.add(key);
+			}
+			Arrays.fill(ids, this.start(r), this.ends[r], id);
+		}
+
+		return ObjectGrouping.ofClasses(this.string(), GroupIndex.of(ids, keys));
+	}
+
+	/**
+	 * Number of rows per level, summed from run lengths.
+	 */
+	public Map<String, Integer> histogram() {
+		Map<String, Integer> counts = new HashMap<>();
+		for (int r = 0; r < this.codes.length; r++) {
+			counts.merge(this.levels[this.codes[r]], this.length(r), Integer::sum);
+		}
+		return counts;
+	}
+}
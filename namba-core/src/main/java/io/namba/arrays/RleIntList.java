@@ -0,0 +1,301 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import io.namba.arrays.agg.GroupIndex;
+import io.namba.arrays.agg.IntGrouping;
+
+/**
+ * Run-length encoded int list, for sorted or low-cardinality data. Sums,
+ * counts, comparisons and grouping work on the runs; the list is decoded to an
+ * {@link IntList} only for operations that need random access to individual
+ * elements.
+ * 
+ * @author Ernest Kiwele
+ */
+public class RleIntList extends RunLengthList {
+
+	private final int[] values;
+
+	private RleIntList(int[] values, int[] ends, Mask validity) {
+		super(ends, validity);
+		this.values = values;
+	}
+
+	/**
+	 * Encodes the given list. Consecutive nulls make a single run, regardless
+	 * of the values stored under them.
+	 */
+	public static RleIntList of(IntList list) {
+		Objects.requireNonNull(list, "list");
+
+		int size = list.size();
+		int[] values = new int[size];
+		int[] ends = new int[size];
+		boolean[] valid = new boolean[size];
+		int runs = 0;
+
+		for (int i = 0; i < size; i++) {
+			boolean v = Mask.isValid(list.validity, i);
+			if (0 == runs || v != valid[runs - 1] || (v && list.value[list.offset + i] != values[runs - 1])) {
+				values[runs] = v ? list.value[list.offset + i] : 0;
+				valid[runs] = v;
+				runs++;
+			}
+			ends[runs - 1] = i + 1;
+		}
+
+		return new RleIntList(Arrays.copyOf(values, runs), Arrays.copyOf(ends, runs),
+				null == list.validity ? null : Mask.of(Arrays.copyOf(valid, runs)));
+	}
+
+	public static RleIntList of(int[] values) {
+		return of(IntList.of(values));
+	}
+
+	/**
+	 * A list of <code>size</code> copies of <code>value</code>, held in a single
+	 * run.
+	 */
+	public static RleIntList of(int size, int value) {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size");
+		}
+		return 0 == size ? new RleIntList(new int[0], new int[0], null)
+				: new RleIntList(new int[] { value }, new int[] { size }, null);
+	}
+
+	public static RleIntList ofRuns(int[] values, int[] lengths) {
+		if (values.length != lengths.length) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return new RleIntList(values.clone(), ends(lengths), null);
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.INT;
+	}
+
+	public IntList runValues() {
+		return IntList.of(this.values.clone(), this.validity);
+	}
+
+	/**
+	 * Returns the value at <code>loc</code>, or 0 if it's null.
+	 */
+	public int getAt(int loc) {
+		return this.values[this.runOf(loc)];
+	}
+
+	@Override
+	public IntList getAt(int[] loc) {
+		int[] v = new int[loc.length];
+		boolean[] valid = null == this.validity ? null : new boolean[loc.length];
+
+		for (int i = 0; i < loc.length; i++) {
+			int r = this.runOf(loc[i]);
+			v[i] = this.values[r];
+			if (null != valid) {
+				valid[i] = this.validity.isSet(r);
+			}
+		}
+
+		return IntList.of(v, null == valid ? null : Mask.of(valid));
+	}
+
+	@Override
+	public RleIntList getAt(int from, int to) {
+		int[] runs = this.runRange(from, to);
+		if (null == runs) {
+			return of(0, 0);
+		}
+
+		from = Math.max(0, from);
+		to = Math.min(this.size(), to);
+
+		return new RleIntList(Arrays.copyOfRange(this.values, runs[0], runs[1] + 1),
+				this.sliceEnds(runs[0], runs[1], from, to), this.sliceValidity(runs[0], runs[1]));
+	}
+
+	@Override
+	public RleIntList repeat(int n) {
+		int[] v = new int[Math.multiplyExact(n, this.values.length)];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(this.values, 0, v, i * this.values.length, this.values.length);
+		}
+		return new RleIntList(v, this.repeatEnds(n), this.repeatValidity(n));
+	}
+
+	/**
+	 * Expands the runs into a plain list.
+	 */
+	public IntList decode() {
+		int[] v = new int[this.size()];
+		for (int r = 0; r < this.values.length; r++) {
+			Arrays.fill(v, this.start(r), this.ends[r], this.values[r]);
+		}
+		return IntList.of(v, this.rowValidity());
+	}
+
+	@Override
+	public StringList string() {
+		return this.decode().string();
+	}
+
+	@Override
+	public IntList asInt() {
+		return this.decode();
+	}
+
+	@Override
+	public LongList asLong() {
+		return this.decode().asLong();
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return this.decode().asDouble();
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.mask(r -> 0 != this.values[r]);
+	}
+
+	// aggregates, one step per run
+	public OptionalInt sum() {
+		if (0 == this.count())
+			return OptionalInt.empty();
+
+		int v = 0;
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r))
+				v += this.values[r] * this.length(r);
+		}
+		return OptionalInt.of(v);
+	}
+
+	public OptionalInt max() {
+		OptionalInt res = OptionalInt.empty();
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r) && (!res.isPresent() || this.values[r] > res.getAsInt()))
+				res = OptionalInt.of(this.values[r]);
+		}
+		return res;
+	}
+
+	public OptionalInt min() {
+		OptionalInt res = OptionalInt.empty();
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r) && (!res.isPresent() || this.values[r] < res.getAsInt()))
+				res = OptionalInt.of(this.values[r]);
+		}
+		return res;
+	}
+
+	public OptionalDouble mean() {
+		int count = this.count();
+		if (0 == count)
+			return OptionalDouble.empty();
+
+		long total = 0;
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r))
+				total += (long) this.values[r] * this.length(r);
+		}
+		return OptionalDouble.of((double) total / count);
+	}
+
+	// comparisons, evaluated once per run
+	public Mask test(IntPredicate predicate) {
+		return this.mask(r -> predicate.test(this.values[r]));
+	}
+
+	public Mask eq(int other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(int other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask ne(int other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask lt(int other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask le(int other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask gt(int other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask ge(int other) {
+		return this.test(v -> v >= other);
+	}
+
+	/**
+	 * Groups rows by the classifier, which is called once per run rather than
+	 * once per element.
+	 */
+	public <K> IntGrouping<K> groupBy(IntFunction<K> classifier) {
+		Map<K, Integer> dictionary = new HashMap<>();
+		List<K> keys = new ArrayList<>();
+		int[] ids = new int[this.size()];
+
+		for (int r = 0; r < this.values.length; r++) {
+			K key = classifier.apply(this.values[r]);
+			Integer id = dictionary.get(key);
+			if (null == id) {
+				id = keys.size();
+				dictionary.put(key, id);
+				keys.add(key);
+			}
+			Arrays.fill(ids, this.start(r), this.ends[r], id);
+		}
+
+		return IntGrouping.of(this.decode(), GroupIndex.of(ids, keys));
+	}
+
+	/**
+	 * Number of rows per group, computed from run lengths without expanding
+	 * rows.
+	 */
+	public <K> Map<K, Integer> countBy(IntFunction<K> classifier) {
+		Map<K, Integer> counts = new HashMap<>();
+		for (int r = 0; r < this.values.length; r++) {
+			counts.merge(classifier.apply(this.values[r]), this.length(r), Integer::sum);
+		}
+		return counts;
+	}
+}
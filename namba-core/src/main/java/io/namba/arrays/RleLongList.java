@@ -0,0 +1,301 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+import io.namba.arrays.agg.GroupIndex;
+import io.namba.arrays.agg.LongGrouping;
+
+/**
+ * Run-length encoded long list, for sorted or low-cardinality data. Sums,
+ * counts, comparisons and grouping work on the runs; the list is decoded to an
+ * {@link LongList} only for operations that need random access to individual
+ * elements.
+ * 
+ * @author Ernest Kiwele
+ */
+public class RleLongList extends RunLengthList {
+
+	private final long[] values;
+
+	private RleLongList(long[] values, int[] ends, Mask validity) {
+		super(ends, validity);
+		this.values = values;
+	}
+
+	/**
+	 * Encodes the given list. Consecutive nulls make a single run, regardless
+	 * of the values stored under them.
+	 */
+	public static RleLongList of(LongList list) {
+		Objects.requireNonNull(list, "list");
+
+		int size = list.size();
+		long[] values = new long[size];
+		int[] ends = new int[size];
+		boolean[] valid = new boolean[size];
+		int runs = 0;
+
+		for (int i = 0; i < size; i++) {
+			boolean v = Mask.isValid(list.validity, i);
+			if (0 == runs || v != valid[runs - 1] || (v && list.value[list.offset + i] != values[runs - 1])) {
+				values[runs] = v ? list.value[list.offset + i] : 0;
+				valid[runs] = v;
+				runs++;
+			}
+			ends[runs - 1] = i + 1;
+		}
+
+		return new RleLongList(Arrays.copyOf(values, runs), Arrays.copyOf(ends, runs),
+				null == list.validity ? null : Mask.of(Arrays.copyOf(valid, runs)));
+	}
+
+	public static RleLongList of(long[] values) {
+		return of(LongList.of(values));
+	}
+
+	/**
+	 * A list of <code>size</code> copies of <code>value</code>, held in a single
+	 * run.
+	 */
+	public static RleLongList of(int size, long value) {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size");
+		}
+		return 0 == size ? new RleLongList(new long[0], new int[0], null)
+				: new RleLongList(new long[] { value }, new int[] { size }, null);
+	}
+
+	public static RleLongList ofRuns(long[] values, int[] lengths) {
+		if (values.length != lengths.length) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return new RleLongList(values.clone(), ends(lengths), null);
+	}
+
+	@Override
+	public DataType dataType() {
+		return DataType.LONG;
+	}
+
+	public LongList runValues() {
+		return LongList.of(this.values.clone(), this.validity);
+	}
+
+	/**
+	 * Returns the value at <code>loc</code>, or 0 if it's null.
+	 */
+	public long getAt(int loc) {
+		return this.values[this.runOf(loc)];
+	}
+
+	@Override
+	public LongList getAt(int[] loc) {
+		long[] v = new long[loc.length];
+		boolean[] valid = null == this.validity ? null : new boolean[loc.length];
+
+		for (int i = 0; i < loc.length; i++) {
+			int r = this.runOf(loc[i]);
+			v[i] = this.values[r];
+			if (null != valid) {
+				valid[i] = this.validity.isSet(r);
+			}
+		}
+
+		return LongList.of(v, null == valid ? null : Mask.of(valid));
+	}
+
+	@Override
+	public RleLongList getAt(int from, int to) {
+		int[] runs = this.runRange(from, to);
+		if (null == runs) {
+			return of(0, 0);
+		}
+
+		from = Math.max(0, from);
+		to = Math.min(this.size(), to);
+
+		return new RleLongList(Arrays.copyOfRange(this.values, runs[0], runs[1] + 1),
+				this.sliceEnds(runs[0], runs[1], from, to), this.sliceValidity(runs[0], runs[1]));
+	}
+
+	@Override
+	public RleLongList repeat(int n) {
+		long[] v = new long[Math.multiplyExact(n, this.values.length)];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(this.values, 0, v, i * this.values.length, this.values.length);
+		}
+		return new RleLongList(v, this.repeatEnds(n), this.repeatValidity(n));
+	}
+
+	/**
+	 * Expands the runs into a plain list.
+	 */
+	public LongList decode() {
+		long[] v = new long[this.size()];
+		for (int r = 0; r < this.values.length; r++) {
+			Arrays.fill(v, this.start(r), this.ends[r], this.values[r]);
+		}
+		return LongList.of(v, this.rowValidity());
+	}
+
+	@Override
+	public StringList string() {
+		return this.decode().string();
+	}
+
+	@Override
+	public IntList asInt() {
+		return this.decode().asInt();
+	}
+
+	@Override
+	public LongList asLong() {
+		return this.decode();
+	}
+
+	@Override
+	public DoubleList asDouble() {
+		return this.decode().asDouble();
+	}
+
+	@Override
+	public Mask asMask() {
+		return this.mask(r -> 0 != this.values[r]);
+	}
+
+	// aggregates, one step per run
+	public OptionalLong sum() {
+		if (0 == this.count())
+			return OptionalLong.empty();
+
+		long v = 0;
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r))
+				v += this.values[r] * this.length(r);
+		}
+		return OptionalLong.of(v);
+	}
+
+	public OptionalLong max() {
+		OptionalLong res = OptionalLong.empty();
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r) && (!res.isPresent() || this.values[r] > res.getAsLong()))
+				res = OptionalLong.of(this.values[r]);
+		}
+		return res;
+	}
+
+	public OptionalLong min() {
+		OptionalLong res = OptionalLong.empty();
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r) && (!res.isPresent() || this.values[r] < res.getAsLong()))
+				res = OptionalLong.of(this.values[r]);
+		}
+		return res;
+	}
+
+	public OptionalDouble mean() {
+		int count = this.count();
+		if (0 == count)
+			return OptionalDouble.empty();
+
+		long total = 0;
+		for (int r = 0; r < this.values.length; r++) {
+			if (this.isValidRun(r))
+				total += this.values[r] * this.length(r);
+		}
+		return OptionalDouble.of((double) total / count);
+	}
+
+	// comparisons, evaluated once per run
+	public Mask test(LongPredicate predicate) {
+		return this.mask(r -> predicate.test(this.values[r]));
+	}
+
+	public Mask eq(long other) {
+		return this.equals(other);
+	}
+
+	public Mask equals(long other) {
+		return this.test(v -> v == other);
+	}
+
+	public Mask ne(long other) {
+		return this.test(v -> v != other);
+	}
+
+	public Mask lt(long other) {
+		return this.test(v -> v < other);
+	}
+
+	public Mask le(long other) {
+		return this.test(v -> v <= other);
+	}
+
+	public Mask gt(long other) {
+		return this.test(v -> v > other);
+	}
+
+	public Mask ge(long other) {
+		return this.test(v -> v >= other);
+	}
+
+	/**
+	 * Groups rows by the classifier, which is called once per run rather than
+	 * once per element.
+	 */
+	public <K> LongGrouping<K> groupBy(LongFunction<K> classifier) {
+		Map<K, Integer> dictionary = new HashMap<>();
+		List<K> keys = new ArrayList<>();
+		int[] ids = new int[this.size()];
+
+		for (int r = 0; r < this.values.length; r++) {
+			K key = classifier.apply(this.values[r]);
+			Integer id = dictionary.get(key);
+			if (null == id) {
+				id = keys.size();
+				dictionary.put(key, id);
+				keys.add(key);
+			}
+			Arrays.fill(ids, this.start(r), this.ends[r], id);
+		}
+
+		return LongGrouping.of(this.decode(), GroupIndex.of(ids, keys));
+	}
+
+	/**
+	 * Number of rows per group, computed from run lengths without expanding
+	 * rows.
+	 */
+	public <K> Map<K, Integer> countBy(LongFunction<K> classifier) {
+		Map<K, Integer> counts = new HashMap<>();
+		for (int r = 0; r < this.values.length; r++) {
+			counts.merge(classifier.apply(this.values[r]), this.length(r), Integer::sum);
+		}
+		return counts;
+	}
+}
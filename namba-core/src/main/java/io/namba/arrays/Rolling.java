@@ -0,0 +1,400 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Rolling window aggregates over a list's values. Windows are either a fixed
+ * number of rows, or a span of time over a sorted {@link DateTimeArray}; as the
+ * window slides, values entering and leaving it update running state, so each
+ * step costs O(1) amortized regardless of the window's size.
+ * <p>
+ * Values are aggregated as doubles. Null and NaN values are skipped, and a
+ * window yields null unless it has at least {@link #minPeriods(int)} values.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class Rolling {
+
+	private final double[] values;
+	private final Mask validity;
+	private final int window;
+	private final long[] times;
+	private final long span;
+	private final int minPeriods;
+	private final boolean center;
+
+	private Rolling(double[] values, Mask validity, int window, long[] times, long span, int minPeriods,
+			boolean center) {
+		this.values = values;
+		this.validity = validity;
+		this.window = window;
+		this.times = times;
+		this.span = span;
+		this.minPeriods = minPeriods;
+		this.center = center;
+	}
+
+	/**
+	 * Windows of <code>window</code> rows ending at each row. By default a
+	 * window needs <code>window</code> values to yield a result.
+	 */
+	static Rolling of(double[] values, Mask validity, int window) {
+		if (window < 1)
+			throw new IllegalArgumentException("window must be positive");
+
+		return new Rolling(values, validity, window, null, 0, window, false);
+	}
+
+	/**
+	 * Windows spanning <code>(t - window, t]</code> for each row's time
+	 * <code>t</code>. Times must be non-null and sorted in ascending order. By
+	 * default a window needs one value to yield a result.
+	 */
+	static Rolling of(double[] values, Mask validity, DateTimeArray times, Duration window) {
+		Objects.requireNonNull(times, "times may not be null");
+		Objects.requireNonNull(window, "window may not be null");
+
+		if (times.size() != values.length)
+			throw new IllegalArgumentException("array sizes don't match");
+		if (window.isNegative() || window.isZero())
+			throw new IllegalArgumentException("window must be positive");
+
+		Mask timeValidity = times.validity();
+		if (null != timeValidity && timeValidity.trueCount() != values.length)
+			throw new IllegalArgumentException("times may not contain nulls");
+
+		long[] nanos = times.toEpochNanos().value;
+		for (int i = 1; i < nanos.length; i++) {
+			if (nanos[i] < nanos[i - 1])
+				throw new IllegalArgumentException("times must be sorted in ascending order");
+		}
+
+		return new Rolling(values, validity, 0, nanos, window.toNanos(), 1, false);
+	}
+
+	/**
+	 * Returns rolling windows that need at least <code>minPeriods</code> non-null
+	 * values to yield a result.
+	 */
+	public Rolling minPeriods(int minPeriods) {
+		if (minPeriods < 0)
+			throw new IllegalArgumentException("minPeriods may not be negative");
+
+		return new Rolling(this.values, this.validity, this.window, this.times, this.span, minPeriods, this.center);
+	}
+
+	/**
+	 * Returns rolling windows centered on each row rather than ending at it.
+	 */
+	public Rolling center() {
+		return this.center(true);
+	}
+
+	public Rolling center(boolean center) {
+		return new Rolling(this.values, this.validity, this.window, this.times, this.span, this.minPeriods, center);
+	}
+
+	// aggregates
+
+	/**
+	 * Number of non-null values in each window.
+	 */
+	public IntList count() {
+		int n = this.values.length;
+		int[] start = new int[n];
+		int[] end = new int[n];
+		this.bounds(start, end);
+
+		int[] r = new int[n];
+		long[] valid = new long[Mask.wordCount(n)];
+		int count = 0;
+		for (int i = 0, lo = 0, hi = 0; i < n; i++) {
+			for (; hi < end[i]; hi++) {
+				if (this.present(hi))
+					count++;
+			}
+			for (; lo < start[i]; lo++) {
+				if (this.present(lo))
+					count--;
+			}
+
+			r[i] = count;
+			if (count >= this.minPeriods)
+				valid[i >>> 6] |= 1L << i;
+		}
+
+		return IntList.of(r, Mask.ofWords(valid, n));
+	}
+
+	public DoubleList sum() {
+		return this.roll(new Sum());
+	}
+
+	public DoubleList mean() {
+		return this.roll(new Sum() {
+			@Override
+			double result(int count) {
+				return 0 == count ? Double.NaN : this.sum / count;
+			}
+		});
+	}
+
+	/**
+	 * Sample variance of each window.
+	 */
+	public DoubleList var() {
+		return this.var(1);
+	}
+
+	/**
+	 * Variance of each window, divided by <code>count - ddof</code>.
+	 */
+	public DoubleList var(int ddof) {
+		return this.roll(new Variance(ddof));
+	}
+
+	public DoubleList std() {
+		return this.std(1);
+	}
+
+	public DoubleList std(int ddof) {
+		return this.roll(new Variance(ddof) {
+			@Override
+			double result(int count) {
+				return Math.sqrt(super.result(count));
+			}
+		});
+	}
+
+	public DoubleList min() {
+		return this.extreme(false);
+	}
+
+	public DoubleList max() {
+		return this.extreme(true);
+	}
+
+	private boolean present(int i) {
+		return Mask.isValid(this.validity, i) && !Double.isNaN(this.values[i]);
+	}
+
+	/**
+	 * Fills each row's window as <code>[start, end)</code>. Both bounds are
+	 * non-decreasing, so a window is updated from the previous one by adding the
+	 * rows it gains and removing the rows it loses.
+	 */
+	private void bounds(int[] start, int[] end) {
+		int n = this.values.length;
+
+		if (null == this.times) {
+			int offset = this.center ? (this.window - 1) / 2 : 0;
+			for (int i = 0; i < n; i++) {
+				end[i] = Math.min(n, i + 1 + offset);
+				start[i] = Math.max(0, i + 1 + offset - this.window);
+			}
+			return;
+		}
+
+		// (t - span, t], or (t - span / 2, t + span / 2] when centered
+		long before = this.center ? this.span / 2 : this.span;
+		long after = this.center ? this.span / 2 : 0;
+		for (int i = 0, lo = 0, hi = 0; i < n; i++) {
+			if (this.center) {
+				while (hi < n && this.times[hi] - this.times[i] <= after)
+					hi++;
+			} else {
+				hi = i + 1;
+			}
+			while (lo < hi && this.times[i] - this.times[lo] >= before)
+				lo++;
+
+			start[i] = lo;
+			end[i] = hi;
+		}
+	}
+
+	private DoubleList roll(Accumulator accumulator) {
+		int n = this.values.length;
+		int[] start = new int[n];
+		int[] end = new int[n];
+		this.bounds(start, end);
+
+		double[] r = new double[n];
+		long[] valid = new long[Mask.wordCount(n)];
+		int count = 0;
+		for (int i = 0, lo = 0, hi = 0; i < n; i++) {
+			for (; hi < end[i]; hi++) {
+				if (this.present(hi)) {
+					accumulator.add(this.values[hi]);
+					count++;
+				}
+			}
+			for (; lo < start[i]; lo++) {
+				if (this.present(lo)) {
+					accumulator.remove(this.values[lo]);
+					count--;
+				}
+			}
+			if (0 == count)
+				accumulator.reset();
+
+			if (count >= this.minPeriods) {
+				double v = accumulator.result(count);
+				if (!Double.isNaN(v)) {
+					r[i] = v;
+					valid[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+
+		return DoubleList.of(r, Mask.ofWords(valid, n));
+	}
+
+	/**
+	 * Min or max through a monotonic deque of row numbers: values in the deque
+	 * decrease (for max) from head to tail, so the head is the window's extreme
+	 * and every row is pushed and popped at most once.
+	 */
+	private DoubleList extreme(boolean max) {
+		int n = this.values.length;
+		int[] start = new int[n];
+		int[] end = new int[n];
+		this.bounds(start, end);
+
+		double[] r = new double[n];
+		long[] valid = new long[Mask.wordCount(n)];
+		int[] deque = new int[n];
+		int head = 0;
+		int tail = 0;
+		int count = 0;
+		for (int i = 0, lo = 0, hi = 0; i < n; i++) {
+			for (; hi < end[i]; hi++) {
+				if (this.present(hi)) {
+					double v = this.values[hi];
+					while (tail > head && (max ? this.values[deque[tail - 1]] <= v
+							: this.values[deque[tail - 1]] >= v))
+						tail--;
+					deque[tail++] = hi;
+					count++;
+				}
+			}
+			for (; lo < start[i]; lo++) {
+				if (this.present(lo))
+					count--;
+			}
+			while (head < tail && deque[head] < start[i])
+				head++;
+
+			if (count >= this.minPeriods && head < tail) {
+				r[i] = this.values[deque[head]];
+				valid[i >>> 6] |= 1L << i;
+			}
+		}
+
+		return DoubleList.of(r, Mask.ofWords(valid, n));
+	}
+
+	private abstract static class Accumulator {
+		abstract void add(double v);
+
+		abstract void remove(double v);
+
+		abstract void reset();
+
+		abstract double result(int count);
+	}
+
+	/**
+	 * Kahan-compensated running sum.
+	 */
+	private static class Sum extends Accumulator {
+		double sum = 0;
+		private double compensation = 0;
+
+		@Override
+		void add(double v) {
+			double y = v - this.compensation;
+			double t = this.sum + y;
+			this.compensation = (t - this.sum) - y;
+			this.sum = t;
+		}
+
+		@Override
+		void remove(double v) {
+			this.add(-v);
+		}
+
+		@Override
+		void reset() {
+			this.sum = 0;
+			this.compensation = 0;
+		}
+
+		@Override
+		double result(int count) {
+			return this.sum;
+		}
+	}
+
+	/**
+	 * Welford's running mean and sum of squared deviations, with removal.
+	 */
+	private static class Variance extends Accumulator {
+		private final int ddof;
+		private int n = 0;
+		private double mean = 0;
+		private double squares = 0;
+
+		Variance(int ddof) {
+			this.ddof = ddof;
+		}
+
+		@Override
+		void add(double v) {
+			this.n++;
+			double delta = v - this.mean;
+			this.mean += delta / this.n;
+			this.squares += delta * (v - this.mean);
+		}
+
+		@Override
+		void remove(double v) {
+			if (0 == --this.n) {
+				this.reset();
+				return;
+			}
+
+			double delta = v - this.mean;
+			this.mean -= delta / this.n;
+			this.squares -= delta * (v - this.mean);
+		}
+
+		@Override
+		void reset() {
+			this.n = 0;
+			this.mean = 0;
+			this.squares = 0;
+		}
+
+		@Override
+		double result(int count) {
+			return count <= this.ddof ? Double.NaN : Math.max(0, this.squares) / (count - this.ddof);
+		}
+	}
+}
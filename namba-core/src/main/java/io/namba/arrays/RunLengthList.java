@@ -0,0 +1,211 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Base of run-length encoded lists. Runs are stored as their exclusive end
+ * positions, so that run <code>r</code> covers
+ * <code>[ends[r - 1], ends[r])</code>, and a run is either entirely null or
+ * entirely valid. Aggregates and comparisons are computed once per run; only
+ * random access needs a binary search over the run ends.
+ * 
+ * @author Ernest Kiwele
+ */
+abstract class RunLengthList implements NambaList {
+
+	protected final int[] ends;
+
+	/**
+	 * Validity of runs (not of rows), null if no run is null.
+	 */
+	protected final Mask validity;
+
+	protected RunLengthList(int[] ends, Mask validity) {
+		this.ends = ends;
+		this.validity = Mask.validity(validity, ends.length);
+	}
+
+	static int[] ends(int[] lengths) {
+		int[] ends = new int[lengths.length];
+		int end = 0;
+
+		for (int r = 0; r < lengths.length; r++) {
+			if (lengths[r] <= 0) {
+				throw new IllegalArgumentException("run lengths must be positive");
+			}
+			end = Math.addExact(end, lengths[r]);
+			ends[r] = end;
+		}
+
+		return ends;
+	}
+
+	@Override
+	public Index index() {
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return 0 == this.ends.length ? 0 : this.ends[this.ends.length - 1];
+	}
+
+	public int runCount() {
+		return this.ends.length;
+	}
+
+	public IntList runLengths() {
+		int[] lengths = new int[this.ends.length];
+		for (int r = 0; r < lengths.length; r++) {
+			lengths[r] = this.length(r);
+		}
+		return IntList.of(lengths);
+	}
+
+	protected int start(int run) {
+		return 0 == run ? 0 : this.ends[run - 1];
+	}
+
+	protected int length(int run) {
+		return this.ends[run] - this.start(run);
+	}
+
+	protected boolean isValidRun(int run) {
+		return Mask.isValid(this.validity, run);
+	}
+
+	/**
+	 * Finds the run holding the element at <code>loc</code>.
+	 */
+	protected int runOf(int loc) {
+		if (loc < 0 || loc >= this.size()) {
+			throw new IndexOutOfBoundsException("Index " + loc + " out of bounds for length " + this.size());
+		}
+
+		int r = Arrays.binarySearch(this.ends, loc);
+		return r >= 0 ? r + 1 : -r - 1;
+	}
+
+	public boolean isNull(int loc) {
+		return !this.isValidRun(this.runOf(loc));
+	}
+
+	/**
+	 * Number of non-null elements.
+	 */
+	public int count() {
+		if (null == this.validity) {
+			return this.size();
+		}
+
+		int count = 0;
+		for (int r = this.validity.nextSetBit(0); r >= 0; r = this.validity.nextSetBit(r + 1)) {
+			count += this.length(r);
+		}
+		return count;
+	}
+
+	public int nullCount() {
+		return this.size() - this.count();
+	}
+
+	public boolean hasNulls() {
+		return null != this.validity;
+	}
+
+	/**
+	 * Builds a row mask from a test evaluated once per valid run. Null runs
+	 * never match.
+	 */
+	protected Mask mask(IntPredicate runTest) {
+		long[] words = new long[Mask.wordCount(this.size())];
+
+		for (int r = 0; r < this.ends.length; r++) {
+			if (this.isValidRun(r) && runTest.test(r)) {
+				Mask.setRange(words, this.start(r), this.ends[r]);
+			}
+		}
+
+		return Mask.ofWords(words, this.size());
+	}
+
+	/**
+	 * Row validity, expanded from run validity.
+	 */
+	protected Mask rowValidity() {
+		return null == this.validity ? null : this.mask(r -> true);
+	}
+
+	/**
+	 * Runs <code>[first, last]</code> overlapping the rows
+	 * <code>[from, to)</code>, or null if the range is empty. Bounds are
+	 * clipped to the list's size.
+	 */
+	protected int[] runRange(int from, int to) {
+		from = Math.max(0, from);
+		to = Math.min(this.size(), to);
+
+		if (from >= to) {
+			return null;
+		}
+
+		return new int[] { this.runOf(from), this.runOf(to - 1) };
+	}
+
+	/**
+	 * Ends of the runs <code>[first, last]</code>, clipped to the rows
+	 * <code>[from, to)</code> and rebased to <code>from</code>.
+	 */
+	protected int[] sliceEnds(int first, int last, int from, int to) {
+		int[] e = new int[last - first + 1];
+		for (int r = first; r <= last; r++) {
+			e[r - first] = Math.min(this.ends[r], to) - from;
+		}
+		return e;
+	}
+
+	protected Mask sliceValidity(int first, int last) {
+		return null == this.validity ? null : this.validity.getAt(first, last + 1);
+	}
+
+	/**
+	 * Ends of this list's runs repeated <code>n</code> times.
+	 */
+	protected int[] repeatEnds(int n) {
+		int size = this.size();
+		int[] e = new int[Math.multiplyExact(n, this.ends.length)];
+
+		for (int i = 0; i < n; i++) {
+			for (int r = 0; r < this.ends.length; r++) {
+				e[i * this.ends.length + r] = i * size + this.ends[r];
+			}
+		}
+
+		return e;
+	}
+
+	protected Mask repeatValidity(int n) {
+		return null == this.validity ? null : this.validity.repeat(n);
+	}
+
+	@Override
+	public String toString() {
+		return this.string().toString();
+	}
+}
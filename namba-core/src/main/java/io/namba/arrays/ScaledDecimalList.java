@@ -0,0 +1,569 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+/**
+ * A decimal list stored as unscaled <code>long</code> values sharing a single
+ * scale, for columns (such as amounts of money) whose values fit in 18 digits
+ * at a fixed scale.
+ * 
+ * <p>
+ * Addition, subtraction, negation, comparisons and sums run on the unscaled
+ * values without creating <code>BigDecimal</code> objects, and are exact.
+ * Values that cannot be stored at the list's scale, either because they have
+ * more fractional digits or because the unscaled value overflows a
+ * <code>long</code>, are kept as <code>BigDecimal</code> for their rows only,
+ * and operations involving those rows fall back to <code>BigDecimal</code>
+ * arithmetic. All other operations are inherited from {@link DecimalList} and
+ * see the values as <code>BigDecimal</code>.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ScaledDecimalList extends DecimalList {
+
+	private final long[] unscaled;
+	private final int scale;
+
+	// bitmaps, null when no row is flagged
+	private final long[] nulls;
+	private final long[] overflowRows;
+	private final Map<Integer, BigDecimal> overflow;
+
+	private ScaledDecimalList(long[] unscaled, int scale, long[] nulls, long[] overflowRows,
+			Map<Integer, BigDecimal> overflow, MathContext mathContext) {
+		super(new ScaledValues(unscaled, scale, nulls, overflow), null, mathContext);
+
+		this.unscaled = unscaled;
+		this.scale = scale;
+		this.nulls = nulls;
+		this.overflowRows = overflowRows;
+		this.overflow = overflow;
+	}
+
+	/**
+	 * Creates a list with the given unscaled values, all at the given scale.
+	 */
+	public static ScaledDecimalList of(long[] unscaled, int scale) {
+		return new ScaledDecimalList(unscaled, scale, null, null, Collections.emptyMap(), null);
+	}
+
+	/**
+	 * Creates a list of the given values at the given scale. Null values are
+	 * kept as nulls.
+	 */
+	public static ScaledDecimalList of(BigDecimal[] values, int scale) {
+		Builder b = new Builder(values.length);
+		for (int i = 0; i < values.length; i++) {
+			b.set(i, values[i], scale);
+		}
+		return b.build(scale, null);
+	}
+
+	public static ScaledDecimalList of(DecimalList list, int scale) {
+		Objects.requireNonNull(list, "list may not be null");
+
+		Builder b = new Builder(list.size());
+		for (int i = 0; i < list.size(); i++) {
+			b.set(i, list.value.get(i), scale);
+		}
+		return b.build(scale, list.mathContext);
+	}
+
+	@Override
+	public ScaledDecimalList withMathContext(MathContext context) {
+		return new ScaledDecimalList(this.unscaled, this.scale, this.nulls, this.overflowRows, this.overflow,
+				context);
+	}
+
+	public int scale() {
+		return this.scale;
+	}
+
+	/**
+	 * Returns the number of rows whose values could not be stored as unscaled
+	 * longs at this list's scale.
+	 */
+	public int overflowCount() {
+		return this.overflow.size();
+	}
+
+	private static boolean isSet(long[] bits, int i) {
+		return null != bits && 0 != (bits[i >>> 6] & (1L << i));
+	}
+
+	private boolean isNull(int i) {
+		return isSet(this.nulls, i);
+	}
+
+	private boolean isOverflow(int i) {
+		return isSet(this.overflowRows, i);
+	}
+
+	private BigDecimal valueAt(int i) {
+		return this.isOverflow(i) ? this.overflow.get(i) : BigDecimal.valueOf(this.unscaled[i], this.scale);
+	}
+
+	private ScaledDecimalList sameScale(DecimalList n) {
+		if (n instanceof ScaledDecimalList && this.scale == ((ScaledDecimalList) n).scale) {
+			return (ScaledDecimalList) n;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the unscaled value of n at this list's scale, or null if it cannot
+	 * be represented exactly.
+	 */
+	private Long unscaledOf(BigDecimal n) {
+		try {
+			return n.setScale(this.scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private void checkSize(NambaList other) {
+		if (this.size() != other.size()) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+	}
+
+	// operations
+	@Override
+	public DecimalList plus(BigDecimal n) {
+		Long u = null == n ? null : this.unscaledOf(n);
+		if (null == u) {
+			return super.plus(n);
+		}
+
+		long y = u;
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i)) {
+				b.set(i, this.valueAt(i).add(n), this.scale);
+			} else {
+				long x = this.unscaled[i];
+				long r = x + y;
+				if (((x ^ r) & (y ^ r)) < 0) {
+					b.setOverflow(i, BigDecimal.valueOf(x, this.scale).add(n));
+				} else {
+					b.unscaled[i] = r;
+				}
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	@Override
+	public DecimalList plus(DecimalList n) {
+		Objects.requireNonNull(n, "operand n may not be null");
+		this.checkSize(n);
+
+		ScaledDecimalList o = this.sameScale(n);
+		if (null == o) {
+			return super.plus(n);
+		}
+
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i) || o.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i) || o.isOverflow(i)) {
+				b.set(i, this.valueAt(i).add(o.valueAt(i)), this.scale);
+			} else {
+				long x = this.unscaled[i];
+				long y = o.unscaled[i];
+				long r = x + y;
+				if (((x ^ r) & (y ^ r)) < 0) {
+					b.setOverflow(i, BigDecimal.valueOf(x, this.scale).add(BigDecimal.valueOf(y, this.scale)));
+				} else {
+					b.unscaled[i] = r;
+				}
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	@Override
+	public DecimalList minus(BigDecimal n) {
+		Long u = null == n ? null : this.unscaledOf(n);
+		if (null == u) {
+			return super.minus(n);
+		}
+
+		long y = u;
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i)) {
+				b.set(i, this.valueAt(i).subtract(n), this.scale);
+			} else {
+				long x = this.unscaled[i];
+				long r = x - y;
+				if (((x ^ y) & (x ^ r)) < 0) {
+					b.setOverflow(i, BigDecimal.valueOf(x, this.scale).subtract(n));
+				} else {
+					b.unscaled[i] = r;
+				}
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	@Override
+	public DecimalList minus(DecimalList n) {
+		Objects.requireNonNull(n, "operand n may not be null");
+		this.checkSize(n);
+
+		ScaledDecimalList o = this.sameScale(n);
+		if (null == o) {
+			return super.minus(n);
+		}
+
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i) || o.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i) || o.isOverflow(i)) {
+				b.set(i, this.valueAt(i).subtract(o.valueAt(i)), this.scale);
+			} else {
+				long x = this.unscaled[i];
+				long y = o.unscaled[i];
+				long r = x - y;
+				if (((x ^ y) & (x ^ r)) < 0) {
+					b.setOverflow(i, BigDecimal.valueOf(x, this.scale).subtract(BigDecimal.valueOf(y, this.scale)));
+				} else {
+					b.unscaled[i] = r;
+				}
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	@Override
+	public DecimalList negative() {
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i) || Long.MIN_VALUE == this.unscaled[i]) {
+				b.set(i, this.valueAt(i).negate(), this.scale);
+			} else {
+				b.unscaled[i] = -this.unscaled[i];
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	@Override
+	public DecimalList abs() {
+		Builder b = new Builder(this.unscaled.length);
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (this.isNull(i)) {
+				b.setNull(i);
+			} else if (this.isOverflow(i) || Long.MIN_VALUE == this.unscaled[i]) {
+				b.set(i, this.valueAt(i).abs(), this.scale);
+			} else {
+				b.unscaled[i] = Math.abs(this.unscaled[i]);
+			}
+		}
+		return b.build(this.scale, this.mathContext);
+	}
+
+	// comparison
+	private Mask compare(long other, IntPredicate test) {
+		long[] words = new long[Mask.wordCount(this.unscaled.length)];
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (!this.isNull(i) && test.test(Long.compare(this.unscaled[i], other))) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+		return Mask.ofWords(words, this.unscaled.length);
+	}
+
+	private Mask compare(ScaledDecimalList other, IntPredicate test) {
+		long[] words = new long[Mask.wordCount(this.unscaled.length)];
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (!this.isNull(i) && !other.isNull(i) && test.test(Long.compare(this.unscaled[i], other.unscaled[i]))) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+		return Mask.ofWords(words, this.unscaled.length);
+	}
+
+	/**
+	 * Returns the unscaled form of a comparison operand, or null if the
+	 * comparison has to be made on <code>BigDecimal</code> values.
+	 */
+	private Long comparable(BigDecimal other) {
+		Objects.requireNonNull(other, "operand other may not be null");
+		return this.overflow.isEmpty() ? this.unscaledOf(other) : null;
+	}
+
+	private ScaledDecimalList comparable(DecimalList other) {
+		Objects.requireNonNull(other, "operand other may not be null");
+		this.checkSize(other);
+
+		ScaledDecimalList o = this.sameScale(other);
+		return null != o && this.overflow.isEmpty() && o.overflow.isEmpty() ? o : null;
+	}
+
+	@Override
+	public Mask equals(BigDecimal other) {
+		Long u = this.comparable(other);
+		if (null == u || other.scale() != this.scale) {
+			// equals() is scale-sensitive, let the values decide
+			return super.equals(other);
+		}
+		return this.compare(u, c -> 0 == c);
+	}
+
+	@Override
+	public Mask equals(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		return null == o ? super.equals(other) : this.compare(o, c -> 0 == c);
+	}
+
+	@Override
+	public Mask ne(BigDecimal other) {
+		Long u = this.comparable(other);
+		if (null == u || other.scale() != this.scale) {
+			return super.ne(other);
+		}
+		return this.compare(u, c -> 0 != c);
+	}
+
+	@Override
+	public Mask ne(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		if (null == o) {
+			return super.ne(other);
+		}
+
+		// a null operand is "not equal" to a non-null element
+		long[] words = new long[Mask.wordCount(this.unscaled.length)];
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (!this.isNull(i) && (o.isNull(i) || this.unscaled[i] != o.unscaled[i])) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+		return Mask.ofWords(words, this.unscaled.length);
+	}
+
+	@Override
+	public Mask lt(BigDecimal other) {
+		Long u = this.comparable(other);
+		return null == u ? super.lt(other) : this.compare(u, c -> c < 0);
+	}
+
+	@Override
+	public Mask lt(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		return null == o ? super.lt(other) : this.compare(o, c -> c < 0);
+	}
+
+	@Override
+	public Mask le(BigDecimal other) {
+		Long u = this.comparable(other);
+		return null == u ? super.le(other) : this.compare(u, c -> c <= 0);
+	}
+
+	@Override
+	public Mask le(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		return null == o ? super.le(other) : this.compare(o, c -> c <= 0);
+	}
+
+	@Override
+	public Mask gt(BigDecimal other) {
+		Long u = this.comparable(other);
+		return null == u ? super.gt(other) : this.compare(u, c -> c > 0);
+	}
+
+	@Override
+	public Mask gt(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		return null == o ? super.gt(other) : this.compare(o, c -> c > 0);
+	}
+
+	@Override
+	public Mask ge(BigDecimal other) {
+		Long u = this.comparable(other);
+		return null == u ? super.ge(other) : this.compare(u, c -> c >= 0);
+	}
+
+	@Override
+	public Mask ge(DecimalList other) {
+		ScaledDecimalList o = this.comparable(other);
+		return null == o ? super.ge(other) : this.compare(o, c -> c >= 0);
+	}
+
+	// Reduction
+	@Override
+	public BigDecimal sum(boolean skipNans, BigDecimal nanValue) {
+		boolean nullsAreZero = null == this.nulls || skipNans
+				|| (null != nanValue && 0 == BigDecimal.ZERO.compareTo(nanValue));
+		if (this.unscaled.length == 0 || !this.overflow.isEmpty() || !nullsAreZero) {
+			return super.sum(skipNans, nanValue);
+		}
+
+		// null rows hold zero
+		long v = 0;
+		for (int i = 0; i < this.unscaled.length; i++) {
+			long x = this.unscaled[i];
+			long r = v + x;
+			if (((v ^ r) & (x ^ r)) < 0) {
+				return super.sum(skipNans, nanValue);
+			}
+			v = r;
+		}
+
+		return BigDecimal.valueOf(v, this.scale);
+	}
+
+	@Override
+	public BigDecimal max() {
+		if (!this.overflow.isEmpty()) {
+			return super.max();
+		}
+
+		boolean found = false;
+		long v = Long.MIN_VALUE;
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (!this.isNull(i)) {
+				found = true;
+				v = Math.max(v, this.unscaled[i]);
+			}
+		}
+		return found ? BigDecimal.valueOf(v, this.scale) : null;
+	}
+
+	@Override
+	public BigDecimal min() {
+		if (!this.overflow.isEmpty()) {
+			return super.min();
+		}
+
+		boolean found = false;
+		long v = Long.MAX_VALUE;
+		for (int i = 0; i < this.unscaled.length; i++) {
+			if (!this.isNull(i)) {
+				found = true;
+				v = Math.min(v, this.unscaled[i]);
+			}
+		}
+		return found ? BigDecimal.valueOf(v, this.scale) : null;
+	}
+
+	/**
+	 * Element view over the unscaled values, creating each
+	 * <code>BigDecimal</code> on access.
+	 */
+	private static class ScaledValues extends AbstractList<BigDecimal> implements RandomAccess {
+		private final long[] unscaled;
+		private final int scale;
+		private final long[] nulls;
+		private final Map<Integer, BigDecimal> overflow;
+
+		ScaledValues(long[] unscaled, int scale, long[] nulls, Map<Integer, BigDecimal> overflow) {
+			this.unscaled = unscaled;
+			this.scale = scale;
+			this.nulls = nulls;
+			this.overflow = overflow;
+		}
+
+		@Override
+		public BigDecimal get(int index) {
+			Objects.checkIndex(index, this.unscaled.length);
+
+			if (isSet(this.nulls, index)) {
+				return null;
+			}
+			if (!this.overflow.isEmpty()) {
+				BigDecimal v = this.overflow.get(index);
+				if (null != v) {
+					return v;
+				}
+			}
+			return BigDecimal.valueOf(this.unscaled[index], this.scale);
+		}
+
+		@Override
+		public int size() {
+			return this.unscaled.length;
+		}
+	}
+
+	private static class Builder {
+		private final long[] unscaled;
+		private long[] nulls;
+		private long[] overflowRows;
+		private Map<Integer, BigDecimal> overflow;
+
+		Builder(int size) {
+			this.unscaled = new long[size];
+		}
+
+		void setNull(int i) {
+			if (null == this.nulls) {
+				this.nulls = new long[Mask.wordCount(this.unscaled.length)];
+			}
+			this.nulls[i >>> 6] |= 1L << i;
+		}
+
+		void setOverflow(int i, BigDecimal v) {
+			if (null == this.overflowRows) {
+				this.overflowRows = new long[Mask.wordCount(this.unscaled.length)];
+				this.overflow = new HashMap<>();
+			}
+			this.overflowRows[i >>> 6] |= 1L << i;
+			this.overflow.put(i, v);
+		}
+
+		void set(int i, BigDecimal v, int scale) {
+			if (null == v) {
+				this.setNull(i);
+				return;
+			}
+
+			try {
+				this.unscaled[i] = v.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+			} catch (ArithmeticException e) {
+				this.setOverflow(i, v);
+			}
+		}
+
+		ScaledDecimalList build(int scale, MathContext mathContext) {
+			return new ScaledDecimalList(this.unscaled, scale, this.nulls, this.overflowRows,
+					null == this.overflow ? Collections.emptyMap() : this.overflow, mathContext);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.namba.arrays;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A selection vector: the ascending indices of the rows selected from a list
+ * of {@link #baseSize()} rows. Filtered views carry a selection over their
+ * source list's storage instead of copying the selected rows, and chained
+ * filters intersect selections.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class Selection {
+
+	private final int[] rows;
+	private final int baseSize;
+
+	private Selection(int[] rows, int baseSize) {
+		this.rows = rows;
+		this.baseSize = baseSize;
+	}
+
+	/**
+	 * Selects all rows of a list of the given size.
+	 */
+	public static Selection all(int size) {
+		return new Selection(IntStream.range(0, size).toArray(), size);
+	}
+
+	/**
+	 * Selects the rows for which the mask is set.
+	 */
+	public static Selection of(Mask mask) {
+		Mask m = Objects.requireNonNull(mask, "mask is null");
+		int[] r = new int[m.trueCount()];
+		int p = 0;
+		for (int i = m.nextSetBit(0); i >= 0; i = m.nextSetBit(i + 1)) {
+			r[p++] = i;
+		}
+		return new Selection(r, m.size());
+	}
+
+	/**
+	 * Keeps the selected rows for which the mask is set. The mask is aligned
+	 * with the base rows, not with the selection.
+	 */
+	public Selection and(Mask mask) {
+		if (Objects.requireNonNull(mask, "mask is null").size() != this.baseSize) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+		return this.retain(mask::isSet);
+	}
+
+	/**
+	 * Keeps the rows selected by both this and <code>other</code>.
+	 */
+	public Selection and(Selection other) {
+		if (Objects.requireNonNull(other, "selection is null").baseSize != this.baseSize) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+
+		int[] r = new int[Math.min(this.rows.length, other.rows.length)];
+		int n = 0;
+		for (int i = 0, j = 0; i < this.rows.length && j < other.rows.length;) {
+			if (this.rows[i] < other.rows[j]) {
+				i++;
+			} else if (this.rows[i] > other.rows[j]) {
+				j++;
+			} else {
+				r[n++] = this.rows[i];
+				i++;
+				j++;
+			}
+		}
+
+		return new Selection(n == r.length ? r : Arrays.copyOf(r, n), this.baseSize);
+	}
+
+	/**
+	 * Keeps the selected rows whose index passes the test.
+	 */
+	public Selection retain(IntPredicate row) {
+		int[] r = new int[this.rows.length];
+		int n = 0;
+		for (int i : this.rows) {
+			if (row.test(i))
+				r[n++] = i;
+		}
+
+		return new Selection(n == r.length ? r : Arrays.copyOf(r, n), this.baseSize);
+	}
+
+	/**
+	 * The number of selected rows.
+	 */
+	public int size() {
+		return this.rows.length;
+	}
+
+	/**
+	 * The number of rows in the list this selection applies to.
+	 */
+	public int baseSize() {
+		return this.baseSize;
+	}
+
+	public boolean isEmpty() {
+		return 0 == this.rows.length;
+	}
+
+	/**
+	 * Returns the base row index of the <code>i</code>th selected row.
+	 */
+	public int getAt(int i) {
+		return this.rows[i];
+	}
+
+	public IntStream stream() {
+		return Arrays.stream(this.rows);
+	}
+
+	public IntList rows() {
+		return IntList.of(this.rows.clone());
+	}
+
+	public Mask toMask() {
+		boolean[] b = new boolean[this.baseSize];
+		for (int i : this.rows) {
+			b[i] = true;
+		}
+		return Mask.of(b);
+	}
+
+	/**
+	 * The selected row indices, not copied.
+	 */
+	int[] array() {
+		return this.rows;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(this.rows);
+	}
+}
@@ -41,7 +41,7 @@ public class StringList extends DataList<String> {
 
 	public final StringAccessor str = new StringAccessor();
 
-	private StringList(List<String> values) {
+	protected StringList(List<String> values) {
 		super(DataType.STRING, Objects.requireNonNull(values));
 	}
 
@@ -57,6 +57,16 @@ public class StringList extends DataList<String> {
 		return new StringList(new ArrayList<>(str));
 	}
 
+	/**
+	 * Returns a view of the elements in the contiguous range
+	 * <code>[from, to)</code>, clipped to this list's bounds.
+	 */
+	@Override
+	public StringList getAt(int from, int to) {
+		int start = Math.max(0, from);
+		return new StringList(this.value.subList(start, Math.max(start, Math.min(this.size(), to))));
+	}
+
 	public StringList insertAtHead(List<String> values) {
 		List<String> all = new ArrayList<>(values);
 		all.addAll(this.value);
@@ -145,10 +155,10 @@ public class StringList extends DataList<String> {
 
 		for (int i = 0; i < this.size(); i++) {
 			String val = this.value.get(i);
-			if (null == val)
+			if (null == val || times.isNull(i))
 				v.add(null);
 			else
-				v.add(StringUtils.repeat(val, times.value[i]));
+				v.add(StringUtils.repeat(val, times.getInt(i)));
 		}
 
 		return of(v);
@@ -565,6 +575,13 @@ public class StringList extends DataList<String> {
 		return this.value.stream().collect(Collectors.joining("\n"));
 	}
 
+	/**
+	 * Copies this list's strings into a single UTF-8 arena.
+	 */
+	public Utf8StringList toUtf8() {
+		return Utf8StringList.of(this.value);
+	}
+
 	public CategoryList factorize() {
 		return CategoryList.of(this);
 	}
@@ -691,11 +708,11 @@ public class StringList extends DataList<String> {
 			List<String> list = new ArrayList<>();
 			for (int i = 0; i < size(); i++) {
 				String s = StringList.this.getAt(i);
-				if (null == s) {
+				if (null == s || start.isNull(i) || length.isNull(i)) {
 					list.add(null);
 				} else {
-					int st = start.getAt(i);
-					list.add(s.substring(st, st + length.value[i]));
+					int st = start.getInt(i);
+					list.add(s.substring(st, st + length.getInt(i)));
 				}
 			}
 			return new StringList(list);
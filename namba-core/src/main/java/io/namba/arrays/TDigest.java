@@ -0,0 +1,249 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A merging t-digest: a compact, mergeable sketch of a distribution that
+ * answers approximate quantile queries in one pass over the data. Values are
+ * buffered and periodically merged into weighted centroids, which are kept
+ * small near the tails so extreme quantiles (p99, p999) stay accurate.
+ * <p>
+ * Digests built over separate partitions or groups can be combined with
+ * {@link #merge(TDigest)}. Instances are mutable and not thread-safe.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class TDigest {
+
+	public static final double DEFAULT_COMPRESSION = 100;
+
+	private final double compression;
+	private final double normalizer;
+
+	private double[] mean = new double[0];
+	private double[] weight = new double[0];
+	private int centroids = 0;
+	private double mergedWeight = 0;
+
+	private final double[] buffer;
+	private int buffered = 0;
+
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	private TDigest(double compression) {
+		if (!(compression >= 10))
+			throw new IllegalArgumentException("compression must be at least 10");
+
+		this.compression = compression;
+		this.normalizer = compression / (2 * Math.PI);
+		this.buffer = new double[5 * (int) Math.ceil(compression)];
+	}
+
+	public static TDigest of() {
+		return new TDigest(DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Creates an empty digest. Higher compression keeps more centroids and gives
+	 * more accurate quantiles; the digest holds at most about
+	 * <code>compression</code> centroids.
+	 */
+	public static TDigest of(double compression) {
+		return new TDigest(compression);
+	}
+
+	public static TDigest of(double[] values) {
+		TDigest digest = new TDigest(DEFAULT_COMPRESSION);
+		for (double v : values)
+			digest.add(v);
+		return digest;
+	}
+
+	public TDigest add(double value) {
+		if (Double.isNaN(value))
+			throw new IllegalArgumentException("NaN can't be added to a digest");
+
+		if (this.buffered == this.buffer.length)
+			this.flush();
+
+		this.buffer[this.buffered++] = value;
+		this.min = Math.min(this.min, value);
+		this.max = Math.max(this.max, value);
+
+		return this;
+	}
+
+	/**
+	 * Adds all of <code>other</code>'s data to this digest.
+	 * 
+	 * @return This digest.
+	 */
+	public TDigest merge(TDigest other) {
+		Objects.requireNonNull(other, "digest may not be null");
+
+		other.flush();
+		this.flush();
+		if (0 == other.centroids)
+			return this;
+
+		double otherWeight = other.mergedWeight;
+		this.combine(Arrays.copyOf(other.mean, other.centroids), Arrays.copyOf(other.weight, other.centroids),
+				other.centroids, otherWeight);
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+
+		return this;
+	}
+
+	/**
+	 * Returns the approximate value at quantile <code>q</code>, or NaN if the
+	 * digest is empty.
+	 * 
+	 * @param q
+	 *            The quantile, between 0 and 1.
+	 */
+	public double quantile(double q) {
+		OrderStatistics.checkQuantile(q);
+		this.flush();
+
+		if (0 == this.centroids)
+			return Double.NaN;
+		if (0 == q)
+			return this.min;
+		if (1 == q)
+			return this.max;
+
+		// each centroid sits at the middle of its weight; interpolate between
+		// neighbouring centres, and between the outer centres and min/max.
+		double index = q * this.mergedWeight;
+		double center = this.weight[0] / 2;
+		if (index <= center)
+			return this.min + (this.mean[0] - this.min) * index / center;
+
+		for (int i = 0; i < this.centroids - 1; i++) {
+			double step = (this.weight[i] + this.weight[i + 1]) / 2;
+			if (index <= center + step)
+				return this.mean[i] + (this.mean[i + 1] - this.mean[i]) * (index - center) / step;
+			center += step;
+		}
+
+		int last = this.centroids - 1;
+		double tail = this.weight[last] / 2;
+		return Math.min(this.max, this.mean[last] + (this.max - this.mean[last]) * (index - center) / tail);
+	}
+
+	public double[] quantiles(double... q) {
+		double[] r = new double[q.length];
+		for (int i = 0; i < q.length; i++)
+			r[i] = this.quantile(q[i]);
+		return r;
+	}
+
+	public long count() {
+		return Math.round(this.mergedWeight) + this.buffered;
+	}
+
+	public double min() {
+		return 0 == this.count() ? Double.NaN : this.min;
+	}
+
+	public double max() {
+		return 0 == this.count() ? Double.NaN : this.max;
+	}
+
+	public double compression() {
+		return this.compression;
+	}
+
+	public int centroidCount() {
+		this.flush();
+		return this.centroids;
+	}
+
+	private void flush() {
+		if (0 == this.buffered)
+			return;
+
+		Arrays.sort(this.buffer, 0, this.buffered);
+		this.combine(this.buffer, null, this.buffered, this.buffered);
+		this.buffered = 0;
+	}
+
+	/**
+	 * Merges a sorted run of centroids (unit weights if <code>w</code> is null)
+	 * with this digest's centroids, folding neighbours together while the
+	 * combined centroid spans at most one unit of the scale function.
+	 */
+	private void combine(double[] m, double[] w, int n, double addedWeight) {
+		double total = this.mergedWeight + addedWeight;
+		double[] outMean = new double[this.centroids + n];
+		double[] outWeight = new double[this.centroids + n];
+		int out = 0;
+
+		double emitted = 0;
+		double cm = 0;
+		double cw = 0;
+		for (int i = 0, j = 0; i < this.centroids || j < n;) {
+			double nm;
+			double nw;
+			if (j >= n || (i < this.centroids && this.mean[i] <= m[j])) {
+				nm = this.mean[i];
+				nw = this.weight[i++];
+			} else {
+				nm = m[j];
+				nw = null == w ? 1 : w[j];
+				j++;
+			}
+
+			if (0 == cw) {
+				cm = nm;
+				cw = nw;
+			} else if (this.scale((emitted + cw + nw) / total) - this.scale(emitted / total) <= 1) {
+				cw += nw;
+				cm += (nm - cm) * nw / cw;
+			} else {
+				outMean[out] = cm;
+				outWeight[out++] = cw;
+				emitted += cw;
+				cm = nm;
+				cw = nw;
+			}
+		}
+		if (0 != cw) {
+			outMean[out] = cm;
+			outWeight[out++] = cw;
+		}
+
+		this.mean = outMean;
+		this.weight = outWeight;
+		this.centroids = out;
+		this.mergedWeight = total;
+	}
+
+	private double scale(double q) {
+		return this.normalizer * Math.asin(2 * Math.min(1, q) - 1);
+	}
+
+	@Override
+	public String toString() {
+		return "TDigest[count=" + this.count() + ", compression=" + this.compression + ", min=" + this.min()
+				+ ", max=" + this.max() + "]";
+	}
+}
@@ -15,6 +15,9 @@
 
 package io.namba.arrays;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,7 +34,6 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import io.namba.Namba;
 import io.namba.arrays.data.tuple.Two;
-import io.namba.arrays.range.IntRange;
 
 /**
  * 
@@ -57,6 +59,17 @@ public class Table implements NambaList {
 				.collect(Collectors.toUnmodifiableMap(Pair::getLeft, Pair::getRight));
 	}
 
+	/**
+	 * For subclasses that supply their own (possibly lazily loaded) columns. The
+	 * columns are not validated.
+	 */
+	protected Table(int size, List<NambaList> columns, Map<String, Integer> names, Index index) {
+		this.size = size;
+		this.columns = columns;
+		this.names = names;
+		this.index = index;
+	}
+
 	public static Table of(List<NambaList> columns, Index index) {
 		return new Table(columns, index);
 	}
@@ -104,9 +117,16 @@ public class Table implements NambaList {
 		return Table.of(this.columns.stream().map(col -> col.getAt(loc)).collect(Collectors.toList()), null);
 	}
 
+	/**
+	 * Returns the rows in the contiguous range <code>[start, end)</code>, clipped
+	 * to this table's bounds. No column data is read until a column of the
+	 * returned table is accessed, at which point only that column is sliced.
+	 */
 	public Table getAt(int start, int end) {
-		return Table.of(this.columns.stream().map(col -> col.getAt(IntRange.of(start, end).stream().toArray()))
-				.collect(Collectors.toList()), null);
+		int from = Math.max(0, start);
+		int to = Math.max(from, Math.min(this.size, end));
+
+		return new Table(to - from, SlicedColumns.of(this.columns, from, to), this.names, null);
 	}
 
 	public Table head(int size) {
@@ -165,6 +185,16 @@ public class Table implements NambaList {
 		return this.columns.get(this.names.get(name));
 	}
 
+	public List<String> columnNames() {
+		String[] n = new String[this.columns.size()];
+		this.names.forEach((name, i) -> n[i] = name);
+		return Arrays.asList(n);
+	}
+
+	public void write(Path path) throws IOException {
+		ColumnFile.write(this, path);
+	}
+
 	public Table sortBy(String... columns) {
 		// TODO: implement
 		return null;
@@ -214,4 +244,47 @@ public class Table implements NambaList {
 	public Mask asMask() {
 		return null;
 	}
+
+	/**
+	 * The columns of a contiguous range of rows of other columns. Each column is
+	 * sliced the first time it is accessed. Slicing a slice refers back to the
+	 * original columns, so paging through a table stays O(1) per page.
+	 */
+	private static class SlicedColumns extends AbstractList<NambaList> {
+		private final List<NambaList> source;
+		private final int from;
+		private final int to;
+		private final NambaList[] sliced;
+
+		private SlicedColumns(List<NambaList> source, int from, int to) {
+			this.source = source;
+			this.from = from;
+			this.to = to;
+			this.sliced = new NambaList[source.size()];
+		}
+
+		static SlicedColumns of(List<NambaList> columns, int from, int to) {
+			if (columns instanceof SlicedColumns) {
+				SlicedColumns parent = (SlicedColumns) columns;
+				return new SlicedColumns(parent.source, parent.from + from, parent.from + to);
+			}
+
+			return new SlicedColumns(columns, from, to);
+		}
+
+		@Override
+		public synchronized NambaList get(int index) {
+			NambaList column = this.sliced[index];
+			if (null == column) {
+				column = this.source.get(index).getAt(this.from, this.to);
+				this.sliced[index] = column;
+			}
+			return column;
+		}
+
+		@Override
+		public int size() {
+			return this.sliced.length;
+		}
+	}
 }
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+/**
+ * String list holding all its strings as UTF-8 in a single byte arena, with
+ * each element's bytes delimited by an offsets array. Length, prefix, suffix,
+ * substring and equality tests and hashing run on the raw bytes; a
+ * {@link String} is only created when an element is read through
+ * {@link #getAt(int)} or by operations inherited from {@link StringList}.
+ * 
+ * @author Ernest Kiwele
+ */
+public class Utf8StringList extends StringList {
+
+	private final Utf8Values utf8;
+
+	private Utf8StringList(Utf8Values utf8) {
+		super(utf8);
+		this.utf8 = utf8;
+	}
+
+	public static Utf8StringList of(List<String> values) {
+		Objects.requireNonNull(values, "values");
+
+		byte[][] encoded = new byte[values.size()][];
+		long total = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			String s = values.get(i);
+			if (null != s) {
+				encoded[i] = s.getBytes(StandardCharsets.UTF_8);
+				total += encoded[i].length;
+			}
+		}
+
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("string data exceeds 2GB");
+		}
+
+		byte[] data = new byte[(int) total];
+		int[] offsets = new int[encoded.length + 1];
+		for (int i = 0; i < encoded.length; i++) {
+			int len = null == encoded[i] ? 0 : encoded[i].length;
+			if (0 != len) {
+				System.arraycopy(encoded[i], 0, data, offsets[i], len);
+			}
+			offsets[i + 1] = offsets[i] + len;
+		}
+
+		return new Utf8StringList(new Utf8Values(data, offsets,
+				Mask.validity(Mask.of(encoded.length, i -> null != values.get(i)), encoded.length)));
+	}
+
+	public static Utf8StringList of(String... values) {
+		return of(Arrays.asList(values));
+	}
+
+	/**
+	 * Wraps existing UTF-8 data without copying it. Element <code>i</code> spans
+	 * bytes <code>[offsets[i], offsets[i + 1])</code>; the validity mask may be
+	 * null if there are no null elements.
+	 */
+	public static Utf8StringList ofUtf8(byte[] data, int[] offsets, Mask validity) {
+		Objects.requireNonNull(data, "data");
+		Objects.requireNonNull(offsets, "offsets");
+
+		if (0 == offsets.length || offsets[offsets.length - 1] > data.length) {
+			throw new IllegalArgumentException("offsets don't match data");
+		}
+
+		return new Utf8StringList(new Utf8Values(data, offsets, Mask.validity(validity, offsets.length - 1)));
+	}
+
+	@Override
+	public Utf8StringList toUtf8() {
+		return this;
+	}
+
+	/**
+	 * Size of the byte arena, in bytes.
+	 */
+	public int byteSize() {
+		return this.utf8.offsets[this.size()] - this.utf8.offsets[0];
+	}
+
+	public boolean isNull(int loc) {
+		return !Mask.isValid(this.utf8.validity, loc);
+	}
+
+	@Override
+	public String getAt(int loc) {
+		return this.utf8.get(loc);
+	}
+
+	/**
+	 * Returns a slice sharing this list's byte arena.
+	 */
+	@Override
+	public Utf8StringList getAt(int from, int to) {
+		int start = Math.max(0, from);
+		int end = Math.max(start, Math.min(this.size(), to));
+		Mask validity = null == this.utf8.validity ? null : this.utf8.validity.getAt(start, end);
+
+		return new Utf8StringList(new Utf8Values(this.utf8.data, Arrays.copyOfRange(this.utf8.offsets, start, end + 1),
+				Mask.validity(validity, end - start)));
+	}
+
+	/**
+	 * Lengths in UTF-16 code units, as {@link String#length()} would return, and
+	 * -1 for null elements.
+	 */
+	@Override
+	public IntList length() {
+		int[] lengths = new int[this.size()];
+		byte[] data = this.utf8.data;
+
+		for (int i = 0; i < lengths.length; i++) {
+			if (this.isNull(i)) {
+				lengths[i] = -1;
+				continue;
+			}
+
+			int n = 0;
+			for (int p = this.utf8.offsets[i]; p < this.utf8.offsets[i + 1]; p++) {
+				if ((data[p] & 0xC0) != 0x80)
+					n++;
+				if ((data[p] & 0xF8) == 0xF0)
+					n++; // supplementary characters take two chars
+			}
+			lengths[i] = n;
+		}
+
+		return IntList.of(lengths);
+	}
+
+	@Override
+	public Mask startsWith(String str) {
+		byte[] s = str.getBytes(StandardCharsets.UTF_8);
+		return this.testBytes(i -> this.utf8.length(i) >= s.length && this.utf8.matches(i, this.utf8.offsets[i], s));
+	}
+
+	@Override
+	public Mask endsWith(String str) {
+		byte[] s = str.getBytes(StandardCharsets.UTF_8);
+		return this.testBytes(
+				i -> this.utf8.length(i) >= s.length && this.utf8.matches(i, this.utf8.offsets[i + 1] - s.length, s));
+	}
+
+	@Override
+	public Mask contains(String str) {
+		byte[] s = str.getBytes(StandardCharsets.UTF_8);
+		return this.testBytes(i -> {
+			for (int p = this.utf8.offsets[i]; p <= this.utf8.offsets[i + 1] - s.length; p++) {
+				if (this.utf8.matches(i, p, s))
+					return true;
+			}
+			return false;
+		});
+	}
+
+	@Override
+	public Mask eq(String val) {
+		if (null == val) {
+			return Mask.falses(this.size());
+		}
+
+		byte[] s = val.getBytes(StandardCharsets.UTF_8);
+		return this.testBytes(i -> this.utf8.length(i) == s.length && this.utf8.matches(i, this.utf8.offsets[i], s));
+	}
+
+	/**
+	 * Hash code of the element at <code>loc</code>, equal to
+	 * <code>getAt(loc).hashCode()</code> but computed from the UTF-8 bytes. Null
+	 * elements hash to 0.
+	 */
+	public int hashAt(int loc) {
+		if (this.isNull(loc)) {
+			return 0;
+		}
+
+		byte[] data = this.utf8.data;
+		int h = 0;
+		int p = this.utf8.offsets[loc];
+		int end = this.utf8.offsets[loc + 1];
+
+		while (p < end) {
+			int b = data[p];
+			if (b >= 0) {
+				h = 31 * h + b;
+				p++;
+				continue;
+			}
+
+			int cp;
+			if ((b & 0xE0) == 0xC0) {
+				cp = ((b & 0x1F) << 6) | (data[p + 1] & 0x3F);
+				p += 2;
+			} else if ((b & 0xF0) == 0xE0) {
+				cp = ((b & 0x0F) << 12) | ((data[p + 1] & 0x3F) << 6) | (data[p + 2] & 0x3F);
+				p += 3;
+			} else {
+				cp = ((b & 0x07) << 18) | ((data[p + 1] & 0x3F) << 12) | ((data[p + 2] & 0x3F) << 6)
+						| (data[p + 3] & 0x3F);
+				p += 4;
+			}
+
+			if (Character.isBmpCodePoint(cp)) {
+				h = 31 * h + cp;
+			} else {
+				h = 31 * (31 * h + Character.highSurrogate(cp)) + Character.lowSurrogate(cp);
+			}
+		}
+
+		return h;
+	}
+
+	public IntList hashes() {
+		int[] h = new int[this.size()];
+		for (int i = 0; i < h.length; i++) {
+			h[i] = this.hashAt(i);
+		}
+		return IntList.of(h);
+	}
+
+	private Mask testBytes(IntPredicate test) {
+		return Mask.of(this.size(), i -> !this.isNull(i) && test.test(i));
+	}
+
+	/**
+	 * The arena, exposed as a list of strings decoded on access.
+	 */
+	private static class Utf8Values extends AbstractList<String> implements RandomAccess {
+		private final byte[] data;
+		private final int[] offsets;
+		private final Mask validity;
+
+		Utf8Values(byte[] data, int[] offsets, Mask validity) {
+			this.data = data;
+			this.offsets = offsets;
+			this.validity = validity;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= this.size()) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.size());
+			}
+			if (!Mask.isValid(this.validity, index)) {
+				return null;
+			}
+			return new String(this.data, this.offsets[index], this.length(index), StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public int size() {
+			return this.offsets.length - 1;
+		}
+
+		int length(int index) {
+			return this.offsets[index + 1] - this.offsets[index];
+		}
+
+		boolean matches(int index, int at, byte[] s) {
+			for (int k = 0; k < s.length; k++) {
+				if (this.data[at + k] != s[k])
+					return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+/**
+ * Distinct values of an int or long list and their counts, sorted by value.
+ * Nulls aren't counted. Values are tallied in a dense array indexed by
+ * <code>value - min</code> when the range of values is no larger than the list
+ * (or a small fixed size), and in a primitive hash map otherwise; neither boxes
+ * values.
+ * 
+ * @author Ernest Kiwele
+ */
+final class ValueCounts {
+
+	private static final int DENSE_MIN = 1 << 16;
+
+	final long[] keys;
+	final int[] counts;
+
+	/**
+	 * The number of non-null values counted.
+	 */
+	final int total;
+
+	private ValueCounts(long[] keys, int[] counts, int total) {
+		this.keys = keys;
+		this.counts = counts;
+		this.total = total;
+	}
+
+	static ValueCounts of(int[] values, Mask validity) {
+		int n = values.length;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		int total = 0;
+		for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n)) {
+			min = Math.min(min, values[i]);
+			max = Math.max(max, values[i]);
+			total++;
+		}
+		if (0 == total)
+			return new ValueCounts(new long[0], new int[0], 0);
+
+		long range = (long) max - min + 1;
+		if (range <= Math.max(DENSE_MIN, total)) {
+			int[] dense = new int[(int) range];
+			for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n))
+				dense[values[i] - min]++;
+			return ofDense(dense, min, total);
+		}
+
+		IntIntMap map = new IntIntMap();
+		for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n))
+			map.addTo(values[i], 1);
+
+		int[] keys = map.keys();
+		int[] counts = map.values();
+		int[] order = RadixSort.argSort(keys, false);
+
+		long[] sortedKeys = new long[order.length];
+		int[] sortedCounts = new int[order.length];
+		for (int k = 0; k < order.length; k++) {
+			sortedKeys[k] = keys[order[k]];
+			sortedCounts[k] = counts[order[k]];
+		}
+		return new ValueCounts(sortedKeys, sortedCounts, total);
+	}
+
+	static ValueCounts of(long[] values, Mask validity) {
+		int n = values.length;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		int total = 0;
+		for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n)) {
+			min = Math.min(min, values[i]);
+			max = Math.max(max, values[i]);
+			total++;
+		}
+		if (0 == total)
+			return new ValueCounts(new long[0], new int[0], 0);
+
+		// a negative difference means the range overflowed
+		long span = max - min;
+		if (span >= 0 && span < Math.max(DENSE_MIN, total)) {
+			int[] dense = new int[(int) span + 1];
+			for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n))
+				dense[(int) (values[i] - min)]++;
+			return ofDense(dense, min, total);
+		}
+
+		LongIntMap map = new LongIntMap();
+		for (int i = Mask.nextValid(validity, 0, n); i >= 0 && i < n; i = Mask.nextValid(validity, i + 1, n))
+			map.addTo(values[i], 1);
+
+		long[] keys = map.keys();
+		int[] counts = map.values();
+		int[] order = RadixSort.argSort(keys, false);
+
+		long[] sortedKeys = new long[order.length];
+		int[] sortedCounts = new int[order.length];
+		for (int k = 0; k < order.length; k++) {
+			sortedKeys[k] = keys[order[k]];
+			sortedCounts[k] = counts[order[k]];
+		}
+		return new ValueCounts(sortedKeys, sortedCounts, total);
+	}
+
+	private static ValueCounts ofDense(int[] dense, long min, int total) {
+		int distinct = 0;
+		for (int c : dense) {
+			if (0 != c)
+				distinct++;
+		}
+
+		long[] keys = new long[distinct];
+		int[] counts = new int[distinct];
+		for (int v = 0, k = 0; v < dense.length; v++) {
+			if (0 != dense[v]) {
+				keys[k] = min + v;
+				counts[k++] = dense[v];
+			}
+		}
+		return new ValueCounts(keys, counts, total);
+	}
+
+	int size() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Position of the most frequent value, the smallest one on ties, or -1 if
+	 * nothing was counted.
+	 */
+	int mode() {
+		int best = -1;
+		for (int k = 0; k < this.counts.length; k++) {
+			if (best < 0 || this.counts[k] > this.counts[best])
+				best = k;
+		}
+		return best;
+	}
+}
@@ -42,10 +42,18 @@ public class DecimalGrouping<K> extends ObjectGrouping<K, BigDecimal> {
 		super(handle, groups, binned);
 	}
 
+	protected DecimalGrouping(DataList<BigDecimal> handle, GroupIndex<K> index, boolean binned) {
+		super(handle, index, binned);
+	}
+
 	public static <K> DecimalGrouping<K> of(DataList<BigDecimal> handle, Map<K, List<Integer>> groups) {
 		return new DecimalGrouping<>(handle, groups, false);
 	}
 
+	public static <K> DecimalGrouping<K> of(DataList<BigDecimal> handle, GroupIndex<K> index) {
+		return new DecimalGrouping<>(handle, index, false);
+	}
+
 	// TODO: implement
 	// public BigDecimal standardErrorMean(K key) {
 	// return null;
@@ -184,7 +192,7 @@ public class DecimalGrouping<K> extends ObjectGrouping<K, BigDecimal> {
 	}
 
 	public Map<K, List<Integer>> groupIndices() {
-		return Collections.unmodifiableMap(this.groups);
+		return this.groups;
 	}
 
 	public void forEachGroup(BiConsumer<K, Collection<BigDecimal>> processor) {
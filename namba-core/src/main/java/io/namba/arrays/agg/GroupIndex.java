@@ -0,0 +1,278 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays.agg;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Columnar representation of a grouping: the id of each row's group, a
+ * dictionary of group keys indexed by id, and the rows of all groups laid out
+ * group after group in a single permutation array. Group <code>g</code>'s rows
+ * are <code>row(start(g))</code> to <code>row(end(g) - 1)</code>, in ascending
+ * order for groupings built from a classifier.
+ * 
+ * <p>
+ * Group ids are dense, assigned in order of first appearance. Row lists
+ * returned by {@link #rows(int)} and {@link #asMap()} are views over the
+ * permutation array, so no per-row objects are kept.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class GroupIndex<K> {
+
+	private final int[] ids;
+	private final List<K> keys;
+	private final Map<K, Integer> dictionary;
+	private final int[] offsets;
+	private final int[] rows;
+
+	private GroupIndex(int[] ids, List<K> keys, Map<K, Integer> dictionary, int[] offsets, int[] rows) {
+		this.ids = ids;
+		this.keys = Collections.unmodifiableList(keys);
+		this.dictionary = dictionary;
+		this.offsets = offsets;
+		this.rows = rows;
+	}
+
+	/**
+	 * Groups rows <code>0..size-1</code> by the key the classifier returns for
+	 * each row.
+	 */
+	public static <K> GroupIndex<K> of(int size, IntFunction<K> classifier) {
+		Objects.requireNonNull(classifier, "classifier is null");
+
+		int[] ids = new int[size];
+		List<K> keys = new ArrayList<>();
+		Map<K, Integer> dictionary = new HashMap<>();
+		for (int r = 0; r < size; r++) {
+			K key = classifier.apply(r);
+			Integer id = dictionary.get(key);
+			if (null == id) {
+				id = keys.size();
+				dictionary.put(key, id);
+				keys.add(key);
+			}
+			ids[r] = id;
+		}
+
+		return sorted(ids, keys, dictionary);
+	}
+
+	/**
+	 * Creates a grouping from precomputed group ids: row <code>r</code> belongs
+	 * to the group whose key is <code>keys.get(ids[r])</code>, or to no group if
+	 * <code>ids[r]</code> is negative. The ids array is not copied.
+	 */
+	public static <K> GroupIndex<K> of(int[] ids, List<K> keys) {
+		Objects.requireNonNull(ids, "ids is null");
+
+		Map<K, Integer> dictionary = dictionary(keys);
+		for (int id : ids) {
+			if (id >= keys.size()) {
+				throw new IllegalArgumentException("group id out of range: " + id);
+			}
+		}
+
+		return sorted(ids, new ArrayList<>(keys), dictionary);
+	}
+
+	/**
+	 * Converts a map of group keys to row numbers, keeping the order of keys and
+	 * of rows within groups. A row listed under several keys is in each of their
+	 * ranges of the permutation array, but {@link #groupId(int)} only reports the
+	 * last of them; aggregates must therefore walk <code>start(g)</code> to
+	 * <code>end(g)</code> rather than group rows by id.
+	 */
+	public static <K> GroupIndex<K> of(Map<K, List<Integer>> groups, int size) {
+		Objects.requireNonNull(groups, "groups is null");
+
+		List<K> keys = new ArrayList<>(groups.keySet());
+		Map<K, Integer> dictionary = dictionary(keys);
+
+		int[] offsets = new int[keys.size() + 1];
+		for (int g = 0; g < keys.size(); g++) {
+			offsets[g + 1] = offsets[g] + groups.get(keys.get(g)).size();
+		}
+
+		int[] ids = new int[size];
+		Arrays.fill(ids, -1);
+		int[] rows = new int[offsets[keys.size()]];
+		for (int g = 0, pos = 0; g < keys.size(); g++) {
+			for (int row : groups.get(keys.get(g))) {
+				ids[row] = g;
+				rows[pos++] = row;
+			}
+		}
+
+		return new GroupIndex<>(ids, keys, dictionary, offsets, rows);
+	}
+
+	private static <K> Map<K, Integer> dictionary(List<K> keys) {
+		Map<K, Integer> dictionary = new HashMap<>();
+		for (int g = 0; g < keys.size(); g++) {
+			if (null != dictionary.put(keys.get(g), g)) {
+				throw new IllegalArgumentException("duplicate group key: " + keys.get(g));
+			}
+		}
+		return dictionary;
+	}
+
+	/*
+	 * Counting sort of rows by group id: offsets are the running totals of group
+	 * sizes, and rows keep their order within each group.
+	 */
+	private static <K> GroupIndex<K> sorted(int[] ids, List<K> keys, Map<K, Integer> dictionary) {
+		int[] offsets = new int[keys.size() + 1];
+		for (int id : ids) {
+			if (id >= 0)
+				offsets[id + 1]++;
+		}
+		for (int g = 0; g < keys.size(); g++) {
+			offsets[g + 1] += offsets[g];
+		}
+
+		int[] next = Arrays.copyOf(offsets, keys.size());
+		int[] rows = new int[offsets[keys.size()]];
+		for (int r = 0; r < ids.length; r++) {
+			if (ids[r] >= 0)
+				rows[next[ids[r]]++] = r;
+		}
+
+		return new GroupIndex<>(ids, keys, dictionary, offsets, rows);
+	}
+
+	/**
+	 * Number of rows in the grouped list.
+	 */
+	public int size() {
+		return this.ids.length;
+	}
+
+	public int groupCount() {
+		return this.keys.size();
+	}
+
+	/**
+	 * Id of the row's group, or -1 if the row is in no group.
+	 */
+	public int groupId(int row) {
+		return this.ids[row];
+	}
+
+	/**
+	 * Id of the key's group, or -1 if there's no such group.
+	 */
+	public int groupId(Object key) {
+		Integer id = this.dictionary.get(key);
+		return null == id ? -1 : id;
+	}
+
+	public K key(int group) {
+		return this.keys.get(group);
+	}
+
+	/**
+	 * Group keys, indexed by group id.
+	 */
+	public List<K> keys() {
+		return this.keys;
+	}
+
+	public int groupSize(int group) {
+		return this.offsets[group + 1] - this.offsets[group];
+	}
+
+	/**
+	 * Position of the group's first row in the permutation array.
+	 */
+	public int start(int group) {
+		return this.offsets[group];
+	}
+
+	/**
+	 * Position after the group's last row in the permutation array.
+	 */
+	public int end(int group) {
+		return this.offsets[group + 1];
+	}
+
+	/**
+	 * Row at the given position of the permutation array.
+	 */
+	public int row(int position) {
+		return this.rows[position];
+	}
+
+	/**
+	 * The group's rows, as a view over the permutation array.
+	 */
+	public List<Integer> rows(int group) {
+		return new Rows(this.rows, this.offsets[group], this.offsets[group + 1]);
+	}
+
+	/**
+	 * Creates a copy of the group's rows.
+	 */
+	public int[] rowArray(int group) {
+		return Arrays.copyOfRange(this.rows, this.offsets[group], this.offsets[group + 1]);
+	}
+
+	/**
+	 * Group keys mapped to views of their rows, in group id order.
+	 */
+	public Map<K, List<Integer>> asMap() {
+		Map<K, List<Integer>> map = new LinkedHashMap<>();
+		for (int g = 0; g < this.keys.size(); g++) {
+			map.put(this.keys.get(g), this.rows(g));
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	private static final class Rows extends AbstractList<Integer> implements RandomAccess {
+		private final int[] rows;
+		private final int from;
+		private final int to;
+
+		Rows(int[] rows, int from, int to) {
+			this.rows = rows;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Integer get(int index) {
+			if (index < 0 || index >= this.size()) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.size());
+			}
+			return this.rows[this.from + index];
+		}
+
+		@Override
+		public int size() {
+			return this.to - this.from;
+		}
+	}
+}
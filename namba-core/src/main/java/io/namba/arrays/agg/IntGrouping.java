@@ -15,20 +15,20 @@
 
 package io.namba.arrays.agg;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.namba.arrays.DataList;
+import io.namba.arrays.HyperLogLog;
+import io.namba.arrays.IntList;
+import io.namba.arrays.ListCast;
 import io.namba.arrays.Table;
 import io.namba.arrays.data.tuple.Two;
-import io.namba.functions.IntMath;
 
 /**
  * 
@@ -36,66 +36,163 @@ import io.namba.functions.IntMath;
  */
 public class IntGrouping<K> extends ObjectGrouping<K, Integer> {
 
+	protected final IntList values;
+
+	protected IntGrouping(IntList values, GroupIndex<K> index, boolean binned) {
+		super(ListCast.boxedView(values), index, binned);
+		this.values = values;
+	}
+
 	protected IntGrouping(DataList<Integer> handle, Map<K, List<Integer>> groups, boolean binned) {
 		super(handle, groups, binned);
+		this.values = IntList.ofNullable(handle.stream().toArray(Integer[]::new));
 	}
 
 	public static <K> IntGrouping<K> of(DataList<Integer> handle, Map<K, List<Integer>> groups) {
 		return new IntGrouping<>(handle, groups, false);
 	}
 
+	/**
+	 * Groups the list's elements without boxing them: aggregates read the list
+	 * directly.
+	 */
+	public static <K> IntGrouping<K> of(IntList values, GroupIndex<K> index) {
+		return new IntGrouping<>(values, index, false);
+	}
+
+	/**
+	 * Sum of the group's non-null values, 0 if there's no such group.
+	 */
 	public int sum(K key) {
-		return this.reduce(key, (a, b) -> a + b).get(); // should never be empty, right?
+		int g = this.index.groupId(key);
+		return g < 0 ? 0 : this.sum(g);
+	}
+
+	private int sum(int g) {
+		int sum = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				sum += this.values.getInt(row);
+		}
+		return sum;
 	}
 
 	public Map<K, Integer> sum() {
-		return this.reduce((a, b) -> a + b);
+		Map<K, Integer> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.sum(g));
+		}
+		return result;
 	}
 
 	public Table sumTable() {
 		return Table.of(this.sum());
 	}
 
+	/**
+	 * Mean of the group's non-null values, NaN if it has none.
+	 */
 	public double mean(K key) {
-		return this.groups.getOrDefault(key, Collections.emptyList()).stream().mapToInt(this.handle::getAt).average()
-				.getAsDouble();
+		int g = this.index.groupId(key);
+		return g < 0 ? Double.NaN : this.mean(g);
+	}
+
+	private double mean(int g) {
+		long sum = 0;
+		int count = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row)) {
+				sum += this.values.getInt(row);
+				count++;
+			}
+		}
+		return 0 == count ? Double.NaN : (double) sum / count;
 	}
 
 	public Map<K, Double> mean() {
-		return this.groups.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> this.mean(e.getKey())));
+		Map<K, Double> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.mean(g));
+		}
+		return result;
 	}
 
 	public Table meanTable() {
-		return Table.of(this.sum());
+		return Table.of(this.mean());
 	}
 
 	public int prod(K key) {
-		return this.reduce(key, 1, (a, b) -> a * b);
+		int g = this.index.groupId(key);
+		return g < 0 ? 1 : this.prod(g);
+	}
+
+	private int prod(int g) {
+		int prod = 1;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				prod *= this.values.getInt(row);
+		}
+		return prod;
 	}
 
 	public Map<K, Integer> prod() {
-		return this.reduce((a, b) -> a * b);
+		Map<K, Integer> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.prod(g));
+		}
+		return result;
 	}
 
 	public Table prodTable() {
-		return Table.of(this.sum());
+		return Table.of(this.prod());
 	}
 
+	/**
+	 * Median of the group's non-null values, NaN if it has none.
+	 */
 	public double median(K key) {
-		return IntMath.median(this.groups.getOrDefault(key, Collections.emptyList()).stream().map(this.handle::getAt)
-				.collect(Collectors.toList()));
+		int g = this.index.groupId(key);
+		return g < 0 ? Double.NaN : this.median(g);
+	}
+
+	private double median(int g) {
+		int[] v = new int[this.index.groupSize(g)];
+		int n = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				v[n++] = this.values.getInt(row);
+		}
+		if (0 == n)
+			return Double.NaN;
+
+		Arrays.sort(v, 0, n);
+		return n % 2 == 1 ? v[n / 2] : (v[n / 2 - 1] + (double) v[n / 2]) / 2;
 	}
 
 	public Map<K, Double> median() {
-		return this.groups.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> this.median(e.getKey())));
+		Map<K, Double> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.median(g));
+		}
+		return result;
 	}
 
 	public Table medianTable() {
-		return Table.of(this.sum());
+		return Table.of(this.median());
+	}
+
+	@Override
+	protected void addTo(HyperLogLog sketch, int row) {
+		if (!this.values.isNull(row))
+			sketch.add(this.values.getInt(row));
 	}
 
 	public Map<K, List<Integer>> groupIndices() {
-		return Collections.unmodifiableMap(this.groups);
+		return this.groups;
 	}
 
 	public void forEachGroup(BiConsumer<K, Collection<Integer>> processor) {
@@ -111,19 +208,50 @@ public class IntGrouping<K> extends ObjectGrouping<K, Integer> {
 		return this.groupStream();
 	}
 
+	/**
+	 * Largest non-null value of each group, null for groups without values.
+	 */
 	public Map<K, Integer> max() {
-		return this.max(Comparator.naturalOrder());
+		return this.extreme(true);
 	}
 
+	/**
+	 * Smallest non-null value of each group, null for groups without values.
+	 */
 	public Map<K, Integer> min() {
-		return this.min(Comparator.naturalOrder());
+		return this.extreme(false);
+	}
+
+	private Map<K, Integer> extreme(boolean max) {
+		Map<K, Integer> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.extreme(g, max));
+		}
+		return result;
+	}
+
+	private Integer extreme(int g, boolean max) {
+		int extreme = 0;
+		boolean seen = false;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (this.values.isNull(row))
+				continue;
+
+			int v = this.values.getInt(row);
+			if (!seen || (max ? v > extreme : v < extreme)) {
+				extreme = v;
+				seen = true;
+			}
+		}
+		return seen ? extreme : null;
 	}
 
 	public Table maxTable() {
-		return Table.of(this.max(Comparator.naturalOrder()));
+		return Table.of(this.max());
 	}
 
 	public Table minTable() {
-		return Table.of(this.min(Comparator.naturalOrder()));
+		return Table.of(this.min());
 	}
 }
@@ -15,20 +15,20 @@
 
 package io.namba.arrays.agg;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.namba.arrays.DataList;
+import io.namba.arrays.HyperLogLog;
+import io.namba.arrays.ListCast;
+import io.namba.arrays.LongList;
 import io.namba.arrays.Table;
 import io.namba.arrays.data.tuple.Two;
-import io.namba.functions.LongMath;
 
 /**
  * 
@@ -37,66 +37,163 @@ import io.namba.functions.LongMath;
  */
 public class LongGrouping<K> extends ObjectGrouping<K, Long> {
 
+	protected final LongList values;
+
+	protected LongGrouping(LongList values, GroupIndex<K> index, boolean binned) {
+		super(ListCast.boxedView(values), index, binned);
+		this.values = values;
+	}
+
 	protected LongGrouping(DataList<Long> handle, Map<K, List<Integer>> groups, boolean binned) {
 		super(handle, groups, binned);
+		this.values = LongList.ofNullable(handle.stream().toArray(Long[]::new));
 	}
 
 	public static <K> LongGrouping<K> of(DataList<Long> handle, Map<K, List<Integer>> groups) {
 		return new LongGrouping<>(handle, groups, false);
 	}
 
+	/**
+	 * Groups the list's elements without boxing them: aggregates read the list
+	 * directly.
+	 */
+	public static <K> LongGrouping<K> of(LongList values, GroupIndex<K> index) {
+		return new LongGrouping<>(values, index, false);
+	}
+
+	/**
+	 * Sum of the group's non-null values, 0 if there's no such group.
+	 */
 	public long sum(K key) {
-		return this.reduce(key, (a, b) -> a + b).get(); // should never be empty, right?
+		int g = this.index.groupId(key);
+		return g < 0 ? 0 : this.sum(g);
+	}
+
+	private long sum(int g) {
+		long sum = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				sum += this.values.getLong(row);
+		}
+		return sum;
 	}
 
 	public Map<K, Long> sum() {
-		return this.reduce((a, b) -> a + b);
+		Map<K, Long> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.sum(g));
+		}
+		return result;
 	}
 
 	public Table sumTable() {
 		return Table.of(this.sum());
 	}
 
+	/**
+	 * Mean of the group's non-null values, NaN if it has none.
+	 */
 	public double mean(K key) {
-		return this.groups.getOrDefault(key, Collections.emptyList()).stream().mapToLong(this.handle::getAt).average()
-				.getAsDouble();
+		int g = this.index.groupId(key);
+		return g < 0 ? Double.NaN : this.mean(g);
+	}
+
+	private double mean(int g) {
+		long sum = 0;
+		int count = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row)) {
+				sum += this.values.getLong(row);
+				count++;
+			}
+		}
+		return 0 == count ? Double.NaN : (double) sum / count;
 	}
 
 	public Map<K, Double> mean() {
-		return this.groups.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> this.mean(e.getKey())));
+		Map<K, Double> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.mean(g));
+		}
+		return result;
 	}
 
 	public Table meanTable() {
-		return Table.of(this.sum());
+		return Table.of(this.mean());
 	}
 
 	public long prod(K key) {
-		return this.reduce(key, 1l, (a, b) -> a * b);
+		int g = this.index.groupId(key);
+		return g < 0 ? 1l : this.prod(g);
+	}
+
+	private long prod(int g) {
+		long prod = 1;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				prod *= this.values.getLong(row);
+		}
+		return prod;
 	}
 
 	public Map<K, Long> prod() {
-		return this.reduce((a, b) -> a * b);
+		Map<K, Long> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.prod(g));
+		}
+		return result;
 	}
 
 	public Table prodTable() {
-		return Table.of(this.sum());
+		return Table.of(this.prod());
 	}
 
+	/**
+	 * Median of the group's non-null values, NaN if it has none.
+	 */
 	public double median(K key) {
-		return LongMath.median(this.groups.getOrDefault(key, Collections.emptyList()).stream().map(this.handle::getAt)
-				.collect(Collectors.toList()));
+		int g = this.index.groupId(key);
+		return g < 0 ? Double.NaN : this.median(g);
+	}
+
+	private double median(int g) {
+		long[] v = new long[this.index.groupSize(g)];
+		int n = 0;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (!this.values.isNull(row))
+				v[n++] = this.values.getLong(row);
+		}
+		if (0 == n)
+			return Double.NaN;
+
+		Arrays.sort(v, 0, n);
+		return n % 2 == 1 ? v[n / 2] : (v[n / 2 - 1] + (double) v[n / 2]) / 2;
 	}
 
 	public Map<K, Double> median() {
-		return this.groups.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> this.median(e.getKey())));
+		Map<K, Double> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.median(g));
+		}
+		return result;
 	}
 
 	public Table medianTable() {
-		return Table.of(this.sum());
+		return Table.of(this.median());
+	}
+
+	@Override
+	protected void addTo(HyperLogLog sketch, int row) {
+		if (!this.values.isNull(row))
+			sketch.add(this.values.getLong(row));
 	}
 
 	public Map<K, List<Integer>> groupIndices() {
-		return Collections.unmodifiableMap(this.groups);
+		return this.groups;
 	}
 
 	public void forEachGroup(BiConsumer<K, Collection<Long>> processor) {
@@ -112,19 +209,50 @@ public class LongGrouping<K> extends ObjectGrouping<K, Long> {
 		return this.groupStream();
 	}
 
+	/**
+	 * Largest non-null value of each group, null for groups without values.
+	 */
 	public Map<K, Long> max() {
-		return this.max(Comparator.naturalOrder());
+		return this.extreme(true);
 	}
 
+	/**
+	 * Smallest non-null value of each group, null for groups without values.
+	 */
 	public Map<K, Long> min() {
-		return this.min(Comparator.naturalOrder());
+		return this.extreme(false);
+	}
+
+	private Map<K, Long> extreme(boolean max) {
+		Map<K, Long> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			result.put(this.index.key(g), this.extreme(g, max));
+		}
+		return result;
+	}
+
+	private Long extreme(int g, boolean max) {
+		long extreme = 0;
+		boolean seen = false;
+		for (int p = this.index.start(g); p < this.index.end(g); p++) {
+			int row = this.index.row(p);
+			if (this.values.isNull(row))
+				continue;
+
+			long v = this.values.getLong(row);
+			if (!seen || (max ? v > extreme : v < extreme)) {
+				extreme = v;
+				seen = true;
+			}
+		}
+		return seen ? extreme : null;
 	}
 
 	public Table maxTable() {
-		return Table.of(this.max(Comparator.naturalOrder()));
+		return Table.of(this.max());
 	}
 
 	public Table minTable() {
-		return Table.of(this.min(Comparator.naturalOrder()));
+		return Table.of(this.min());
 	}
 }
@@ -17,17 +17,22 @@ package io.namba.arrays.agg;
 
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import io.namba.arrays.DataList;
+import io.namba.arrays.HyperLogLog;
+import io.namba.arrays.TDigest;
 import io.namba.arrays.Table;
 import io.namba.arrays.data.tuple.Two;
 
@@ -39,15 +44,29 @@ import io.namba.arrays.data.tuple.Two;
 public class ObjectGrouping<K, V> implements Grouping {
 
 	protected final DataList<V> handle;
+	protected final GroupIndex<K> index;
 	protected final Map<K, List<Integer>> groups;
 	protected final boolean binned;
 
-	protected ObjectGrouping(DataList<V> handle, Map<K, List<Integer>> groups, boolean binned) {
+	protected ObjectGrouping(DataList<V> handle, GroupIndex<K> index, boolean binned) {
+		if (Objects.requireNonNull(index, "index is null").size() != handle.size()) {
+			throw new IllegalArgumentException("array sizes don't match");
+		}
+
 		this.handle = handle;
-		this.groups = groups;
+		this.index = index;
+		this.groups = index.asMap();
 		this.binned = binned;
 	}
 
+	protected ObjectGrouping(DataList<V> handle, Map<K, List<Integer>> groups, boolean binned) {
+		this(handle, GroupIndex.of(groups, handle.size()), binned);
+	}
+
+	public static <K, V> ObjectGrouping<K, V> of(DataList<V> handle, GroupIndex<K> index, boolean binned) {
+		return new ObjectGrouping<>(handle, index, binned);
+	}
+
 	public static <K, V> ObjectGrouping<K, V> of(DataList<V> handle, Map<K, List<Integer>> groups, boolean binned) {
 		return new ObjectGrouping<>(handle, groups, binned);
 	}
@@ -60,6 +79,17 @@ public class ObjectGrouping<K, V> implements Grouping {
 		return new ObjectGrouping<>(handle, groups, false);
 	}
 
+	public static <K, V> ObjectGrouping<K, V> ofClasses(DataList<V> handle, GroupIndex<K> index) {
+		return new ObjectGrouping<>(handle, index, false);
+	}
+
+	/**
+	 * The group id of each row, and the rows of each group.
+	 */
+	public GroupIndex<K> groupIndex() {
+		return this.index;
+	}
+
 	// aggregation
 	public Optional<V> reduce(K key, BinaryOperator<V> reducer) {
 		return this.handle.getAt(this.groups.getOrDefault(key, Collections.emptyList())).stream().reduce(reducer);
@@ -123,9 +153,45 @@ public class ObjectGrouping<K, V> implements Grouping {
 		return Table.of(this.mapReduce(mapper, identity, reducer));
 	}
 
+	/**
+	 * Builds a {@link TDigest} per group over the values extracted by
+	 * <code>mapper</code>; null elements and NaN values are skipped.
+	 */
+	public Map<K, TDigest> digest(ToDoubleFunction<V> mapper) {
+		return this.groups.entrySet().stream().map(e -> Two.of(e.getKey(), this.digest(e.getValue(), mapper)))
+				.collect(Two.mapCollector());
+	}
+
+	private TDigest digest(List<Integer> locs, ToDoubleFunction<V> mapper) {
+		TDigest digest = TDigest.of();
+		for (int loc : locs) {
+			V v = this.handle.getAt(loc);
+			if (null != v) {
+				double d = mapper.applyAsDouble(v);
+				if (!Double.isNaN(d))
+					digest.add(d);
+			}
+		}
+		return digest;
+	}
+
+	/**
+	 * Approximate quantile of each group, computed with a {@link TDigest}. Groups
+	 * without values map to NaN.
+	 */
+	public Map<K, Double> approxQuantile(double q, ToDoubleFunction<V> mapper) {
+		return this.groups.entrySet().stream()
+				.map(e -> Two.of(e.getKey(), this.digest(e.getValue(), mapper).quantile(q)))
+				.collect(Two.mapCollector());
+	}
+
+	public Table approxQuantileTable(double q, ToDoubleFunction<V> mapper) {
+		return Table.of(this.approxQuantile(q, mapper));
+	}
+
 	@Override
 	public int groupCount() {
-		return this.groups.size();
+		return this.index.groupCount();
 	}
 
 	@Override
@@ -191,6 +257,57 @@ public class ObjectGrouping<K, V> implements Grouping {
 				Collectors.summingInt(e -> (int) e.getValue().stream().map(handle::getAt).distinct().count())));
 	}
 
+	/**
+	 * Estimates the number of unique non-null values in each group with a
+	 * {@link HyperLogLog} sketch.
+	 */
+	public Map<K, Long> approxCountUnique() {
+		return this.approxCountUnique(HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Estimates the number of unique non-null values in each group with a
+	 * {@link HyperLogLog} sketch of the given precision.
+	 */
+	public Map<K, Long> approxCountUnique(int precision) {
+		Map<K, Long> result = new LinkedHashMap<>();
+		this.hyperLogLog(precision).forEach((key, sketch) -> result.put(key, sketch.estimate()));
+		return result;
+	}
+
+	/**
+	 * Builds a {@link HyperLogLog} sketch of each group's values, to be merged with
+	 * sketches of the same groups from other partitions.
+	 */
+	public Map<K, HyperLogLog> hyperLogLog() {
+		return this.hyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Builds a {@link HyperLogLog} sketch of each group's values. Each sketch
+	 * takes <code>2<sup>precision</sup></code> bytes, so groupings with many
+	 * groups should trade accuracy for memory with a lower precision.
+	 */
+	public Map<K, HyperLogLog> hyperLogLog(int precision) {
+		Map<K, HyperLogLog> result = new LinkedHashMap<>();
+		for (int g = 0; g < this.index.groupCount(); g++) {
+			HyperLogLog sketch = HyperLogLog.of(precision);
+			for (int p = this.index.start(g); p < this.index.end(g); p++) {
+				this.addTo(sketch, this.index.row(p));
+			}
+			result.put(this.index.key(g), sketch);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the row's value to the sketch. Subclasses backed by primitive lists
+	 * override this to skip boxing.
+	 */
+	protected void addTo(HyperLogLog sketch, int row) {
+		sketch.add(this.handle.getAt(row));
+	}
+
 	public Table countTable() {
 		return Table.of(this.count());
 	}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round-trips each supported column type through the Arrow IPC file and
+ * stream formats, with and without nulls, and from sliced and direct lists.
+ *
+ * @author Ernest Kiwele
+ */
+class ArrowIpcTest {
+
+	@TempDir
+	Path dir;
+
+	private static final long DAY = 86_400_000_000_000L;
+
+	private Table writeAndReadFile(Table table) throws IOException {
+		Path path = Files.createTempFile(this.dir, "table", ".arrow");
+		ArrowIpc.writeFile(table, path);
+		return ArrowIpc.readFile(path);
+	}
+
+	private static Table writeAndReadStream(Table table) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ArrowIpc.writeStream(table, out);
+		return ArrowIpc.readStream(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	/*
+	 * Columns are compared by data type and string values, which show nulls
+	 * whatever the list's representation.
+	 */
+	private static void assertColumnsEqual(List<NambaList> expected, Table actual) {
+		assertEquals(expected.size(), actual.columns.size());
+		for (int i = 0; i < expected.size(); i++) {
+			NambaList column = actual.columns.get(i);
+			assertEquals(expected.get(i).dataType(), column.dataType(), "column " + i);
+			assertEquals(expected.get(i).string().value, column.string().value, "column " + i);
+		}
+	}
+
+	private void assertRoundTrip(NambaList... columns) throws IOException {
+		List<NambaList> expected = Arrays.asList(columns);
+		Table table = Table.of(expected, null);
+
+		assertColumnsEqual(expected, this.writeAndReadFile(table));
+		assertColumnsEqual(expected, writeAndReadStream(table));
+	}
+
+	@Test
+	void intColumns() throws IOException {
+		int[] values = { 1, -2, 0, Integer.MIN_VALUE, Integer.MAX_VALUE };
+
+		this.assertRoundTrip(IntList.of(values));
+		this.assertRoundTrip(IntList.of(values, Mask.of(5, i -> i % 2 == 0)));
+		this.assertRoundTrip(IntList.ofNullable(null, null, null));
+	}
+
+	@Test
+	void longColumns() throws IOException {
+		long[] values = { 1, -2, 0, Long.MIN_VALUE, Long.MAX_VALUE };
+
+		this.assertRoundTrip(LongList.of(values));
+		this.assertRoundTrip(LongList.of(values, Mask.of(5, i -> i != 3)));
+	}
+
+	@Test
+	void doubleColumns() throws IOException {
+		double[] values = { 1.5, -0.0, Double.NaN, Double.NEGATIVE_INFINITY, Double.MIN_VALUE };
+
+		this.assertRoundTrip(DoubleList.of(values));
+		this.assertRoundTrip(DoubleList.of(values, Mask.of(5, i -> i != 0)));
+	}
+
+	@Test
+	void booleanColumns() throws IOException {
+		this.assertRoundTrip(Mask.of(new boolean[] { true, false, false, true }));
+		this.assertRoundTrip(Mask.of(130, i -> i % 3 == 0));
+	}
+
+	@Test
+	void stringColumns() throws IOException {
+		this.assertRoundTrip(StringList.of("a", "", "ünïcödé", "d"));
+		this.assertRoundTrip(StringList.of("a", null, "", null));
+	}
+
+	@Test
+	void categoryColumns() throws IOException {
+		this.assertRoundTrip(CategoryList.of(StringList.of("x", "y", "x", "z")));
+		this.assertRoundTrip(CategoryList.of(StringList.of("x", null, "x", "z", null)));
+	}
+
+	@Test
+	void dateTimeColumns() throws IOException {
+		long[] nanos = { 0, -1, DAY + 123, -DAY * 365 * 300, Long.MAX_VALUE / 2 };
+
+		this.assertRoundTrip(DateTimeArray.ofEpochNanos(nanos));
+		this.assertRoundTrip(DateTimeArray.ofEpochNanos(nanos, Mask.of(5, i -> i != 2)));
+	}
+
+	@Test
+	void slicedColumns() throws IOException {
+		this.assertRoundTrip(IntList.ofNullable(9, 1, null, 3, 4, null, 9).getAt(1, 6),
+				LongList.ofNullable(9L, null, 2L, 3L, 4L, 5L, 9L).getAt(1, 6),
+				DoubleList.ofNullable(9.0, 1.0, 2.0, null, 4.0, 5.0, 9.0).getAt(1, 6),
+				Mask.of(70, i -> i % 3 == 0).getAt(63, 68),
+				StringList.of("z", "a", null, "c", "d", "e", "z").getAt(1, 6));
+	}
+
+	@Test
+	void directColumns() throws IOException {
+		try (DirectIntList ints = DirectIntList.copyOf(IntList.ofNullable(1, null, 3));
+				DirectLongList longs = DirectLongList.copyOf(LongList.ofNullable(null, 2L, 3L));
+				DirectDoubleList doubles = DirectDoubleList.copyOf(DoubleList.ofNullable(1.0, 2.0, null))) {
+			this.assertRoundTrip(ints, longs, doubles);
+		}
+	}
+
+	@Test
+	void singleBatchFileColumnsAreDirect() throws IOException {
+		Table table = this.writeAndReadFile(
+				Table.of(null, IntList.of(new int[] { 1, 2 }), LongList.of(new long[] { 1, 2 }),
+						DoubleList.of(new double[] { 1, 2 })));
+
+		assertTrue(table.columns.get(0) instanceof DirectIntList);
+		assertTrue(table.columns.get(1) instanceof DirectLongList);
+		assertTrue(table.columns.get(2) instanceof DirectDoubleList);
+	}
+
+	@Test
+	void emptyColumns() throws IOException {
+		this.assertRoundTrip(IntList.of(new int[0]), StringList.of(), Mask.of(new boolean[0]));
+	}
+
+	@Test
+	void rejectsOtherFiles() throws IOException {
+		Path path = this.dir.resolve("other.arrow");
+		Files.write(path, new byte[64]);
+
+		assertThrows(IOException.class, () -> ArrowIpc.readFile(path));
+		assertThrows(IOException.class, () -> ArrowIpc.readStream(new ByteArrayInputStream(new byte[0])));
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes tables of every supported column type, with and without nulls, and
+ * checks the mapped table read back.
+ *
+ * @author Ernest Kiwele
+ */
+class ColumnFileTest {
+
+	@TempDir
+	Path dir;
+
+	private static final long DAY = 86_400_000_000_000L;
+
+	private static List<NambaList> columns(boolean nulls) {
+		Mask valid = nulls ? Mask.of(5, i -> i != 1 && i != 4) : null;
+		return Arrays.asList(
+				IntList.of(new int[] { 1, -2, 3, Integer.MIN_VALUE, Integer.MAX_VALUE }, valid),
+				LongList.of(new long[] { 1, -2, 3, Long.MIN_VALUE, Long.MAX_VALUE }, valid),
+				DoubleList.of(new double[] { 1.5, -0.0, Double.NaN, Double.NEGATIVE_INFINITY, 1e300 }, valid),
+				Mask.of(new boolean[] { true, false, true, true, false }),
+				StringList.of("a", nulls ? null : "", "ünï", "d", nulls ? null : "e"),
+				CategoryList.of(StringList.of("x", nulls ? null : "y", "x", "z", "y")),
+				DecimalList.of(new BigDecimal[] { new BigDecimal("1.10"), nulls ? null : BigDecimal.ZERO,
+						new BigDecimal("-3e-20"), BigDecimal.ONE, BigDecimal.TEN }),
+				new DataList<>(DataType.BIGINT, Arrays.asList(BigInteger.ONE, nulls ? null : BigInteger.TEN,
+						BigInteger.valueOf(Long.MAX_VALUE).pow(2), BigInteger.ZERO, BigInteger.TWO)),
+				new DataList<>(DataType.DATE, Arrays.asList(LocalDate.of(2018, 1, 1), nulls ? null : LocalDate.MIN,
+						LocalDate.of(1969, 12, 31), LocalDate.MAX, LocalDate.EPOCH)),
+				DateTimeArray.ofEpochNanos(new long[] { 0, -1, DAY + 123, -DAY * 365 * 300, Long.MAX_VALUE / 2 },
+						valid),
+				new DataList<>(DataType.INSTANT, Arrays.asList(Instant.EPOCH, nulls ? null : Instant.MAX,
+						Instant.ofEpochSecond(-1, 5), Instant.MIN, Instant.ofEpochMilli(1))));
+	}
+
+	private MappedTable roundTrip(List<NambaList> columns) throws IOException {
+		Path path = this.dir.resolve("table.nmba");
+		ColumnFile.write(Table.of(columns, null), path);
+		return ColumnFile.open(path);
+	}
+
+	private static void assertColumnsEqual(List<NambaList> expected, Table actual) {
+		assertEquals(expected.size(), actual.columns.size());
+		for (int i = 0; i < expected.size(); i++) {
+			NambaList column = actual.columns.get(i);
+			assertEquals(expected.get(i).dataType(), column.dataType(), "column " + i);
+			assertEquals(expected.get(i).string().value, column.string().value, "column " + i);
+		}
+	}
+
+	@Test
+	void roundTripWithoutNulls() throws IOException {
+		List<NambaList> columns = columns(false);
+		try (MappedTable table = this.roundTrip(columns)) {
+			assertEquals(5, table.size());
+			assertColumnsEqual(columns, table);
+		}
+	}
+
+	@Test
+	void roundTripWithNulls() throws IOException {
+		List<NambaList> columns = columns(true);
+		try (MappedTable table = this.roundTrip(columns)) {
+			assertColumnsEqual(columns, table);
+		}
+	}
+
+	@Test
+	void numericColumnsAreAlwaysDirect() throws IOException {
+		for (boolean nulls : new boolean[] { false, true }) {
+			try (MappedTable table = this.roundTrip(columns(nulls))) {
+				assertTrue(table.columns.get(0) instanceof DirectIntList);
+				assertTrue(table.columns.get(1) instanceof DirectLongList);
+				assertTrue(table.columns.get(2) instanceof DirectDoubleList);
+				assertEquals(nulls, ((DirectIntList) table.columns.get(0)).hasNulls());
+				assertTrue(table.columns.get(9) instanceof DateTimeArray);
+			}
+		}
+	}
+
+	@Test
+	void slicedAndDirectColumns() throws IOException {
+		IntList ints = IntList.ofNullable(9, 1, null, 3, 4, null, 6).getAt(1, 6);
+		LongList longs = LongList.ofNullable(9L, 1L, 2L, null, 4L, 5L, 9L).getAt(1, 6);
+		DoubleList doubles = DoubleList.ofNullable(9.0, null, 2.0, 3.0, 4.0, 5.0, 9.0).getAt(1, 6);
+		Mask mask = Mask.of(70, i -> i % 3 == 0).getAt(65, 70);
+
+		try (DirectIntList direct = DirectIntList.copyOf(ints)) {
+			List<NambaList> columns = Arrays.asList(ints, longs, doubles, mask, direct);
+			try (MappedTable table = this.roundTrip(columns)) {
+				assertColumnsEqual(columns, table);
+			}
+		}
+	}
+
+	@Test
+	void columnsAreDecodedLazily() throws IOException {
+		Path path = this.dir.resolve("lazy.nmba");
+		ColumnFile.write(Table.of(null, IntList.of(new int[] { 1, 2 }), StringList.of("a", "b")), path);
+
+		try (MappedTable table = ColumnFile.open(path)) {
+			assertFalse(table.isLoaded("1"));
+			assertEquals(Arrays.asList("a", "b"), table.getAt("1").string().value);
+			assertTrue(table.isLoaded("1"));
+			assertFalse(table.isLoaded("0"));
+		}
+	}
+
+	@Test
+	void closedTableRejectsAccess() throws IOException {
+		MappedTable table = this.roundTrip(columns(false));
+		table.close();
+
+		assertTrue(table.isClosed());
+		assertThrows(IllegalStateException.class, () -> table.getAt("0"));
+	}
+
+	@Test
+	void emptyTable() throws IOException {
+		List<NambaList> columns = Arrays.asList(IntList.of(new int[0]), StringList.of(), Mask.of(new boolean[0]));
+		try (MappedTable table = this.roundTrip(columns)) {
+			assertEquals(0, table.size());
+			assertColumnsEqual(columns, table);
+		}
+	}
+
+	@Test
+	void rejectsUnsupportedColumns() {
+		NambaList objects = new DataList<>(DataType.OBJECT, Arrays.asList(new Object(), new Object()));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> ColumnFile.write(Table.of(null, objects), this.dir.resolve("objects.nmba")));
+	}
+
+	@Test
+	void rejectsOtherFiles() throws IOException {
+		Path path = this.dir.resolve("other.nmba");
+		Files.write(path, new byte[64]);
+
+		assertThrows(IOException.class, () -> ColumnFile.open(path));
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks cardinality estimates against the sketch's documented relative
+ * standard error. Bounds are four standard errors, so a correct sketch fails
+ * them with negligible probability.
+ *
+ * @author Ernest Kiwele
+ */
+class HyperLogLogTest {
+
+	private static void assertWithinError(long expected, HyperLogLog sketch) {
+		double error = Math.abs(sketch.estimate() - expected) / (double) expected;
+		assertTrue(error <= 4 * sketch.relativeError(),
+				"estimate " + sketch.estimate() + " for " + expected + ", relative error " + error);
+	}
+
+	@Test
+	void estimatesWithinErrorBounds() {
+		for (int precision : new int[] { 10, HyperLogLog.DEFAULT_PRECISION }) {
+			for (int n : new int[] { 100, 10_000, 1_000_000 }) {
+				HyperLogLog sketch = HyperLogLog.of(precision);
+				for (long i = 0; i < n; i++)
+					sketch.add(i * 31 + 7);
+
+				assertWithinError(n, sketch);
+			}
+		}
+	}
+
+	@Test
+	void duplicatesDoNotCount() {
+		HyperLogLog once = HyperLogLog.of();
+		HyperLogLog repeated = HyperLogLog.of();
+		for (int i = 0; i < 50_000; i++) {
+			once.add(i);
+			repeated.add(i).add(i).add(i);
+		}
+
+		assertEquals(once.estimate(), repeated.estimate());
+		assertWithinError(50_000, repeated);
+	}
+
+	@Test
+	void valueTypes() {
+		HyperLogLog doubles = HyperLogLog.of();
+		HyperLogLog strings = HyperLogLog.of();
+		for (int i = 0; i < 20_000; i++) {
+			doubles.add(i / 8.0);
+			strings.add("value-" + i);
+		}
+
+		assertWithinError(20_000, doubles);
+		assertWithinError(20_000, strings);
+	}
+
+	@Test
+	void mergeEstimatesUnion() {
+		HyperLogLog a = HyperLogLog.of();
+		HyperLogLog b = HyperLogLog.of();
+		for (long i = 0; i < 60_000; i++)
+			a.add(i);
+		for (long i = 30_000; i < 100_000; i++)
+			b.add(i);
+
+		assertWithinError(100_000, a.merge(b));
+	}
+
+	@Test
+	void mergeRejectsOtherPrecisions() {
+		assertThrows(IllegalArgumentException.class, () -> HyperLogLog.of(10).merge(HyperLogLog.of(12)));
+	}
+
+	@Test
+	void bytesRoundTrip() {
+		HyperLogLog sketch = HyperLogLog.of(12);
+		for (long i = 0; i < 10_000; i++)
+			sketch.add(i);
+
+		HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+		assertEquals(sketch.precision(), copy.precision());
+		assertEquals(sketch.estimate(), copy.estimate());
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks word-at-a-time mask operations against element-wise results, at
+ * lengths that end inside a word.
+ *
+ * @author Ernest Kiwele
+ */
+class MaskTest {
+
+	private static final int[] SIZES = { 0, 1, 63, 64, 65, 127, 130 };
+
+	private static boolean[] random(int size, long seed) {
+		Random random = new Random(seed);
+		boolean[] b = new boolean[size];
+		for (int i = 0; i < size; i++)
+			b[i] = random.nextBoolean();
+		return b;
+	}
+
+	private static int count(boolean[] b) {
+		int c = 0;
+		for (boolean v : b) {
+			if (v)
+				c++;
+		}
+		return c;
+	}
+
+	@Test
+	void binaryOperations() {
+		for (int size : SIZES) {
+			boolean[] a = random(size, size);
+			boolean[] b = random(size, size + 1L);
+			boolean[] and = new boolean[size];
+			boolean[] or = new boolean[size];
+			boolean[] xor = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				and[i] = a[i] && b[i];
+				or[i] = a[i] || b[i];
+				xor[i] = a[i] ^ b[i];
+			}
+
+			assertArrayEquals(and, Mask.of(a).and(Mask.of(b)).toArray(), "and, size " + size);
+			assertArrayEquals(or, Mask.of(a).or(Mask.of(b)).toArray(), "or, size " + size);
+			assertArrayEquals(xor, Mask.of(a).xor(Mask.of(b)).toArray(), "xor, size " + size);
+		}
+	}
+
+	@Test
+	void negateClearsBitsPastTheEnd() {
+		for (int size : SIZES) {
+			boolean[] a = random(size, size);
+			Mask negated = Mask.of(a).negate();
+
+			assertEquals(size - count(a), negated.trueCount(), "size " + size);
+			for (int i = 0; i < size; i++)
+				assertEquals(!a[i], negated.getAt(i));
+
+			assertEquals(size, Mask.falses(size).negate().trueCount());
+			assertTrue(Mask.falses(size).negate().all(), "size " + size);
+		}
+	}
+
+	@Test
+	void counts() {
+		for (int size : SIZES) {
+			boolean[] a = random(size, size);
+			Mask m = Mask.of(a);
+
+			assertEquals(count(a), m.trueCount(), "size " + size);
+			assertEquals(size - count(a), m.falseCount(), "size " + size);
+			assertEquals(size, Mask.trues(size).trueCount());
+			assertEquals(0, Mask.falses(size).trueCount());
+		}
+	}
+
+	@Test
+	void allAnyNone() {
+		for (int size : SIZES) {
+			if (0 == size)
+				continue;
+
+			assertTrue(Mask.trues(size).all(), "size " + size);
+			assertFalse(Mask.falses(size).any(), "size " + size);
+			assertTrue(Mask.falses(size).none(), "size " + size);
+
+			Mask lastFalse = Mask.of(size, i -> i != size - 1);
+			assertFalse(lastFalse.all(), "size " + size);
+			assertTrue(lastFalse.anyFalse(), "size " + size);
+
+			Mask lastTrue = Mask.of(size, i -> i == size - 1);
+			assertTrue(lastTrue.any(), "size " + size);
+		}
+	}
+
+	@Test
+	void nextSetAndClearBit() {
+		for (int size : SIZES) {
+			boolean[] a = random(size, size);
+			Mask m = Mask.of(a);
+
+			for (int from = 0; from <= size; from++) {
+				int set = -1;
+				int clear = -1;
+				for (int i = size - 1; i >= from; i--) {
+					if (a[i])
+						set = i;
+					else
+						clear = i;
+				}
+				assertEquals(set, m.nextSetBit(from), "size " + size + ", from " + from);
+				assertEquals(clear, m.nextClearBit(from), "size " + size + ", from " + from);
+			}
+		}
+	}
+
+	@Test
+	void rangesAtUnalignedOffsets() {
+		boolean[] a = random(130, 7);
+		Mask m = Mask.of(a);
+
+		for (int from : new int[] { 0, 1, 3, 63, 64, 65, 100 }) {
+			for (int to = from; to <= a.length; to += 13) {
+				boolean[] expected = new boolean[to - from];
+				System.arraycopy(a, from, expected, 0, expected.length);
+
+				Mask range = m.getAt(from, to);
+				assertArrayEquals(expected, range.toArray(), "[" + from + ", " + to + ")");
+				assertEquals(count(expected), range.trueCount(), "[" + from + ", " + to + ")");
+			}
+		}
+	}
+
+	@Test
+	void repeat() {
+		for (int size : new int[] { 1, 63, 65 }) {
+			boolean[] a = random(size, size);
+			boolean[] expected = new boolean[3 * size];
+			for (int r = 0; r < 3; r++)
+				System.arraycopy(a, 0, expected, r * size, size);
+
+			assertArrayEquals(expected, Mask.of(a).repeat(3).toArray(), "size " + size);
+		}
+	}
+}
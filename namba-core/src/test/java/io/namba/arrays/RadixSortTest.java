@@ -0,0 +1,155 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares radix sorts and argsorts with a stable comparison sort, in both
+ * directions. Values are drawn from small ranges so that ties are common.
+ *
+ * @author Ernest Kiwele
+ */
+class RadixSortTest {
+
+	/*
+	 * Stable comparison argsort: Arrays.sort on objects is a merge sort.
+	 */
+	private static int[] expectedOrder(int size, Comparator<Integer> order) {
+		Integer[] idx = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+		Arrays.sort(idx, order);
+		return Arrays.stream(idx).mapToInt(Integer::intValue).toArray();
+	}
+
+	private static int[] ints(int size, long seed) {
+		Random random = new Random(seed);
+		int[] a = new int[size];
+		for (int i = 0; i < size; i++)
+			a[i] = random.nextInt(64) - 32 + (random.nextInt(8) == 0 ? Integer.MIN_VALUE / 2 : 0);
+		a[0] = Integer.MIN_VALUE;
+		a[size - 1] = Integer.MAX_VALUE;
+		return a;
+	}
+
+	private static long[] longs(int size, long seed) {
+		Random random = new Random(seed);
+		long[] a = new long[size];
+		for (int i = 0; i < size; i++)
+			a[i] = (random.nextInt(64) - 32) * (random.nextBoolean() ? 1L << 40 : 1L);
+		a[0] = Long.MIN_VALUE;
+		a[size - 1] = Long.MAX_VALUE;
+		return a;
+	}
+
+	private static double[] doubles(int size, long seed) {
+		double[] special = { Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.MIN_VALUE, -Double.MAX_VALUE };
+		Random random = new Random(seed);
+		double[] a = new double[size];
+		for (int i = 0; i < size; i++) {
+			a[i] = random.nextInt(10) == 0 ? special[random.nextInt(special.length)] : (random.nextInt(64) - 32) / 4.0;
+		}
+		return a;
+	}
+
+	/*
+	 * -0.0 ties with 0.0 and NaN sorts last in both directions.
+	 */
+	private static Comparator<Integer> doubleOrder(double[] a, boolean descending) {
+		return (i, j) -> {
+			double x = a[i] + 0.0;
+			double y = a[j] + 0.0;
+			if (Double.isNaN(x) || Double.isNaN(y))
+				return Boolean.compare(Double.isNaN(x), Double.isNaN(y));
+			return descending ? Double.compare(y, x) : Double.compare(x, y);
+		};
+	}
+
+	@Test
+	void intArgSortIsStable() {
+		for (int size : new int[] { 2, 255, 1000 }) {
+			int[] a = ints(size, size);
+			Comparator<Integer> asc = Comparator.comparingInt(i -> a[i]);
+
+			assertArrayEquals(expectedOrder(a.length, asc), RadixSort.argSort(a, false), "size " + size);
+			assertArrayEquals(expectedOrder(a.length, (i, j) -> asc.compare(j, i)), RadixSort.argSort(a, true),
+					"size " + size);
+		}
+	}
+
+	@Test
+	void longArgSortIsStable() {
+		long[] a = longs(1000, 1);
+		Comparator<Integer> asc = Comparator.comparingLong(i -> a[i]);
+
+		assertArrayEquals(expectedOrder(a.length, asc), RadixSort.argSort(a, false));
+		assertArrayEquals(expectedOrder(a.length, (i, j) -> asc.compare(j, i)), RadixSort.argSort(a, true));
+	}
+
+	@Test
+	void doubleArgSortIsStable() {
+		double[] a = doubles(1000, 2);
+
+		assertArrayEquals(expectedOrder(a.length, doubleOrder(a, false)), RadixSort.argSort(a, false));
+		assertArrayEquals(expectedOrder(a.length, doubleOrder(a, true)), RadixSort.argSort(a, true));
+	}
+
+	@Test
+	void sortInPlace() {
+		int[] ints = ints(1000, 3);
+		int[] sortedInts = ints.clone();
+		Arrays.sort(sortedInts);
+		int[] descendingInts = ints.clone();
+		RadixSort.sort(ints, false);
+		RadixSort.sort(descendingInts, true);
+
+		assertArrayEquals(sortedInts, ints);
+		assertArrayEquals(IntStream.range(0, sortedInts.length).map(i -> sortedInts[sortedInts.length - 1 - i])
+				.toArray(), descendingInts);
+
+		long[] longs = longs(1000, 4);
+		long[] sortedLongs = longs.clone();
+		Arrays.sort(sortedLongs);
+		long[] descendingLongs = longs.clone();
+		RadixSort.sort(longs, false);
+		RadixSort.sort(descendingLongs, true);
+
+		assertArrayEquals(sortedLongs, longs);
+		int n = sortedLongs.length;
+		assertArrayEquals(IntStream.range(0, n).mapToLong(i -> sortedLongs[n - 1 - i]).toArray(), descendingLongs);
+	}
+
+	@Test
+	void parallelArgSortIsStable() {
+		int[] a = ints(100_000, 5);
+		Comparator<Integer> asc = Comparator.comparingInt(i -> a[i]);
+
+		Parallelism.enable(1024);
+		try {
+			assertArrayEquals(expectedOrder(a.length, asc), RadixSort.argSort(a, false));
+			assertArrayEquals(expectedOrder(a.length, (i, j) -> asc.compare(j, i)), RadixSort.argSort(a, true));
+		} finally {
+			Parallelism.disable();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.namba.arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks quantile estimates by their rank error: the difference between the
+ * requested quantile and the fraction of values at or below the estimate. With
+ * the arcsine scale function, a centroid at quantile <code>q</code> spans at
+ * most <code>2&pi; sqrt(q(1 - q)) / compression</code> of the ranks, which
+ * bounds the error of interpolating within it.
+ *
+ * @author Ernest Kiwele
+ */
+class TDigestTest {
+
+	private static final double[] QUANTILES = { 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999 };
+
+	private static double[] sample(int n, DoubleSupplier distribution) {
+		double[] values = new double[n];
+		for (int i = 0; i < n; i++)
+			values[i] = distribution.getAsDouble();
+		return values;
+	}
+
+	private static double rank(double[] sorted, double value) {
+		int i = Arrays.binarySearch(sorted, value);
+		if (i < 0)
+			i = -i - 1;
+		while (i < sorted.length && sorted[i] <= value)
+			i++;
+		return i / (double) sorted.length;
+	}
+
+	private static void assertRankError(double[] values, TDigest digest) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+
+		for (double q : QUANTILES) {
+			double bound = 2 * Math.PI * Math.sqrt(q * (1 - q)) / digest.compression() + 1.0 / values.length;
+			double error = Math.abs(rank(sorted, digest.quantile(q)) - q);
+			assertTrue(error <= bound, "quantile " + q + ": rank error " + error + " over " + bound);
+		}
+	}
+
+	@Test
+	void uniform() {
+		Random random = new Random(1);
+		double[] values = sample(100_000, random::nextDouble);
+
+		assertRankError(values, TDigest.of(values));
+	}
+
+	@Test
+	void skewed() {
+		Random random = new Random(2);
+		double[] values = sample(100_000, () -> -Math.log(1 - random.nextDouble()));
+
+		assertRankError(values, TDigest.of(values));
+	}
+
+	@Test
+	void normalAtHigherCompression() {
+		Random random = new Random(3);
+		double[] values = sample(100_000, random::nextGaussian);
+		TDigest digest = TDigest.of(500);
+		for (double v : values)
+			digest.add(v);
+
+		assertRankError(values, digest);
+	}
+
+	@Test
+	void mergedPartitions() {
+		Random random = new Random(4);
+		double[] values = sample(100_000, random::nextGaussian);
+		TDigest digest = TDigest.of();
+		for (int from = 0; from < values.length; from += 10_000) {
+			TDigest part = TDigest.of();
+			for (int i = from; i < from + 10_000; i++)
+				part.add(values[i]);
+			digest.merge(part);
+		}
+
+		assertEquals(values.length, digest.count());
+		assertRankError(values, digest);
+	}
+
+	@Test
+	void extremesAreExact() {
+		Random random = new Random(5);
+		double[] values = sample(10_000, random::nextGaussian);
+		TDigest digest = TDigest.of(values);
+
+		assertEquals(Arrays.stream(values).min().getAsDouble(), digest.quantile(0));
+		assertEquals(Arrays.stream(values).max().getAsDouble(), digest.quantile(1));
+		assertEquals(digest.min(), digest.quantile(0));
+		assertEquals(digest.max(), digest.quantile(1));
+	}
+
+	@Test
+	void centroidsStayBounded() {
+		Random random = new Random(6);
+		TDigest digest = TDigest.of(sample(100_000, random::nextDouble));
+
+		assertTrue(digest.centroidCount() <= 2 * digest.compression(), "centroids: " + digest.centroidCount());
+	}
+
+	@Test
+	void empty() {
+		assertTrue(Double.isNaN(TDigest.of().quantile(0.5)));
+		assertEquals(0, TDigest.of().count());
+	}
+}